@@ -61,7 +61,7 @@ chrome.alarms.onAlarm.addListener((alarm) => {
     if (alarm.name === 'cookieSync') {
         performAutoSync().catch(error => {
             console.error('自动同步失败:', error);
-        });
+        }).finally(() => scheduleSync());
     }
 });
 
@@ -84,6 +84,13 @@ chrome.runtime.onMessage.addListener((request, sender, sendResponse) => {
             });
             return true;
             
+        case 'rescheduleSync':
+            scheduleSync().then(sendResponse).catch(error => {
+                console.error('重新安排同步任务失败:', error);
+                sendResponse({ error: error.message });
+            });
+            return true;
+            
         case 'performSync':
             performAutoSync().then(sendResponse).catch(error => {
                 console.error('执行同步失败:', error);
@@ -208,11 +215,90 @@ function isIpAddress(str) {
     return ipv4Regex.test(str);
 }
 
-// 执行自动同步
+// 同步频率对应的周期（分钟）
+const SYNC_PERIOD_MINUTES = {
+    hourly: 60,
+    daily: 24 * 60,
+    weekly: 7 * 24 * 60
+};
+
+// 按服务端建议的间隔安排下一次同步，在 ±jitter 内随机偏移，避免大量扩展同时触发
+// 用户选择的同步频率作为后续周期，未收到建议时与原有行为一致
+async function scheduleSync() {
+    const { cookieSyncSettings } = await chrome.storage.sync.get(['cookieSyncSettings']);
+    const periodInMinutes = SYNC_PERIOD_MINUTES[(cookieSyncSettings || DEFAULT_SETTINGS).syncFreq];
+    if (!periodInMinutes) {
+        return { success: true, message: '手动模式不安排同步任务' };
+    }
+
+    const { syncHint } = await chrome.storage.local.get(['syncHint']);
+    let delayInMinutes = periodInMinutes;
+    if (syncHint && syncHint.interval > 0) {
+        const offset = (Math.random() * 2 - 1) * (syncHint.jitter || 0);
+        delayInMinutes = Math.max(1, (syncHint.interval + offset) / 60);
+    }
+
+    await chrome.alarms.clear('cookieSync');
+    chrome.alarms.create('cookieSync', { delayInMinutes, periodInMinutes });
+    console.log('下一次同步将在', Math.round(delayInMinutes), '分钟后执行');
+    return { success: true, delayInMinutes };
+}
+
+// 执行自动同步：与弹窗的上传流程一致，将浏览器Cookie上传到服务器
 async function performAutoSync() {
     console.log('开始自动同步...');
-    // 这里可以添加自动同步逻辑
-    return { success: true, message: '自动同步完成' };
+    const { cookieSyncSettings } = await chrome.storage.sync.get(['cookieSyncSettings']);
+    const settings = cookieSyncSettings || DEFAULT_SETTINGS;
+    const serverUrl = settings.serverUrl || DEFAULT_SETTINGS.serverUrl;
+    const userId = settings.userId || DEFAULT_SETTINGS.userId;
+
+    const cookies = await getAllCookies();
+    const data = JSON.stringify(cookies);
+
+    // 浏览器支持 CompressionStream 时以 gzip 压缩请求体，否则发送原文
+    const headers = { 'Content-Type': 'application/json', traceparent: createTraceparent() };
+    let body = data;
+    if (typeof CompressionStream !== 'undefined') {
+        const stream = new Blob([data]).stream().pipeThrough(new CompressionStream('gzip'));
+        body = await new Response(stream).arrayBuffer();
+        headers['Content-Encoding'] = 'gzip';
+    }
+
+    const response = await fetch(`${serverUrl}/api/cookies/upload?userId=${userId}`, {
+        method: 'POST',
+        headers,
+        body
+    });
+    console.log('自动同步请求链路ID:', headers.traceparent.split('-')[1]);
+
+    if (!response.ok) {
+        const errorText = await response.text();
+        throw new Error(`服务器错误: ${response.status} - ${errorText}`);
+    }
+
+    await saveSyncHint(response);
+    await chrome.storage.local.set({ lastSyncTime: Date.now() });
+    const result = await response.json();
+    console.log('自动同步完成，Cookie数量:', cookies.length);
+    return { success: true, message: '自动同步完成', cookieCount: cookies.length, data: result.data };
+}
+
+// 保存服务端建议的同步间隔（秒）并按该间隔重新安排定时任务，与弹窗中的 saveSyncHint 一致
+async function saveSyncHint(response) {
+    const interval = parseInt(response.headers.get('X-Sync-Interval'), 10);
+    if (!interval) {
+        return;
+    }
+    const jitter = parseInt(response.headers.get('X-Sync-Jitter'), 10) || 0;
+    await chrome.storage.local.set({ syncHint: { interval, jitter } });
+    await scheduleSync();
+}
+
+// 为每次同步请求生成W3C traceparent，服务端Span与该请求属于同一条链路
+function createTraceparent() {
+    const hex = (bytes) => Array.from(crypto.getRandomValues(new Uint8Array(bytes)),
+        (b) => b.toString(16).padStart(2, '0')).join('');
+    return `00-${hex(16)}-${hex(8)}-01`;
 }
 
 console.log('Service Worker初始化完成');
\ No newline at end of file
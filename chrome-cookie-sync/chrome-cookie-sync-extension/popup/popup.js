@@ -305,19 +305,30 @@ class CookieSyncPopup {
         console.log('Cookie数据长度:', data.length);
         console.log('Cookie数据前100个字符:', data.substring(0, 100));
         
+        // 浏览器支持 CompressionStream 时以 gzip 压缩请求体，否则发送原文
+        const traceparent = this.createTraceparent();
+        const headers = { 'Content-Type': 'application/json', traceparent };
+        let body = data;  // 直接发送加密后的Base64字符串
+        if (typeof CompressionStream !== 'undefined') {
+            const stream = new Blob([data]).stream().pipeThrough(new CompressionStream('gzip'));
+            body = await new Response(stream).arrayBuffer();
+            headers['Content-Encoding'] = 'gzip';
+            console.log('压缩后请求体长度:', body.byteLength);
+        }
+        
         const response = await fetch(`${serverUrl}/api/cookies/upload?userId=${userId}`, {
             method: 'POST',
-            headers: {
-                'Content-Type': 'application/json',
-            },
-            body: data  // 直接发送加密后的Base64字符串
+            headers,
+            body
         });
+        this.logTrace('上传', traceparent, response);
 
         if (!response.ok) {
             const errorText = await response.text();
             throw new Error(`服务器错误: ${response.status} - ${errorText}`);
         }
 
+        this.saveSyncHint(response);
         return await response.json();
     }
 
@@ -326,28 +337,74 @@ class CookieSyncPopup {
         const serverUrl = settings.serverUrl || 'http://localhost:8080';
         const userId = settings.userId || 'anonymous';
         
-        const response = await fetch(`${serverUrl}/api/cookies/download?userId=${userId}`, {
+        // 携带上次获取到的数据版本，服务端只读副本落后时会改读主库
+        const knownVersion = await this.getKnownVersion();
+        const versionParam = knownVersion ? `&version=${knownVersion}` : '';
+
+        // 原始数据接口直接返回Cookie JSON（GZIP传输由浏览器自动解压），元数据在响应头中
+        const traceparent = this.createTraceparent();
+        const response = await fetch(`${serverUrl}/api/cookies/download/raw?userId=${userId}${versionParam}`, {
             method: 'GET',
-            headers: {
-                'Content-Type': 'application/json',
-            }
+            headers: { traceparent }
         });
+        this.logTrace('下载', traceparent, response);
 
         if (!response.ok) {
             const errorText = await response.text();
             throw new Error(`服务器错误: ${response.status} - ${errorText}`);
         }
 
-        const result = await response.json();
-        console.log('服务器响应结构:', {
-            hasData: !!result.data,
-            dataType: typeof result.data,
-            hasEncryptedData: !!(result.data && result.data.encryptedData),
-            dataKeys: result.data ? Object.keys(result.data) : []
+        console.log('服务器响应元数据:', {
+            version: response.headers.get('X-Cookie-Version'),
+            cookieCount: response.headers.get('X-Cookie-Count'),
+            dataSize: response.headers.get('X-Cookie-Data-Size')
         });
+
+        const version = response.headers.get('X-Cookie-Version');
+        if (version) {
+            chrome.storage.local.set({ knownVersion: parseInt(version, 10) });
+        }
+        this.saveSyncHint(response);
         
-        // 返回完整的响应数据，让decryptData函数处理
-        return result;
+        // 返回Cookie JSON字符串，让decryptData函数处理
+        return await response.text();
+    }
+
+    // 为每次同步请求生成W3C traceparent，服务端Span与该请求属于同一条链路
+    createTraceparent() {
+        const hex = (bytes) => Array.from(crypto.getRandomValues(new Uint8Array(bytes)),
+            (b) => b.toString(16).padStart(2, '0')).join('');
+        return `00-${hex(16)}-${hex(8)}-01`;
+    }
+
+    // 输出链路ID，可用于在服务端 /api/system/traces?traceId= 查询该请求的耗时分解
+    logTrace(operation, traceparent, response) {
+        const traceId = traceparent.split('-')[1];
+        console.log(`${operation}请求链路ID:`, traceId, '服务端采样:', response.headers.has('traceresponse'));
+    }
+
+    saveSyncHint(response) {
+        // 服务端根据数据变化频率和负载给出的下次同步间隔（秒），由后台按该间隔重新安排定时任务
+        const interval = parseInt(response.headers.get('X-Sync-Interval'), 10);
+        if (!interval) {
+            return;
+        }
+        const jitter = parseInt(response.headers.get('X-Sync-Jitter'), 10) || 0;
+        chrome.storage.local.set({ syncHint: { interval, jitter } }, () => {
+            chrome.runtime.sendMessage({ action: 'rescheduleSync' }, () => {
+                if (chrome.runtime.lastError) {
+                    console.warn('重新安排同步任务失败:', chrome.runtime.lastError.message);
+                }
+            });
+        });
+    }
+
+    async getKnownVersion() {
+        return new Promise((resolve) => {
+            chrome.storage.local.get(['knownVersion'], (result) => {
+                resolve(result.knownVersion || null);
+            });
+        });
     }
 
     async restoreCookies(cookieData) {
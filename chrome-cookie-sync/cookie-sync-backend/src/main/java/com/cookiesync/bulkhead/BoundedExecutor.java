@@ -0,0 +1,70 @@
+package com.cookiesync.bulkhead;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 有界线程池
+ * 线程数与队列长度固定，队列满时拒绝或丢弃任务，不会无限堆积，也不会回退到调用方线程执行
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public class BoundedExecutor extends ThreadPoolExecutor {
+
+    private final String name;
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    /**
+     * @param name 线程池名称
+     * @param threads 线程数
+     * @param queueCapacity 队列长度
+     * @param discardWhenFull 队列满时是否静默丢弃；否则抛出 RejectedExecutionException
+     */
+    public BoundedExecutor(String name, int threads, int queueCapacity, boolean discardWhenFull) {
+        super(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity), daemonThreads(name));
+        this.name = name;
+        setRejectedExecutionHandler((runnable, executor) -> {
+            rejectedCount.incrementAndGet();
+            if (!discardWhenFull) {
+                throw new RejectedExecutionException(name + " 线程池已满");
+            }
+        });
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 线程池使用情况
+     */
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("poolSize", getMaximumPoolSize());
+        metrics.put("activeThreads", getActiveCount());
+        metrics.put("queueSize", getQueue().size());
+        metrics.put("queueRemaining", getQueue().remainingCapacity());
+        metrics.put("completedTasks", getCompletedTaskCount());
+        metrics.put("rejectedTasks", rejectedCount.get());
+        metrics.put("utilization", (double) getActiveCount() / getMaximumPoolSize());
+        return metrics;
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
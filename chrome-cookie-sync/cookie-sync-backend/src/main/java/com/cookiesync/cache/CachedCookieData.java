@@ -0,0 +1,56 @@
+package com.cookiesync.cache;
+
+import com.cookiesync.entity.CookieData;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.BeanUtils;
+
+/**
+ * Redis中的Cookie数据缓存条目
+ * 除数据本身外记录加载耗时和逻辑过期时间，用于提前刷新；数据为空表示用户不存在（负缓存）
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CachedCookieData {
+
+    /**
+     * Cookie数据，为空表示数据库中没有该用户的数据
+     */
+    private CookieData data;
+
+    /**
+     * 加载该条目所用的时间（毫秒）
+     */
+    private long loadMillis;
+
+    /**
+     * 条目过期时间（毫秒时间戳），与Redis中的TTL一致
+     */
+    private long expireAt;
+
+    /**
+     * 是否为负缓存条目
+     */
+    @JsonIgnore
+    public boolean isNegative() {
+        return data == null;
+    }
+
+    /**
+     * 复制条目，调用方可能修改返回的数据，共享同一条目的请求各自持有一份副本
+     */
+    public CachedCookieData copy() {
+        CookieData dataCopy = null;
+        if (data != null) {
+            dataCopy = new CookieData();
+            BeanUtils.copyProperties(data, dataCopy);
+        }
+        return new CachedCookieData(dataCopy, loadMillis, expireAt);
+    }
+}
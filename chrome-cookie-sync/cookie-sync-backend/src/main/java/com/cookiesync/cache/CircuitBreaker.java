@@ -0,0 +1,161 @@
+package com.cookiesync.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 熔断器
+ * <ul>
+ *     <li>CLOSED：正常调用，连续失败达到阈值后熔断</li>
+ *     <li>OPEN：直接走降级逻辑，熔断时间结束后进入半开</li>
+ *     <li>HALF_OPEN：只放行一个探测请求，成功则恢复，失败则重新熔断</li>
+ * </ul>
+ * 调用超时按成功调用耗时的指数移动平均自适应调整，限制在[最小超时, 最大超时]之间；
+ * 大数据量的调用在此之上按数据量放宽超时，其耗时主要取决于传输与序列化，不计入平均耗时。
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final double EWMA_ALPHA = 0.2;
+
+    /**
+     * 超过该数据量的调用不计入平均耗时
+     */
+    public static final long LARGE_PAYLOAD_BYTES = 256 * 1024;
+
+    private static final long BYTES_PER_MB = 1024 * 1024;
+
+    private final String name;
+
+    private final int failureThreshold;
+
+    private final long openMillis;
+
+    private final long minTimeoutMillis;
+
+    private final long maxTimeoutMillis;
+
+    private final double timeoutMultiplier;
+
+    private final long timeoutPerMbMillis;
+
+    private final Runnable onRecovered;
+
+    private final AtomicBoolean probing = new AtomicBoolean();
+
+    private volatile State state = State.CLOSED;
+
+    private volatile long openedAt;
+
+    private volatile double avgLatencyMillis;
+
+    private int consecutiveFailures;
+
+    public CircuitBreaker(String name, int failureThreshold, long openMillis, long minTimeoutMillis,
+                          long maxTimeoutMillis, double timeoutMultiplier, long timeoutPerMbMillis, Runnable onRecovered) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.minTimeoutMillis = minTimeoutMillis;
+        this.maxTimeoutMillis = maxTimeoutMillis;
+        this.timeoutMultiplier = timeoutMultiplier;
+        this.timeoutPerMbMillis = timeoutPerMbMillis;
+        this.onRecovered = onRecovered;
+        this.avgLatencyMillis = minTimeoutMillis / timeoutMultiplier;
+    }
+
+    /**
+     * 是否允许本次调用；熔断时间结束后只放行一个探测请求
+     */
+    public boolean allowRequest() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+            synchronized (this) {
+                if (state == State.OPEN) {
+                    state = State.HALF_OPEN;
+                    log.info("熔断器进入半开状态 - {}", name);
+                }
+            }
+        }
+        return state == State.HALF_OPEN && probing.compareAndSet(false, true);
+    }
+
+    /**
+     * 记录成功调用及其耗时
+     */
+    public void recordSuccess(long latencyMillis) {
+        recordSuccess(latencyMillis, 0);
+    }
+
+    /**
+     * 记录成功调用，大数据量调用只用于恢复状态，不计入平均耗时
+     */
+    public void recordSuccess(long latencyMillis, long payloadBytes) {
+        if (payloadBytes <= LARGE_PAYLOAD_BYTES) {
+            avgLatencyMillis = avgLatencyMillis + EWMA_ALPHA * (latencyMillis - avgLatencyMillis);
+        }
+        boolean recovered;
+        synchronized (this) {
+            consecutiveFailures = 0;
+            recovered = state != State.CLOSED;
+            state = State.CLOSED;
+            probing.set(false);
+        }
+        if (recovered) {
+            log.info("熔断器恢复 - {}", name);
+            onRecovered.run();
+        }
+    }
+
+    /**
+     * 记录失败调用（异常或超时）
+     */
+    public void recordFailure(Throwable cause) {
+        synchronized (this) {
+            consecutiveFailures++;
+            if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+                state = State.OPEN;
+                openedAt = System.currentTimeMillis();
+                log.warn("熔断器打开 - {}, 连续失败: {}, 错误: {}", name, consecutiveFailures, cause.toString());
+            }
+            probing.set(false);
+        }
+    }
+
+    /**
+     * 当前调用超时：平均耗时乘以系数，限制在最小与最大超时之间
+     */
+    public long currentTimeoutMillis() {
+        long timeout = Math.round(avgLatencyMillis * timeoutMultiplier);
+        return Math.max(minTimeoutMillis, Math.min(maxTimeoutMillis, timeout));
+    }
+
+    /**
+     * 按数据量放宽的调用超时：超过大数据量阈值时每MB增加固定时间
+     */
+    public long currentTimeoutMillis(long payloadBytes) {
+        long timeout = currentTimeoutMillis();
+        if (payloadBytes > LARGE_PAYLOAD_BYTES) {
+            timeout += (payloadBytes * timeoutPerMbMillis + BYTES_PER_MB - 1) / BYTES_PER_MB;
+        }
+        return timeout;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public double getAvgLatencyMillis() {
+        return avgLatencyMillis;
+    }
+}
@@ -0,0 +1,696 @@
+package com.cookiesync.cache;
+
+import com.cookiesync.entity.CookieData;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Cookie数据缓存（cookie: 键空间）
+ * <ul>
+ *     <li>同一用户的并发未命中只由一个请求加载，其余请求等待其结果</li>
+ *     <li>按XFetch算法在过期前概率性提前刷新，加载越慢、越接近过期，提前刷新的概率越高</li>
+ *     <li>TTL加入随机抖动，且不超过数据本身的过期时间</li>
+ *     <li>不存在的用户（如默认的 anonymous）写入短TTL的负缓存</li>
+ * </ul>
+ * Redis被清空或重启后，请求不会同时落到数据库上。
+ * <p>
+ * 所有Redis调用经过熔断器并使用自适应超时，大数据量的读写按数据量放宽超时（读取时按最近一次读写的数据量估计），
+ * Redis故障时切换为本地缓存加数据库，缓存操作不会使同步失败；
+ * 故障期间未能写入Redis的失效操作进入队列，Redis恢复后统一删除对应的键。
+ * <p>
+ * 开启堆外缓存时，在Redis之前增加一层本地缓存，加密数据存放在直接内存中，命中时不访问Redis。
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Component
+public class CookieDataCache {
+
+    public static final String KEY_PREFIX = "cookie:";
+
+    private static final int REPLAY_BATCH_SIZE = 100;
+
+    /**
+     * 记录数据量的大条目数上限，超过后新的大条目按小条目的超时读取
+     */
+    private static final int MAX_SIZE_HINTS = 100000;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private Tracer tracer;
+
+    @Value("${cookie-sync.cache.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${cookie-sync.cache.ttl-jitter-ratio:0.1}")
+    private double ttlJitterRatio;
+
+    @Value("${cookie-sync.cache.negative-ttl-seconds:60}")
+    private long negativeTtlSeconds;
+
+    @Value("${cookie-sync.cache.early-refresh-beta:1.0}")
+    private double earlyRefreshBeta;
+
+    @Value("${cookie-sync.cache.load-timeout:5000}")
+    private long loadTimeout;
+
+    @Value("${cookie-sync.cache.breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${cookie-sync.cache.breaker.open-duration:10000}")
+    private long openDuration;
+
+    @Value("${cookie-sync.cache.breaker.min-timeout:50}")
+    private long minTimeout;
+
+    @Value("${cookie-sync.cache.breaker.max-timeout:500}")
+    private long maxTimeout;
+
+    @Value("${cookie-sync.cache.breaker.timeout-multiplier:4.0}")
+    private double timeoutMultiplier;
+
+    @Value("${cookie-sync.cache.breaker.timeout-per-mb:100}")
+    private long timeoutPerMb;
+
+    @Value("${cookie-sync.cache.breaker.threads:8}")
+    private int redisThreads;
+
+    @Value("${cookie-sync.cache.local.max-entries:10000}")
+    private int localMaxEntries;
+
+    @Value("${cookie-sync.cache.local.ttl-seconds:30}")
+    private long localTtlSeconds;
+
+    @Value("${cookie-sync.cache.invalidation-queue-size:100000}")
+    private int invalidationQueueSize;
+
+    @Value("${cookie-sync.cache.offheap.enabled:false}")
+    private boolean offHeapEnabled;
+
+    @Value("${cookie-sync.cache.offheap.max-mb:256}")
+    private long offHeapMaxMb;
+
+    @Value("${cookie-sync.cache.offheap.slab-mb:16}")
+    private int offHeapSlabMb;
+
+    @Value("${cookie-sync.cache.offheap.min-chunk-kb:4}")
+    private int offHeapMinChunkKb;
+
+    @Value("${cookie-sync.cache.offheap.growth-factor:1.25}")
+    private double offHeapGrowthFactor;
+
+    @Value("${cookie-sync.cache.offheap.max-entries:100000}")
+    private int offHeapMaxEntries;
+
+    @Value("${cookie-sync.cache.offheap.ttl-seconds:30}")
+    private long offHeapTtlSeconds;
+
+    private final Map<String, CompletableFuture<CachedCookieData>> loading = new ConcurrentHashMap<>();
+
+    private final Set<String> pendingInvalidations = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean invalidationOverflow = new AtomicBoolean();
+
+    /**
+     * 大条目最近一次读写的数据量，用于估计读取超时
+     */
+    private final Map<String, Long> largeEntrySizes = new ConcurrentHashMap<>();
+
+    private CircuitBreaker circuitBreaker;
+
+    private LocalCookieCache localCache;
+
+    /**
+     * 未开启堆外缓存时为空
+     */
+    private OffHeapCookieCache offHeapCache;
+
+    private ThreadPoolExecutor redisExecutor;
+
+    @PostConstruct
+    public void init() {
+        circuitBreaker = new CircuitBreaker("redis", failureThreshold, openDuration, minTimeout, maxTimeout,
+                timeoutMultiplier, timeoutPerMb, this::onRedisRecovered);
+        localCache = new LocalCookieCache(localMaxEntries, localTtlSeconds * 1000);
+        if (offHeapEnabled) {
+            offHeapCache = new OffHeapCookieCache(offHeapSlabMb * 1024 * 1024, offHeapMaxMb * 1024 * 1024,
+                    offHeapMinChunkKb * 1024, offHeapGrowthFactor, offHeapMaxEntries, offHeapTtlSeconds * 1000);
+        }
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        redisExecutor = new ThreadPoolExecutor(redisThreads, redisThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(redisThreads * 16), runnable -> {
+                    Thread thread = new Thread(runnable, "redis-cache-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        redisExecutor.shutdownNow();
+    }
+
+    /**
+     * 获取Cookie数据，未命中或需要提前刷新时通过loader加载并回填
+     *
+     * @param userId 用户ID
+     * @param loader 数据库加载逻辑
+     * @return Cookie数据，不存在时返回null
+     */
+    public CookieData get(String userId, Supplier<CookieData> loader) {
+        return get(userId, loader, false);
+    }
+
+    /**
+     * 获取Cookie数据，堆外缓存命中时加密数据以Base64字节（{@link CookieData#getEncryptedBytes()}）返回，
+     * 用于流式下载，不构造加密数据字符串；其他来源的数据仍通过encryptedData返回
+     *
+     * @param userId 用户ID
+     * @param loader 数据库加载逻辑
+     * @return Cookie数据，不存在时返回null
+     */
+    public CookieData getAsBytes(String userId, Supplier<CookieData> loader) {
+        return get(userId, loader, true);
+    }
+
+    private CookieData get(String userId, Supplier<CookieData> loader, boolean asBytes) {
+        CachedCookieData entry = read(userId, asBytes);
+        boolean hit = entry != null && !shouldRefreshEarly(entry);
+        Span.current().setAttribute("cookie.cache.hit", hit);
+        if (hit) {
+            log.debug("从缓存获取Cookie数据 - 用户ID: {}, 负缓存: {}", userId, entry.isNegative());
+            return entry.getData();
+        }
+        return load(userId, loader).getData();
+    }
+
+    /**
+     * 忽略缓存重新加载，用于缓存数据落后于客户端已知版本的情况
+     */
+    public CookieData refresh(String userId, Supplier<CookieData> loader) {
+        return load(userId, loader).getData();
+    }
+
+    /**
+     * 写入最新数据（上传后直写）
+     * 直写条目没有加载耗时，不参与提前刷新，过期后按单飞方式重新加载
+     */
+    public void put(String userId, CookieData cookieData) {
+        write(userId, cookieData, 0);
+    }
+
+    /**
+     * 批量读取缓存条目，先读堆外缓存，其余键一次MGET读取，Redis不可用时读取本地缓存
+     * 用于批量查询，不参与单飞加载和提前刷新
+     *
+     * @param userIds 用户ID
+     * @return 命中的条目（含负缓存），未命中的用户不在结果中
+     */
+    public Map<String, CachedCookieData> getAll(Collection<String> userIds) {
+        Map<String, CachedCookieData> hits = new HashMap<>();
+        List<String> remaining = new ArrayList<>(userIds.size());
+        for (String userId : userIds) {
+            CachedCookieData entry = offHeapCache == null ? null : offHeapCache.get(userId);
+            if (entry != null) {
+                hits.put(userId, entry);
+            } else {
+                remaining.add(userId);
+            }
+        }
+        if (remaining.isEmpty()) {
+            return hits;
+        }
+
+        List<String> keys = new ArrayList<>(remaining.size());
+        long payloadBytes = 0;
+        for (String userId : remaining) {
+            keys.add(KEY_PREFIX + userId);
+            payloadBytes += largeEntrySizes.getOrDefault(userId, 0L);
+        }
+        try {
+            List<Object> values = callRedis("MGET", payloadBytes, () -> redisTemplate.opsForValue().multiGet(keys));
+            for (int i = 0; i < remaining.size(); i++) {
+                Object cached = values == null ? null : values.get(i);
+                if (cached instanceof CachedCookieData entry) {
+                    rememberSize(remaining.get(i), entry);
+                    hits.put(remaining.get(i), entry);
+                    if (offHeapCache != null) {
+                        offHeapCache.put(remaining.get(i), entry);
+                    }
+                }
+            }
+        } catch (RedisUnavailableException e) {
+            for (String userId : remaining) {
+                CachedCookieData entry = localCache.get(userId);
+                if (entry != null) {
+                    hits.put(userId, entry);
+                }
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * 批量回填缓存，一次管道写入整批键；值为空时写入负缓存
+     * 回填条目没有单独的加载耗时，与直写条目一样不参与提前刷新
+     */
+    public void putAll(Map<String, CookieData> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        Map<String, CachedCookieData> written = new HashMap<>();
+        Map<String, Long> ttls = new HashMap<>();
+        long payloadBytes = 0;
+        for (Map.Entry<String, CookieData> item : entries.entrySet()) {
+            Duration ttl = ttlFor(item.getValue());
+            CachedCookieData entry = new CachedCookieData(item.getValue(), 0, System.currentTimeMillis() + ttl.toMillis());
+            payloadBytes += rememberSize(item.getKey(), entry);
+            written.put(item.getKey(), entry);
+            ttls.put(item.getKey(), ttl.toMillis());
+            if (offHeapCache != null) {
+                offHeapCache.put(item.getKey(), entry);
+            }
+        }
+        try {
+            @SuppressWarnings("unchecked")
+            RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+            callRedis("SET", payloadBytes, () -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (Map.Entry<String, CachedCookieData> item : written.entrySet()) {
+                    connection.stringCommands().pSetEx((KEY_PREFIX + item.getKey()).getBytes(StandardCharsets.UTF_8),
+                            ttls.get(item.getKey()), valueSerializer.serialize(item.getValue()));
+                }
+                return null;
+            }));
+        } catch (RedisUnavailableException e) {
+            for (Map.Entry<String, CachedCookieData> item : written.entrySet()) {
+                localCache.put(item.getKey(), item.getValue());
+                enqueueInvalidation(item.getKey());
+            }
+        }
+    }
+
+    /**
+     * 删除缓存
+     */
+    public void evict(String userId) {
+        localCache.remove(userId);
+        largeEntrySizes.remove(userId);
+        if (offHeapCache != null) {
+            offHeapCache.remove(userId);
+        }
+        try {
+            callRedis("DEL", 0, () -> redisTemplate.delete(KEY_PREFIX + userId));
+        } catch (RedisUnavailableException e) {
+            enqueueInvalidation(userId);
+        }
+    }
+
+    /**
+     * 只删除进程内缓存（本地缓存与堆外缓存），用于其他节点写入后的跨节点失效，Redis已由写入节点更新
+     */
+    public void evictLocal(Collection<String> userIds) {
+        for (String userId : userIds) {
+            localCache.remove(userId);
+            if (offHeapCache != null) {
+                offHeapCache.remove(userId);
+            }
+        }
+    }
+
+    /**
+     * 批量删除缓存，一次Redis调用删除整批键，用于批量导入等场景
+     */
+    public void evictAll(Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(userIds.size());
+        for (String userId : userIds) {
+            localCache.remove(userId);
+            largeEntrySizes.remove(userId);
+            if (offHeapCache != null) {
+                offHeapCache.remove(userId);
+            }
+            keys.add(KEY_PREFIX + userId);
+        }
+        try {
+            callRedis("DEL", 0, () -> redisTemplate.delete(keys));
+        } catch (RedisUnavailableException e) {
+            userIds.forEach(this::enqueueInvalidation);
+        }
+    }
+
+    /**
+     * 缓存状态，用于健康检查
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("state", circuitBreaker.getState().name());
+        status.put("timeoutMillis", circuitBreaker.currentTimeoutMillis());
+        status.put("avgLatencyMillis", Math.round(circuitBreaker.getAvgLatencyMillis() * 100) / 100.0);
+        status.put("pendingInvalidations", pendingInvalidations.size());
+        status.put("invalidationOverflow", invalidationOverflow.get());
+        status.put("localEntries", localCache.size());
+        if (offHeapCache != null) {
+            status.put("offHeap", offHeapCache.getStatus());
+        }
+        return status;
+    }
+
+    /**
+     * 读取缓存条目，先读堆外缓存，Redis不可用时读取本地缓存
+     */
+    private CachedCookieData read(String userId, boolean asBytes) {
+        if (offHeapCache != null) {
+            CachedCookieData entry = offHeapCache.get(userId, asBytes);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        try {
+            Object cached = callRedis("GET", largeEntrySizes.getOrDefault(userId, 0L),
+                    () -> redisTemplate.opsForValue().get(KEY_PREFIX + userId));
+            if (cached instanceof CachedCookieData entry) {
+                rememberSize(userId, entry);
+                if (offHeapCache != null) {
+                    offHeapCache.put(userId, entry);
+                }
+                return entry;
+            }
+            return null;
+        } catch (RedisUnavailableException e) {
+            return localCache.get(userId);
+        }
+    }
+
+    /**
+     * 单飞加载：同一用户同时只有一个请求执行loader
+     */
+    private CachedCookieData load(String userId, Supplier<CookieData> loader) {
+        CompletableFuture<CachedCookieData> future = new CompletableFuture<>();
+        CompletableFuture<CachedCookieData> inFlight = loading.putIfAbsent(userId, future);
+        if (inFlight != null) {
+            CachedCookieData entry = await(userId, inFlight);
+            if (entry != null) {
+                return entry.copy();
+            }
+            // 等待超时或加载失败时自行加载，不再合并
+            return loadAndWrite(userId, loader);
+        }
+
+        try {
+            CachedCookieData entry = loadAndWrite(userId, loader);
+            future.complete(entry);
+            return entry;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(userId, future);
+        }
+    }
+
+    private CachedCookieData await(String userId, CompletableFuture<CachedCookieData> inFlight) {
+        try {
+            return inFlight.get(loadTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待Cookie数据加载被中断 - 用户ID: " + userId, e);
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("等待Cookie数据加载失败，改为直接加载 - 用户ID: {}, 错误: {}", userId, e.toString());
+            return null;
+        }
+    }
+
+    private CachedCookieData loadAndWrite(String userId, Supplier<CookieData> loader) {
+        long startTime = System.currentTimeMillis();
+        CookieData cookieData = loader.get();
+        long loadMillis = System.currentTimeMillis() - startTime;
+        CachedCookieData entry = write(userId, cookieData, loadMillis);
+        log.debug("从数据库获取Cookie数据并缓存 - 用户ID: {}, 负缓存: {}, 加载耗时: {}ms", userId, cookieData == null, loadMillis);
+        return entry;
+    }
+
+    /**
+     * 写入缓存条目，Redis不可用时写入本地缓存，并在恢复后删除Redis中的旧值
+     */
+    private CachedCookieData write(String userId, CookieData cookieData, long loadMillis) {
+        Duration ttl = ttlFor(cookieData);
+        CachedCookieData entry = new CachedCookieData(cookieData, loadMillis, System.currentTimeMillis() + ttl.toMillis());
+        long payloadBytes = rememberSize(userId, entry);
+        if (offHeapCache != null) {
+            offHeapCache.put(userId, entry);
+        }
+        try {
+            callRedis("SET", payloadBytes, () -> {
+                redisTemplate.opsForValue().set(KEY_PREFIX + userId, entry, ttl.toMillis(), TimeUnit.MILLISECONDS);
+                return null;
+            });
+        } catch (RedisUnavailableException e) {
+            localCache.put(userId, entry);
+            enqueueInvalidation(userId);
+        }
+        return entry;
+    }
+
+    /**
+     * 记录大条目的数据量，返回条目的数据量
+     */
+    private long rememberSize(String userId, CachedCookieData entry) {
+        long size = entry.isNegative() || entry.getData().getDataSize() == null ? 0 : entry.getData().getDataSize();
+        if (size <= CircuitBreaker.LARGE_PAYLOAD_BYTES) {
+            largeEntrySizes.remove(userId);
+        } else if (largeEntrySizes.size() < MAX_SIZE_HINTS || largeEntrySizes.containsKey(userId)) {
+            largeEntrySizes.put(userId, size);
+        }
+        return size;
+    }
+
+    /**
+     * 经熔断器调用Redis，超时按近期耗时自适应，并按数据量放宽；熔断、超时或异常时抛出 RedisUnavailableException
+     * 在接口请求内调用时记录Span，耗时包含排队等待Redis线程的时间
+     *
+     * @param payloadBytes 本次调用读写的数据量（读取时为估计值），用于放宽超时
+     */
+    private <T> T callRedis(String operation, long payloadBytes, Callable<T> call) {
+        if (!Span.current().getSpanContext().isValid()) {
+            return callRedis(payloadBytes, call);
+        }
+        Span span = tracer.spanBuilder("redis " + operation)
+                .setAttribute("db.system", "redis")
+                .setAttribute("db.operation", operation)
+                .startSpan();
+        try {
+            return callRedis(payloadBytes, call);
+        } catch (RedisUnavailableException e) {
+            span.setStatus(StatusCode.ERROR, e.getMessage());
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * 放行后的每条退出路径都记录成功或失败，半开状态下的探测名额总会被释放
+     */
+    private <T> T callRedis(long payloadBytes, Callable<T> call) {
+        if (!circuitBreaker.allowRequest()) {
+            throw new RedisUnavailableException("Redis熔断中", null);
+        }
+
+        long startTime = System.nanoTime();
+        Future<T> future;
+        try {
+            future = redisExecutor.submit(call);
+        } catch (RejectedExecutionException e) {
+            circuitBreaker.recordFailure(e);
+            throw new RedisUnavailableException("Redis调用排队已满", e);
+        }
+
+        try {
+            T result = future.get(circuitBreaker.currentTimeoutMillis(payloadBytes), TimeUnit.MILLISECONDS);
+            circuitBreaker.recordSuccess(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), payloadBytes);
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            circuitBreaker.recordFailure(e);
+            throw new RedisUnavailableException("Redis调用超时", e);
+        } catch (ExecutionException e) {
+            circuitBreaker.recordFailure(e.getCause());
+            throw new RedisUnavailableException("Redis调用失败", e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            circuitBreaker.recordFailure(e);
+            Thread.currentThread().interrupt();
+            throw new RedisUnavailableException("Redis调用被中断", e);
+        } catch (RuntimeException e) {
+            circuitBreaker.recordFailure(e);
+            throw new RedisUnavailableException("Redis调用失败", e);
+        }
+    }
+
+    /**
+     * 记录待失效的键，队列满时改为恢复后全量清理 cookie: 键空间
+     */
+    private void enqueueInvalidation(String userId) {
+        if (pendingInvalidations.size() < invalidationQueueSize) {
+            pendingInvalidations.add(userId);
+        } else if (invalidationOverflow.compareAndSet(false, true)) {
+            log.warn("待失效队列已满，Redis恢复后将清理全部Cookie缓存 - 队列上限: {}", invalidationQueueSize);
+        }
+    }
+
+    /**
+     * Redis恢复后异步重放失效队列，并清空本地缓存
+     */
+    private void onRedisRecovered() {
+        localCache.clear();
+        try {
+            redisExecutor.execute(this::replayInvalidations);
+        } catch (RejectedExecutionException e) {
+            log.warn("失效队列重放任务提交失败，待下次恢复时重放 - 待失效数: {}", pendingInvalidations.size());
+        }
+    }
+
+    private void replayInvalidations() {
+        try {
+            if (invalidationOverflow.getAndSet(false)) {
+                long deleted = deleteAllCookieKeys();
+                pendingInvalidations.clear();
+                log.info("Redis恢复，已清理全部Cookie缓存 - 删除键数: {}", deleted);
+                return;
+            }
+
+            int replayed = 0;
+            List<String> batch = new ArrayList<>(REPLAY_BATCH_SIZE);
+            Iterator<String> iterator = pendingInvalidations.iterator();
+            while (iterator.hasNext()) {
+                batch.add(KEY_PREFIX + iterator.next());
+                iterator.remove();
+                if (batch.size() == REPLAY_BATCH_SIZE || !iterator.hasNext()) {
+                    redisTemplate.delete(batch);
+                    replayed += batch.size();
+                    batch.clear();
+                }
+            }
+            if (replayed > 0) {
+                log.info("Redis恢复，已重放失效队列 - 失效键数: {}", replayed);
+            }
+        } catch (Exception e) {
+            // 已出队但未删除的键无法区分，按溢出处理，下次恢复时全量清理
+            invalidationOverflow.set(true);
+            log.warn("失效队列重放失败，下次恢复时全量清理 - 错误: {}", e.getMessage());
+        }
+    }
+
+    private long deleteAllCookieKeys() {
+        return redisTemplate.execute((RedisCallback<Long>) connection -> deleteAllCookieKeys(connection));
+    }
+
+    private static long deleteAllCookieKeys(RedisConnection connection) {
+        long deleted = 0;
+        ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(1000).build();
+        List<byte[]> batch = new ArrayList<>(REPLAY_BATCH_SIZE);
+        try (Cursor<byte[]> cursor = connection.keyCommands().scan(options)) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == REPLAY_BATCH_SIZE || !cursor.hasNext()) {
+                    Long count = connection.keyCommands().del(batch.toArray(new byte[0][]));
+                    deleted += count == null ? 0 : count;
+                    batch.clear();
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * 计算TTL：基础TTL加随机抖动，不超过数据过期时间；负缓存和已过期数据使用短TTL
+     */
+    private Duration ttlFor(CookieData cookieData) {
+        if (cookieData == null) {
+            return jitter(Duration.ofSeconds(negativeTtlSeconds));
+        }
+        Duration ttl = jitter(Duration.ofHours(ttlHours));
+        if (cookieData.getExpireTime() != null) {
+            Duration remaining = Duration.between(LocalDateTime.now(), cookieData.getExpireTime());
+            if (remaining.compareTo(Duration.ofSeconds(1)) < 0) {
+                return Duration.ofSeconds(negativeTtlSeconds);
+            }
+            if (remaining.compareTo(ttl) < 0) {
+                return remaining;
+            }
+        }
+        return ttl;
+    }
+
+    private Duration jitter(Duration ttl) {
+        long millis = ttl.toMillis();
+        long range = (long) (millis * ttlJitterRatio);
+        long offset = range > 0 ? ThreadLocalRandom.current().nextLong(-range, range + 1) : 0;
+        return Duration.ofMillis(Math.max(1000, millis + offset));
+    }
+
+    /**
+     * XFetch：now - loadMillis * beta * ln(rand) >= expireAt 时提前刷新
+     */
+    private boolean shouldRefreshEarly(CachedCookieData entry) {
+        if (earlyRefreshBeta <= 0 || entry.getLoadMillis() <= 0) {
+            return false;
+        }
+        double gap = -entry.getLoadMillis() * earlyRefreshBeta * Math.log(1.0 - ThreadLocalRandom.current().nextDouble());
+        return System.currentTimeMillis() + gap >= entry.getExpireAt();
+    }
+
+    /**
+     * Redis暂不可用
+     */
+    private static class RedisUnavailableException extends RuntimeException {
+
+        RedisUnavailableException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.cookiesync.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 本地Cookie数据缓存
+ * Redis熔断期间代替Redis使用，按LRU淘汰，条目TTL较短以限制多实例部署下的数据陈旧
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public class LocalCookieCache {
+
+    private final long ttlMillis;
+
+    private final Map<String, CachedCookieData> entries;
+
+    public LocalCookieCache(int maxEntries, long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedCookieData> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * 获取未过期的条目副本
+     */
+    public synchronized CachedCookieData get(String userId) {
+        CachedCookieData entry = entries.get(userId);
+        if (entry != null && entry.getExpireAt() <= System.currentTimeMillis()) {
+            entries.remove(userId);
+            return null;
+        }
+        return entry == null ? null : entry.copy();
+    }
+
+    /**
+     * 写入条目副本，过期时间不超过本地TTL
+     * 调用方会继续使用并修改传入的数据（如替换为解密后的内容），不能与缓存共享
+     */
+    public synchronized void put(String userId, CachedCookieData entry) {
+        CachedCookieData stored = entry.copy();
+        stored.setExpireAt(Math.min(entry.getExpireAt(), System.currentTimeMillis() + ttlMillis));
+        entries.put(userId, stored);
+    }
+
+    public synchronized void remove(String userId) {
+        entries.remove(userId);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,286 @@
+package com.cookiesync.cache;
+
+import com.cookiesync.entity.CookieData;
+import org.springframework.beans.BeanUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 堆外Cookie数据缓存（本地一级缓存）
+ * 加密数据（Base64，按单字节编码）存放在 {@link SlabAllocator} 管理的直接内存中，
+ * 堆上只保留元数据和块引用，缓存规模达到GB级也不会增加GC压力或产生大对象分配。
+ * 原始数据下载按字节读取，命中时数据只从直接内存复制一次，解密直接读取该数组。
+ * <p>
+ * 同一大小级别内按LRU淘汰；该级别没有条目可淘汰时，淘汰各级别中最久未访问的条目，直到有slab空出。
+ * 条目TTL较短以限制多实例部署下的数据陈旧，本实例的写入和删除会立即更新本缓存。
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public class OffHeapCookieCache {
+
+    private final SlabAllocator slabs;
+
+    private final long ttlMillis;
+
+    private final int maxEntries;
+
+    private final Map<String, Entry> index = new HashMap<>();
+
+    /**
+     * 每个大小级别一个LRU，最后一个存放没有加密数据的条目（负缓存）
+     */
+    private final List<LinkedHashMap<String, Entry>> lruByClass;
+
+    private long usedBytes;
+
+    private long payloadBytes;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    private long oversized;
+
+    public OffHeapCookieCache(int slabSize, long maxBytes, int minChunkSize, double growthFactor,
+                              int maxEntries, long ttlMillis) {
+        this.slabs = new SlabAllocator(slabSize, maxBytes, minChunkSize, growthFactor);
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+        this.lruByClass = new ArrayList<>(slabs.sizeClassCount() + 1);
+        for (int i = 0; i <= slabs.sizeClassCount(); i++) {
+            lruByClass.add(new LinkedHashMap<>(16, 0.75f, true));
+        }
+    }
+
+    /**
+     * 获取未过期的条目，返回的条目为独立副本
+     */
+    public CachedCookieData get(String userId) {
+        return get(userId, false);
+    }
+
+    /**
+     * 获取未过期的条目，返回的条目为独立副本
+     *
+     * @param asBytes 加密数据以Base64字节（{@link CookieData#getEncryptedBytes()}）返回，直接内存只复制一次，不构造字符串
+     */
+    public CachedCookieData get(String userId, boolean asBytes) {
+        Entry entry;
+        byte[] payload = null;
+        synchronized (this) {
+            entry = index.get(userId);
+            if (entry == null) {
+                misses++;
+                return null;
+            }
+            long now = System.currentTimeMillis();
+            if (entry.localExpireAt <= now) {
+                remove(entry);
+                misses++;
+                return null;
+            }
+            lruByClass.get(entry.lruIndex).get(userId);
+            entry.lastAccess = now;
+            hits++;
+            if (entry.chunk != null) {
+                payload = slabs.read(entry.chunk, entry.length);
+            }
+        }
+
+        CookieData data = null;
+        if (entry.metadata != null) {
+            data = new CookieData();
+            BeanUtils.copyProperties(entry.metadata, data);
+            if (payload != null && asBytes) {
+                data.setEncryptedBytes(payload);
+            } else if (payload != null) {
+                data.setEncryptedData(new String(payload, StandardCharsets.ISO_8859_1));
+            }
+        }
+        return new CachedCookieData(data, entry.loadMillis, entry.expireAt);
+    }
+
+    /**
+     * 写入条目，过期时间不超过本地TTL；数据超过slab大小时不缓存
+     * 加密数据（Base64，单字节编码下字符数即字节数）直接编码写入直接内存，不在堆上生成中间数组
+     */
+    public void put(String userId, CachedCookieData cached) {
+        CookieData data = cached.getData();
+        CookieData metadata = null;
+        String payload = null;
+        if (data != null) {
+            metadata = new CookieData();
+            BeanUtils.copyProperties(data, metadata, "encryptedData", "encryptedBytes");
+            payload = data.getEncryptedData();
+        }
+        int sizeClass = payload == null ? slabs.sizeClassCount() : slabs.sizeClassFor(payload.length());
+        long now = System.currentTimeMillis();
+
+        synchronized (this) {
+            remove(userId);
+            if (sizeClass < 0) {
+                oversized++;
+                return;
+            }
+            SlabAllocator.Chunk chunk = null;
+            if (payload != null) {
+                chunk = allocate(sizeClass);
+                if (chunk == null) {
+                    return;
+                }
+                try {
+                    slabs.write(chunk, payload);
+                } catch (RuntimeException e) {
+                    slabs.free(chunk);
+                    throw e;
+                }
+                usedBytes += slabs.chunkSize(sizeClass);
+                payloadBytes += payload.length();
+            }
+            Entry entry = new Entry(userId, metadata, cached.getLoadMillis(), cached.getExpireAt(),
+                    Math.min(cached.getExpireAt(), now + ttlMillis), chunk, payload == null ? 0 : payload.length(),
+                    sizeClass, now);
+            index.put(userId, entry);
+            lruByClass.get(sizeClass).put(userId, entry);
+
+            while (index.size() > maxEntries) {
+                Entry oldest = oldest(true);
+                if (oldest == null) {
+                    break;
+                }
+                remove(oldest);
+                evictions++;
+            }
+        }
+    }
+
+    public synchronized void remove(String userId) {
+        Entry entry = index.get(userId);
+        if (entry != null) {
+            remove(entry);
+        }
+    }
+
+    public synchronized void clear() {
+        for (Entry entry : new ArrayList<>(index.values())) {
+            remove(entry);
+        }
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * 缓存状态，用于健康检查
+     */
+    public synchronized Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("entries", index.size());
+        status.put("usedBytes", usedBytes);
+        status.put("payloadBytes", payloadBytes);
+        status.put("slabSize", slabs.getSlabSize());
+        status.put("allocatedSlabs", slabs.getAllocatedSlabs());
+        status.put("freeSlabs", slabs.getFreeSlabs());
+        status.put("maxSlabs", slabs.getMaxSlabs());
+        status.put("hits", hits);
+        status.put("misses", misses);
+        status.put("evictions", evictions);
+        status.put("oversized", oversized);
+        return status;
+    }
+
+    /**
+     * 分配块，内存不足时先淘汰同级别最久未访问的条目，再淘汰其他级别的条目
+     */
+    private SlabAllocator.Chunk allocate(int sizeClass) {
+        SlabAllocator.Chunk chunk;
+        while ((chunk = slabs.allocate(sizeClass)) == null) {
+            Entry victim = eldest(lruByClass.get(sizeClass));
+            if (victim == null) {
+                victim = oldest(false);
+            }
+            if (victim == null) {
+                return null;
+            }
+            remove(victim);
+            evictions++;
+        }
+        return chunk;
+    }
+
+    /**
+     * 各级别LRU队首中最久未访问的条目
+     *
+     * @param includeNegative 是否包含没有加密数据的条目
+     */
+    private Entry oldest(boolean includeNegative) {
+        int classes = includeNegative ? lruByClass.size() : slabs.sizeClassCount();
+        Entry oldest = null;
+        for (int i = 0; i < classes; i++) {
+            Entry candidate = eldest(lruByClass.get(i));
+            if (candidate != null && (oldest == null || candidate.lastAccess < oldest.lastAccess)) {
+                oldest = candidate;
+            }
+        }
+        return oldest;
+    }
+
+    private static Entry eldest(LinkedHashMap<String, Entry> lru) {
+        Iterator<Entry> iterator = lru.values().iterator();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    private void remove(Entry entry) {
+        index.remove(entry.userId);
+        lruByClass.get(entry.lruIndex).remove(entry.userId);
+        if (entry.chunk != null) {
+            slabs.free(entry.chunk);
+            usedBytes -= slabs.chunkSize(entry.lruIndex);
+            payloadBytes -= entry.length;
+        }
+    }
+
+    private static class Entry {
+
+        private final String userId;
+
+        private final CookieData metadata;
+
+        private final long loadMillis;
+
+        private final long expireAt;
+
+        private final long localExpireAt;
+
+        private final SlabAllocator.Chunk chunk;
+
+        private final int length;
+
+        private final int lruIndex;
+
+        private long lastAccess;
+
+        private Entry(String userId, CookieData metadata, long loadMillis, long expireAt, long localExpireAt,
+                      SlabAllocator.Chunk chunk, int length, int lruIndex, long lastAccess) {
+            this.userId = userId;
+            this.metadata = metadata;
+            this.loadMillis = loadMillis;
+            this.expireAt = expireAt;
+            this.localExpireAt = localExpireAt;
+            this.chunk = chunk;
+            this.length = length;
+            this.lruIndex = lruIndex;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.cookiesync.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 堆外内存的分级（size class）分配器
+ * <ul>
+ *     <li>内存按固定大小的slab（直接内存ByteBuffer）申请，总量不超过上限，申请后不再归还给操作系统</li>
+ *     <li>每个slab属于一个大小级别，切分为等长的块；数据按长度放入能容纳它的最小级别</li>
+ *     <li>slab中的块全部释放后回到空闲slab池，可被其他级别复用</li>
+ * </ul>
+ * 非线程安全，由调用方加锁
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+class SlabAllocator {
+
+    private final int slabSize;
+
+    private final int maxSlabs;
+
+    private final int[] chunkSizes;
+
+    private final List<Deque<Chunk>> freeChunks;
+
+    private final Deque<ByteBuffer> freeSlabs = new ArrayDeque<>();
+
+    private int allocatedSlabs;
+
+    /**
+     * @param slabSize 每个slab的字节数，也是可存放数据的最大长度
+     * @param maxBytes 堆外内存总量上限
+     * @param minChunkSize 最小块的字节数
+     * @param growthFactor 相邻级别的块大小之比
+     */
+    SlabAllocator(int slabSize, long maxBytes, int minChunkSize, double growthFactor) {
+        this.slabSize = slabSize;
+        this.maxSlabs = (int) Math.max(1, maxBytes / slabSize);
+
+        List<Integer> sizes = new ArrayList<>();
+        double size = Math.min(minChunkSize, slabSize);
+        while (size < slabSize) {
+            // 块大小按8字节对齐
+            int aligned = ((int) Math.ceil(size) + 7) & ~7;
+            if (sizes.isEmpty() || aligned > sizes.get(sizes.size() - 1)) {
+                sizes.add(aligned);
+            }
+            size *= growthFactor;
+        }
+        sizes.add(slabSize);
+        this.chunkSizes = sizes.stream().mapToInt(Integer::intValue).toArray();
+        this.freeChunks = new ArrayList<>(chunkSizes.length);
+        for (int i = 0; i < chunkSizes.length; i++) {
+            freeChunks.add(new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * 能容纳指定长度的最小级别，超过slab大小时返回-1
+     */
+    int sizeClassFor(int length) {
+        for (int i = 0; i < chunkSizes.length; i++) {
+            if (chunkSizes[i] >= length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    int sizeClassCount() {
+        return chunkSizes.length;
+    }
+
+    int chunkSize(int sizeClass) {
+        return chunkSizes[sizeClass];
+    }
+
+    /**
+     * 分配一个块，该级别没有空闲块且slab已达上限时返回null
+     */
+    Chunk allocate(int sizeClass) {
+        Chunk chunk = freeChunks.get(sizeClass).pollFirst();
+        if (chunk != null) {
+            chunk.slab.used++;
+            return chunk;
+        }
+
+        ByteBuffer buffer = freeSlabs.pollFirst();
+        if (buffer == null) {
+            if (allocatedSlabs >= maxSlabs) {
+                return null;
+            }
+            buffer = ByteBuffer.allocateDirect(slabSize);
+            allocatedSlabs++;
+        }
+        Slab slab = new Slab(buffer, sizeClass);
+        int chunkSize = chunkSizes[sizeClass];
+        int chunks = slabSize / chunkSize;
+        for (int i = 1; i < chunks; i++) {
+            freeChunks.get(sizeClass).addLast(new Chunk(slab, i * chunkSize));
+        }
+        slab.used = 1;
+        return new Chunk(slab, 0);
+    }
+
+    /**
+     * 释放块，所在slab全部空闲时整体回收
+     */
+    void free(Chunk chunk) {
+        Slab slab = chunk.slab;
+        slab.used--;
+        Deque<Chunk> free = freeChunks.get(slab.sizeClass);
+        if (slab.used > 0) {
+            free.addFirst(chunk);
+            return;
+        }
+        free.removeIf(candidate -> candidate.slab == slab);
+        freeSlabs.addFirst(slab.buffer);
+    }
+
+    void write(Chunk chunk, byte[] data) {
+        chunk.slab.buffer.put(chunk.offset, data);
+    }
+
+    /**
+     * 按单字节编码直接写入字符数据，不经过堆上的中间数组
+     */
+    void write(Chunk chunk, CharSequence text) {
+        CoderResult result = StandardCharsets.ISO_8859_1.newEncoder()
+                .encode(CharBuffer.wrap(text), chunk.slab.buffer.slice(chunk.offset, text.length()), true);
+        if (!result.isUnderflow()) {
+            throw new IllegalArgumentException("数据包含无法按单字节编码的字符");
+        }
+    }
+
+    byte[] read(Chunk chunk, int length) {
+        byte[] data = new byte[length];
+        chunk.slab.buffer.get(chunk.offset, data);
+        return data;
+    }
+
+    int getAllocatedSlabs() {
+        return allocatedSlabs;
+    }
+
+    int getFreeSlabs() {
+        return freeSlabs.size();
+    }
+
+    int getMaxSlabs() {
+        return maxSlabs;
+    }
+
+    int getSlabSize() {
+        return slabSize;
+    }
+
+    private static class Slab {
+
+        private final ByteBuffer buffer;
+
+        private final int sizeClass;
+
+        private int used;
+
+        private Slab(ByteBuffer buffer, int sizeClass) {
+            this.buffer = buffer;
+            this.sizeClass = sizeClass;
+        }
+    }
+
+    /**
+     * slab中的一个块
+     */
+    static class Chunk {
+
+        private final Slab slab;
+
+        private final int offset;
+
+        private Chunk(Slab slab, int offset) {
+            this.slab = slab;
+            this.offset = offset;
+        }
+    }
+}
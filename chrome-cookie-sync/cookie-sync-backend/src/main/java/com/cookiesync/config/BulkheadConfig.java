@@ -0,0 +1,71 @@
+package com.cookiesync.config;
+
+import com.cookiesync.bulkhead.BoundedExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 隔离线程池配置
+ * 同步日志写入与管理/统计操作各自使用有界线程池，配合独立的连接池，
+ * 避免日志写入或慢统计查询占用同步请求的线程与连接
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Configuration
+public class BulkheadConfig {
+
+    @Value("${cookie-sync.bulkhead.log.threads:2}")
+    private int logThreads;
+
+    @Value("${cookie-sync.bulkhead.log.queue-capacity:10000}")
+    private int logQueueCapacity;
+
+    @Value("${cookie-sync.bulkhead.admin.threads:3}")
+    private int adminThreads;
+
+    @Value("${cookie-sync.bulkhead.admin.queue-capacity:50}")
+    private int adminQueueCapacity;
+
+    @Value("${cookie-sync.transfer.workers:3}")
+    private int importThreads;
+
+    @Value("${cookie-sync.transfer.max-in-flight-batches:6}")
+    private int importMaxInFlightBatches;
+
+    @Value("${cookie-sync.encryption.rotation.parallelism:2}")
+    private int rotationParallelism;
+
+    /**
+     * 同步日志写入线程池，队列满时丢弃日志，不影响同步请求
+     */
+    @Bean(destroyMethod = "shutdown")
+    public BoundedExecutor syncLogExecutor() {
+        return new BoundedExecutor("sync-log", logThreads, logQueueCapacity, true);
+    }
+
+    /**
+     * 管理与统计线程池，队列满时拒绝请求
+     */
+    @Bean(destroyMethod = "shutdown")
+    public BoundedExecutor adminExecutor() {
+        return new BoundedExecutor("admin", adminThreads, adminQueueCapacity, false);
+    }
+
+    /**
+     * 批量导入写入线程池，在途批次数由导入服务限制，队列不会溢出
+     */
+    @Bean(destroyMethod = "shutdown")
+    public BoundedExecutor importExecutor() {
+        return new BoundedExecutor("import", importThreads, importMaxInFlightBatches, false);
+    }
+
+    /**
+     * 数据密钥轮换线程池，一个线程按主键扫描，其余线程并行重新包装并写回；在途批次数由轮换服务限制
+     */
+    @Bean(destroyMethod = "shutdown")
+    public BoundedExecutor rotationExecutor() {
+        return new BoundedExecutor("key-rotation", rotationParallelism + 1, rotationParallelism, false);
+    }
+}
@@ -51,6 +51,12 @@ public class CorsConfig {
             configuration.setAllowedHeaders(Arrays.asList(allowedHeaders.split(",")));
         }
         
+        // 暴露原始数据下载接口的元数据响应头、同步间隔建议响应头及链路追踪响应头
+        configuration.setExposedHeaders(Arrays.asList(
+                "X-Cookie-User-Id", "X-Cookie-Version", "X-Cookie-Count", "X-Cookie-Data-Size",
+                "X-Cookie-Update-Time", "X-Cookie-Expire-Time", "X-Trace-Id",
+                "X-Sync-Interval", "X-Sync-Jitter", "traceresponse"));
+        
         // 设置是否允许携带凭证
         configuration.setAllowCredentials(allowCredentials);
         
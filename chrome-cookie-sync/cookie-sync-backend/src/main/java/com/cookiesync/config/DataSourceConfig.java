@@ -0,0 +1,122 @@
+package com.cookiesync.config;
+
+import com.cookiesync.datasource.DataSourcePools;
+import com.cookiesync.datasource.ReadWriteRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 数据源配置
+ * 主库、只读副本以及按业务隔离的连接池通过路由数据源统一暴露：
+ * 同步请求使用 spring.datasource 主连接池，同步日志与管理/统计操作各自使用独立的连接池，
+ * 避免慢统计或清理任务占满同步请求的连接。
+ * 连接延迟到第一条SQL执行时才获取，路由在此时决定；未访问数据库的事务（如使用内嵌存储时）不会占用连接。
+ * 默认隔离级别与MySQL默认的REPEATABLE READ保持一致
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(RoutingDataSourceProperties.class)
+public class DataSourceConfig {
+
+    private final List<HikariDataSource> managedDataSources = new ArrayList<>();
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource hikariDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public DataSourcePools dataSourcePools(HikariDataSource hikariDataSource, DataSourceProperties properties,
+                                           RoutingDataSourceProperties routingProperties) {
+        DataSourcePools pools = new DataSourcePools();
+        pools.register(ReadWriteRoutingDataSource.PRIMARY, hikariDataSource);
+
+        // 同步日志与管理操作的隔离连接池，连接主库
+        pools.register(ReadWriteRoutingDataSource.LOG, createPool("CookieSyncLogHikariCP", properties.determineUrl(),
+                properties.determineUsername(), properties.determinePassword(), routingProperties.getLog(), properties, false));
+        pools.register(ReadWriteRoutingDataSource.ADMIN, createPool("CookieSyncAdminHikariCP", properties.determineUrl(),
+                properties.determineUsername(), properties.determinePassword(), routingProperties.getAdmin(), properties, false));
+
+        List<RoutingDataSourceProperties.Replica> replicas = routingProperties.getReplicas();
+        for (int i = 0; i < replicas.size(); i++) {
+            RoutingDataSourceProperties.Replica replica = replicas.get(i);
+            RoutingDataSourceProperties.Pool pool = new RoutingDataSourceProperties.Pool(
+                    replica.getMaximumPoolSize(), hikariDataSource.getConnectionTimeout());
+            pools.register(ReadWriteRoutingDataSource.REPLICA_PREFIX + i, createPool("CookieSyncReplicaHikariCP-" + i,
+                    replica.getUrl(), replica.getUsername(), replica.getPassword(), pool, properties, true));
+        }
+
+        // 管理类只读查询使用第一个副本上的独立连接池
+        if (!replicas.isEmpty()) {
+            RoutingDataSourceProperties.Replica replica = replicas.get(0);
+            pools.register(ReadWriteRoutingDataSource.ADMIN_REPLICA, createPool("CookieSyncAdminReplicaHikariCP",
+                    replica.getUrl(), replica.getUsername(), replica.getPassword(), routingProperties.getAdmin(), properties, true));
+        }
+        return pools;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource hikariDataSource, DataSourcePools dataSourcePools,
+                                 RoutingDataSourceProperties routingProperties) {
+        Map<Object, Object> targets = new HashMap<>(dataSourcePools.getPools());
+
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(routingProperties.getReplicas().size());
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(hikariDataSource);
+        routingDataSource.afterPropertiesSet();
+        log.info("数据源初始化完成 - 连接池: {}", targets.keySet());
+
+        // 显式指定连接默认值，避免代理初始化时为探测默认值而建立连接
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy();
+        proxy.setTargetDataSource(routingDataSource);
+        proxy.setDefaultAutoCommit(hikariDataSource.isAutoCommit());
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        proxy.afterPropertiesSet();
+        return proxy;
+    }
+
+    /**
+     * 创建连接池
+     */
+    private HikariDataSource createPool(String poolName, String url, String username, String password,
+                                        RoutingDataSourceProperties.Pool pool, DataSourceProperties properties,
+                                        boolean readOnly) {
+        HikariDataSource dataSource = new HikariDataSource();
+        managedDataSources.add(dataSource);
+        dataSource.setDriverClassName(properties.determineDriverClassName());
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setMaximumPoolSize(pool.getMaximumPoolSize());
+        dataSource.setMinimumIdle(Math.min(1, pool.getMaximumPoolSize()));
+        dataSource.setConnectionTimeout(pool.getConnectionTimeout());
+        dataSource.setReadOnly(readOnly);
+        dataSource.setPoolName(poolName);
+        return dataSource;
+    }
+
+    @PreDestroy
+    public void closePools() {
+        managedDataSources.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,21 @@
+package com.cookiesync.config;
+
+import org.mybatis.spring.mapper.MapperScannerConfigurer;
+import org.springframework.beans.factory.aot.BeanRegistrationExcludeFilter;
+import org.springframework.beans.factory.support.RegisteredBean;
+
+/**
+ * AOT处理时排除MyBatis的Mapper扫描器
+ * 扫描得到的Mapper定义已在构建期生成，运行时若再次扫描会重复注册同名Bean导致启动失败
+ * 通过 META-INF/spring/aot.factories 注册，只在 fast-startup 构建配置中生效
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public class MapperScannerExcludeFilter implements BeanRegistrationExcludeFilter {
+
+    @Override
+    public boolean isExcludedFromAotProcessing(RegisteredBean registeredBean) {
+        return MapperScannerConfigurer.class.equals(registeredBean.getBeanClass());
+    }
+}
@@ -0,0 +1,80 @@
+package com.cookiesync.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 路由数据源配置
+ * 只读副本及按业务隔离的连接池（同步日志、管理/统计），同步请求使用 spring.datasource 主连接池
+ * 
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Data
+@ConfigurationProperties(prefix = "cookie-sync.datasource")
+public class RoutingDataSourceProperties {
+
+    /**
+     * 只读副本列表
+     */
+    private List<Replica> replicas = new ArrayList<>();
+
+    /**
+     * 同步日志写入连接池
+     */
+    private Pool log = new Pool(3, 2000);
+
+    /**
+     * 管理与统计查询连接池
+     */
+    private Pool admin = new Pool(3, 30000);
+
+    @Data
+    public static class Replica {
+
+        /**
+         * JDBC连接地址
+         */
+        private String url;
+
+        /**
+         * 用户名
+         */
+        private String username;
+
+        /**
+         * 密码
+         */
+        private String password;
+
+        /**
+         * 最大连接数
+         */
+        private int maximumPoolSize = 10;
+    }
+
+    @Data
+    public static class Pool {
+
+        /**
+         * 最大连接数
+         */
+        private int maximumPoolSize;
+
+        /**
+         * 获取连接的超时时间（毫秒）
+         */
+        private long connectionTimeout;
+
+        public Pool() {
+        }
+
+        public Pool(int maximumPoolSize, long connectionTimeout) {
+            this.maximumPoolSize = maximumPoolSize;
+            this.connectionTimeout = connectionTimeout;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.cookiesync.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.mybatis.spring.mapper.MapperFactoryBean;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.util.ClassUtils;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * 启动配置
+ * <ul>
+ *     <li>延迟创建非关键Bean（管理接口及其专用依赖），首次调用时才创建，缩短扩容时新实例的就绪时间</li>
+ *     <li>开启 cookie-sync.startup.exit-when-ready 时就绪后输出JVM运行时间并退出，
+ *     供 fast-startup 构建配置生成AppCDS归档与测量启动耗时</li>
+ * </ul>
+ * 使用AOT构建时，延迟标记在构建期确定，运行时修改 lazy-beans 不再生效
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Configuration
+public class StartupConfig {
+
+    /**
+     * 将配置的Bean标记为延迟初始化，不存在的Bean名称忽略
+     * 依赖它们的Bean若非延迟创建，会在启动时一并创建它们，因此只适合只被管理接口使用的Bean
+     */
+    @Bean
+    public static BeanFactoryPostProcessor lazyBeanFactoryPostProcessor(Environment environment) {
+        String[] lazyBeans = environment.getProperty("cookie-sync.startup.lazy-beans", String[].class, new String[0]);
+        return beanFactory -> {
+            for (String beanName : lazyBeans) {
+                String name = beanName.trim();
+                if (!name.isEmpty() && beanFactory.containsBeanDefinition(name)) {
+                    beanFactory.getBeanDefinition(name).setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    /**
+     * 整理Mapper扫描得到的Bean定义，使其可以被AOT生成代码：
+     * 构造参数由接口名字符串替换为接口类型（生成的实例化代码不会转换字符串），
+     * 按类型自动注入的 sqlSessionTemplate 改为显式引用（生成的代码不保留自动注入模式）；非AOT启动时结果不变
+     */
+    @Bean
+    public static BeanFactoryPostProcessor mapperDefinitionPostProcessor() {
+        return beanFactory -> {
+            for (String beanName : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(beanName);
+                if (!MapperFactoryBean.class.getName().equals(definition.getBeanClassName())) {
+                    continue;
+                }
+                ConstructorArgumentValues arguments = definition.getConstructorArgumentValues();
+                ConstructorArgumentValues.ValueHolder argument = arguments.getGenericArgumentValue(null);
+                if (argument == null || !(argument.getValue() instanceof String interfaceName)) {
+                    continue;
+                }
+                Class<?> mapperInterface = ClassUtils.resolveClassName(interfaceName, beanFactory.getBeanClassLoader());
+                arguments.clear();
+                arguments.addGenericArgumentValue(mapperInterface);
+                definition.setAttribute(FactoryBean.OBJECT_TYPE_ATTRIBUTE, mapperInterface);
+                if (!definition.getPropertyValues().contains("sqlSessionTemplate")) {
+                    definition.getPropertyValues().add("sqlSessionTemplate", new RuntimeBeanReference(SqlSessionTemplate.class));
+                }
+            }
+        };
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady(ApplicationReadyEvent event) {
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        Environment environment = event.getApplicationContext().getEnvironment();
+        if (!environment.getProperty("cookie-sync.startup.exit-when-ready", Boolean.class, false)) {
+            log.info("服务已就绪 - JVM运行时间: {} ms", uptime);
+            return;
+        }
+        // 基准测试解析该行输出，不受日志级别影响
+        System.out.println("STARTUP-BENCHMARK ready-ms=" + uptime);
+        System.exit(SpringApplication.exit(event.getApplicationContext(), () -> 0));
+    }
+}
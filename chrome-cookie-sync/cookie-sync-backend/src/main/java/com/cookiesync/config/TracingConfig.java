@@ -0,0 +1,95 @@
+package com.cookiesync.config;
+
+import com.cookiesync.tracing.FileSpanExporter;
+import com.cookiesync.tracing.RecentSpanExporter;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 链路追踪配置
+ * 使用W3C traceparent 传播上下文，扩展发起的请求与服务端Span属于同一条链路；
+ * Span导出到内存（按追踪ID查询最近的链路）和可选的NDJSON文件（离线分析），不依赖外部采集端
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Configuration
+public class TracingConfig {
+
+    @Value("${cookie-sync.tracing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${spring.application.name:cookie-sync-backend}")
+    private String serviceName;
+
+    @Value("${cookie-sync.tracing.sample-rate:1.0}")
+    private double sampleRate;
+
+    @Value("${cookie-sync.tracing.memory-spans:10000}")
+    private int memorySpans;
+
+    @Value("${cookie-sync.tracing.file:}")
+    private String file;
+
+    @Value("${cookie-sync.tracing.file-max-mb:100}")
+    private long fileMaxMb;
+
+    @Bean
+    public RecentSpanExporter recentSpanExporter() {
+        return new RecentSpanExporter(memorySpans);
+    }
+
+    /**
+     * 采样按追踪ID计算，同一链路在各节点的采样结果一致；扩展传入的链路同样按比例采样
+     */
+    @Bean
+    public OpenTelemetry openTelemetry(RecentSpanExporter recentSpanExporter) throws IOException {
+        if (!enabled) {
+            return OpenTelemetry.noop();
+        }
+        List<SpanExporter> exporters = new ArrayList<>();
+        exporters.add(recentSpanExporter);
+        if (StringUtils.hasText(file)) {
+            exporters.add(new FileSpanExporter(Path.of(file), fileMaxMb * 1024 * 1024));
+        }
+
+        Sampler ratio = Sampler.traceIdRatioBased(sampleRate);
+        SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+                .setResource(Resource.getDefault().merge(Resource.create(
+                        Attributes.of(AttributeKey.stringKey("service.name"), serviceName))))
+                .setSampler(Sampler.parentBasedBuilder(ratio).setRemoteParentSampled(ratio).build())
+                .addSpanProcessor(BatchSpanProcessor.builder(SpanExporter.composite(exporters))
+                        .setScheduleDelay(Duration.ofSeconds(1))
+                        .build())
+                .build();
+        return OpenTelemetrySdk.builder()
+                .setTracerProvider(tracerProvider)
+                .setPropagators(ContextPropagators.create(W3CTraceContextPropagator.getInstance()))
+                .build();
+    }
+
+    @Bean
+    public Tracer tracer(OpenTelemetry openTelemetry) {
+        return openTelemetry.getTracer("com.cookiesync");
+    }
+}
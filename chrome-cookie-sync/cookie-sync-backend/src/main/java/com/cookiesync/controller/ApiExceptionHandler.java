@@ -0,0 +1,38 @@
+package com.cookiesync.controller;
+
+import com.cookiesync.entity.ApiResponse;
+import com.cookiesync.filter.PayloadTooLargeException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * 控制器统一异常处理
+ * 业务异常由各服务自行转换为 ApiResponse，这里只处理进入控制器之前的请求体读取失败
+ * 
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Slf4j
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    /**
+     * 请求体无法读取：超过大小限制时返回413，其余返回400
+     */
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<ApiResponse<Void>> handleNotReadable(HttpMessageNotReadableException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof PayloadTooLargeException tooLarge) {
+                log.warn("上传请求体超过大小限制，已中断读取 - 限制: {}", tooLarge.getLimit());
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                        .body(ApiResponse.error(HttpStatus.PAYLOAD_TOO_LARGE.value(), tooLarge.getMessage()));
+            }
+        }
+        log.warn("请求体读取失败: {}", e.getMessage());
+        return ResponseEntity.badRequest().body(ApiResponse.badRequest("请求体格式错误"));
+    }
+}
@@ -2,12 +2,30 @@ package com.cookiesync.controller;
 
 import com.cookiesync.entity.ApiResponse;
 import com.cookiesync.entity.CookieData;
+import com.cookiesync.entity.CookiePayload;
+import com.cookiesync.entity.CookieSnapshot;
+import com.cookiesync.entity.SyncHint;
+import com.cookiesync.entity.SyncLogPage;
+import com.cookiesync.service.CookieBatchService;
 import com.cookiesync.service.CookieService;
+import com.cookiesync.service.SyncHintService;
+import com.cookiesync.service.SyncLogService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Cookie数据控制器
@@ -24,6 +42,18 @@ public class CookieController {
     @Autowired
     private CookieService cookieService;
 
+    @Autowired
+    private CookieBatchService cookieBatchService;
+
+    @Autowired
+    private SyncHintService syncHintService;
+
+    @Autowired
+    private SyncLogService syncLogService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * 上传Cookie数据
      */
@@ -31,14 +61,52 @@ public class CookieController {
     public ApiResponse<String> uploadCookieData(
             @RequestParam(value = "userId", required = false, defaultValue = "anonymous") String userId,
             @RequestBody String cookieDataJson,
-            HttpServletRequest request) {
+            HttpServletRequest request,
+            HttpServletResponse response) {
         
         String userAgent = request.getHeader("User-Agent");
         String clientIp = getClientIpAddress(request);
         
         log.info("接收到Cookie上传请求 - 用户ID: {}, IP: {}", userId, clientIp);
         
-        return cookieService.uploadCookieData(userId, cookieDataJson, userAgent, clientIp);
+        syncHintService.requestStarted();
+        try {
+            ApiResponse<String> result = cookieService.uploadCookieData(userId, cookieDataJson, userAgent, clientIp);
+            if (result.getCode() == 200) {
+                applySyncHint(response, userId);
+            }
+            return result;
+        } finally {
+            syncHintService.requestFinished();
+        }
+    }
+
+    /**
+     * 上传CBOR格式的Cookie数据
+     * 与JSON上传共用同一路径，按 Content-Type 区分，省去客户端和服务端的文本序列化
+     */
+    @PostMapping(value = "/upload", consumes = "application/cbor")
+    public ApiResponse<String> uploadCookieBinary(
+            @RequestParam(value = "userId", required = false, defaultValue = "anonymous") String userId,
+            @RequestBody JsonNode cookieNode,
+            HttpServletRequest request,
+            HttpServletResponse response) {
+        
+        String userAgent = request.getHeader("User-Agent");
+        String clientIp = getClientIpAddress(request);
+        
+        log.info("接收到Cookie上传请求(CBOR) - 用户ID: {}, IP: {}", userId, clientIp);
+        
+        syncHintService.requestStarted();
+        try {
+            ApiResponse<String> result = cookieService.uploadCookieNode(userId, cookieNode, userAgent, clientIp);
+            if (result.getCode() == 200) {
+                applySyncHint(response, userId);
+            }
+            return result;
+        } finally {
+            syncHintService.requestFinished();
+        }
     }
 
     /**
@@ -47,14 +115,97 @@ public class CookieController {
     @GetMapping("/download")
     public ApiResponse<CookieData> downloadCookieData(
             @RequestParam(value = "userId", required = false, defaultValue = "anonymous") String userId,
-            HttpServletRequest request) {
+            @RequestParam(value = "version", required = false) Integer knownVersion,
+            HttpServletRequest request,
+            HttpServletResponse response) {
         
         String userAgent = request.getHeader("User-Agent");
         String clientIp = getClientIpAddress(request);
         
         log.info("接收到Cookie下载请求 - 用户ID: {}, IP: {}", userId, clientIp);
         
-        return cookieService.downloadCookieData(userId, clientIp, userAgent);
+        syncHintService.requestStarted();
+        try {
+            ApiResponse<CookieData> result = cookieService.downloadCookieData(userId, knownVersion, clientIp, userAgent);
+            if (result.getCode() == 200) {
+                applySyncHint(response, userId);
+            }
+            return result;
+        } finally {
+            syncHintService.requestFinished();
+        }
+    }
+
+    /**
+     * 下载Cookie原始数据
+     * 负载直接写入响应流，客户端支持GZIP时原样返回压缩字节，元数据通过响应头返回
+     */
+    @GetMapping("/download/raw")
+    public void downloadCookieDataRaw(
+            @RequestParam(value = "userId", required = false, defaultValue = "anonymous") String userId,
+            @RequestParam(value = "version", required = false) Integer knownVersion,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        
+        String userAgent = request.getHeader("User-Agent");
+        String clientIp = getClientIpAddress(request);
+        
+        log.info("接收到Cookie原始数据下载请求 - 用户ID: {}, IP: {}", userId, clientIp);
+        
+        // 在途统计覆盖负载写出阶段，慢速客户端同样计入负载
+        syncHintService.requestStarted();
+        try {
+            writeCookiePayload(userId, knownVersion, clientIp, userAgent, request, response);
+        } finally {
+            syncHintService.requestFinished();
+        }
+    }
+
+    /**
+     * 写出Cookie原始负载，失败时以JSON返回错误信息
+     */
+    private void writeCookiePayload(String userId, Integer knownVersion, String clientIp, String userAgent,
+                                    HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ApiResponse<CookiePayload> result = cookieService.downloadCookiePayload(userId, knownVersion, clientIp, userAgent);
+        if (result.getCode() != 200) {
+            response.setStatus(result.getCode());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            objectMapper.writeValue(response.getOutputStream(), result);
+            return;
+        }
+        
+        CookiePayload payload = result.getData();
+        CookieData metadata = payload.getMetadata();
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader("X-Cookie-User-Id", metadata.getUserId());
+        response.setHeader("X-Cookie-Version", String.valueOf(metadata.getVersion()));
+        response.setHeader("X-Cookie-Count", String.valueOf(metadata.getCookieCount()));
+        response.setHeader("X-Cookie-Data-Size", String.valueOf(metadata.getDataSize()));
+        response.setHeader("X-Cookie-Update-Time", String.valueOf(metadata.getUpdateTime()));
+        response.setHeader("X-Cookie-Expire-Time", String.valueOf(metadata.getExpireTime()));
+        response.setHeader("X-Trace-Id", result.getTraceId());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        applySyncHint(response, userId);
+        
+        try (InputStream content = payload.getContent()) {
+            if (!payload.isGzipped()) {
+                // 历史未压缩数据，交由容器按配置决定是否压缩
+                content.transferTo(response.getOutputStream());
+            } else if (acceptsGzip(request)) {
+                // 设置Content-Encoding后Tomcat不会再次压缩
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                content.transferTo(response.getOutputStream());
+            } else {
+                new GZIPInputStream(content).transferTo(response.getOutputStream());
+            }
+            response.flushBuffer();
+        } catch (IOException | RuntimeException e) {
+            payload.complete(e);
+            throw e;
+        }
+        payload.complete(null);
     }
 
     /**
@@ -84,6 +235,144 @@ public class CookieController {
         return cookieService.getCookieDataStats(userId);
     }
 
+    /**
+     * 批量检查Cookie数据是否存在，请求体为用户ID数组，结果以NDJSON按请求顺序逐行返回
+     */
+    @PostMapping("/batch/exists")
+    public void batchCheckCookieDataExists(@RequestBody List<String> userIds, HttpServletResponse response) throws IOException {
+        writeBatch(userIds, response, out -> cookieBatchService.lookup(userIds, false, out));
+    }
+
+    /**
+     * 批量获取Cookie数据统计信息，请求体与返回格式同批量存在性检查
+     */
+    @PostMapping("/batch/stats")
+    public void batchGetCookieDataStats(@RequestBody List<String> userIds, HttpServletResponse response) throws IOException {
+        writeBatch(userIds, response, out -> cookieBatchService.lookup(userIds, true, out));
+    }
+
+    /**
+     * 批量下载解密后的Cookie数据，请求体与返回格式同批量存在性检查
+     */
+    @PostMapping("/batch/download")
+    public void batchDownloadCookieData(@RequestBody List<String> userIds, HttpServletResponse response) throws IOException {
+        writeBatch(userIds, response, out -> cookieBatchService.download(userIds, out));
+    }
+
+    /**
+     * 写出批量查询结果，开始写出前的失败以JSON返回错误信息
+     */
+    private void writeBatch(List<String> userIds, HttpServletResponse response, BatchWriter writer) throws IOException {
+        log.info("接收到批量查询请求 - 用户数: {}", userIds == null ? 0 : userIds.size());
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        
+        try {
+            writer.write(response.getOutputStream());
+        } catch (Exception e) {
+            // 已开始写出时只能中断响应
+            if (response.isCommitted()) {
+                throw e;
+            }
+            boolean invalid = e instanceof IllegalArgumentException;
+            if (!invalid) {
+                log.error("批量查询失败", e);
+            }
+            response.reset();
+            response.setStatus(invalid ? 400 : 500);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            objectMapper.writeValue(response.getOutputStream(), invalid
+                    ? ApiResponse.badRequest(e.getMessage()) : ApiResponse.error("批量查询失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 批量查询的写出逻辑
+     */
+    @FunctionalInterface
+    private interface BatchWriter {
+
+        long write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * 查询按条目存储的Cookie，可按主机名过滤
+     */
+    @GetMapping("/entries")
+    public ApiResponse<List<JsonNode>> getCookieEntries(
+            @RequestParam("userId") String userId,
+            @RequestParam(value = "domain", required = false) String domain) {
+        log.info("查询Cookie条目 - 用户ID: {}, 域名: {}", userId, domain);
+        return cookieService.getCookieEntries(userId, domain);
+    }
+
+    /**
+     * 查询Cookie数据的历史版本
+     */
+    @GetMapping("/versions")
+    public ApiResponse<List<CookieSnapshot>> getCookieVersions(@RequestParam("userId") String userId) {
+        log.info("查询Cookie历史版本 - 用户ID: {}", userId);
+        return cookieService.getCookieVersions(userId);
+    }
+
+    /**
+     * 读取指定历史版本的Cookie数据
+     */
+    @GetMapping("/versions/{version}")
+    public ApiResponse<CookieData> getCookieVersion(
+            @PathVariable("version") Integer version,
+            @RequestParam("userId") String userId) {
+        log.info("读取Cookie历史版本 - 用户ID: {}, 版本: {}", userId, version);
+        return cookieService.getCookieVersion(userId, version);
+    }
+
+    /**
+     * 恢复到指定历史版本
+     */
+    @PostMapping("/versions/{version}/restore")
+    public ApiResponse<String> restoreCookieVersion(
+            @PathVariable("version") Integer version,
+            @RequestParam("userId") String userId,
+            HttpServletRequest request,
+            HttpServletResponse response) {
+        
+        String userAgent = request.getHeader("User-Agent");
+        String clientIp = getClientIpAddress(request);
+        
+        log.info("接收到Cookie恢复请求 - 用户ID: {}, 版本: {}, IP: {}", userId, version, clientIp);
+        
+        syncHintService.requestStarted();
+        try {
+            ApiResponse<String> result = cookieService.restoreCookieVersion(userId, version, userAgent, clientIp);
+            if (result.getCode() == 200) {
+                applySyncHint(response, userId);
+            }
+            return result;
+        } finally {
+            syncHintService.requestFinished();
+        }
+    }
+
+    /**
+     * 分页查询用户的同步记录（新的在前），下一页以返回的 nextCursor 作为 cursor 参数
+     */
+    @GetMapping("/logs")
+    public ApiResponse<SyncLogPage> getSyncLogs(
+            @RequestParam("userId") String userId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false, defaultValue = "20") int limit) {
+        log.info("查询同步记录 - 用户ID: {}", userId);
+        try {
+            return ApiResponse.success(syncLogService.findLogs(userId, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.badRequest(e.getMessage());
+        } catch (Exception e) {
+            log.error("查询同步记录失败 - 用户ID: {}", userId, e);
+            return ApiResponse.error("查询同步记录失败");
+        }
+    }
+
     /**
      * 健康检查接口
      */
@@ -92,6 +381,29 @@ public class CookieController {
         return ApiResponse.success("Cookie同步服务运行正常");
     }
 
+    /**
+     * 写入同步间隔建议响应头，建议计算失败不影响同步结果
+     */
+    private void applySyncHint(HttpServletResponse response, String userId) {
+        try {
+            SyncHint hint = syncHintService.getSyncHint(userId);
+            if (hint != null) {
+                response.setHeader("X-Sync-Interval", String.valueOf(hint.getIntervalSeconds()));
+                response.setHeader("X-Sync-Jitter", String.valueOf(hint.getJitterSeconds()));
+            }
+        } catch (Exception e) {
+            log.warn("计算同步间隔建议失败 - 用户ID: {}, 错误: {}", userId, e.getMessage());
+        }
+    }
+
+    /**
+     * 判断客户端是否接受GZIP编码
+     */
+    private boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
     /**
      * 获取客户端真实IP地址
      */
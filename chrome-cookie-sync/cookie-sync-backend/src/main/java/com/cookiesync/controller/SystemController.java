@@ -1,20 +1,47 @@
 package com.cookiesync.controller;
 
+import com.cookiesync.bulkhead.BoundedExecutor;
+import com.cookiesync.cache.CookieDataCache;
+import com.cookiesync.datasource.DataSourceContextHolder;
+import com.cookiesync.datasource.DataSourcePools;
+import com.cookiesync.datasource.Workload;
 import com.cookiesync.entity.ApiResponse;
-import com.cookiesync.mapper.CookieDataMapper;
+import com.cookiesync.entity.SyncLogPage;
 import com.cookiesync.mapper.SyncLogMapper;
+import com.cookiesync.outbox.ChangeBroker;
+import com.cookiesync.outbox.ChangeStreamConsumer;
+import com.cookiesync.outbox.OutboxRelay;
+import com.cookiesync.service.CookieArchiveService;
+import com.cookiesync.service.CookieTransferService;
+import com.cookiesync.service.DataKeyRotationService;
+import com.cookiesync.service.FlightRecordingService;
+import com.cookiesync.service.SyncLogService;
+import com.cookiesync.storage.CookieStorage;
+import com.cookiesync.tracing.RecentSpanExporter;
 import com.cookiesync.util.EncryptionUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 /**
  * 系统管理控制器
+ * 管理与统计操作在独立的线程池和连接池上执行，不占用同步请求的容器线程和数据库连接
  * 
  * @author Cookie Sync Team
  * @version 1.0.0
@@ -26,107 +53,461 @@ import java.util.Map;
 public class SystemController {
 
     @Autowired
-    private CookieDataMapper cookieDataMapper;
+    private CookieStorage cookieStorage;
     
     @Autowired
     private SyncLogMapper syncLogMapper;
     
     @Autowired
     private EncryptionUtil encryptionUtil;
+    
+    @Autowired
+    private CookieDataCache cookieDataCache;
+    
+    @Autowired
+    private DataSourcePools dataSourcePools;
+    
+    @Autowired
+    private BoundedExecutor syncLogExecutor;
+    
+    @Autowired
+    private BoundedExecutor adminExecutor;
+    
+    @Autowired
+    private BoundedExecutor importExecutor;
+    
+    @Autowired
+    private BoundedExecutor rotationExecutor;
+    
+    @Autowired
+    private CookieTransferService cookieTransferService;
+    
+    @Autowired
+    private FlightRecordingService flightRecordingService;
+    
+    @Autowired
+    private DataKeyRotationService dataKeyRotationService;
+    
+    @Autowired
+    private SyncLogService syncLogService;
+    
+    @Autowired
+    private RecentSpanExporter recentSpanExporter;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    /**
+     * 未开启发件箱时为空
+     */
+    @Autowired(required = false)
+    private OutboxRelay outboxRelay;
+    
+    /**
+     * 未开启变更流消费时为空
+     */
+    @Autowired(required = false)
+    private ChangeStreamConsumer changeStreamConsumer;
+    
+    @Autowired(required = false)
+    private ChangeBroker changeBroker;
+    
+    /**
+     * 未开启冷热分层时为空
+     */
+    @Autowired(required = false)
+    private CookieArchiveService cookieArchiveService;
 
     /**
      * 系统健康检查
      */
     @GetMapping("/health")
-    public ApiResponse<Map<String, Object>> healthCheck() {
-        Map<String, Object> health = new HashMap<>();
+    public CompletableFuture<ApiResponse<Map<String, Object>>> healthCheck() {
+        return onAdminPool(() -> {
+            Map<String, Object> health = new HashMap<>();
         
-        try {
-            // 检查数据库连接
-            Map<String, Object> dbStats = cookieDataMapper.getSystemStats();
-            health.put("database", "正常");
-            health.put("stats", dbStats);
+            try {
+                // 检查数据库连接
+                Map<String, Object> dbStats = cookieStorage.getSystemStats();
+                health.put("database", "正常");
+                health.put("stats", dbStats);
             
-            // 检查加密功能
-            boolean encryptionValid = encryptionUtil.validateEncryption();
-            health.put("encryption", encryptionValid ? "正常" : "异常");
+                // 检查加密功能
+                boolean encryptionValid = encryptionUtil.validateEncryption();
+                health.put("encryption", encryptionValid ? "正常" : "异常");
             
-            health.put("status", "运行正常");
-            health.put("timestamp", System.currentTimeMillis());
+                // 缓存熔断状态
+                health.put("cache", cookieDataCache.getStatus());
             
-            return ApiResponse.success(health);
+                health.put("status", "运行正常");
+                health.put("timestamp", System.currentTimeMillis());
             
-        } catch (Exception e) {
-            log.error("系统健康检查失败", e);
-            health.put("status", "异常");
-            health.put("error", e.getMessage());
-            return ApiResponse.error("系统检查失败");
-        }
+                return ApiResponse.success(health);
+            
+            } catch (Exception e) {
+                log.error("系统健康检查失败", e);
+                health.put("status", "异常");
+                health.put("error", e.getMessage());
+                return ApiResponse.error("系统检查失败");
+            }
+        });
     }
 
     /**
      * 获取系统统计信息
      */
     @GetMapping("/stats")
-    public ApiResponse<Map<String, Object>> getSystemStats() {
-        try {
-            Map<String, Object> stats = cookieDataMapper.getSystemStats();
+    public CompletableFuture<ApiResponse<Map<String, Object>>> getSystemStats() {
+        return onAdminPool(() -> {
+            try {
+                // 统计查询路由到只读副本
+                Map<String, Object> stats = DataSourceContextHolder.onReplica(cookieStorage::getSystemStats);
             
-            // 获取操作统计
-            List<Map<String, Object>> operationStats = syncLogMapper.getOperationStats(LocalDateTime.now().minusDays(7));
-            stats.put("operationStats", operationStats);
+                // 获取操作统计
+                List<Map<String, Object>> operationStats = DataSourceContextHolder.onReplica(
+                        () -> syncLogMapper.getOperationStats(LocalDateTime.now().minusDays(7)));
+                stats.put("operationStats", operationStats);
             
-            // 获取最近日志
-            List<Map<String, Object>> recentLogs = syncLogMapper.findRecentLogs(10);
-            stats.put("recentLogs", recentLogs);
+                // 获取最近日志
+                List<Map<String, Object>> recentLogs = DataSourceContextHolder.onReplica(() -> syncLogMapper.findRecentLogs(10));
+                stats.put("recentLogs", recentLogs);
             
-            return ApiResponse.success(stats);
+                return ApiResponse.success(stats);
             
-        } catch (Exception e) {
-            log.error("获取系统统计失败", e);
-            return ApiResponse.error("获取统计信息失败: " + e.getMessage());
-        }
+            } catch (Exception e) {
+                log.error("获取系统统计失败", e);
+                return ApiResponse.error("获取统计信息失败: " + e.getMessage());
+            }
+        });
     }
 
     /**
      * 清理过期数据
      */
     @PostMapping("/cleanup")
-    public ApiResponse<Map<String, Object>> cleanupExpiredData() {
-        try {
-            // 清理过期Cookie数据
-            int deletedCookies = cookieDataMapper.deleteExpiredData();
+    public CompletableFuture<ApiResponse<Map<String, Object>>> cleanupExpiredData() {
+        return onAdminPool(() -> {
+            try {
+                // 清理过期Cookie数据
+                int deletedCookies = cookieStorage.deleteExpiredData();
             
-            // 清理旧日志（保留30天）
-            int deletedLogs = syncLogMapper.cleanOldLogs(LocalDateTime.now().minusDays(30));
+                // 清理旧日志（保留30天）
+                int deletedLogs = syncLogMapper.cleanOldLogs(LocalDateTime.now().minusDays(30));
             
-            Map<String, Object> result = new HashMap<>();
-            result.put("deletedCookies", deletedCookies);
-            result.put("deletedLogs", deletedLogs);
-            result.put("cleanupTime", System.currentTimeMillis());
+                Map<String, Object> result = new HashMap<>();
+                result.put("deletedCookies", deletedCookies);
+                result.put("deletedLogs", deletedLogs);
+                result.put("cleanupTime", System.currentTimeMillis());
             
-            log.info("数据清理完成 - 删除Cookie数据: {}, 删除日志: {}", deletedCookies, deletedLogs);
+                log.info("数据清理完成 - 删除Cookie数据: {}, 删除日志: {}", deletedCookies, deletedLogs);
             
-            return ApiResponse.success(result);
+                return ApiResponse.success(result);
             
-        } catch (Exception e) {
-            log.error("数据清理失败", e);
-            return ApiResponse.error("数据清理失败: " + e.getMessage());
-        }
+            } catch (Exception e) {
+                log.error("数据清理失败", e);
+                return ApiResponse.error("数据清理失败: " + e.getMessage());
+            }
+        });
     }
 
     /**
      * 获取用户同步统计
      */
     @GetMapping("/user-stats")
-    public ApiResponse<Map<String, Object>> getUserStats(@RequestParam("userId") String userId) {
+    public CompletableFuture<ApiResponse<Map<String, Object>>> getUserStats(@RequestParam("userId") String userId) {
+        return onAdminPool(() -> {
+            try {
+                Map<String, Object> stats = DataSourceContextHolder.onReplica(
+                        () -> syncLogMapper.getUserSyncStats(userId, LocalDateTime.now().minusDays(30)));
+                return ApiResponse.success(stats);
+            
+            } catch (Exception e) {
+                log.error("获取用户统计失败 - 用户ID: {}", userId, e);
+                return ApiResponse.error("获取用户统计失败: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 分页浏览同步日志（新的在前），可按用户过滤，下一页以返回的 nextCursor 作为 cursor 参数
+     */
+    @GetMapping("/logs")
+    public CompletableFuture<ApiResponse<SyncLogPage>> getSyncLogs(
+            @RequestParam(value = "userId", required = false) String userId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false, defaultValue = "50") int limit) {
+        return onAdminPool(() -> {
+            try {
+                return ApiResponse.success(syncLogService.findLogs(userId, cursor, limit));
+            
+            } catch (IllegalArgumentException e) {
+                return ApiResponse.badRequest(e.getMessage());
+            } catch (Exception e) {
+                log.error("查询同步日志失败 - 用户ID: {}", userId, e);
+                return ApiResponse.error("查询同步日志失败: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 以NDJSON流式导出同步日志，可按用户与时间范围（[from, to)，格式 yyyy-MM-dd'T'HH:mm:ss）过滤
+     * 导出耗时与数据量成正比，在请求线程上同步写出，避免异步请求超时中断
+     */
+    @GetMapping("/logs/export")
+    public void exportSyncLogs(
+            @RequestParam(value = "userId", required = false) String userId,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            HttpServletResponse response) throws IOException {
+        log.info("开始导出同步日志 - 用户ID: {}, 时间范围: {} ~ {}", userId, from, to);
+        String fileName = "sync-log-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss")) + ".ndjson";
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader("Content-Disposition", "attachment; filename=" + fileName);
+        
         try {
-            Map<String, Object> stats = syncLogMapper.getUserSyncStats(userId, LocalDateTime.now().minusDays(30));
-            return ApiResponse.success(stats);
+            syncLogService.exportLogs(userId, from, to, response.getOutputStream());
+        } catch (Exception e) {
+            log.error("导出同步日志失败", e);
+            // 已开始写出时只能中断响应
+            if (response.isCommitted()) {
+                throw e;
+            }
+            response.reset();
+            response.setStatus(500);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            objectMapper.writeValue(response.getOutputStream(), ApiResponse.error("导出失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 发件箱中继、消息代理与变更流消费状态
+     */
+    @GetMapping("/outbox")
+    public CompletableFuture<ApiResponse<Map<String, Object>>> getOutboxStatus() {
+        return onAdminPool(() -> {
+            try {
+                Map<String, Object> status = new HashMap<>();
+                if (outboxRelay != null) {
+                    status.put("relay", outboxRelay.getStatus());
+                }
+                if (changeBroker != null) {
+                    status.put("broker", changeBroker.getStatus());
+                }
+                if (changeStreamConsumer != null) {
+                    status.put("consumer", changeStreamConsumer.getStatus());
+                }
+                return ApiResponse.success(status);
             
+            } catch (Exception e) {
+                log.error("获取发件箱状态失败", e);
+                return ApiResponse.error("获取发件箱状态失败: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 连接池与线程池饱和度
+     */
+    @GetMapping("/pools")
+    public ApiResponse<Map<String, Object>> getPoolMetrics() {
+        Map<String, Object> executors = new HashMap<>();
+        executors.put(syncLogExecutor.getName(), syncLogExecutor.metrics());
+        executors.put(adminExecutor.getName(), adminExecutor.metrics());
+        executors.put(importExecutor.getName(), importExecutor.metrics());
+        executors.put(rotationExecutor.getName(), rotationExecutor.metrics());
+        
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("dataSources", dataSourcePools.metrics());
+        metrics.put("executors", executors);
+        return ApiResponse.success(metrics);
+    }
+
+    /**
+     * 以NDJSON流式导出全部用户的Cookie数据
+     * 导出耗时与数据量成正比，在请求线程上同步写出，避免异步请求超时中断
+     */
+    @GetMapping("/export")
+    public void exportCookies(HttpServletResponse response) throws IOException {
+        log.info("开始导出全部Cookie数据");
+        String fileName = "cookie-data-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss")) + ".ndjson";
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader("Content-Disposition", "attachment; filename=" + fileName);
+        
+        try {
+            cookieTransferService.exportAll(response.getOutputStream());
+        } catch (Exception e) {
+            log.error("导出Cookie数据失败", e);
+            // 已开始写出时只能中断响应
+            if (response.isCommitted()) {
+                throw e;
+            }
+            response.reset();
+            response.setStatus(500);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            objectMapper.writeValue(response.getOutputStream(), ApiResponse.error("导出失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 从NDJSON请求体批量导入Cookie数据，已存在的用户被覆盖
+     */
+    @PostMapping("/import")
+    public ApiResponse<Map<String, Object>> importCookies(HttpServletRequest request) {
+        log.info("开始导入Cookie数据 - 请求体大小: {}", request.getContentLengthLong());
+        try {
+            return ApiResponse.success("导入完成", cookieTransferService.importAll(request.getInputStream()));
+        } catch (IllegalStateException e) {
+            return ApiResponse.error(409, e.getMessage());
+        } catch (Exception e) {
+            log.error("导入Cookie数据失败", e);
+            return ApiResponse.error("导入失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 在后台用活动主密钥重新包装全部数据密钥，进度通过 /encryption 查询
+     */
+    @PostMapping("/encryption/rotate")
+    public ApiResponse<Map<String, Object>> rotateDataKeys() {
+        try {
+            return ApiResponse.success("密钥轮换已开始", dataKeyRotationService.start());
+        } catch (IllegalStateException e) {
+            return ApiResponse.error(409, e.getMessage());
+        } catch (Exception e) {
+            log.error("开始密钥轮换失败", e);
+            return ApiResponse.error("开始密钥轮换失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 信封加密状态：活动主密钥、已解包数据密钥缓存数量与最近一次轮换进度
+     */
+    @GetMapping("/encryption")
+    public ApiResponse<Map<String, Object>> getEncryption() {
+        Map<String, Object> encryption = new HashMap<>();
+        encryption.put("activeMasterKeyId", encryptionUtil.getActiveMasterKeyId());
+        encryption.put("dataKeyCacheSize", encryptionUtil.getDataKeyCacheSize());
+        encryption.put("rotation", dataKeyRotationService.status());
+        return ApiResponse.success(encryption);
+    }
+
+    /**
+     * 冷热分层状态：归档用户数与大小、恢复次数和最近一次归档任务的结果
+     */
+    @GetMapping("/archive")
+    public CompletableFuture<ApiResponse<Map<String, Object>>> getArchiveStatus() {
+        if (cookieArchiveService == null) {
+            return CompletableFuture.completedFuture(ApiResponse.error(501, "未开启冷热分层"));
+        }
+        return onAdminPool(() -> {
+            try {
+                return ApiResponse.success(cookieArchiveService.getStatus());
+            } catch (Exception e) {
+                log.error("获取归档状态失败", e);
+                return ApiResponse.error("获取归档状态失败: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 立即归档不活跃用户，不等待定期任务
+     */
+    @PostMapping("/archive/run")
+    public CompletableFuture<ApiResponse<Map<String, Object>>> runArchive() {
+        if (cookieArchiveService == null) {
+            return CompletableFuture.completedFuture(ApiResponse.error(501, "未开启冷热分层"));
+        }
+        return onAdminPool(() -> {
+            try {
+                cookieArchiveService.archiveInactive();
+                return ApiResponse.success("归档完成", cookieArchiveService.getStatus());
+            } catch (IllegalStateException e) {
+                return ApiResponse.error(409, e.getMessage());
+            } catch (Exception e) {
+                log.error("归档失败", e);
+                return ApiResponse.error("归档失败: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 开始JFR录制，时长和大小受配置上限约束
+     */
+    @PostMapping("/recording/start")
+    public ApiResponse<Map<String, Object>> startRecording(
+            @RequestParam(value = "duration", required = false) Integer durationSeconds,
+            @RequestParam(value = "maxSize", required = false) Integer maxSizeMb) {
+        try {
+            return ApiResponse.success("录制已开始", flightRecordingService.start(durationSeconds, maxSizeMb));
+        } catch (IllegalStateException e) {
+            return ApiResponse.error(409, e.getMessage());
+        } catch (Exception e) {
+            log.error("开始JFR录制失败", e);
+            return ApiResponse.error("开始录制失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * JFR录制状态
+     */
+    @GetMapping("/recording")
+    public ApiResponse<Map<String, Object>> getRecording() {
+        Map<String, Object> status = flightRecordingService.status();
+        return status == null ? ApiResponse.notFound("没有进行中的录制") : ApiResponse.success(status);
+    }
+
+    /**
+     * 停止JFR录制并下载 .jfr 文件，可用 JDK Mission Control 或 jfr 命令分析
+     */
+    @PostMapping("/recording/stop")
+    public void stopRecording(HttpServletResponse response) throws IOException {
+        String fileName = "cookie-sync-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss")) + ".jfr";
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader("Content-Disposition", "attachment; filename=" + fileName);
+        
+        try {
+            flightRecordingService.stop(response.getOutputStream());
         } catch (Exception e) {
-            log.error("获取用户统计失败 - 用户ID: {}", userId, e);
-            return ApiResponse.error("获取用户统计失败: " + e.getMessage());
+            if (response.isCommitted()) {
+                throw e;
+            }
+            boolean missing = e instanceof IllegalStateException;
+            if (!missing) {
+                log.error("停止JFR录制失败", e);
+            }
+            response.reset();
+            response.setStatus(missing ? 404 : 500);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            objectMapper.writeValue(response.getOutputStream(), missing
+                    ? ApiResponse.notFound(e.getMessage()) : ApiResponse.error("停止录制失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 最近的链路追踪Span，可按追踪ID（traceresponse 响应头或扩展日志中的ID）过滤
+     */
+    @GetMapping("/traces")
+    public ApiResponse<List<Map<String, Object>>> getTraces(
+            @RequestParam(value = "traceId", required = false) String traceId,
+            @RequestParam(value = "limit", required = false, defaultValue = "200") int limit) {
+        return ApiResponse.success(recentSpanExporter.find(traceId, Math.max(1, Math.min(limit, 1000))));
+    }
+
+    /**
+     * 在管理线程池上执行，期间的数据库访问使用管理连接池；线程池已满时直接返回繁忙
+     */
+    private <T> CompletableFuture<ApiResponse<T>> onAdminPool(Supplier<ApiResponse<T>> operation) {
+        try {
+            return CompletableFuture.supplyAsync(
+                    () -> DataSourceContextHolder.onWorkload(Workload.ADMIN, operation), adminExecutor);
+        } catch (RejectedExecutionException e) {
+            log.warn("管理线程池已满，拒绝请求");
+            return CompletableFuture.completedFuture(ApiResponse.error(503, "系统繁忙，请稍后重试"));
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+package com.cookiesync.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * 数据源路由上下文
+ * 在当前线程上标记后续SQL的业务类型，以及是否可以路由到只读副本
+ * 
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public final class DataSourceContextHolder {
+
+    private static final ThreadLocal<Boolean> READ_ONLY = new ThreadLocal<>();
+
+    private static final ThreadLocal<Workload> WORKLOAD = new ThreadLocal<>();
+
+    private DataSourceContextHolder() {
+    }
+
+    /**
+     * 当前线程是否路由到只读副本
+     */
+    public static boolean isReadOnly() {
+        return Boolean.TRUE.equals(READ_ONLY.get());
+    }
+
+    /**
+     * 当前线程的业务类型，未标记时为同步请求
+     */
+    public static Workload currentWorkload() {
+        Workload workload = WORKLOAD.get();
+        return workload == null ? Workload.SYNC : workload;
+    }
+
+    /**
+     * 在只读副本上执行查询
+     * 仅对操作内首次获取的连接生效，已绑定连接的事务内调用仍使用主库
+     */
+    public static <T> T onReplica(Supplier<T> query) {
+        return with(READ_ONLY, Boolean.TRUE, query);
+    }
+
+    /**
+     * 使用指定业务类型的连接池执行操作
+     * 与 onReplica 一样仅对操作内首次获取的连接生效
+     */
+    public static <T> T onWorkload(Workload workload, Supplier<T> operation) {
+        return with(WORKLOAD, workload, operation);
+    }
+
+    private static <V, T> T with(ThreadLocal<V> holder, V value, Supplier<T> operation) {
+        V previous = holder.get();
+        holder.set(value);
+        try {
+            return operation.get();
+        } finally {
+            if (previous == null) {
+                holder.remove();
+            } else {
+                holder.set(previous);
+            }
+        }
+    }
+}
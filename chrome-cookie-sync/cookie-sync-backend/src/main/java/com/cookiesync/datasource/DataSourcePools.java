@@ -0,0 +1,48 @@
+package com.cookiesync.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 路由数据源下的全部连接池，用于输出各连接池的饱和度指标
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public class DataSourcePools {
+
+    private final Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+
+    public void register(String name, HikariDataSource dataSource) {
+        pools.put(name, dataSource);
+    }
+
+    public Map<String, HikariDataSource> getPools() {
+        return pools;
+    }
+
+    /**
+     * 各连接池的使用情况；连接池尚未建立连接时只返回配置
+     */
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        pools.forEach((name, dataSource) -> {
+            Map<String, Object> pool = new LinkedHashMap<>();
+            pool.put("poolName", dataSource.getPoolName());
+            pool.put("maximumPoolSize", dataSource.getMaximumPoolSize());
+            HikariPoolMXBean mxBean = dataSource.getHikariPoolMXBean();
+            if (mxBean != null) {
+                pool.put("activeConnections", mxBean.getActiveConnections());
+                pool.put("idleConnections", mxBean.getIdleConnections());
+                pool.put("totalConnections", mxBean.getTotalConnections());
+                pool.put("threadsAwaitingConnection", mxBean.getThreadsAwaitingConnection());
+                pool.put("utilization", (double) mxBean.getActiveConnections() / dataSource.getMaximumPoolSize());
+            }
+            metrics.put(name, pool);
+        });
+        return metrics;
+    }
+}
@@ -0,0 +1,42 @@
+package com.cookiesync.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 读写分离路由数据源
+ * 按业务类型选择隔离的连接池：同步日志与管理操作各自使用独立的连接池，
+ * 同步请求的只读查询在副本之间轮询，管理类只读查询使用单独的副本连接池，未配置副本时全部访问主库
+ * 
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA_PREFIX = "replica-";
+    public static final String LOG = "log";
+    public static final String ADMIN = "admin";
+    public static final String ADMIN_REPLICA = "admin-replica";
+
+    private final int replicaCount;
+    private final AtomicInteger counter = new AtomicInteger();
+
+    public ReadWriteRoutingDataSource(int replicaCount) {
+        this.replicaCount = replicaCount;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean replica = replicaCount > 0 && DataSourceContextHolder.isReadOnly();
+        switch (DataSourceContextHolder.currentWorkload()) {
+            case LOG:
+                return LOG;
+            case ADMIN:
+                return replica ? ADMIN_REPLICA : ADMIN;
+            default:
+                return replica ? REPLICA_PREFIX + Math.floorMod(counter.getAndIncrement(), replicaCount) : PRIMARY;
+        }
+    }
+}
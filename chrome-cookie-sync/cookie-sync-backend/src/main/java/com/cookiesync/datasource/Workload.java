@@ -0,0 +1,25 @@
+package com.cookiesync.datasource;
+
+/**
+ * 数据库访问的业务类型，不同类型使用相互隔离的连接池
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public enum Workload {
+
+    /**
+     * 上传/下载等同步请求，延迟敏感
+     */
+    SYNC,
+
+    /**
+     * 同步日志写入
+     */
+    LOG,
+
+    /**
+     * 管理、统计和清理操作
+     */
+    ADMIN
+}
@@ -0,0 +1,70 @@
+package com.cookiesync.entity;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 批量查询结果中的一行（NDJSON），按查询类型只填充对应的字段
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CookieBatchItem {
+
+    /**
+     * 用户标识
+     */
+    private String userId;
+
+    /**
+     * 是否存在未过期的Cookie数据
+     */
+    private Boolean exists;
+
+    /**
+     * Cookie数量，统计与下载时返回
+     */
+    private Integer cookieCount;
+
+    /**
+     * 数据大小（字节）
+     */
+    private Long dataSize;
+
+    /**
+     * 数据版本号
+     */
+    private Integer version;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createTime;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime updateTime;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime expireTime;
+
+    /**
+     * 解密后的Cookie数据（JSON原样嵌入），下载时返回
+     */
+    @JsonRawValue
+    private String cookies;
+
+    /**
+     * 该用户处理失败时的错误信息，不影响其他用户
+     */
+    private String error;
+
+    public CookieBatchItem(String userId) {
+        this.userId = userId;
+    }
+}
@@ -0,0 +1,137 @@
+package com.cookiesync.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cookie数据变更事件（cookie_outbox 表）
+ * 与 cookie_data 的写入在同一事务中记录，由中继按顺序发布给订阅者
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+public class CookieChangeEvent {
+
+    /**
+     * 写入或覆盖用户数据
+     */
+    public static final String UPSERT = "UPSERT";
+
+    /**
+     * 删除用户数据
+     */
+    public static final String DELETE = "DELETE";
+
+    /**
+     * 批量删除过期数据，不针对单个用户
+     */
+    public static final String EXPIRE = "EXPIRE";
+
+    /**
+     * 事件序号，同一数据源内递增
+     */
+    private Long id;
+
+    /**
+     * 事件类型
+     */
+    private String eventType;
+
+    /**
+     * 用户标识，EXPIRE 事件为空
+     */
+    private String userId;
+
+    /**
+     * 写入后的数据版本号
+     */
+    private Integer version;
+
+    /**
+     * 加密后的Cookie数据
+     */
+    private String encryptedData;
+
+    /**
+     * 包装后的数据密钥
+     */
+    private String dataKey;
+
+    /**
+     * 数据大小
+     */
+    private Long dataSize;
+
+    /**
+     * Cookie数量
+     */
+    private Integer cookieCount;
+
+    /**
+     * 过期时间
+     */
+    private LocalDateTime expireTime;
+
+    /**
+     * 产生事件的节点
+     */
+    private String originNode;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createTime;
+
+    /**
+     * 事件在消息代理中的位置，由代理在投递时设置
+     */
+    @JsonIgnore
+    private Long offset;
+
+    public static CookieChangeEvent upsert(CookieData cookieData) {
+        CookieChangeEvent event = new CookieChangeEvent();
+        event.setEventType(UPSERT);
+        event.setUserId(cookieData.getUserId());
+        event.setVersion(cookieData.getVersion());
+        // 按条目存储的数据在事件中携带完整数据，订阅方无需读取 cookie_entry 表
+        event.setEncryptedData(cookieData.getEventData() != null ? cookieData.getEventData() : cookieData.getEncryptedData());
+        event.setDataKey(cookieData.getDataKey());
+        event.setDataSize(cookieData.getDataSize());
+        event.setCookieCount(cookieData.getCookieCount());
+        event.setExpireTime(cookieData.getExpireTime());
+        return event;
+    }
+
+    public static CookieChangeEvent delete(String userId) {
+        CookieChangeEvent event = new CookieChangeEvent();
+        event.setEventType(DELETE);
+        event.setUserId(userId);
+        return event;
+    }
+
+    public static CookieChangeEvent expire() {
+        CookieChangeEvent event = new CookieChangeEvent();
+        event.setEventType(EXPIRE);
+        return event;
+    }
+
+    /**
+     * 转换为Cookie数据，用于在备用节点上重放
+     */
+    public CookieData toCookieData() {
+        CookieData cookieData = new CookieData();
+        cookieData.setUserId(userId);
+        cookieData.setVersion(version);
+        cookieData.setEncryptedData(encryptedData);
+        cookieData.setDataKey(dataKey);
+        cookieData.setDataSize(dataSize);
+        cookieData.setCookieCount(cookieCount);
+        cookieData.setExpireTime(expireTime);
+        return cookieData;
+    }
+}
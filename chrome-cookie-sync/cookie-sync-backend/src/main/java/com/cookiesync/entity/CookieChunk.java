@@ -0,0 +1,38 @@
+package com.cookiesync.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 快照数据块（cookie_chunk 表）
+ * 以明文的带密钥摘要作为主键，相同内容的块只存储一次
+ * 
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CookieChunk {
+    
+    /**
+     * 明文的HMAC摘要
+     */
+    private String hash;
+    
+    /**
+     * 压缩并加密后的块内容
+     */
+    private String encryptedData;
+    
+    /**
+     * 由主密钥包装的数据密钥，为空表示历史数据使用静态密钥
+     */
+    private String dataKey;
+    
+    /**
+     * 明文大小（字节）
+     */
+    private Integer size;
+}
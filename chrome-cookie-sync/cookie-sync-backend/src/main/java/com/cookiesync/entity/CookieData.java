@@ -1,6 +1,7 @@
 package com.cookiesync.entity;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -33,6 +34,11 @@ public class CookieData {
      */
     private String encryptedData;
     
+    /**
+     * 由主密钥包装的数据密钥（主密钥ID:密文），为空表示历史数据使用静态密钥加密，轮换后为包装后的静态密钥
+     */
+    private String dataKey;
+    
     /**
      * 数据大小（字节）
      */
@@ -76,6 +82,12 @@ public class CookieData {
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime expireTime;
     
+    /**
+     * 下次压缩时间：到该时间时已有足够比例的Cookie过期，后台任务会重写数据，为空表示不需要压缩
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime pruneTime;
+    
     /**
      * 数据状态：0-正常，1-已删除
      */
@@ -85,4 +97,16 @@ public class CookieData {
      * 备注信息
      */
     private String remark;
+    
+    /**
+     * 按条目存储时组装后的完整加密数据（格式与整体存储相同），不写入数据库，只用于变更事件
+     */
+    @JsonIgnore
+    private String eventData;
+    
+    /**
+     * 加密数据的Base64字节，只在堆外缓存按字节读取时代替encryptedData，省去构造字符串的复制，不写入数据库
+     */
+    @JsonIgnore
+    private byte[] encryptedBytes;
 }
\ No newline at end of file
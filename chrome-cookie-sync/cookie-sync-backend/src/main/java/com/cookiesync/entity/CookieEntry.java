@@ -0,0 +1,85 @@
+package com.cookiesync.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 单条Cookie实体类（cookie_entry 表）
+ * 以 (用户ID, 域名, 路径, 名称) 唯一标识，每条Cookie单独加密
+ * 
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+public class CookieEntry {
+    
+    /**
+     * 主键ID
+     */
+    private Long id;
+    
+    /**
+     * 用户标识
+     */
+    private String userId;
+    
+    /**
+     * Cookie域名
+     */
+    private String domain;
+    
+    /**
+     * Cookie路径
+     */
+    private String path;
+    
+    /**
+     * Cookie名称
+     */
+    private String name;
+    
+    /**
+     * 加密后的Cookie JSON
+     */
+    private String encryptedValue;
+    
+    /**
+     * 由主密钥包装的数据密钥，为空表示历史数据使用静态密钥
+     */
+    private String dataKey;
+    
+    /**
+     * Cookie JSON的带密钥摘要，用于判断是否变化
+     */
+    private String valueHash;
+    
+    /**
+     * Cookie过期时间，会话Cookie为空
+     */
+    private LocalDateTime expireTime;
+    
+    /**
+     * 条目版本号，每次内容变化加一
+     */
+    private Integer version;
+    
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createTime;
+    
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updateTime;
+    
+    /**
+     * 条目唯一键
+     */
+    public String key() {
+        return domain + '\n' + path + '\n' + name;
+    }
+}
@@ -0,0 +1,59 @@
+package com.cookiesync.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Cookie原始负载实体类
+ * 用于直写响应流的下载模式，元数据通过响应头返回；写出结束后由调用方调用 {@link #complete(Exception)} 记录结果
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CookiePayload {
+
+    /**
+     * Cookie数据元信息（不含加密数据）
+     */
+    private CookieData metadata;
+
+    /**
+     * 解密后的负载流，按分段流式解密
+     */
+    private InputStream content;
+
+    /**
+     * 负载是否为GZIP压缩格式
+     */
+    private boolean gzipped;
+
+    /**
+     * 负载写出结束后的回调（记录同步日志），参数为写出失败时的异常，成功时为null
+     */
+    private Consumer<Exception> completion;
+
+    /**
+     * 不需要写出回调的负载
+     */
+    public CookiePayload(CookieData metadata, InputStream content, boolean gzipped) {
+        this(metadata, content, gzipped, null);
+    }
+
+    /**
+     * 负载写出结束（成功或失败）时调用
+     *
+     * @param error 写出失败时的异常，成功时为null
+     */
+    public void complete(Exception error) {
+        if (completion != null) {
+            completion.accept(error);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.cookiesync.entity;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cookie数据版本快照（cookie_snapshot 表）
+ * 快照内容由按顺序排列的块组成，块清单存放在 cookie_snapshot_chunk 表中
+ * 
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+public class CookieSnapshot {
+    
+    /**
+     * 主键ID
+     */
+    @JsonIgnore
+    private Long id;
+    
+    /**
+     * 用户标识
+     */
+    private String userId;
+    
+    /**
+     * 对应的 cookie_data 版本号
+     */
+    private Integer version;
+    
+    /**
+     * 快照内容大小（明文字节）
+     */
+    private Long dataSize;
+    
+    /**
+     * 本快照新写入的块的大小（明文字节），其余块与已有快照共享
+     */
+    private Long storedSize;
+    
+    /**
+     * 块数量
+     */
+    private Integer chunkCount;
+    
+    /**
+     * Cookie数量
+     */
+    private Integer cookieCount;
+    
+    /**
+     * 创建时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createTime;
+}
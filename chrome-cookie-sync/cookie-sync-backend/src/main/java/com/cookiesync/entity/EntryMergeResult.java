@@ -0,0 +1,44 @@
+package com.cookiesync.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Cookie条目合并结果
+ * 
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EntryMergeResult {
+    
+    /**
+     * 新增条目数
+     */
+    private int added;
+    
+    /**
+     * 内容变化的条目数
+     */
+    private int updated;
+    
+    /**
+     * 删除的条目数
+     */
+    private int removed;
+    
+    /**
+     * 未变化的条目数
+     */
+    private int unchanged;
+    
+    /**
+     * 合并后的条目总数
+     */
+    public int getTotal() {
+        return added + updated + unchanged;
+    }
+}
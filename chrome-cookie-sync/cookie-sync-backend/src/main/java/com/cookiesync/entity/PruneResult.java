@@ -0,0 +1,57 @@
+package com.cookiesync.entity;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cookie清理结果
+ * 
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PruneResult {
+    
+    /**
+     * 清理后的数据，格式与输入一致（数组或带 cookies 字段的对象）
+     */
+    private JsonNode cookies;
+    
+    /**
+     * 保留的Cookie数量
+     */
+    private int kept;
+    
+    /**
+     * 已过期被移除的数量
+     */
+    private int expired;
+    
+    /**
+     * 会话Cookie被移除的数量
+     */
+    private int session;
+    
+    /**
+     * 命中屏蔽规则被移除的数量
+     */
+    private int blocked;
+    
+    /**
+     * 下次压缩时间，为空表示不需要压缩
+     */
+    private LocalDateTime pruneTime;
+    
+    /**
+     * 移除的Cookie总数
+     */
+    public int getRemoved() {
+        return expired + session + blocked;
+    }
+}
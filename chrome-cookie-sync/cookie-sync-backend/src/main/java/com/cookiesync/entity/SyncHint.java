@@ -0,0 +1,38 @@
+package com.cookiesync.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * 同步间隔建议实体类
+ * 服务端根据用户数据变化频率和当前负载给出下一次同步的建议间隔，通过响应头返回给扩展
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncHint {
+
+    /**
+     * 建议的下次同步间隔（秒）
+     */
+    private long intervalSeconds;
+
+    /**
+     * 随机抖动范围（秒），客户端在 ±jitter 内随机偏移，避免同时触发
+     */
+    private long jitterSeconds;
+
+    /**
+     * 用户数据每天的变化次数
+     */
+    private double changesPerDay;
+
+    /**
+     * 负载系数，服务端繁忙时大于1
+     */
+    private double loadFactor;
+}
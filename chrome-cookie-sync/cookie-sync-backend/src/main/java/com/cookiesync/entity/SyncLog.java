@@ -0,0 +1,77 @@
+package com.cookiesync.entity;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 同步日志（sync_log 表）
+ * 分页浏览只查询索引覆盖的列，客户端IP、用户代理与错误信息只在导出时填充
+ * 
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SyncLog {
+    
+    /**
+     * 主键ID
+     */
+    private Long id;
+    
+    /**
+     * 用户标识
+     */
+    private String userId;
+    
+    /**
+     * 操作类型：UPLOAD-上传，DOWNLOAD-下载
+     */
+    private String operationType;
+    
+    /**
+     * 数据大小（字节）
+     */
+    private Long dataSize;
+    
+    /**
+     * Cookie数量
+     */
+    private Integer cookieCount;
+    
+    /**
+     * 客户端IP地址
+     */
+    private String clientIp;
+    
+    /**
+     * 用户代理信息
+     */
+    private String userAgent;
+    
+    /**
+     * 操作是否成功
+     */
+    private Boolean success;
+    
+    /**
+     * 错误信息
+     */
+    private String errorMessage;
+    
+    /**
+     * 操作耗时（毫秒）
+     */
+    private Integer duration;
+    
+    /**
+     * 创建时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createTime;
+}
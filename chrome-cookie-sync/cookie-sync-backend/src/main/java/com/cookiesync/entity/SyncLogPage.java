@@ -0,0 +1,30 @@
+package com.cookiesync.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 同步日志分页结果
+ * 按创建时间倒序，下一页以 nextCursor 作为 cursor 参数查询，没有更多数据时为空
+ * 
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncLogPage {
+    
+    /**
+     * 本页日志
+     */
+    private List<SyncLog> logs;
+    
+    /**
+     * 下一页游标
+     */
+    private String nextCursor;
+}
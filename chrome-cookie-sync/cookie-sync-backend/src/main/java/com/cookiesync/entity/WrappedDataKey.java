@@ -0,0 +1,43 @@
+package com.cookiesync.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 待轮换的数据密钥
+ * 轮换时只读取并更新 cookie_data、cookie_entry、cookie_chunk 的数据密钥列，不读取加密数据
+ * 
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WrappedDataKey {
+    
+    /**
+     * 主键ID
+     */
+    private Long id;
+    
+    /**
+     * 用户标识，快照块为空
+     */
+    private String userId;
+    
+    /**
+     * 快照块的摘要（快照块以摘要为主键）
+     */
+    private String hash;
+    
+    /**
+     * 当前的包装后数据密钥，为空表示历史数据使用静态密钥
+     */
+    private String dataKey;
+    
+    /**
+     * 以当前主密钥重新包装后的数据密钥
+     */
+    private String rotatedKey;
+}
@@ -0,0 +1,24 @@
+package com.cookiesync.filter;
+
+import java.io.IOException;
+
+/**
+ * 请求体超过大小限制
+ * 继承IOException，在消息转换器读取请求体时抛出，由 ApiExceptionHandler 转换为413响应
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public class PayloadTooLargeException extends IOException {
+
+    private final long limit;
+
+    public PayloadTooLargeException(long limit) {
+        super("请求体超过大小限制: " + limit + " bytes");
+        this.limit = limit;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+}
@@ -0,0 +1,185 @@
+package com.cookiesync.filter;
+
+import com.cookiesync.entity.ApiResponse;
+import com.cookiesync.util.CompressionUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * 上传请求体解压
+ * 按 Content-Encoding（gzip、deflate、zstd）边读边解压，后续处理看到的是未压缩的请求体；
+ * 排在 RequestSizeLimitFilter 之前，大小限制作用于解压后的字节，压缩炸弹同样会被中断
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 10)
+public class RequestDecompressionFilter extends OncePerRequestFilter {
+
+    private static final String UPLOAD_PATH = "/api/cookies/upload";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !StringUtils.hasText(request.getHeader(HttpHeaders.CONTENT_ENCODING))
+                || !UPLOAD_PATH.equals(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String contentEncoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        InputStream decoded;
+        try {
+            decoded = CompressionUtil.openDecoding(contentEncoding, request.getInputStream());
+        } catch (IllegalArgumentException | IOException e) {
+            log.warn("请求体解压失败 - Content-Encoding: {}, 错误: {}", contentEncoding, e.getMessage());
+            response.setStatus(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            objectMapper.writeValue(response.getOutputStream(),
+                    ApiResponse.error(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value(), "无法解压请求体: " + e.getMessage()));
+            return;
+        }
+        filterChain.doFilter(new DecodedRequest(request, decoded), response);
+    }
+
+    /**
+     * 解压后的请求，隐藏原始的 Content-Encoding 和 Content-Length
+     */
+    private static class DecodedRequest extends HttpServletRequestWrapper {
+
+        private static final List<String> HIDDEN_HEADERS = List.of(
+                HttpHeaders.CONTENT_ENCODING.toLowerCase(), HttpHeaders.CONTENT_LENGTH.toLowerCase());
+
+        private final ServletInputStream inputStream;
+
+        private BufferedReader reader;
+
+        DecodedRequest(HttpServletRequest request, InputStream decoded) {
+            super(request);
+            this.inputStream = new DecodedInputStream(decoded);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return inputStream;
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            if (reader == null) {
+                String encoding = getCharacterEncoding();
+                reader = new BufferedReader(new InputStreamReader(inputStream,
+                        encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding)));
+            }
+            return reader;
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return isHidden(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return isHidden(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            List<String> names = Collections.list(super.getHeaderNames());
+            names.removeIf(DecodedRequest::isHidden);
+            return Collections.enumeration(names);
+        }
+
+        private static boolean isHidden(String name) {
+            return name != null && HIDDEN_HEADERS.contains(name.toLowerCase());
+        }
+    }
+
+    private static class DecodedInputStream extends ServletInputStream {
+
+        private final InputStream delegate;
+
+        private boolean finished;
+
+        DecodedInputStream(InputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            finished = b < 0;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = delegate.read(b, off, len);
+            finished = read < 0;
+            return read;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new UnsupportedOperationException("解压后的请求体不支持异步读取");
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.cookiesync.filter;
+
+import com.cookiesync.entity.ApiResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 上传请求体大小限制
+ * <ul>
+ *     <li>Content-Length 超过限制时直接返回413，不读取请求体</li>
+ *     <li>未声明长度（分块传输）时边读边计数，超过限制立即中断读取</li>
+ * </ul>
+ * 超大请求在解析、加密之前被拒绝，内存占用不超过限制值
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Component
+public class RequestSizeLimitFilter extends OncePerRequestFilter {
+
+    private static final String UPLOAD_PATH = "/api/cookies/upload";
+
+    @Value("${cookie-sync.business.max-cookie-size:10485760}")
+    private long maxCookieSize;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !UPLOAD_PATH.equals(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long contentLength = request.getContentLengthLong();
+        if (contentLength > maxCookieSize) {
+            log.warn("上传请求体超过大小限制 - 声明长度: {}, 限制: {}, IP: {}", contentLength, maxCookieSize, request.getRemoteAddr());
+            response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+            response.setHeader(HttpHeaders.CONNECTION, "close");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            objectMapper.writeValue(response.getOutputStream(),
+                    ApiResponse.error(HttpStatus.PAYLOAD_TOO_LARGE.value(), "上传数据超过大小限制: " + maxCookieSize + " bytes"));
+            return;
+        }
+        filterChain.doFilter(new LimitedRequest(request, maxCookieSize), response);
+    }
+
+    /**
+     * 读取请求体时计数，超过限制抛出 PayloadTooLargeException
+     */
+    private static class LimitedRequest extends HttpServletRequestWrapper {
+
+        private final long limit;
+
+        private ServletInputStream inputStream;
+
+        private BufferedReader reader;
+
+        LimitedRequest(HttpServletRequest request, long limit) {
+            super(request);
+            this.limit = limit;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                inputStream = new LimitedInputStream(super.getInputStream(), limit);
+            }
+            return inputStream;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            if (reader == null) {
+                String encoding = getCharacterEncoding();
+                reader = new BufferedReader(new InputStreamReader(getInputStream(),
+                        encoding == null ? StandardCharsets.UTF_8.name() : encoding));
+            }
+            return reader;
+        }
+    }
+
+    private static class LimitedInputStream extends ServletInputStream {
+
+        private final ServletInputStream delegate;
+
+        private final long limit;
+
+        private long count;
+
+        LimitedInputStream(ServletInputStream delegate, long limit) {
+            this.delegate = delegate;
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = delegate.read(b, off, len);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        private void count(int read) throws PayloadTooLargeException {
+            count += read;
+            if (count > limit) {
+                throw new PayloadTooLargeException(limit);
+            }
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            delegate.setReadListener(readListener);
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
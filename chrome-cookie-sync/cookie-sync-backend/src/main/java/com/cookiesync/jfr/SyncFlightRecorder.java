@@ -0,0 +1,67 @@
+package com.cookiesync.jfr;
+
+import com.cookiesync.util.EncryptionUtil;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 同步操作的埋点入口（JFR事件与链路追踪Span）
+ * JFR录制开启了同步事件且命中采样，或当前请求的链路被采样时才创建跟踪，平时仅多一次状态判断
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Component
+public class SyncFlightRecorder {
+
+    @Autowired
+    private EncryptionUtil encryptionUtil;
+
+    @Autowired
+    private Tracer tracer;
+
+    @Value("${cookie-sync.jfr.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cookie-sync.jfr.sample-rate:1.0}")
+    private double sampleRate;
+
+    /**
+     * 开始跟踪一次同步操作
+     *
+     * @param operation 操作类型，如 UPLOAD、DOWNLOAD
+     * @param userId 用户ID，事件中只记录其摘要
+     * @return 同步跟踪，未录制且链路未采样时为 {@link SyncTrace#NONE}
+     */
+    public SyncTrace begin(String operation, String userId) {
+        SyncOperationEvent event = enabled ? new SyncOperationEvent() : null;
+        if (event != null && (!event.isEnabled()
+                || (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate))) {
+            event = null;
+        }
+        boolean traced = Span.current().getSpanContext().isSampled();
+        if (event == null && !traced) {
+            return SyncTrace.NONE;
+        }
+
+        String userHash = userId == null ? null : encryptionUtil.keyedDigest(userId).substring(0, 16);
+        if (event != null) {
+            event.operation = operation;
+            event.userHash = userHash;
+            event.begin();
+        }
+        Span span = null;
+        if (traced) {
+            span = tracer.spanBuilder("cookie." + operation.toLowerCase(Locale.ROOT))
+                    .setAttribute("cookie.user_hash", userHash == null ? "" : userHash)
+                    .startSpan();
+        }
+        return new SyncTrace(event, span, tracer, operation, userHash);
+    }
+}
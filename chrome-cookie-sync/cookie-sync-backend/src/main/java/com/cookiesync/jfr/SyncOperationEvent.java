@@ -0,0 +1,39 @@
+package com.cookiesync.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 一次上传或下载的JFR事件，持续时间即整个同步操作的耗时
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Name("com.cookiesync.SyncOperation")
+@Label("Cookie Sync Operation")
+@Category({"Cookie Sync"})
+@Description("一次Cookie上传或下载")
+@StackTrace(false)
+public class SyncOperationEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("User Hash")
+    @Description("用户ID的带密钥摘要前16位，不记录原始用户ID")
+    String userHash;
+
+    @Label("Payload Size")
+    @DataAmount
+    long payloadBytes;
+
+    @Label("Cookie Count")
+    int cookieCount;
+
+    @Label("Success")
+    boolean success;
+}
@@ -0,0 +1,25 @@
+package com.cookiesync.jfr;
+
+/**
+ * 同步操作的处理阶段
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public enum SyncStage {
+
+    /** 解析与清理请求中的Cookie数据 */
+    PARSE,
+
+    /** 压缩、加密与解密 */
+    CRYPTO,
+
+    /** 读写Redis及本地缓存 */
+    CACHE,
+
+    /** 读写数据库 */
+    DB,
+
+    /** 写入同步日志 */
+    LOG
+}
@@ -0,0 +1,35 @@
+package com.cookiesync.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 同步操作中单个阶段的JFR事件
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Name("com.cookiesync.SyncStage")
+@Label("Cookie Sync Stage")
+@Category({"Cookie Sync"})
+@Description("Cookie同步的单个处理阶段")
+@StackTrace(false)
+public class SyncStageEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Stage")
+    String stage;
+
+    @Label("User Hash")
+    String userHash;
+
+    @Label("Payload Size")
+    @DataAmount
+    long payloadBytes;
+}
@@ -0,0 +1,165 @@
+package com.cookiesync.jfr;
+
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 一次同步操作的跟踪，同时输出JFR事件和链路追踪Span
+ * <ul>
+ *     <li>JFR：各阶段事件先缓存在跟踪中，操作结束时只有整体耗时超过阈值（操作事件被提交）才一并提交，
+ *     录制中只保留慢请求的完整分解</li>
+ *     <li>链路追踪：操作和各阶段各对应一个Span，阶段Span不设为当前上下文，异常路径不会残留上下文</li>
+ * </ul>
+ * 未被采样时使用 {@link #NONE}，不产生任何开销
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public class SyncTrace {
+
+    /**
+     * 不记录任何事件的跟踪
+     */
+    public static final SyncTrace NONE = new SyncTrace(null, null, null, null, null);
+
+    private static final Span NO_SPAN = new Span(null, null, null);
+
+    private final SyncOperationEvent operationEvent;
+
+    private final io.opentelemetry.api.trace.Span operationSpan;
+
+    private final Tracer tracer;
+
+    private final String operation;
+
+    private final String userHash;
+
+    private final List<SyncStageEvent> stageEvents = new ArrayList<>();
+
+    private boolean finished;
+
+    private boolean committed;
+
+    SyncTrace(SyncOperationEvent operationEvent, io.opentelemetry.api.trace.Span operationSpan, Tracer tracer,
+              String operation, String userHash) {
+        this.operationEvent = operationEvent;
+        this.operationSpan = operationSpan;
+        this.tracer = tracer;
+        this.operation = operation;
+        this.userHash = userHash;
+    }
+
+    /**
+     * 开始一个阶段，调用返回值的 {@link Span#end(long)} 结束
+     */
+    public Span stage(SyncStage stage) {
+        if (operationEvent == null && operationSpan == null) {
+            return NO_SPAN;
+        }
+        SyncStageEvent event = null;
+        if (operationEvent != null) {
+            event = new SyncStageEvent();
+            event.operation = operation;
+            event.stage = stage.name();
+            event.userHash = userHash;
+            event.begin();
+        }
+        io.opentelemetry.api.trace.Span span = null;
+        if (operationSpan != null) {
+            span = tracer.spanBuilder(stage.name().toLowerCase(Locale.ROOT))
+                    .setParent(Context.root().with(operationSpan))
+                    .startSpan();
+        }
+        return new Span(this, event, span);
+    }
+
+    /**
+     * 记录操作的属性（如数据版本），仅用于链路追踪
+     */
+    public void attribute(String key, Number value) {
+        if (operationSpan != null && value != null) {
+            operationSpan.setAttribute(key, value.longValue());
+        }
+    }
+
+    /**
+     * 结束整个操作，耗时达到阈值时提交操作事件及已结束的阶段事件
+     */
+    public void finish(boolean success, long payloadBytes, int cookieCount) {
+        if (operationSpan != null) {
+            operationSpan.setAttribute("cookie.payload_bytes", payloadBytes);
+            operationSpan.setAttribute("cookie.count", cookieCount);
+            if (!success) {
+                operationSpan.setStatus(StatusCode.ERROR);
+            }
+            operationSpan.end();
+        }
+        if (operationEvent == null) {
+            return;
+        }
+        operationEvent.end();
+        operationEvent.success = success;
+        operationEvent.payloadBytes = payloadBytes;
+        operationEvent.cookieCount = cookieCount;
+        synchronized (this) {
+            finished = true;
+            committed = operationEvent.shouldCommit();
+            if (committed) {
+                operationEvent.commit();
+                stageEvents.forEach(SyncStageEvent::commit);
+            }
+            stageEvents.clear();
+        }
+    }
+
+    /**
+     * 阶段结束；异步阶段（如日志写入）可能晚于操作结束，此时按操作是否已提交直接决定
+     */
+    private synchronized void stageEnded(SyncStageEvent event) {
+        if (!finished) {
+            stageEvents.add(event);
+        } else if (committed) {
+            event.commit();
+        }
+    }
+
+    /**
+     * 一个进行中的阶段
+     */
+    public static class Span {
+
+        private final SyncTrace trace;
+
+        private final SyncStageEvent event;
+
+        private final io.opentelemetry.api.trace.Span span;
+
+        private Span(SyncTrace trace, SyncStageEvent event, io.opentelemetry.api.trace.Span span) {
+            this.trace = trace;
+            this.event = event;
+            this.span = span;
+        }
+
+        /**
+         * 结束阶段
+         *
+         * @param payloadBytes 该阶段处理的数据量
+         */
+        public void end(long payloadBytes) {
+            if (span != null) {
+                span.setAttribute("cookie.payload_bytes", payloadBytes);
+                span.end();
+            }
+            if (event != null) {
+                event.end();
+                event.payloadBytes = payloadBytes;
+                trace.stageEnded(event);
+            }
+        }
+    }
+}
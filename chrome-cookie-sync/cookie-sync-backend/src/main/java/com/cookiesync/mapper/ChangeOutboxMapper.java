@@ -0,0 +1,73 @@
+package com.cookiesync.mapper;
+
+import com.cookiesync.entity.CookieChangeEvent;
+import org.apache.ibatis.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 变更事件发件箱Mapper接口（cookie_outbox、cookie_outbox_checkpoint 表）
+ * 
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Mapper
+public interface ChangeOutboxMapper {
+
+    /**
+     * 批量追加变更事件
+     */
+    @Insert("<script>" +
+            "INSERT INTO cookie_outbox (event_type, user_id, version, encrypted_data, data_key, data_size, cookie_count, " +
+            "expire_time, origin_node, create_time) VALUES " +
+            "<foreach collection='list' item='e' separator=','>" +
+            "(#{e.eventType}, #{e.userId}, #{e.version}, #{e.encryptedData}, #{e.dataKey}, #{e.dataSize}, #{e.cookieCount}, " +
+            "#{e.expireTime}, #{e.originNode}, #{e.createTime})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("list") List<CookieChangeEvent> list);
+
+    /**
+     * 按序号顺序查询指定序号之后的事件
+     */
+    @Select("SELECT * FROM cookie_outbox WHERE id > #{afterId} ORDER BY id LIMIT #{limit}")
+    List<CookieChangeEvent> findAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 统计指定序号之后的事件数
+     */
+    @Select("SELECT COUNT(*) FROM cookie_outbox WHERE id > #{afterId}")
+    long countAfter(@Param("afterId") long afterId);
+
+    /**
+     * 创建检查点，已存在时忽略
+     */
+    @Insert("INSERT IGNORE INTO cookie_outbox_checkpoint (name, last_id) VALUES (#{name}, 0)")
+    int initCheckpoint(@Param("name") String name);
+
+    /**
+     * 查询并锁定检查点，需在事务中调用
+     */
+    @Select("SELECT last_id FROM cookie_outbox_checkpoint WHERE name = #{name} FOR UPDATE")
+    Long lockCheckpoint(@Param("name") String name);
+
+    /**
+     * 更新检查点
+     */
+    @Update("UPDATE cookie_outbox_checkpoint SET last_id = #{lastId}, update_time = NOW() WHERE name = #{name}")
+    int updateCheckpoint(@Param("name") String name, @Param("lastId") long lastId);
+
+    /**
+     * 查询全部检查点
+     */
+    @Select("SELECT name, last_id AS lastId, update_time AS updateTime FROM cookie_outbox_checkpoint")
+    List<Map<String, Object>> findCheckpoints();
+
+    /**
+     * 删除已中继且早于指定时间的事件
+     */
+    @Delete("DELETE FROM cookie_outbox WHERE id <= #{upToId} AND create_time < #{before} LIMIT #{limit}")
+    int purge(@Param("upToId") long upToId, @Param("before") LocalDateTime before, @Param("limit") int limit);
+}
@@ -0,0 +1,77 @@
+package com.cookiesync.mapper;
+
+import com.cookiesync.entity.CookieData;
+import org.apache.ibatis.annotations.*;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 冷数据归档Mapper接口
+ * cookie_archive 以 user_id 为主键，只保存加密数据，元数据与数据密钥仍在 cookie_data 的占位记录中
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Mapper
+public interface CookieArchiveMapper {
+
+    /**
+     * 批量写入归档数据，用户已有归档（上次恢复后遗留）时覆盖
+     */
+    @Insert("<script>" +
+            "INSERT INTO cookie_archive (user_id, encrypted_data, version, archive_time) VALUES " +
+            "<foreach collection='list' item='c' separator=','>" +
+            "(#{c.userId}, #{c.encryptedData}, #{c.version}, NOW())" +
+            "</foreach> " +
+            "ON DUPLICATE KEY UPDATE encrypted_data = VALUES(encrypted_data), version = VALUES(version), " +
+            "archive_time = VALUES(archive_time)" +
+            "</script>")
+    int upsertBatch(@Param("list") List<CookieData> list);
+
+    /**
+     * 读取用户的归档数据
+     */
+    @Select("SELECT encrypted_data FROM cookie_archive WHERE user_id = #{userId}")
+    String findEncryptedData(@Param("userId") String userId);
+
+    /**
+     * 删除用户的归档数据
+     */
+    @Delete("DELETE FROM cookie_archive WHERE user_id = #{userId}")
+    int deleteByUserId(@Param("userId") String userId);
+
+    /**
+     * 批量删除占位记录已不存在的归档数据（归档期间有上传或用户被删除），仍是占位记录的用户不受影响
+     */
+    @Delete("<script>" +
+            "DELETE FROM cookie_archive WHERE user_id IN " +
+            "<foreach collection='userIds' item='userId' open='(' separator=',' close=')'>#{userId}</foreach> " +
+            "AND NOT EXISTS (SELECT 1 FROM cookie_data d WHERE d.user_id = cookie_archive.user_id " +
+            "AND d.encrypted_data = #{marker} AND d.status = 0)" +
+            "</script>")
+    int deleteOrphans(@Param("userIds") Collection<String> userIds, @Param("marker") String marker);
+
+    /**
+     * 按主键顺序流式读取已归档的有效数据，加密数据取自归档表，其余列取自占位记录
+     * fetchSize为Integer.MIN_VALUE时MySQL驱动逐行读取结果集，需在事务内消费
+     */
+    @Select("SELECT d.id, d.user_id, a.encrypted_data, d.data_key, d.data_size, d.cookie_count, d.user_agent, d.client_ip, " +
+            "d.version, d.create_time, d.update_time, d.expire_time, d.prune_time, d.status, d.remark " +
+            "FROM cookie_data d JOIN cookie_archive a ON a.user_id = d.user_id " +
+            "WHERE d.status = 0 AND d.encrypted_data = #{marker} ORDER BY d.id")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    Cursor<CookieData> scanArchived(@Param("marker") String marker);
+
+    /**
+     * 归档统计
+     */
+    @Select("SELECT COUNT(*) AS archived_users, COALESCE(SUM(LENGTH(encrypted_data)), 0) AS archived_size FROM cookie_archive")
+    @Results({
+        @Result(property = "archivedUsers", column = "archived_users"),
+        @Result(property = "archivedSize", column = "archived_size")
+    })
+    java.util.Map<String, Object> getStats();
+}
@@ -1,8 +1,13 @@
 package com.cookiesync.mapper;
 
 import com.cookiesync.entity.CookieData;
+import com.cookiesync.entity.WrappedDataKey;
 import org.apache.ibatis.annotations.*;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -17,8 +22,8 @@ public interface CookieDataMapper {
     /**
      * 插入Cookie数据
      */
-    @Insert("INSERT INTO cookie_data (user_id, encrypted_data, data_size, cookie_count, user_agent, client_ip, version, expire_time, remark) " +
-            "VALUES (#{userId}, #{encryptedData}, #{dataSize}, #{cookieCount}, #{userAgent}, #{clientIp}, #{version}, #{expireTime}, #{remark})")
+    @Insert("INSERT INTO cookie_data (user_id, encrypted_data, data_key, data_size, cookie_count, user_agent, client_ip, version, expire_time, prune_time, remark) " +
+            "VALUES (#{userId}, #{encryptedData}, #{dataKey}, #{dataSize}, #{cookieCount}, #{userAgent}, #{clientIp}, #{version}, #{expireTime}, #{pruneTime}, #{remark})")
     @Options(useGeneratedKeys = true, keyProperty = "id")
     int insert(CookieData cookieData);
 
@@ -28,12 +33,31 @@ public interface CookieDataMapper {
     @Select("SELECT * FROM cookie_data WHERE user_id = #{userId} AND status = 0")
     CookieData findByUserId(@Param("userId") String userId);
 
+    /**
+     * 批量查询Cookie数据
+     */
+    @Select("<script>" +
+            "SELECT * FROM cookie_data WHERE status = 0 AND user_id IN " +
+            "<foreach collection='userIds' item='userId' open='(' separator=',' close=')'>#{userId}</foreach>" +
+            "</script>")
+    List<CookieData> findByUserIds(@Param("userIds") Collection<String> userIds);
+
+    /**
+     * 批量查询Cookie元数据，不读取加密数据列，由 uk_user_id 定位
+     */
+    @Select("<script>" +
+            "SELECT id, user_id, data_size, cookie_count, version, create_time, update_time, expire_time " +
+            "FROM cookie_data WHERE status = 0 AND user_id IN " +
+            "<foreach collection='userIds' item='userId' open='(' separator=',' close=')'>#{userId}</foreach>" +
+            "</script>")
+    List<CookieData> findMetadataByUserIds(@Param("userIds") Collection<String> userIds);
+
     /**
      * 根据用户ID更新Cookie数据
      */
-    @Update("UPDATE cookie_data SET encrypted_data = #{encryptedData}, data_size = #{dataSize}, " +
+    @Update("UPDATE cookie_data SET encrypted_data = #{encryptedData}, data_key = #{dataKey}, data_size = #{dataSize}, " +
             "cookie_count = #{cookieCount}, user_agent = #{userAgent}, client_ip = #{clientIp}, " +
-            "version = #{version}, expire_time = #{expireTime}, update_time = NOW() " +
+            "version = #{version}, expire_time = #{expireTime}, prune_time = #{pruneTime}, update_time = NOW() " +
             "WHERE user_id = #{userId} AND status = 0")
     int updateByUserId(CookieData cookieData);
 
@@ -77,4 +101,115 @@ public interface CookieDataMapper {
         @Result(property = "avgCookiesPerUser", column = "avg_cookies_per_user")
     })
     java.util.Map<String, Object> getSystemStats();
-}
\ No newline at end of file
+
+    /**
+     * 按主键顺序流式读取全部有效数据
+     * fetchSize为Integer.MIN_VALUE时MySQL驱动逐行读取结果集，内存占用与数据量无关，需在事务内消费
+     */
+    @Select("SELECT * FROM cookie_data WHERE status = 0 ORDER BY id")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    Cursor<CookieData> scanAll();
+
+    /**
+     * 批量写入Cookie数据，用户已存在时覆盖（包括已逻辑删除的记录）
+     */
+    @Insert("<script>" +
+            "INSERT INTO cookie_data (user_id, encrypted_data, data_key, data_size, cookie_count, user_agent, client_ip, version, " +
+            "create_time, update_time, expire_time, prune_time, status, remark) VALUES " +
+            "<foreach collection='list' item='c' separator=','>" +
+            "(#{c.userId}, #{c.encryptedData}, #{c.dataKey}, #{c.dataSize}, #{c.cookieCount}, #{c.userAgent}, #{c.clientIp}, #{c.version}, " +
+            "COALESCE(#{c.createTime}, NOW()), COALESCE(#{c.updateTime}, NOW()), #{c.expireTime}, #{c.pruneTime}, 0, #{c.remark})" +
+            "</foreach> " +
+            "ON DUPLICATE KEY UPDATE encrypted_data = VALUES(encrypted_data), data_key = VALUES(data_key), data_size = VALUES(data_size), " +
+            "cookie_count = VALUES(cookie_count), user_agent = VALUES(user_agent), client_ip = VALUES(client_ip), " +
+            "version = VALUES(version), create_time = VALUES(create_time), update_time = VALUES(update_time), " +
+            "expire_time = VALUES(expire_time), prune_time = VALUES(prune_time), status = 0, remark = VALUES(remark)" +
+            "</script>")
+    int upsertBatch(@Param("list") List<CookieData> list);
+
+    /**
+     * 查询已到压缩时间的有效数据
+     */
+    @Select("SELECT * FROM cookie_data WHERE prune_time <= NOW() AND status = 0 ORDER BY prune_time LIMIT #{limit}")
+    List<CookieData> findPruneCandidates(@Param("limit") int limit);
+
+    /**
+     * 写回压缩后的数据，版本号与更新时间不变（更新时间表示最近一次上传，归档按其判断不活跃）；
+     * 期间有新的上传时版本号已变化，不做更新
+     */
+    @Update("UPDATE cookie_data SET encrypted_data = #{encryptedData}, data_size = #{dataSize}, " +
+            "cookie_count = #{cookieCount}, prune_time = #{pruneTime}, update_time = update_time " +
+            "WHERE user_id = #{userId} AND version = #{version} AND status = 0")
+    int updatePrunedData(CookieData cookieData);
+
+    /**
+     * 按主键顺序查询按条目存储的有效数据（占位值为marker），用于分页导出
+     */
+    @Select("SELECT * FROM cookie_data WHERE id > #{afterId} AND status = 0 AND encrypted_data = #{marker} " +
+            "ORDER BY id LIMIT #{limit}")
+    List<CookieData> findEntryStored(@Param("marker") String marker,
+                                     @Param("afterId") long afterId,
+                                     @Param("limit") int limit);
+
+    /**
+     * 按主键顺序查询指定时间后未再上传的有效数据，跳过已归档（占位值为marker）和按条目存储（占位值为空）的记录；
+     * 只读取主键、用户与数据大小列，加密数据按数据量分批另行读取
+     */
+    @Select("SELECT id, user_id, data_size FROM cookie_data WHERE id > #{afterId} AND update_time < #{cutoff} " +
+            "AND expire_time > NOW() AND status = 0 AND encrypted_data NOT IN (#{marker}, '') ORDER BY id LIMIT #{limit}")
+    List<CookieData> findArchiveCandidates(@Param("cutoff") LocalDateTime cutoff,
+                                           @Param("marker") String marker,
+                                           @Param("afterId") long afterId,
+                                           @Param("limit") int limit);
+
+    /**
+     * 按主键读取待归档的完整数据，读取前已被归档或改为按条目存储的记录不在结果中
+     */
+    @Select("<script>" +
+            "SELECT * FROM cookie_data WHERE status = 0 AND encrypted_data NOT IN (#{marker}, '') AND id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach> ORDER BY id" +
+            "</script>")
+    List<CookieData> findArchivableByIds(@Param("ids") Collection<Long> ids, @Param("marker") String marker);
+
+    /**
+     * 将加密数据替换为归档占位值，保留更新时间，清空下次压缩时间（归档数据不参与压缩）；
+     * 版本号、更新时间或下次压缩时间与读取时不一致（期间有上传或压缩，压缩总会推后下次压缩时间）时不做更新
+     */
+    @Update("UPDATE cookie_data SET encrypted_data = #{marker}, data_size = #{c.dataSize}, prune_time = NULL, " +
+            "update_time = update_time " +
+            "WHERE id = #{c.id} AND version = #{c.version} AND update_time = #{c.updateTime} " +
+            "AND prune_time <=> #{c.pruneTime} AND status = 0")
+    int markArchived(@Param("c") CookieData cookieData, @Param("marker") String marker);
+
+    /**
+     * 用归档数据替换占位值，并刷新更新时间使刚恢复的用户不会立即再次归档；已被恢复或覆盖的记录不做更新
+     */
+    @Update("UPDATE cookie_data SET encrypted_data = #{encryptedData}, update_time = NOW() " +
+            "WHERE user_id = #{userId} AND encrypted_data = #{marker} AND status = 0")
+    int restoreArchived(@Param("userId") String userId,
+                        @Param("encryptedData") String encryptedData,
+                        @Param("marker") String marker);
+
+    /**
+     * 按主键顺序查询不是由指定主密钥包装的数据密钥（包括已逻辑删除的记录和数据密钥为空的历史数据），只读取主键、用户与数据密钥列
+     */
+    @Select("SELECT id, user_id, data_key FROM cookie_data " +
+            "WHERE id > #{afterId} AND (data_key IS NULL OR data_key NOT LIKE CONCAT(#{masterKeyId}, ':%')) " +
+            "ORDER BY id LIMIT #{limit}")
+    List<WrappedDataKey> findStaleDataKeys(@Param("masterKeyId") String masterKeyId,
+                                           @Param("afterId") long afterId,
+                                           @Param("limit") int limit);
+
+    /**
+     * 批量写入重新包装的数据密钥，只更新数据密钥列；期间数据被重新上传（数据密钥已变化）的记录不更新
+     */
+    @Update("<script>" +
+            "UPDATE cookie_data SET data_key = CASE " +
+            "<foreach collection='list' item='k'>" +
+            "WHEN id = #{k.id} AND data_key <=> #{k.dataKey} THEN #{k.rotatedKey} " +
+            "</foreach>" +
+            "ELSE data_key END " +
+            "WHERE id IN <foreach collection='list' item='k' open='(' separator=',' close=')'>#{k.id}</foreach>" +
+            "</script>")
+    int updateDataKeys(@Param("list") List<WrappedDataKey> list);
+}
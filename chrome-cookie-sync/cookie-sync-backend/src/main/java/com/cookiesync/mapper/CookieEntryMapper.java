@@ -0,0 +1,104 @@
+package com.cookiesync.mapper;
+
+import com.cookiesync.entity.CookieEntry;
+import com.cookiesync.entity.WrappedDataKey;
+import org.apache.ibatis.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 单条Cookie Mapper接口
+ * 所有查询以 user_id 开头，走 uk_user_cookie 索引的范围扫描
+ * 
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Mapper
+public interface CookieEntryMapper {
+
+    /**
+     * 查询用户全部条目的键和摘要，用于合并时比较，不读取加密数据
+     */
+    @Select("SELECT domain, path, name, value_hash FROM cookie_entry WHERE user_id = #{userId}")
+    List<CookieEntry> findDigests(@Param("userId") String userId);
+
+    /**
+     * 查询用户全部条目
+     */
+    @Select("SELECT * FROM cookie_entry WHERE user_id = #{userId} ORDER BY domain, path, name")
+    List<CookieEntry> findByUserId(@Param("userId") String userId);
+
+    /**
+     * 查询用户在指定域名下的条目
+     */
+    @Select("<script>" +
+            "SELECT * FROM cookie_entry WHERE user_id = #{userId} AND domain IN " +
+            "<foreach collection='domains' item='domain' open='(' separator=',' close=')'>#{domain}</foreach> " +
+            "ORDER BY domain, path, name" +
+            "</script>")
+    List<CookieEntry> findByDomains(@Param("userId") String userId, @Param("domains") List<String> domains);
+
+    /**
+     * 批量写入条目，已存在且内容变化时覆盖并递增条目版本
+     */
+    @Insert("<script>" +
+            "INSERT INTO cookie_entry (user_id, domain, path, name, encrypted_value, data_key, value_hash, expire_time) VALUES " +
+            "<foreach collection='list' item='e' separator=','>" +
+            "(#{e.userId}, #{e.domain}, #{e.path}, #{e.name}, #{e.encryptedValue}, #{e.dataKey}, #{e.valueHash}, #{e.expireTime})" +
+            "</foreach> " +
+            "ON DUPLICATE KEY UPDATE encrypted_value = VALUES(encrypted_value), data_key = VALUES(data_key), " +
+            "value_hash = VALUES(value_hash), expire_time = VALUES(expire_time), version = version + 1, update_time = NOW()" +
+            "</script>")
+    int upsertBatch(@Param("list") List<CookieEntry> list);
+
+    /**
+     * 按键批量删除条目
+     */
+    @Delete("<script>" +
+            "DELETE FROM cookie_entry WHERE user_id = #{userId} AND (domain, path, name) IN " +
+            "<foreach collection='list' item='e' open='(' separator=',' close=')'>(#{e.domain}, #{e.path}, #{e.name})</foreach>" +
+            "</script>")
+    int deleteByKeys(@Param("userId") String userId, @Param("list") List<CookieEntry> list);
+
+    /**
+     * 查询用户全部持久Cookie的过期时间（升序），用于计算下次压缩时间
+     */
+    @Select("SELECT expire_time FROM cookie_entry WHERE user_id = #{userId} AND expire_time IS NOT NULL ORDER BY expire_time")
+    List<LocalDateTime> findExpireTimes(@Param("userId") String userId);
+
+    /**
+     * 删除用户已过期的条目
+     */
+    @Delete("DELETE FROM cookie_entry WHERE user_id = #{userId} AND expire_time < NOW()")
+    int deleteExpired(@Param("userId") String userId);
+
+    /**
+     * 删除用户全部条目
+     */
+    @Delete("DELETE FROM cookie_entry WHERE user_id = #{userId}")
+    int deleteByUserId(@Param("userId") String userId);
+
+    /**
+     * 按主键顺序查询不是由指定主密钥包装的数据密钥（包括数据密钥为空的历史条目），只读取主键、用户与数据密钥列
+     */
+    @Select("SELECT id, user_id, data_key FROM cookie_entry " +
+            "WHERE id > #{afterId} AND (data_key IS NULL OR data_key NOT LIKE CONCAT(#{masterKeyId}, ':%')) " +
+            "ORDER BY id LIMIT #{limit}")
+    List<WrappedDataKey> findStaleDataKeys(@Param("masterKeyId") String masterKeyId,
+                                           @Param("afterId") long afterId,
+                                           @Param("limit") int limit);
+
+    /**
+     * 批量写入重新包装的数据密钥，只更新数据密钥列；期间条目被重新写入（数据密钥已变化）的不更新
+     */
+    @Update("<script>" +
+            "UPDATE cookie_entry SET data_key = CASE " +
+            "<foreach collection='list' item='k'>" +
+            "WHEN id = #{k.id} AND data_key <=> #{k.dataKey} THEN #{k.rotatedKey} " +
+            "</foreach>" +
+            "ELSE data_key END, update_time = update_time " +
+            "WHERE id IN <foreach collection='list' item='k' open='(' separator=',' close=')'>#{k.id}</foreach>" +
+            "</script>")
+    int updateDataKeys(@Param("list") List<WrappedDataKey> list);
+}
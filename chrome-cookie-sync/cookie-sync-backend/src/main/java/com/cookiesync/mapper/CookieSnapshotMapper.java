@@ -0,0 +1,138 @@
+package com.cookiesync.mapper;
+
+import com.cookiesync.entity.CookieChunk;
+import com.cookiesync.entity.CookieSnapshot;
+import com.cookiesync.entity.WrappedDataKey;
+import org.apache.ibatis.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 版本快照Mapper接口（cookie_snapshot、cookie_snapshot_chunk、cookie_chunk 表）
+ * 
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Mapper
+public interface CookieSnapshotMapper {
+
+    /**
+     * 插入快照，同一用户同一版本只保留一份
+     */
+    @Insert("INSERT IGNORE INTO cookie_snapshot (user_id, version, data_size, stored_size, chunk_count, cookie_count) " +
+            "VALUES (#{userId}, #{version}, #{dataSize}, #{storedSize}, #{chunkCount}, #{cookieCount})")
+    @Options(useGeneratedKeys = true, keyProperty = "id")
+    int insertSnapshot(CookieSnapshot snapshot);
+
+    /**
+     * 写入快照的块清单，分批写入时 offset 为本批第一个块的顺序号
+     */
+    @Insert("<script>" +
+            "INSERT INTO cookie_snapshot_chunk (snapshot_id, seq, chunk_hash) VALUES " +
+            "<foreach collection='hashes' item='hash' index='i' separator=','>(#{snapshotId}, #{offset} + #{i}, #{hash})</foreach>" +
+            "</script>")
+    int insertChunkRefs(@Param("snapshotId") Long snapshotId, @Param("offset") int offset,
+                        @Param("hashes") List<String> hashes);
+
+    /**
+     * 刷新已存在块的引用时间并加行锁，清理任务不会删除引用时间在宽限期内的块；返回仍存在的块数
+     */
+    @Update("<script>" +
+            "UPDATE cookie_chunk SET ref_time = NOW() WHERE hash IN " +
+            "<foreach collection='hashes' item='hash' open='(' separator=',' close=')'>#{hash}</foreach>" +
+            "</script>")
+    int touchChunks(@Param("hashes") Collection<String> hashes);
+
+    /**
+     * 查询已存在的块
+     */
+    @Select("<script>" +
+            "SELECT hash FROM cookie_chunk WHERE hash IN " +
+            "<foreach collection='hashes' item='hash' open='(' separator=',' close=')'>#{hash}</foreach>" +
+            "</script>")
+    List<String> findExistingChunks(@Param("hashes") Collection<String> hashes);
+
+    /**
+     * 写入新块，并发写入相同内容时保留先写入的一份
+     */
+    @Insert("<script>" +
+            "INSERT INTO cookie_chunk (hash, encrypted_data, data_key, size) VALUES " +
+            "<foreach collection='list' item='c' separator=','>(#{c.hash}, #{c.encryptedData}, #{c.dataKey}, #{c.size})</foreach> " +
+            "ON DUPLICATE KEY UPDATE ref_time = NOW()" +
+            "</script>")
+    int insertChunks(@Param("list") List<CookieChunk> list);
+
+    /**
+     * 查询用户的全部快照（新版本在前）
+     */
+    @Select("SELECT * FROM cookie_snapshot WHERE user_id = #{userId} ORDER BY version DESC")
+    List<CookieSnapshot> findByUserId(@Param("userId") String userId);
+
+    /**
+     * 查询用户指定版本的快照
+     */
+    @Select("SELECT * FROM cookie_snapshot WHERE user_id = #{userId} AND version = #{version}")
+    CookieSnapshot findByVersion(@Param("userId") String userId, @Param("version") Integer version);
+
+    /**
+     * 按顺序查询快照的全部块
+     */
+    @Select("SELECT c.hash, c.encrypted_data, c.data_key, c.size FROM cookie_snapshot_chunk sc " +
+            "JOIN cookie_chunk c ON c.hash = sc.chunk_hash WHERE sc.snapshot_id = #{snapshotId} ORDER BY sc.seq")
+    List<CookieChunk> findChunks(@Param("snapshotId") Long snapshotId);
+
+    /**
+     * 删除超出保留策略的快照：不在用户最新的若干个版本内，且创建时间早于指定时间
+     */
+    @Delete("DELETE s FROM cookie_snapshot s " +
+            "JOIN (SELECT user_id, MAX(version) AS max_version FROM cookie_snapshot GROUP BY user_id) m " +
+            "ON m.user_id = s.user_id " +
+            "WHERE s.version <= m.max_version - #{keepVersions} AND s.create_time < #{before}")
+    int deleteExpiredSnapshots(@Param("keepVersions") int keepVersions, @Param("before") LocalDateTime before);
+
+    /**
+     * 删除用户全部快照，块清单和块由清理任务回收
+     */
+    @Delete("DELETE FROM cookie_snapshot WHERE user_id = #{userId}")
+    int deleteByUserId(@Param("userId") String userId);
+
+    /**
+     * 删除已不存在的快照的块清单
+     */
+    @Delete("DELETE sc FROM cookie_snapshot_chunk sc LEFT JOIN cookie_snapshot s ON s.id = sc.snapshot_id " +
+            "WHERE s.id IS NULL")
+    int deleteOrphanChunkRefs();
+
+    /**
+     * 删除不再被任何快照引用、且引用时间早于宽限期的块
+     */
+    @Delete("DELETE FROM cookie_chunk WHERE ref_time < #{before} " +
+            "AND NOT EXISTS (SELECT 1 FROM cookie_snapshot_chunk sc WHERE sc.chunk_hash = cookie_chunk.hash) " +
+            "LIMIT #{limit}")
+    int deleteUnreferencedChunks(@Param("before") LocalDateTime before, @Param("limit") int limit);
+
+    /**
+     * 按摘要顺序查询不是由指定主密钥包装的数据密钥（包括数据密钥为空的历史块），只读取摘要与数据密钥列
+     */
+    @Select("SELECT hash, data_key FROM cookie_chunk " +
+            "WHERE hash > #{afterHash} AND (data_key IS NULL OR data_key NOT LIKE CONCAT(#{masterKeyId}, ':%')) " +
+            "ORDER BY hash LIMIT #{limit}")
+    List<WrappedDataKey> findStaleDataKeys(@Param("masterKeyId") String masterKeyId,
+                                           @Param("afterHash") String afterHash,
+                                           @Param("limit") int limit);
+
+    /**
+     * 批量写入重新包装的数据密钥，只更新数据密钥列
+     */
+    @Update("<script>" +
+            "UPDATE cookie_chunk SET data_key = CASE " +
+            "<foreach collection='list' item='k'>" +
+            "WHEN hash = #{k.hash} AND data_key <=> #{k.dataKey} THEN #{k.rotatedKey} " +
+            "</foreach>" +
+            "ELSE data_key END " +
+            "WHERE hash IN <foreach collection='list' item='k' open='(' separator=',' close=')'>#{k.hash}</foreach>" +
+            "</script>")
+    int updateDataKeys(@Param("list") List<WrappedDataKey> list);
+}
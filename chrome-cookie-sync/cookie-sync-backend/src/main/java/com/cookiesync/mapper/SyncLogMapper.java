@@ -1,6 +1,9 @@
 package com.cookiesync.mapper;
 
+import com.cookiesync.entity.SyncLog;
 import org.apache.ibatis.annotations.*;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 
 import java.util.List;
 import java.util.Map;
@@ -14,6 +17,18 @@ import java.util.Map;
 @Mapper
 public interface SyncLogMapper {
 
+    /**
+     * 日志浏览查询的列，均包含在 idx_user_time 索引中（主键隐含在二级索引里），按用户查询时无需回表
+     */
+    String BROWSE_COLUMNS = "id, user_id, operation_type, data_size, cookie_count, success, duration, create_time";
+
+    /**
+     * 键集分页条件：位于游标（创建时间、主键）之后的记录，与 ORDER BY create_time DESC, id DESC 对应
+     */
+    String KEYSET_CONDITION = "<if test='beforeTime != null'>" +
+            "AND (create_time &lt; #{beforeTime} OR (create_time = #{beforeTime} AND id &lt; #{beforeId})) " +
+            "</if>";
+
     /**
      * 插入同步日志
      */
@@ -33,15 +48,66 @@ public interface SyncLogMapper {
     /**
      * 根据用户ID查询同步日志
      */
-    @Select("SELECT * FROM sync_log WHERE user_id = #{userId} ORDER BY create_time DESC LIMIT #{limit}")
+    @Select("SELECT " + BROWSE_COLUMNS + " FROM sync_log WHERE user_id = #{userId} ORDER BY create_time DESC, id DESC LIMIT #{limit}")
     List<Map<String, Object>> findByUserId(@Param("userId") String userId, @Param("limit") int limit);
 
     /**
      * 查询最近的同步日志
      */
-    @Select("SELECT * FROM sync_log ORDER BY create_time DESC LIMIT #{limit}")
+    @Select("SELECT " + BROWSE_COLUMNS + " FROM sync_log ORDER BY create_time DESC, id DESC LIMIT #{limit}")
     List<Map<String, Object>> findRecentLogs(@Param("limit") int limit);
 
+    /**
+     * 按游标分页查询用户的同步日志（新的在前）
+     * 通过 idx_user_time 定位到游标位置后顺序读取limit行，耗时与翻页深度和日志总量无关
+     *
+     * @param beforeTime 游标中的创建时间，为空时查询第一页
+     * @param beforeId 游标中的主键ID
+     */
+    @Select("<script>" +
+            "SELECT " + BROWSE_COLUMNS + " FROM sync_log WHERE user_id = #{userId} " +
+            KEYSET_CONDITION +
+            "ORDER BY create_time DESC, id DESC LIMIT #{limit}" +
+            "</script>")
+    List<SyncLog> findUserLogPage(@Param("userId") String userId,
+                                  @Param("beforeTime") java.time.LocalDateTime beforeTime,
+                                  @Param("beforeId") Long beforeId,
+                                  @Param("limit") int limit);
+
+    /**
+     * 按游标分页查询全部用户的同步日志（新的在前），沿 idx_create_time 索引读取，只对返回的行回表
+     */
+    @Select("<script>" +
+            "SELECT " + BROWSE_COLUMNS + " FROM sync_log WHERE 1 = 1 " +
+            KEYSET_CONDITION +
+            "ORDER BY create_time DESC, id DESC LIMIT #{limit}" +
+            "</script>")
+    List<SyncLog> findLogPage(@Param("beforeTime") java.time.LocalDateTime beforeTime,
+                              @Param("beforeId") Long beforeId,
+                              @Param("limit") int limit);
+
+    /**
+     * 按时间顺序流式读取同步日志（包含全部列），可按用户和时间范围过滤
+     * fetchSize为Integer.MIN_VALUE时MySQL驱动逐行读取结果集，内存占用与数据量无关，需在事务内消费
+     *
+     * @param userId 用户ID，为空时读取全部用户
+     * @param startTime 起始时间（包含），可为空
+     * @param endTime 截止时间（不包含），可为空
+     */
+    @Select("<script>" +
+            "SELECT * FROM sync_log " +
+            "<where>" +
+            "<if test='userId != null'>AND user_id = #{userId} </if>" +
+            "<if test='startTime != null'>AND create_time &gt;= #{startTime} </if>" +
+            "<if test='endTime != null'>AND create_time &lt; #{endTime} </if>" +
+            "</where>" +
+            "ORDER BY create_time, id" +
+            "</script>")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    Cursor<SyncLog> scanLogs(@Param("userId") String userId,
+                             @Param("startTime") java.time.LocalDateTime startTime,
+                             @Param("endTime") java.time.LocalDateTime endTime);
+
     /**
      * 统计同步操作
      */
@@ -72,4 +138,22 @@ public interface SyncLogMapper {
             "FROM sync_log " +
             "WHERE user_id = #{userId} AND create_time >= #{startTime}")
     Map<String, Object> getUserSyncStats(@Param("userId") String userId, @Param("startTime") java.time.LocalDateTime startTime);
-}
\ No newline at end of file
+
+    /**
+     * 统计用户指定时间之后的成功操作次数
+     */
+    @Select("SELECT COUNT(*) FROM sync_log " +
+            "WHERE user_id = #{userId} AND operation_type = #{operationType} AND success = 1 AND create_time >= #{startTime}")
+    int countUserOperations(@Param("userId") String userId,
+                            @Param("operationType") String operationType,
+                            @Param("startTime") java.time.LocalDateTime startTime);
+
+    /**
+     * 统计用户指定时间之后成功操作的数据量
+     */
+    @Select("SELECT COALESCE(SUM(data_size), 0) FROM sync_log " +
+            "WHERE user_id = #{userId} AND operation_type = #{operationType} AND success = 1 AND create_time >= #{startTime}")
+    long sumUserDataSize(@Param("userId") String userId,
+                         @Param("operationType") String operationType,
+                         @Param("startTime") java.time.LocalDateTime startTime);
+}
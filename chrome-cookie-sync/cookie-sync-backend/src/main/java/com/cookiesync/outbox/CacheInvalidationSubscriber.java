@@ -0,0 +1,45 @@
+package com.cookiesync.outbox;
+
+import com.cookiesync.cache.CookieDataCache;
+import com.cookiesync.entity.CookieChangeEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 跨节点缓存失效
+ * 其他节点写入后，删除本节点进程内缓存（本地缓存与堆外缓存）中的旧数据；Redis由写入节点负责更新
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Component
+@ConditionalOnProperty(name = "cookie-sync.outbox.consumer.cache-invalidation", havingValue = "true", matchIfMissing = true)
+public class CacheInvalidationSubscriber implements ChangeSubscriber {
+
+    @Autowired
+    private CookieDataCache cookieDataCache;
+
+    @Override
+    public String getName() {
+        return "cache-invalidation";
+    }
+
+    /**
+     * 批量过期删除不针对单个用户，进程内缓存读取时按过期时间判断，无需处理
+     */
+    @Override
+    public void onEvents(List<CookieChangeEvent> events) {
+        Set<String> userIds = new LinkedHashSet<>();
+        for (CookieChangeEvent event : events) {
+            if (event.getUserId() != null) {
+                userIds.add(event.getUserId());
+            }
+        }
+        cookieDataCache.evictLocal(userIds);
+    }
+}
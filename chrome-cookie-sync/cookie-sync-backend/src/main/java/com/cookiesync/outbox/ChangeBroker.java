@@ -0,0 +1,46 @@
+package com.cookiesync.outbox;
+
+import com.cookiesync.entity.CookieChangeEvent;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 变更事件消息代理
+ * 按发布顺序保存事件，每个消费组独立记录已处理的位置；投递语义为至少一次，订阅者需保证幂等
+ * 内置内存和共享目录文件两种实现，可替换为Kafka等外部代理
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public interface ChangeBroker {
+
+    /**
+     * 按顺序发布事件
+     *
+     * @param events 变更事件
+     */
+    void publish(List<CookieChangeEvent> events);
+
+    /**
+     * 从消费组已提交的位置之后拉取事件，事件的 offset 为提交该事件时使用的位置
+     *
+     * @param group 消费组
+     * @param limit 最大数量
+     * @return 变更事件
+     */
+    List<CookieChangeEvent> poll(String group, int limit);
+
+    /**
+     * 提交消费组已处理的位置
+     *
+     * @param group 消费组
+     * @param offset 最后处理的事件的 offset
+     */
+    void commit(String group, long offset);
+
+    /**
+     * 代理状态，包括各消费组的位置与积压
+     */
+    Map<String, Object> getStatus();
+}
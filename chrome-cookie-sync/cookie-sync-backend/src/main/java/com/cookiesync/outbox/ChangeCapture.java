@@ -0,0 +1,42 @@
+package com.cookiesync.outbox;
+
+import java.util.function.Supplier;
+
+/**
+ * 变更捕获上下文
+ * 重放其他节点的变更时在当前线程上关闭捕获，避免把重放的写入再次记录为本节点的变更
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public final class ChangeCapture {
+
+    private static final ThreadLocal<Boolean> SUPPRESSED = new ThreadLocal<>();
+
+    private ChangeCapture() {
+    }
+
+    /**
+     * 当前线程的写入是否需要记录变更事件
+     */
+    public static boolean isActive() {
+        return !Boolean.TRUE.equals(SUPPRESSED.get());
+    }
+
+    /**
+     * 在不记录变更事件的情况下执行写入
+     */
+    public static <T> T suppress(Supplier<T> operation) {
+        Boolean previous = SUPPRESSED.get();
+        SUPPRESSED.set(Boolean.TRUE);
+        try {
+            return operation.get();
+        } finally {
+            if (previous == null) {
+                SUPPRESSED.remove();
+            } else {
+                SUPPRESSED.set(previous);
+            }
+        }
+    }
+}
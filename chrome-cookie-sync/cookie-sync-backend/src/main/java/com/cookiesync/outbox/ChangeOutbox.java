@@ -0,0 +1,57 @@
+package com.cookiesync.outbox;
+
+import com.cookiesync.entity.CookieChangeEvent;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * 变更事件发件箱
+ * 由存储实现在写入数据的同一事务中追加事件，MySQL存储使用 cookie_outbox 表，内嵌存储使用本地文件
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public interface ChangeOutbox {
+
+    /**
+     * 追加变更事件，设置产生事件的节点和创建时间
+     *
+     * @param events 变更事件
+     */
+    void append(List<CookieChangeEvent> events);
+
+    /**
+     * 按序号顺序读取指定序号之后的事件
+     *
+     * @param afterId 起始序号（不含）
+     * @param limit 最大数量
+     * @return 变更事件
+     */
+    List<CookieChangeEvent> readAfter(long afterId, int limit);
+
+    /**
+     * 在检查点锁内推进检查点，多个节点同时中继时串行执行
+     *
+     * @param name 检查点名称
+     * @param step 根据当前检查点完成一批处理，返回新的检查点
+     * @return 新的检查点
+     */
+    long advance(String name, LongUnaryOperator step);
+
+    /**
+     * 删除已中继且早于指定时间的事件
+     *
+     * @param upToId 已中继的最大序号
+     * @param before 创建时间上限
+     * @return 删除数量
+     */
+    int purge(long upToId, LocalDateTime before);
+
+    /**
+     * 发件箱状态，包括各检查点及待中继的事件数
+     */
+    Map<String, Object> getStatus();
+}
@@ -0,0 +1,99 @@
+package com.cookiesync.outbox;
+
+import com.cookiesync.entity.CookieChangeEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 变更流消费者
+ * 定期从消息代理拉取事件分发给各订阅者，订阅者处理成功后提交位置；
+ * 本节点产生的事件在写入时已处理，只提交位置不再分发
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cookie-sync.outbox.consumer.enabled", havingValue = "true")
+public class ChangeStreamConsumer {
+
+    @Autowired
+    private ChangeBroker changeBroker;
+
+    @Autowired(required = false)
+    private List<ChangeSubscriber> subscribers = new ArrayList<>();
+
+    @Value("${cookie-sync.outbox.node-id:${spring.application.name:cookie-sync}-${server.port:8080}}")
+    private String nodeId;
+
+    @Value("${cookie-sync.outbox.consumer.batch-size:200}")
+    private int batchSize;
+
+    private final Map<String, AtomicLong> processed = new ConcurrentHashMap<>();
+
+    private final Map<String, String> lastErrors = new ConcurrentHashMap<>();
+
+    /**
+     * 定期拉取，有积压时连续处理多批；处理失败的批次不提交，下次重新投递
+     */
+    @Scheduled(fixedDelayString = "${cookie-sync.outbox.consumer.poll-interval:500}")
+    public void poll() {
+        for (ChangeSubscriber subscriber : subscribers) {
+            String group = nodeId + "." + subscriber.getName();
+            try {
+                List<CookieChangeEvent> events;
+                do {
+                    events = changeBroker.poll(group, batchSize);
+                    if (events.isEmpty()) {
+                        break;
+                    }
+                    List<CookieChangeEvent> remote = new ArrayList<>(events.size());
+                    for (CookieChangeEvent event : events) {
+                        if (!nodeId.equals(event.getOriginNode())) {
+                            remote.add(event);
+                        }
+                    }
+                    if (!remote.isEmpty()) {
+                        subscriber.onEvents(remote);
+                    }
+                    changeBroker.commit(group, events.get(events.size() - 1).getOffset());
+                    processed.computeIfAbsent(subscriber.getName(), name -> new AtomicLong()).addAndGet(remote.size());
+                } while (events.size() >= batchSize);
+                lastErrors.remove(subscriber.getName());
+            } catch (Exception e) {
+                lastErrors.put(subscriber.getName(), String.valueOf(e.getMessage()));
+                log.warn("变更事件处理失败 - 订阅者: {}, 错误: {}", subscriber.getName(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 消费状态，用于 /api/system/outbox
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        Map<String, Object> subscriberStatus = new HashMap<>();
+        for (ChangeSubscriber subscriber : subscribers) {
+            Map<String, Object> item = new HashMap<>();
+            AtomicLong count = processed.get(subscriber.getName());
+            item.put("group", nodeId + "." + subscriber.getName());
+            item.put("processed", count == null ? 0L : count.get());
+            item.put("lastError", lastErrors.get(subscriber.getName()));
+            subscriberStatus.put(subscriber.getName(), item);
+        }
+        status.put("nodeId", nodeId);
+        status.put("subscribers", subscriberStatus);
+        return status;
+    }
+}
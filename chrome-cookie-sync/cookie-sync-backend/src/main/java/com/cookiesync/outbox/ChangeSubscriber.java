@@ -0,0 +1,27 @@
+package com.cookiesync.outbox;
+
+import com.cookiesync.entity.CookieChangeEvent;
+
+import java.util.List;
+
+/**
+ * 变更事件订阅者
+ * 每个订阅者在每个节点上使用独立的消费组，处理失败时整批重新投递，实现需保证幂等
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public interface ChangeSubscriber {
+
+    /**
+     * 订阅者名称，与节点标识一起组成消费组
+     */
+    String getName();
+
+    /**
+     * 按发布顺序处理一批其他节点产生的事件
+     *
+     * @param events 变更事件
+     */
+    void onEvents(List<CookieChangeEvent> events);
+}
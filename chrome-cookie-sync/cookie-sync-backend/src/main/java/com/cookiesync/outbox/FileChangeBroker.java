@@ -0,0 +1,180 @@
+package com.cookiesync.outbox;
+
+import com.cookiesync.entity.CookieChangeEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于共享目录的变更事件代理，多个本地进程指向同一目录即可互相投递
+ * 事件以JSON行追加到 changes.log，追加时持有文件锁保证多进程写入不交错；
+ * 事件的位置为其所在行结束的字节偏移，各消费组的位置保存在 offsets 目录下
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cookie-sync.outbox.broker.type", havingValue = "file")
+public class FileChangeBroker implements ChangeBroker {
+
+    private static final String LOG_FILE = "changes.log";
+
+    @Value("${cookie-sync.outbox.broker.file.directory:./data/change-stream}")
+    private String directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private final Map<String, Long> offsets = new ConcurrentHashMap<>();
+
+    private Path logFile;
+
+    private Path offsetDir;
+
+    private FileChannel appendChannel;
+
+    @PostConstruct
+    public void init() throws IOException {
+        Path dir = Paths.get(directory);
+        offsetDir = dir.resolve("offsets");
+        Files.createDirectories(offsetDir);
+        logFile = dir.resolve(LOG_FILE);
+        appendChannel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        log.info("文件消息代理初始化完成 - 目录: {}, 当前长度: {}", dir, appendChannel.size());
+    }
+
+    @PreDestroy
+    public synchronized void destroy() throws IOException {
+        appendChannel.close();
+    }
+
+    /**
+     * 文件锁由进程持有，同一进程内的并发发布由方法同步串行化
+     */
+    @Override
+    public synchronized void publish(List<CookieChangeEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            for (CookieChangeEvent event : events) {
+                out.write(objectMapper.writeValueAsBytes(event));
+                out.write('\n');
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+            try (FileLock lock = appendChannel.lock()) {
+                long position = appendChannel.size();
+                while (buffer.hasRemaining()) {
+                    appendChannel.write(buffer, position + buffer.position());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("发布变更事件失败", e);
+        }
+    }
+
+    /**
+     * 只返回完整的行，其他进程正在写入的行留到下次拉取
+     */
+    @Override
+    public List<CookieChangeEvent> poll(String group, int limit) {
+        long position = committedOffset(group);
+        List<CookieChangeEvent> events = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            if (channel.size() <= position) {
+                return events;
+            }
+            InputStream in = new BufferedInputStream(Channels.newInputStream(channel.position(position)));
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b;
+            while (events.size() < limit && (b = in.read()) >= 0) {
+                position++;
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                CookieChangeEvent event = objectMapper.readValue(line.toByteArray(), CookieChangeEvent.class);
+                event.setOffset(position);
+                events.add(event);
+                line.reset();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("拉取变更事件失败", e);
+        }
+        return events;
+    }
+
+    @Override
+    public void commit(String group, long offset) {
+        try {
+            Path temp = offsetDir.resolve(fileName(group) + ".tmp");
+            Files.writeString(temp, Long.toString(offset));
+            Files.move(temp, offsetDir.resolve(fileName(group)),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            offsets.put(group, offset);
+        } catch (IOException e) {
+            throw new UncheckedIOException("提交消费位置失败 - 消费组: " + group, e);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStatus() {
+        long endOffset;
+        try {
+            endOffset = Files.size(logFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取代理状态失败", e);
+        }
+        Map<String, Object> groups = new HashMap<>();
+        for (Map.Entry<String, Long> entry : offsets.entrySet()) {
+            groups.put(entry.getKey(), Map.of("offset", entry.getValue(), "lagBytes", endOffset - entry.getValue()));
+        }
+        Map<String, Object> status = new HashMap<>();
+        status.put("type", "file");
+        status.put("directory", logFile.getParent().toString());
+        status.put("endOffset", endOffset);
+        status.put("groups", groups);
+        return status;
+    }
+
+    private long committedOffset(String group) {
+        return offsets.computeIfAbsent(group, key -> {
+            Path file = offsetDir.resolve(fileName(key));
+            try {
+                return Files.exists(file) ? Long.parseLong(Files.readString(file).trim()) : 0L;
+            } catch (IOException e) {
+                throw new UncheckedIOException("读取消费位置失败 - 消费组: " + key, e);
+            }
+        });
+    }
+
+    private static String fileName(String group) {
+        return group.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+}
@@ -0,0 +1,301 @@
+package com.cookiesync.outbox;
+
+import com.cookiesync.entity.CookieChangeEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * 基于本地文件的变更事件发件箱，配合内嵌存储使用
+ * 事件以JSON行追加到 outbox.log，内存中只保留各事件在文件中的位置；检查点保存在独立的小文件中
+ * 内嵌存储没有事务，事件在数据写入后追加，进程在两者之间崩溃时会丢失该事件
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("${cookie-sync.outbox.enabled:false} and '${cookie-sync.storage.type:mysql}' == 'embedded'")
+public class FileChangeOutbox implements ChangeOutbox {
+
+    private static final String LOG_FILE = "outbox.log";
+
+    private static final String CHECKPOINT_PREFIX = "checkpoint-";
+
+    @Value("${cookie-sync.storage.embedded.directory:./data/cookie-store}")
+    private String directory;
+
+    @Value("${cookie-sync.outbox.node-id:${spring.application.name:cookie-sync}-${server.port:8080}}")
+    private String nodeId;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    /**
+     * 事件序号 -> 文件中的位置
+     */
+    private final NavigableMap<Long, Entry> entries = new TreeMap<>();
+
+    private final Map<String, Long> checkpoints = new HashMap<>();
+
+    /**
+     * 推进检查点期间不阻塞事件追加
+     */
+    private final Object checkpointLock = new Object();
+
+    private Path dir;
+
+    private FileChannel channel;
+
+    private long nextId = 1;
+
+    @PostConstruct
+    public void init() throws IOException {
+        dir = Paths.get(directory, "outbox");
+        Files.createDirectories(dir);
+        load();
+        try (var files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(CHECKPOINT_PREFIX)) {
+                    checkpoints.put(name.substring(CHECKPOINT_PREFIX.length()),
+                            Long.parseLong(Files.readString(file).trim()));
+                }
+            }
+        }
+        // 已中继的事件可能已全部清理，序号需从检查点之后继续
+        for (long checkpoint : checkpoints.values()) {
+            nextId = Math.max(nextId, checkpoint + 1);
+        }
+        log.info("文件发件箱初始化完成 - 目录: {}, 事件数: {}, 下一序号: {}", dir, entries.size(), nextId);
+    }
+
+    @PreDestroy
+    public synchronized void destroy() throws IOException {
+        channel.close();
+    }
+
+    @Override
+    public synchronized void append(List<CookieChangeEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            long position = channel.size();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            List<Long> ids = new ArrayList<>(events.size());
+            List<Entry> appended = new ArrayList<>(events.size());
+            for (CookieChangeEvent event : events) {
+                event.setId(nextId + ids.size());
+                event.setOriginNode(nodeId);
+                event.setCreateTime(now);
+                byte[] line = objectMapper.writeValueAsBytes(event);
+                ids.add(event.getId());
+                appended.add(new Entry(position + out.size(), line.length, now));
+                out.write(line);
+                out.write('\n');
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, position + buffer.position());
+            }
+            // 写入成功后才分配序号，失败时不会留下空洞
+            for (int i = 0; i < ids.size(); i++) {
+                entries.put(ids.get(i), appended.get(i));
+            }
+            nextId += ids.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入发件箱失败", e);
+        }
+    }
+
+    @Override
+    public synchronized List<CookieChangeEvent> readAfter(long afterId, int limit) {
+        List<CookieChangeEvent> events = new ArrayList<>(Math.min(limit, entries.size()));
+        try {
+            for (Entry entry : entries.tailMap(afterId, false).values()) {
+                if (events.size() >= limit) {
+                    break;
+                }
+                ByteBuffer buffer = ByteBuffer.allocate(entry.length);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, entry.position + buffer.position()) < 0) {
+                        throw new IOException("发件箱文件被截断");
+                    }
+                }
+                events.add(objectMapper.readValue(buffer.array(), CookieChangeEvent.class));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取发件箱失败", e);
+        }
+        return events;
+    }
+
+    @Override
+    public long advance(String name, LongUnaryOperator step) {
+        synchronized (checkpointLock) {
+            long lastId = getCheckpoint(name);
+            long nextCheckpoint = step.applyAsLong(lastId);
+            if (nextCheckpoint != lastId) {
+                saveCheckpoint(name, nextCheckpoint);
+            }
+            return nextCheckpoint;
+        }
+    }
+
+    /**
+     * 删除事件后重写日志文件，只保留未删除的行
+     */
+    @Override
+    public synchronized int purge(long upToId, LocalDateTime before) {
+        Set<Long> purgeable = new HashSet<>();
+        for (Map.Entry<Long, Entry> entry : entries.headMap(upToId, true).entrySet()) {
+            if (entry.getValue().createTime.isBefore(before)) {
+                purgeable.add(entry.getKey());
+            }
+        }
+        if (purgeable.isEmpty()) {
+            return 0;
+        }
+        try {
+            Path temp = dir.resolve(LOG_FILE + ".tmp");
+            NavigableMap<Long, Entry> remaining = new TreeMap<>();
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                long position = 0;
+                for (Map.Entry<Long, Entry> entry : entries.entrySet()) {
+                    if (purgeable.contains(entry.getKey())) {
+                        continue;
+                    }
+                    Entry source = entry.getValue();
+                    channel.transferTo(source.position, source.length + 1L, out);
+                    remaining.put(entry.getKey(), new Entry(position, source.length, source.createTime));
+                    position += source.length + 1L;
+                }
+                out.force(true);
+            }
+            channel.close();
+            Files.move(temp, dir.resolve(LOG_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(dir.resolve(LOG_FILE), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            entries.clear();
+            entries.putAll(remaining);
+            return purgeable.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("清理发件箱失败", e);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        Map<String, Long> checkpointSnapshot;
+        synchronized (checkpointLock) {
+            checkpointSnapshot = new HashMap<>(checkpoints);
+        }
+        long minId = checkpointSnapshot.values().stream().mapToLong(Long::longValue).min().orElse(0L);
+        status.put("type", "file");
+        status.put("nodeId", nodeId);
+        status.put("checkpoints", checkpointSnapshot);
+        synchronized (this) {
+            status.put("pending", entries.tailMap(minId, false).size());
+            status.put("events", entries.size());
+            status.put("lastId", nextId - 1);
+        }
+        return status;
+    }
+
+    private long getCheckpoint(String name) {
+        return checkpoints.getOrDefault(name, 0L);
+    }
+
+    private void saveCheckpoint(String name, long lastId) {
+        try {
+            Path temp = dir.resolve(CHECKPOINT_PREFIX + name + ".tmp");
+            Files.writeString(temp, Long.toString(lastId));
+            Files.move(temp, dir.resolve(CHECKPOINT_PREFIX + name),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            checkpoints.put(name, lastId);
+        } catch (IOException e) {
+            throw new UncheckedIOException("保存发件箱检查点失败", e);
+        }
+    }
+
+    /**
+     * 读取日志文件重建索引，丢弃末尾未写完整的行
+     */
+    private void load() throws IOException {
+        Path file = dir.resolve(LOG_FILE);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long position = 0;
+        long valid = 0;
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        try (InputStream in = new BufferedInputStream(Channels.newInputStream(channel.position(0)))) {
+            int b;
+            while ((b = in.read()) >= 0) {
+                position++;
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                CookieChangeEvent event = objectMapper.readValue(line.toByteArray(), CookieChangeEvent.class);
+                entries.put(event.getId(), new Entry(valid, line.size(), event.getCreateTime()));
+                nextId = Math.max(nextId, event.getId() + 1);
+                valid = position;
+                line.reset();
+            }
+        }
+        channel.close();
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() > valid) {
+            log.warn("发件箱末尾存在不完整的记录，已截断 - 文件: {}, 长度: {} -> {}", file, channel.size(), valid);
+            channel.truncate(valid);
+        }
+    }
+
+    /**
+     * 事件在日志文件中的位置，长度不含换行符
+     */
+    private static final class Entry {
+
+        private final long position;
+
+        private final int length;
+
+        private final LocalDateTime createTime;
+
+        private Entry(long position, int length, LocalDateTime createTime) {
+            this.position = position;
+            this.length = length;
+            this.createTime = createTime;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.cookiesync.outbox;
+
+import com.cookiesync.entity.CookieChangeEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 进程内变更事件代理，只在同一进程内投递，用于单节点和测试
+ * 超过保留数量时丢弃最早的事件，落后太多的消费组从保留的最早事件继续
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Component
+@ConditionalOnProperty(name = "cookie-sync.outbox.broker.type", havingValue = "memory", matchIfMissing = true)
+public class InMemoryChangeBroker implements ChangeBroker {
+
+    @Value("${cookie-sync.outbox.broker.memory.max-events:10000}")
+    private int maxEvents;
+
+    private final Deque<CookieChangeEvent> events = new ArrayDeque<>();
+
+    private final Map<String, Long> offsets = new HashMap<>();
+
+    /**
+     * 最后一个事件的位置，位置从1开始连续递增
+     */
+    private long endOffset;
+
+    @Override
+    public synchronized void publish(List<CookieChangeEvent> batch) {
+        for (CookieChangeEvent event : batch) {
+            event.setOffset(++endOffset);
+            events.addLast(event);
+        }
+        while (events.size() > maxEvents) {
+            events.removeFirst();
+        }
+    }
+
+    @Override
+    public synchronized List<CookieChangeEvent> poll(String group, int limit) {
+        long committed = offsets.getOrDefault(group, 0L);
+        List<CookieChangeEvent> result = new ArrayList<>(Math.min(limit, events.size()));
+        for (CookieChangeEvent event : events) {
+            if (result.size() >= limit) {
+                break;
+            }
+            if (event.getOffset() > committed) {
+                result.add(event);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void commit(String group, long offset) {
+        offsets.merge(group, offset, Math::max);
+    }
+
+    @Override
+    public synchronized Map<String, Object> getStatus() {
+        Map<String, Object> groups = new HashMap<>();
+        offsets.forEach((group, offset) -> groups.put(group, Map.of("offset", offset, "lag", endOffset - offset)));
+        Map<String, Object> status = new HashMap<>();
+        status.put("type", "memory");
+        status.put("endOffset", endOffset);
+        status.put("retainedEvents", events.size());
+        status.put("groups", groups);
+        return status;
+    }
+}
@@ -0,0 +1,91 @@
+package com.cookiesync.outbox;
+
+import com.cookiesync.entity.CookieChangeEvent;
+import com.cookiesync.mapper.ChangeOutboxMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * 基于MySQL的变更事件发件箱
+ * 事件与 cookie_data 写入在同一事务中提交；检查点行锁保证多个节点同时中继时只有一个在推进
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Component
+@ConditionalOnExpression("${cookie-sync.outbox.enabled:false} and '${cookie-sync.storage.type:mysql}' == 'mysql'")
+public class MybatisChangeOutbox implements ChangeOutbox {
+
+    private static final int PURGE_BATCH_SIZE = 1000;
+
+    @Autowired
+    private ChangeOutboxMapper changeOutboxMapper;
+
+    @Value("${cookie-sync.outbox.node-id:${spring.application.name:cookie-sync}-${server.port:8080}}")
+    private String nodeId;
+
+    @Override
+    public void append(List<CookieChangeEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (CookieChangeEvent event : events) {
+            event.setOriginNode(nodeId);
+            event.setCreateTime(now);
+        }
+        changeOutboxMapper.insertBatch(events);
+    }
+
+    @Override
+    public List<CookieChangeEvent> readAfter(long afterId, int limit) {
+        return changeOutboxMapper.findAfter(afterId, limit);
+    }
+
+    @Override
+    @Transactional
+    public long advance(String name, LongUnaryOperator step) {
+        changeOutboxMapper.initCheckpoint(name);
+        long lastId = changeOutboxMapper.lockCheckpoint(name);
+        long nextId = step.applyAsLong(lastId);
+        if (nextId != lastId) {
+            changeOutboxMapper.updateCheckpoint(name, nextId);
+        }
+        return nextId;
+    }
+
+    @Override
+    public int purge(long upToId, LocalDateTime before) {
+        // 保留已中继的最后一个事件，MySQL 5.7 重启后按现存最大ID恢复自增值，全部删除会导致序号回退
+        int purged = 0;
+        int deleted;
+        do {
+            deleted = changeOutboxMapper.purge(upToId - 1, before, PURGE_BATCH_SIZE);
+            purged += deleted;
+        } while (deleted >= PURGE_BATCH_SIZE);
+        return purged;
+    }
+
+    @Override
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        List<Map<String, Object>> checkpoints = changeOutboxMapper.findCheckpoints();
+        long minId = checkpoints.stream()
+                .mapToLong(checkpoint -> ((Number) checkpoint.get("lastId")).longValue())
+                .min().orElse(0L);
+        status.put("type", "mysql");
+        status.put("nodeId", nodeId);
+        status.put("checkpoints", checkpoints);
+        status.put("pending", changeOutboxMapper.countAfter(minId));
+        return status;
+    }
+}
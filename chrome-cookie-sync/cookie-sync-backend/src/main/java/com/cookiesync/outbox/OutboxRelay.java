@@ -0,0 +1,149 @@
+package com.cookiesync.outbox;
+
+import com.cookiesync.datasource.DataSourceContextHolder;
+import com.cookiesync.datasource.Workload;
+import com.cookiesync.entity.CookieChangeEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 发件箱中继
+ * 定期从检查点之后按序号顺序读取事件，批量发布到消息代理后推进检查点；
+ * 发布成功而检查点未保存时重启后会重复发布，订阅者按版本号幂等处理
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cookie-sync.outbox.enabled", havingValue = "true")
+public class OutboxRelay {
+
+    static final String CHECKPOINT = "relay";
+
+    @Autowired
+    private ChangeOutbox changeOutbox;
+
+    @Autowired
+    private ChangeBroker changeBroker;
+
+    @Value("${cookie-sync.outbox.relay.enabled:true}")
+    private boolean relayEnabled;
+
+    @Value("${cookie-sync.outbox.relay.batch-size:500}")
+    private int batchSize;
+
+    @Value("${cookie-sync.outbox.relay.gap-timeout:10000}")
+    private long gapTimeout;
+
+    @Value("${cookie-sync.outbox.retention-minutes:1440}")
+    private long retentionMinutes;
+
+    private final AtomicLong published = new AtomicLong();
+
+    private volatile long checkpoint;
+
+    private volatile String lastError;
+
+    /**
+     * 定期中继，有积压时连续处理多批
+     */
+    @Scheduled(fixedDelayString = "${cookie-sync.outbox.relay.interval:500}")
+    public int relay() {
+        if (!relayEnabled) {
+            return 0;
+        }
+        int total = 0;
+        try {
+            int relayed;
+            do {
+                relayed = relayBatch();
+                total += relayed;
+            } while (relayed >= batchSize);
+            lastError = null;
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            log.warn("变更事件中继失败 - 已中继: {}, 错误: {}", total, e.getMessage());
+        }
+        return total;
+    }
+
+    /**
+     * 定期删除已中继且超过保留时间的事件，保留的事件可用于排查问题
+     */
+    @Scheduled(fixedDelayString = "${cookie-sync.outbox.purge-interval:600000}")
+    public int purge() {
+        if (checkpoint <= 0) {
+            return 0;
+        }
+        try {
+            int purged = DataSourceContextHolder.onWorkload(Workload.ADMIN,
+                    () -> changeOutbox.purge(checkpoint, LocalDateTime.now().minusMinutes(retentionMinutes)));
+            if (purged > 0) {
+                log.info("发件箱清理完成 - 删除事件数: {}", purged);
+            }
+            return purged;
+        } catch (Exception e) {
+            log.warn("发件箱清理失败 - 错误: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * 中继状态，用于 /api/system/outbox
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("enabled", relayEnabled);
+        status.put("checkpoint", checkpoint);
+        status.put("published", published.get());
+        status.put("lastError", lastError);
+        status.put("outbox", DataSourceContextHolder.onWorkload(Workload.ADMIN, changeOutbox::getStatus));
+        return status;
+    }
+
+    private int relayBatch() {
+        int[] relayed = {0};
+        checkpoint = DataSourceContextHolder.onWorkload(Workload.ADMIN, () -> changeOutbox.advance(CHECKPOINT, lastId -> {
+            List<CookieChangeEvent> ready = readyEvents(lastId, changeOutbox.readAfter(lastId, batchSize));
+            if (ready.isEmpty()) {
+                return lastId;
+            }
+            changeBroker.publish(ready);
+            relayed[0] = ready.size();
+            return ready.get(ready.size() - 1).getId();
+        }));
+        published.addAndGet(relayed[0]);
+        return relayed[0];
+    }
+
+    /**
+     * 取出可以发布的连续事件
+     * 自增序号在插入时分配，提交顺序可能不同，较小的序号可能稍后才可见；遇到空洞时停止并等待，
+     * 空洞之后的事件超过等待时间仍未补齐时视为事务已回滚，跳过空洞
+     */
+    private List<CookieChangeEvent> readyEvents(long lastId, List<CookieChangeEvent> events) {
+        LocalDateTime gapDeadline = LocalDateTime.now().minusNanos(gapTimeout * 1_000_000L);
+        List<CookieChangeEvent> ready = new ArrayList<>(events.size());
+        long expected = lastId + 1;
+        for (CookieChangeEvent event : events) {
+            if (event.getId() != expected && event.getCreateTime().isAfter(gapDeadline)) {
+                break;
+            }
+            ready.add(event);
+            expected = event.getId() + 1;
+        }
+        return ready;
+    }
+}
@@ -0,0 +1,79 @@
+package com.cookiesync.outbox;
+
+import com.cookiesync.cache.CookieDataCache;
+import com.cookiesync.datasource.DataSourceContextHolder;
+import com.cookiesync.datasource.Workload;
+import com.cookiesync.entity.CookieChangeEvent;
+import com.cookiesync.entity.CookieData;
+import com.cookiesync.service.CookieEntryService;
+import com.cookiesync.storage.CookieStorage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 备用节点复制
+ * 把主节点的变更重放到本节点的存储，备用节点需使用与主节点相同的加密密钥；
+ * 重放不记录为本节点的变更，本地版本号更新时跳过旧事件，重复投递不影响结果
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cookie-sync.outbox.standby.enabled", havingValue = "true")
+public class StandbyReplicationSubscriber implements ChangeSubscriber {
+
+    @Autowired
+    private CookieStorage cookieStorage;
+
+    @Autowired
+    private CookieDataCache cookieDataCache;
+
+    @Override
+    public String getName() {
+        return "standby";
+    }
+
+    @Override
+    public void onEvents(List<CookieChangeEvent> events) {
+        DataSourceContextHolder.onWorkload(Workload.ADMIN, () -> ChangeCapture.suppress(() -> {
+            for (CookieChangeEvent event : events) {
+                apply(event);
+            }
+            return null;
+        }));
+    }
+
+    private void apply(CookieChangeEvent event) {
+        switch (event.getEventType()) {
+            case CookieChangeEvent.UPSERT:
+                // 按条目存储的数据在事件中已是完整数据，备用节点按整体存储保存；
+                // 仍为占位值的只有未移除条目的压缩（只更新下次压缩时间），备用节点的数据不变
+                if (CookieEntryService.ENTRY_MARKER.equals(event.getEncryptedData())) {
+                    log.debug("跳过不含数据的变更事件 - 用户ID: {}", event.getUserId());
+                    return;
+                }
+                CookieData existing = cookieStorage.findByUserId(event.getUserId());
+                if (existing != null && existing.getVersion() != null && event.getVersion() != null
+                        && existing.getVersion() > event.getVersion()) {
+                    return;
+                }
+                cookieStorage.upsertBatch(List.of(event.toCookieData()));
+                cookieDataCache.evict(event.getUserId());
+                break;
+            case CookieChangeEvent.DELETE:
+                cookieStorage.deleteByUserId(event.getUserId());
+                cookieDataCache.evict(event.getUserId());
+                break;
+            case CookieChangeEvent.EXPIRE:
+                cookieStorage.deleteExpiredData();
+                break;
+            default:
+                log.warn("未知的变更事件类型: {}", event.getEventType());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.cookiesync.runner;
+
+import com.cookiesync.service.CookieTransferService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 命令行批量导出/导入
+ * <pre>
+ * java -jar cookie-sync-backend-1.0.0-exec.jar --spring.main.web-application-type=none --export=cookies.ndjson
+ * java -jar cookie-sync-backend-1.0.0-exec.jar --spring.main.web-application-type=none --import=cookies.ndjson
+ * </pre>
+ * 指定 --export 或 --import 时执行完成后退出进程，未指定时不做任何处理
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Component
+public class TransferCommandRunner implements ApplicationRunner {
+
+    /**
+     * 只在命令行导出/导入时创建，普通启动不初始化导出/导入服务
+     */
+    @Autowired
+    private ObjectProvider<CookieTransferService> cookieTransferServiceProvider;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String exportFile = optionValue(args, "export");
+        String importFile = optionValue(args, "import");
+        if (exportFile == null && importFile == null) {
+            return;
+        }
+
+        CookieTransferService cookieTransferService = cookieTransferServiceProvider.getObject();
+        int exitCode = 0;
+        try {
+            if (exportFile != null) {
+                Path path = Paths.get(exportFile);
+                try (OutputStream out = Files.newOutputStream(path)) {
+                    long exported = cookieTransferService.exportAll(out);
+                    log.info("命令行导出完成 - 文件: {}, 数量: {}", path.toAbsolutePath(), exported);
+                }
+            }
+            if (importFile != null) {
+                Path path = Paths.get(importFile);
+                try (InputStream in = Files.newInputStream(path)) {
+                    Map<String, Object> result = cookieTransferService.importAll(in);
+                    log.info("命令行导入完成 - 文件: {}, 结果: {}", path.toAbsolutePath(), result);
+                    if (((Number) result.get("failed")).longValue() > 0) {
+                        exitCode = 2;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.error("命令行导出/导入失败", e);
+            exitCode = 1;
+        }
+
+        int code = exitCode;
+        System.exit(SpringApplication.exit(applicationContext, () -> code));
+    }
+
+    private static String optionValue(ApplicationArguments args, String name) {
+        List<String> values = args.getOptionValues(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+}
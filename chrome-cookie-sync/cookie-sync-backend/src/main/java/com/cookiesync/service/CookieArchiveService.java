@@ -0,0 +1,60 @@
+package com.cookiesync.service;
+
+import com.cookiesync.entity.CookieData;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 冷热分层服务接口（仅MySQL存储）
+ * 开启后，后台任务把长期未上传用户的加密数据移入 cookie_archive 表，cookie_data 只保留元数据，
+ * encrypted_data 写入 {@link #ARCHIVE_MARKER}；下次下载时自动恢复
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public interface CookieArchiveService {
+
+    /**
+     * cookie_data.encrypted_data 的占位值，表示数据已移入 cookie_archive 表（不是Base64字符，不会与密文混淆）
+     */
+    String ARCHIVE_MARKER = "#archived";
+
+    /**
+     * 归档不活跃用户的数据
+     *
+     * @return 归档的用户数
+     * @throws IllegalStateException 已有归档任务在进行
+     */
+    int archiveInactive();
+
+    /**
+     * 恢复已归档的数据：写回 cookie_data 并删除归档
+     *
+     * @param stub 占位记录
+     * @return 恢复后的完整数据；期间已被恢复或重新上传时返回主库中的最新数据，用户已删除时返回null
+     */
+    CookieData restore(CookieData stub);
+
+    /**
+     * 删除用户的归档数据，上传覆盖占位记录或删除用户时调用
+     *
+     * @param userId 用户ID
+     */
+    void discard(String userId);
+
+    /**
+     * 逐条遍历已归档的有效数据，加密数据取自归档
+     *
+     * @param consumer 数据处理逻辑
+     * @return 遍历数量
+     */
+    int scanArchived(Consumer<CookieData> consumer);
+
+    /**
+     * 归档统计与最近一次归档任务的结果
+     *
+     * @return 状态信息
+     */
+    Map<String, Object> getStatus();
+}
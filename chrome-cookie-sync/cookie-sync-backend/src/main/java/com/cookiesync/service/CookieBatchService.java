@@ -0,0 +1,36 @@
+package com.cookiesync.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * 多用户批量查询服务接口
+ * 结果按请求顺序以NDJSON逐行写出，每行一个用户（{@link com.cookiesync.entity.CookieBatchItem}），重复的用户ID只返回一次
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public interface CookieBatchService {
+
+    /**
+     * 批量检查Cookie数据是否存在，可附带统计信息
+     *
+     * @param userIds 用户ID
+     * @param withStats 是否返回数量、大小、版本与时间信息
+     * @param out 输出流，调用方负责关闭
+     * @return 写出的行数
+     * @throws IllegalArgumentException 用户ID为空或超过数量上限
+     */
+    long lookup(List<String> userIds, boolean withStats, OutputStream out) throws IOException;
+
+    /**
+     * 批量下载并解密Cookie数据，已过期或不存在的用户只返回 exists=false
+     *
+     * @param userIds 用户ID
+     * @param out 输出流，调用方负责关闭
+     * @return 写出的行数
+     * @throws IllegalArgumentException 用户ID为空或超过数量上限
+     */
+    long download(List<String> userIds, OutputStream out) throws IOException;
+}
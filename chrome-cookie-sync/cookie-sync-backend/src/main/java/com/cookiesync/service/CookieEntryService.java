@@ -0,0 +1,112 @@
+package com.cookiesync.service;
+
+import com.cookiesync.entity.CookieData;
+import com.cookiesync.entity.EntryMergeResult;
+import com.cookiesync.entity.WrappedDataKey;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 按条目存储Cookie的服务接口（仅MySQL存储）
+ * 开启后，数组格式的上传按 (域名, 路径, 名称) 拆分到 cookie_entry 表逐条加密保存（同一次合并写入的条目共用一个数据密钥），
+ * cookie_data 只保留元数据，encrypted_data 写入 {@link #ENTRY_MARKER}
+ * 
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public interface CookieEntryService {
+
+    /**
+     * cookie_data.encrypted_data 的占位值，表示数据保存在 cookie_entry 表
+     */
+    String ENTRY_MARKER = "";
+
+    /**
+     * 上传数据能否按条目存储：必须是Cookie数组，且每条的域名、路径、名称不超过列长度
+     * 
+     * @param cookies 上传的JSON
+     * @return 是否可以按条目存储
+     */
+    boolean accepts(JsonNode cookies);
+
+    /**
+     * 将上传的Cookie数组与已存储条目合并
+     * 只加密和写入新增或变化的条目，并删除本次未出现的条目
+     * 
+     * @param userId 用户ID
+     * @param cookies Cookie数组
+     * @return 合并结果
+     */
+    EntryMergeResult merge(String userId, JsonNode cookies);
+
+    /**
+     * 将用户全部条目组装为Cookie数组JSON
+     * 
+     * @param userId 用户ID
+     * @return Cookie数组JSON
+     */
+    String assemble(String userId);
+
+    /**
+     * 逐条遍历按条目存储的有效数据，加密数据为组装后的Cookie数组，
+     * 与整体存储的格式相同（gzip后用记录的数据密钥加密），用于导出
+     * 
+     * @param consumer 数据处理逻辑
+     * @return 遍历数量
+     */
+    int scanAssembled(Consumer<CookieData> consumer);
+
+    /**
+     * 查询用户的Cookie条目
+     * 
+     * @param userId 用户ID
+     * @param domain 主机名，为空时返回全部；否则返回该主机可见的Cookie（主机本身及上级域名的域Cookie）
+     * @return Cookie列表
+     */
+    List<JsonNode> findEntries(String userId, String domain);
+
+    /**
+     * 删除用户已过期的条目
+     * 
+     * @param userId 用户ID
+     * @return 删除数量
+     */
+    int pruneExpired(String userId);
+
+    /**
+     * 查询用户全部持久Cookie的过期时间（升序）
+     * 
+     * @param userId 用户ID
+     * @return 过期时间列表
+     */
+    List<LocalDateTime> findExpireTimes(String userId);
+
+    /**
+     * 删除用户全部条目
+     * 
+     * @param userId 用户ID
+     * @return 删除数量
+     */
+    int deleteByUserId(String userId);
+
+    /**
+     * 按主键顺序查询不是由指定主密钥包装的条目数据密钥，包括数据密钥为空的历史条目
+     * 
+     * @param masterKeyId 当前主密钥ID
+     * @param afterId 上一批最后一条的主键ID，从头开始时为0
+     * @param limit 最大数量
+     * @return 待轮换的数据密钥
+     */
+    List<WrappedDataKey> findStaleDataKeys(String masterKeyId, long afterId, int limit);
+
+    /**
+     * 写入重新包装的条目数据密钥，仅当数据密钥与读取时一致才更新
+     * 
+     * @param batch 重新包装的数据密钥
+     * @return 影响行数
+     */
+    int updateDataKeys(List<WrappedDataKey> batch);
+}
@@ -0,0 +1,41 @@
+package com.cookiesync.service;
+
+import com.cookiesync.entity.PruneResult;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Cookie清理服务接口
+ * 上传时移除已过期的Cookie以及命中屏蔽规则的Cookie，并由后台任务在足够多的Cookie过期后重写已存储的数据
+ * 
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public interface CookiePruningService {
+
+    /**
+     * 清理Cookie数据
+     * 
+     * @param cookieData 上传的JSON，支持Cookie数组或带 cookies 数组字段的对象
+     * @return 清理结果；未开启清理或格式无法识别时返回null
+     */
+    PruneResult prune(JsonNode cookieData);
+
+    /**
+     * 计算下次压缩时间：按配置比例的Cookie过期的时间点
+     * 
+     * @param expireTimes 持久Cookie的过期时间（升序）
+     * @param cookieCount Cookie总数（含会话Cookie）
+     * @return 下次压缩时间，过期的Cookie不足配置比例时返回null
+     */
+    LocalDateTime nextPruneTime(List<LocalDateTime> expireTimes, int cookieCount);
+
+    /**
+     * 压缩已到压缩时间的数据
+     * 
+     * @return 被重写的用户数
+     */
+    int compact();
+}
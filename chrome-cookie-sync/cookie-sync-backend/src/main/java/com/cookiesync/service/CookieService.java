@@ -2,6 +2,11 @@ package com.cookiesync.service;
 
 import com.cookiesync.entity.ApiResponse;
 import com.cookiesync.entity.CookieData;
+import com.cookiesync.entity.CookiePayload;
+import com.cookiesync.entity.CookieSnapshot;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.List;
 
 /**
  * Cookie数据服务接口
@@ -22,15 +27,38 @@ public interface CookieService {
      */
     ApiResponse<String> uploadCookieData(String userId, String cookieDataJson, String userAgent, String clientIp);
     
+    /**
+     * 上传已解析的Cookie数据（如CBOR等二进制格式的请求体）
+     * 
+     * @param userId 用户ID
+     * @param cookieNode 已解析的Cookie数据
+     * @param userAgent 用户代理
+     * @param clientIp 客户端IP
+     * @return 操作结果
+     */
+    ApiResponse<String> uploadCookieNode(String userId, JsonNode cookieNode, String userAgent, String clientIp);
+    
     /**
      * 下载Cookie数据
      * 
      * @param userId 用户ID
+     * @param knownVersion 客户端已知的数据版本，只读副本落后于该版本时读取主库，可为空
      * @param clientIp 客户端IP
      * @param userAgent 用户代理
      * @return Cookie数据
      */
-    ApiResponse<CookieData> downloadCookieData(String userId, String clientIp, String userAgent);
+    ApiResponse<CookieData> downloadCookieData(String userId, Integer knownVersion, String clientIp, String userAgent);
+    
+    /**
+     * 下载Cookie原始负载（不做字符串转换，保持存储时的压缩形态）
+     * 
+     * @param userId 用户ID
+     * @param knownVersion 客户端已知的数据版本，只读副本落后于该版本时读取主库，可为空
+     * @param clientIp 客户端IP
+     * @param userAgent 用户代理
+     * @return Cookie原始负载
+     */
+    ApiResponse<CookiePayload> downloadCookiePayload(String userId, Integer knownVersion, String clientIp, String userAgent);
     
     /**
      * 检查Cookie数据是否存在
@@ -55,4 +83,41 @@ public interface CookieService {
      * @return 统计信息
      */
     ApiResponse<Object> getCookieDataStats(String userId);
-}
\ No newline at end of file
+    
+    /**
+     * 查询按条目存储的Cookie，按域名过滤时只扫描对应域名的索引范围
+     * 
+     * @param userId 用户ID
+     * @param domain 主机名，为空时返回全部
+     * @return Cookie列表
+     */
+    ApiResponse<List<JsonNode>> getCookieEntries(String userId, String domain);
+    
+    /**
+     * 查询Cookie数据的历史版本
+     * 
+     * @param userId 用户ID
+     * @return 快照列表（新版本在前）
+     */
+    ApiResponse<List<CookieSnapshot>> getCookieVersions(String userId);
+    
+    /**
+     * 读取指定历史版本的Cookie数据
+     * 
+     * @param userId 用户ID
+     * @param version 版本号
+     * @return Cookie数据，encryptedData 为解密后的JSON
+     */
+    ApiResponse<CookieData> getCookieVersion(String userId, Integer version);
+    
+    /**
+     * 恢复到指定历史版本，以该版本的内容重新上传，生成新的版本
+     * 
+     * @param userId 用户ID
+     * @param version 版本号
+     * @param userAgent 用户代理
+     * @param clientIp 客户端IP
+     * @return 恢复结果
+     */
+    ApiResponse<String> restoreCookieVersion(String userId, Integer version, String userAgent, String clientIp);
+}
@@ -0,0 +1,76 @@
+package com.cookiesync.service;
+
+import com.cookiesync.entity.CookieSnapshot;
+import com.cookiesync.entity.WrappedDataKey;
+
+import java.util.List;
+
+/**
+ * Cookie数据版本快照服务接口
+ * 每次上传后按内容分块保存一份快照，块按内容寻址只存储一次，相邻版本共享绝大多数块
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public interface CookieSnapshotService {
+
+    /**
+     * 保存快照
+     *
+     * @param userId 用户ID
+     * @param version 数据版本号
+     * @param cookieDataJson Cookie数据JSON
+     * @param cookieCount Cookie数量
+     * @return 快照信息
+     */
+    CookieSnapshot snapshot(String userId, int version, String cookieDataJson, int cookieCount);
+
+    /**
+     * 查询用户的全部快照（新版本在前）
+     */
+    List<CookieSnapshot> listVersions(String userId);
+
+    /**
+     * 查询用户指定版本的快照
+     *
+     * @return 快照信息，不存在时为空
+     */
+    CookieSnapshot findVersion(String userId, int version);
+
+    /**
+     * 读取快照内容
+     *
+     * @return Cookie数据JSON
+     */
+    String readContent(CookieSnapshot snapshot);
+
+    /**
+     * 删除用户全部快照
+     */
+    int deleteByUserId(String userId);
+
+    /**
+     * 按保留策略清理快照及不再被引用的块
+     *
+     * @return 删除的快照数
+     */
+    int cleanup();
+
+    /**
+     * 按摘要顺序查询不是由指定主密钥包装的块数据密钥，包括数据密钥为空的历史块
+     *
+     * @param masterKeyId 当前主密钥ID
+     * @param afterHash 上一批最后一个块的摘要，从头开始时为空字符串
+     * @param limit 最大数量
+     * @return 待轮换的数据密钥
+     */
+    List<WrappedDataKey> findStaleDataKeys(String masterKeyId, String afterHash, int limit);
+
+    /**
+     * 写入重新包装的块数据密钥，仅当数据密钥与读取时一致才更新
+     *
+     * @param batch 重新包装的数据密钥
+     * @return 影响行数
+     */
+    int updateDataKeys(List<WrappedDataKey> batch);
+}
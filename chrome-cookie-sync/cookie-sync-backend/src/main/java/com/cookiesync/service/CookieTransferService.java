@@ -0,0 +1,32 @@
+package com.cookiesync.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * Cookie数据批量导出/导入服务接口
+ * 数据格式为NDJSON，每行一条 cookie_data 记录，加密数据原样导出，导入端需使用相同的加密密钥
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public interface CookieTransferService {
+
+    /**
+     * 导出全部有效的Cookie数据
+     *
+     * @param out 输出流，调用方负责关闭
+     * @return 导出数量
+     */
+    long exportAll(OutputStream out) throws IOException;
+
+    /**
+     * 导入Cookie数据，用户已存在时覆盖
+     *
+     * @param in 输入流，调用方负责关闭
+     * @return 导入结果（导入数量、失败数量、批次数、耗时）
+     */
+    Map<String, Object> importAll(InputStream in) throws IOException;
+}
@@ -0,0 +1,29 @@
+package com.cookiesync.service;
+
+import java.util.Map;
+
+/**
+ * 数据密钥轮换服务接口
+ * 切换活动主密钥后，在后台用新主密钥重新包装已有的数据密钥，只改写数据密钥列，不重新加密Cookie数据；
+ * 数据密钥为空的历史数据同时迁移为以主密钥包装的静态密钥
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public interface DataKeyRotationService {
+
+    /**
+     * 在后台开始轮换，立即返回
+     *
+     * @return 轮换状态
+     * @throws IllegalStateException 已有轮换在进行
+     */
+    Map<String, Object> start();
+
+    /**
+     * 最近一次轮换的状态
+     *
+     * @return 轮换状态，未执行过轮换时为空
+     */
+    Map<String, Object> status();
+}
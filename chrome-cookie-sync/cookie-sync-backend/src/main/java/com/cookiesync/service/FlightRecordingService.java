@@ -0,0 +1,42 @@
+package com.cookiesync.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * 按需JFR录制服务接口
+ * 同一时间只允许一个录制，时长和大小都有上限，结束后以 .jfr 文件返回
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public interface FlightRecordingService {
+
+    /**
+     * 开始录制
+     *
+     * @param durationSeconds 录制时长（秒），为空时使用最大时长，超过上限时按上限处理
+     * @param maxSizeMb 录制数据大小上限（MB），为空时使用配置值，超过上限时按上限处理
+     * @return 录制状态
+     * @throws IllegalStateException 已有录制在进行
+     */
+    Map<String, Object> start(Integer durationSeconds, Integer maxSizeMb) throws IOException;
+
+    /**
+     * 当前录制状态
+     *
+     * @return 录制状态，没有录制时为空
+     */
+    Map<String, Object> status();
+
+    /**
+     * 停止录制并写出 .jfr 文件，写出后丢弃录制
+     * 录制已到时自动停止时直接写出已保存的文件
+     *
+     * @param out 输出流，调用方负责关闭
+     * @return 写出的字节数
+     * @throws IllegalStateException 没有可停止的录制
+     */
+    long stop(OutputStream out) throws IOException;
+}
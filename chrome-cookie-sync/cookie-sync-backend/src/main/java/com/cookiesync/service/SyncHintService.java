@@ -0,0 +1,30 @@
+package com.cookiesync.service;
+
+import com.cookiesync.entity.SyncHint;
+
+/**
+ * 同步间隔建议服务接口
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public interface SyncHintService {
+
+    /**
+     * 标记一个同步请求开始处理，用于统计服务端当前负载
+     */
+    void requestStarted();
+
+    /**
+     * 标记一个同步请求处理结束
+     */
+    void requestFinished();
+
+    /**
+     * 计算用户的下次同步间隔建议
+     *
+     * @param userId 用户ID
+     * @return 同步间隔建议，未启用时返回null
+     */
+    SyncHint getSyncHint(String userId);
+}
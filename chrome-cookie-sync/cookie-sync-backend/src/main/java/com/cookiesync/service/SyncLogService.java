@@ -0,0 +1,39 @@
+package com.cookiesync.service;
+
+import com.cookiesync.entity.SyncLogPage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+/**
+ * 同步日志查询服务接口
+ * 浏览使用键集分页：游标记录上一页最后一条的创建时间和主键，翻页不使用OFFSET，任意深度的翻页耗时相同
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public interface SyncLogService {
+
+    /**
+     * 分页查询同步日志（新的在前）
+     *
+     * @param userId 用户ID，为空时查询全部用户
+     * @param cursor 上一页返回的游标，为空时查询第一页
+     * @param limit 每页数量，超出上限时按上限处理
+     * @return 分页结果
+     * @throws IllegalArgumentException 游标格式错误
+     */
+    SyncLogPage findLogs(String userId, String cursor, int limit);
+
+    /**
+     * 以NDJSON按时间顺序流式导出同步日志
+     *
+     * @param userId 用户ID，为空时导出全部用户
+     * @param startTime 起始时间（包含），可为空
+     * @param endTime 截止时间（不包含），可为空
+     * @param out 输出流，调用方负责关闭
+     * @return 导出数量
+     */
+    long exportLogs(String userId, LocalDateTime startTime, LocalDateTime endTime, OutputStream out) throws IOException;
+}
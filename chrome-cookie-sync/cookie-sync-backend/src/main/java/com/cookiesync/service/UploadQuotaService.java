@@ -0,0 +1,36 @@
+package com.cookiesync.service;
+
+/**
+ * 上传配额服务接口
+ * 按用户统计最近24小时成功上传的数据量（data_size），超过配额的上传被拒绝
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public interface UploadQuotaService {
+
+    /**
+     * 用户最近24小时的上传量是否已达到配额
+     * 按存储后的数据量统计，判断时本次上传尚未压缩加密，因此最后一次上传可以略微超出配额
+     *
+     * @param userId 用户ID
+     * @return 是否已达到配额；未开启配额时始终为false
+     */
+    boolean isExceeded(String userId);
+
+    /**
+     * 记录一次成功上传的数据量
+     *
+     * @param userId 用户ID
+     * @param bytes 存储的数据量
+     */
+    void record(String userId, long bytes);
+
+    /**
+     * 用户最近24小时已使用的上传量
+     *
+     * @param userId 用户ID
+     * @return 已使用字节数
+     */
+    long getUsage(String userId);
+}
@@ -0,0 +1,266 @@
+package com.cookiesync.service.impl;
+
+import com.cookiesync.datasource.DataSourceContextHolder;
+import com.cookiesync.datasource.Workload;
+import com.cookiesync.entity.CookieData;
+import com.cookiesync.mapper.CookieArchiveMapper;
+import com.cookiesync.mapper.CookieDataMapper;
+import com.cookiesync.service.CookieArchiveService;
+import com.cookiesync.util.CompressionUtil;
+import com.cookiesync.util.EncryptionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 冷热分层服务实现类
+ * <ul>
+ *     <li>后台任务按主键顺序分批扫描超过不活跃天数未上传的有效数据的元数据，再按数据量分组读取加密数据，
+ *     每组不超过批次数据量上限，单条INSERT不会超出 max_allowed_packet；一组失败只计入失败数，不中断本次归档</li>
+ *     <li>先写入归档表，再把 cookie_data 中的加密数据替换为占位值；
+ *     替换时比较版本号、更新时间与下次压缩时间，期间有上传或压缩的用户放弃归档并删除刚写入的归档；
+ *     更新时间只在上传时变化，压缩不会重置不活跃时间</li>
+ *     <li>归档前解密校验数据，未压缩的历史数据压缩后以原数据密钥重新加密；数据密钥留在占位记录中，密钥轮换照常进行</li>
+ *     <li>下载读到占位记录时从归档表写回并删除归档，写回时刷新更新时间，刚恢复的用户在不活跃天数内不会再次归档</li>
+ * </ul>
+ * 归档与恢复都不产生变更事件：明文不变，缓存与备用节点中的数据仍然有效。
+ * 先写归档再替换占位值、先写回再删除归档，任一步失败最多留下可被覆盖的多余归档，不会丢失数据
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "cookie-sync.archive.enabled", havingValue = "true")
+public class CookieArchiveServiceImpl implements CookieArchiveService {
+
+    @Autowired
+    private CookieDataMapper cookieDataMapper;
+
+    @Autowired
+    private CookieArchiveMapper cookieArchiveMapper;
+
+    @Autowired
+    private EncryptionUtil encryptionUtil;
+
+    @Value("${cookie-sync.archive.inactive-days:7}")
+    private int inactiveDays;
+
+    @Value("${cookie-sync.archive.batch-size:200}")
+    private int batchSize;
+
+    @Value("${cookie-sync.archive.max-batch-mb:16}")
+    private long maxBatchMb;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final AtomicLong restored = new AtomicLong();
+
+    private volatile Map<String, Object> lastRun;
+
+    /**
+     * 定期归档，手动触发的归档仍在进行时跳过本次
+     */
+    @Scheduled(initialDelayString = "${cookie-sync.archive.interval:3600000}",
+            fixedDelayString = "${cookie-sync.archive.interval:3600000}")
+    public void scheduledArchive() {
+        if (running.get()) {
+            return;
+        }
+        try {
+            archiveInactive();
+        } catch (IllegalStateException e) {
+            log.debug("跳过定期归档: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public int archiveInactive() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("已有归档任务在进行");
+        }
+        try {
+            return DataSourceContextHolder.onWorkload(Workload.ADMIN, this::archiveAll);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private int archiveAll() {
+        LocalDateTime startTime = LocalDateTime.now();
+        LocalDateTime cutoff = startTime.minusDays(inactiveDays);
+        long scanned = 0;
+        int archived = 0;
+        AtomicLong failed = new AtomicLong();
+        long afterId = 0;
+        while (true) {
+            List<CookieData> batch = cookieDataMapper.findArchiveCandidates(cutoff, ARCHIVE_MARKER, afterId, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+            scanned += batch.size();
+            for (List<Long> ids : groupBySize(batch)) {
+                try {
+                    archived += archiveBatch(cookieDataMapper.findArchivableByIds(ids, ARCHIVE_MARKER), failed);
+                } catch (Exception e) {
+                    failed.addAndGet(ids.size());
+                    log.warn("冷数据归档批次失败 - 用户数: {}, 错误: {}", ids.size(), e.getMessage());
+                }
+            }
+        }
+
+        Map<String, Object> run = new HashMap<>();
+        run.put("startTime", startTime);
+        run.put("endTime", LocalDateTime.now());
+        run.put("cutoff", cutoff);
+        run.put("scanned", scanned);
+        run.put("archived", archived);
+        run.put("failed", failed.get());
+        lastRun = run;
+        if (scanned > 0) {
+            log.info("冷数据归档完成 - 扫描: {}, 归档: {}, 失败: {}", scanned, archived, failed.get());
+        }
+        return archived;
+    }
+
+    /**
+     * 按数据大小把候选记录分组，每组的数据量不超过上限；超过上限的单条记录单独成组
+     */
+    private List<List<Long>> groupBySize(List<CookieData> candidates) {
+        long maxBatchBytes = maxBatchMb * 1024 * 1024;
+        List<List<Long>> groups = new ArrayList<>();
+        List<Long> group = new ArrayList<>();
+        long groupBytes = 0;
+        for (CookieData candidate : candidates) {
+            long size = candidate.getDataSize() == null ? 0 : candidate.getDataSize();
+            if (!group.isEmpty() && groupBytes + size > maxBatchBytes) {
+                groups.add(group);
+                group = new ArrayList<>();
+                groupBytes = 0;
+            }
+            group.add(candidate.getId());
+            groupBytes += size;
+        }
+        if (!group.isEmpty()) {
+            groups.add(group);
+        }
+        return groups;
+    }
+
+    /**
+     * 归档一组数据，返回成功替换为占位值的用户数
+     */
+    private int archiveBatch(List<CookieData> batch, AtomicLong failed) {
+        List<CookieData> payloads = new ArrayList<>(batch.size());
+        for (CookieData cookieData : batch) {
+            try {
+                cookieData.setEncryptedData(compress(cookieData));
+                cookieData.setDataSize((long) cookieData.getEncryptedData().length());
+                payloads.add(cookieData);
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                log.warn("冷数据归档失败 - 用户ID: {}, 错误: {}", cookieData.getUserId(), e.getMessage());
+            }
+        }
+        if (payloads.isEmpty()) {
+            return 0;
+        }
+
+        cookieArchiveMapper.upsertBatch(payloads);
+        int archived = 0;
+        List<String> skipped = new ArrayList<>();
+        for (CookieData cookieData : payloads) {
+            if (cookieDataMapper.markArchived(cookieData, ARCHIVE_MARKER) > 0) {
+                archived++;
+            } else {
+                skipped.add(cookieData.getUserId());
+            }
+        }
+        if (!skipped.isEmpty()) {
+            cookieArchiveMapper.deleteOrphans(skipped, ARCHIVE_MARKER);
+        }
+        return archived;
+    }
+
+    /**
+     * 解密校验，未压缩的数据压缩后以原数据密钥重新加密
+     */
+    private String compress(CookieData cookieData) {
+        byte[] decryptedData = encryptionUtil.decryptToBytes(cookieData.getDataKey(), cookieData.getEncryptedData());
+        if (CompressionUtil.isGzip(decryptedData)) {
+            return cookieData.getEncryptedData();
+        }
+        return encryptionUtil.encryptBytes(cookieData.getDataKey(), CompressionUtil.gzip(decryptedData));
+    }
+
+    @Override
+    public CookieData restore(CookieData stub) {
+        String userId = stub.getUserId();
+        String encryptedData = cookieArchiveMapper.findEncryptedData(userId);
+        if (encryptedData != null && cookieDataMapper.restoreArchived(userId, encryptedData, ARCHIVE_MARKER) > 0) {
+            cookieArchiveMapper.deleteByUserId(userId);
+            restored.incrementAndGet();
+            log.info("归档数据已恢复 - 用户ID: {}", userId);
+            stub.setEncryptedData(encryptedData);
+            stub.setUpdateTime(LocalDateTime.now());
+            return stub;
+        }
+
+        // 已被并发的请求恢复，或期间重新上传、删除
+        CookieData current = cookieDataMapper.findByUserId(userId);
+        if (current != null && ARCHIVE_MARKER.equals(current.getEncryptedData())) {
+            throw new IllegalStateException("归档数据缺失 - 用户ID: " + userId);
+        }
+        return current;
+    }
+
+    @Override
+    public void discard(String userId) {
+        cookieArchiveMapper.deleteByUserId(userId);
+    }
+
+    /**
+     * 游标在事务提交前保持打开，调用方在consumer中完成写出
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public int scanArchived(Consumer<CookieData> consumer) {
+        try (Cursor<CookieData> cursor = cookieArchiveMapper.scanArchived(ARCHIVE_MARKER)) {
+            int count = 0;
+            for (CookieData cookieData : cursor) {
+                consumer.accept(cookieData);
+                count++;
+            }
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException("关闭归档数据游标失败", e);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>(cookieArchiveMapper.getStats());
+        status.put("inactiveDays", inactiveDays);
+        status.put("running", running.get());
+        status.put("restored", restored.get());
+        status.put("lastRun", lastRun);
+        return status;
+    }
+}
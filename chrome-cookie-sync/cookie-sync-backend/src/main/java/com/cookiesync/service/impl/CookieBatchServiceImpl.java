@@ -0,0 +1,276 @@
+package com.cookiesync.service.impl;
+
+import com.cookiesync.cache.CachedCookieData;
+import com.cookiesync.cache.CookieDataCache;
+import com.cookiesync.datasource.DataSourceContextHolder;
+import com.cookiesync.entity.CookieBatchItem;
+import com.cookiesync.entity.CookieData;
+import com.cookiesync.service.CookieArchiveService;
+import com.cookiesync.service.CookieBatchService;
+import com.cookiesync.service.CookieEntryService;
+import com.cookiesync.storage.CookieStorage;
+import com.cookiesync.util.CompressionUtil;
+import com.cookiesync.util.EncryptionUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 多用户批量查询服务实现类
+ * <ul>
+ *     <li>用户ID按分段处理，每段先以一次MGET读取缓存，未命中的用户以一条 user_id IN (...) 查询读取，
+ *     只读副本缺失的用户再查询一次主库</li>
+ *     <li>存在性与统计查询只读取元数据列，不回填缓存（缓存条目需要完整数据），只为不存在的用户写入负缓存；
+ *     下载查询读取完整数据，以一次管道写入回填缓存；已归档的用户在解密时逐个恢复，不回填</li>
+ *     <li>每段处理完即写出，内存占用与分段大小相关，与请求的用户数无关</li>
+ * </ul>
+ * 分段大小同时限制了单次Redis调用的数据量，避免超过缓存熔断器的自适应超时
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Service
+public class CookieBatchServiceImpl implements CookieBatchService {
+
+    @Autowired
+    private CookieStorage cookieStorage;
+
+    @Autowired
+    private CookieDataCache cookieDataCache;
+
+    @Autowired
+    private EncryptionUtil encryptionUtil;
+
+    /**
+     * 未开启按条目存储时为空
+     */
+    @Autowired(required = false)
+    private CookieEntryService cookieEntryService;
+
+    /**
+     * 未开启冷热分层时为空
+     */
+    @Autowired(required = false)
+    private CookieArchiveService cookieArchiveService;
+
+    @Value("${cookie-sync.batch.max-users:10000}")
+    private int maxUsers;
+
+    @Value("${cookie-sync.batch.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${cookie-sync.batch.download-chunk-size:100}")
+    private int downloadChunkSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Override
+    public long lookup(List<String> userIds, boolean withStats, OutputStream out) throws IOException {
+        List<String> ids = normalize(userIds);
+        long startTime = System.currentTimeMillis();
+        ObjectWriter writer = objectMapper.writerFor(CookieBatchItem.class);
+        OutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+
+        long written = 0;
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<String> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            Map<String, CookieData> found = resolve(chunk, false);
+            for (String userId : chunk) {
+                CookieData cookieData = found.get(userId);
+                CookieBatchItem item = new CookieBatchItem(userId);
+                item.setExists(isLive(cookieData));
+                if (withStats && cookieData != null) {
+                    fillStats(item, cookieData);
+                }
+                buffered.write(writer.writeValueAsBytes(item));
+                buffered.write('\n');
+                written++;
+            }
+            buffered.flush();
+        }
+
+        log.info("批量查询完成 - 用户数: {}, 统计: {}, 耗时: {}ms", written, withStats, System.currentTimeMillis() - startTime);
+        return written;
+    }
+
+    @Override
+    public long download(List<String> userIds, OutputStream out) throws IOException {
+        List<String> ids = normalize(userIds);
+        long startTime = System.currentTimeMillis();
+        ObjectWriter writer = objectMapper.writerFor(CookieBatchItem.class);
+        OutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+
+        long written = 0;
+        for (int from = 0; from < ids.size(); from += downloadChunkSize) {
+            List<String> chunk = ids.subList(from, Math.min(from + downloadChunkSize, ids.size()));
+            Map<String, CookieData> found = resolve(chunk, true);
+            for (String userId : chunk) {
+                CookieData cookieData = found.get(userId);
+                CookieBatchItem item = new CookieBatchItem(userId);
+                item.setExists(isLive(cookieData));
+                if (item.getExists()) {
+                    fillStats(item, cookieData);
+                    try {
+                        item.setCookies(decrypt(cookieData));
+                    } catch (Exception e) {
+                        log.warn("批量下载解密失败 - 用户ID: {}, 错误: {}", userId, e.getMessage());
+                        item.setError("解密失败: " + e.getMessage());
+                    }
+                }
+                buffered.write(writer.writeValueAsBytes(item));
+                buffered.write('\n');
+                written++;
+            }
+            buffered.flush();
+        }
+
+        log.info("批量下载完成 - 用户数: {}, 耗时: {}ms", written, System.currentTimeMillis() - startTime);
+        return written;
+    }
+
+    /**
+     * 去除空白与重复的用户ID，保持请求顺序
+     */
+    private List<String> normalize(List<String> userIds) {
+        Set<String> unique = new LinkedHashSet<>();
+        if (userIds != null) {
+            for (String userId : userIds) {
+                if (StringUtils.hasText(userId)) {
+                    unique.add(userId);
+                }
+            }
+        }
+        if (unique.isEmpty()) {
+            throw new IllegalArgumentException("用户ID不能为空");
+        }
+        if (unique.size() > maxUsers) {
+            throw new IllegalArgumentException("用户数量超过上限: " + maxUsers);
+        }
+        return new ArrayList<>(unique);
+    }
+
+    /**
+     * 解析一段用户的数据：缓存命中的直接使用，其余批量查询数据库并回填缓存
+     *
+     * @param fullData 是否需要加密数据；否则只查询元数据
+     * @return 存在的用户数据，不存在的用户不在结果中
+     */
+    private Map<String, CookieData> resolve(List<String> userIds, boolean fullData) {
+        Map<String, CachedCookieData> cached = cookieDataCache.getAll(userIds);
+        Map<String, CookieData> found = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String userId : userIds) {
+            CachedCookieData entry = cached.get(userId);
+            if (entry == null) {
+                misses.add(userId);
+            } else if (!entry.isNegative()) {
+                found.put(userId, entry.getData());
+            }
+        }
+        if (misses.isEmpty()) {
+            return found;
+        }
+
+        Map<String, CookieData> loaded = new HashMap<>();
+        for (CookieData cookieData : query(misses, fullData)) {
+            loaded.put(cookieData.getUserId(), cookieData);
+        }
+        found.putAll(loaded);
+
+        // 按条目存储和已归档的记录只有标记，需要组装或恢复后才能缓存，交由单用户接口回填
+        Map<String, CookieData> backfill = new HashMap<>();
+        for (String userId : misses) {
+            CookieData cookieData = loaded.get(userId);
+            if (cookieData == null) {
+                backfill.put(userId, null);
+            } else if (fullData && !CookieEntryService.ENTRY_MARKER.equals(cookieData.getEncryptedData())
+                    && !CookieArchiveService.ARCHIVE_MARKER.equals(cookieData.getEncryptedData())) {
+                backfill.put(userId, cookieData);
+            }
+        }
+        cookieDataCache.putAll(backfill);
+        return found;
+    }
+
+    /**
+     * 先查询只读副本，副本中缺失的用户（可能是复制延迟）再查询主库
+     */
+    private List<CookieData> query(List<String> userIds, boolean fullData) {
+        List<CookieData> rows = new ArrayList<>(DataSourceContextHolder.onReplica(() -> find(userIds, fullData)));
+        if (rows.size() < userIds.size()) {
+            Set<String> seen = new HashSet<>();
+            for (CookieData cookieData : rows) {
+                seen.add(cookieData.getUserId());
+            }
+            List<String> missing = new ArrayList<>();
+            for (String userId : userIds) {
+                if (!seen.contains(userId)) {
+                    missing.add(userId);
+                }
+            }
+            rows.addAll(find(missing, fullData));
+        }
+        return rows;
+    }
+
+    private List<CookieData> find(List<String> userIds, boolean fullData) {
+        return fullData ? cookieStorage.findByUserIds(userIds) : cookieStorage.findMetadataByUserIds(userIds);
+    }
+
+    private String decrypt(CookieData cookieData) {
+        if (CookieEntryService.ENTRY_MARKER.equals(cookieData.getEncryptedData())) {
+            if (cookieEntryService == null) {
+                throw new IllegalStateException("数据按条目存储，需要开启 cookie-sync.entry-storage.enabled");
+            }
+            return cookieEntryService.assemble(cookieData.getUserId());
+        }
+        if (CookieArchiveService.ARCHIVE_MARKER.equals(cookieData.getEncryptedData())) {
+            if (cookieArchiveService == null) {
+                throw new IllegalStateException("数据已归档，需要开启 cookie-sync.archive.enabled");
+            }
+            CookieData restored = cookieArchiveService.restore(cookieData);
+            if (restored == null) {
+                throw new IllegalStateException("数据已被删除");
+            }
+            return decrypt(restored);
+        }
+        byte[] decryptedData = encryptionUtil.decryptToBytes(cookieData.getDataKey(), cookieData.getEncryptedData());
+        if (CompressionUtil.isGzip(decryptedData)) {
+            decryptedData = CompressionUtil.gunzip(decryptedData);
+        }
+        return new String(decryptedData, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isLive(CookieData cookieData) {
+        return cookieData != null && cookieData.getExpireTime() != null
+                && cookieData.getExpireTime().isAfter(LocalDateTime.now());
+    }
+
+    private static void fillStats(CookieBatchItem item, CookieData cookieData) {
+        item.setCookieCount(cookieData.getCookieCount());
+        item.setDataSize(cookieData.getDataSize());
+        item.setVersion(cookieData.getVersion());
+        item.setCreateTime(cookieData.getCreateTime());
+        item.setUpdateTime(cookieData.getUpdateTime());
+        item.setExpireTime(cookieData.getExpireTime());
+    }
+}
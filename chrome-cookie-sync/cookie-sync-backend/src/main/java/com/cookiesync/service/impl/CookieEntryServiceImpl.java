@@ -0,0 +1,277 @@
+package com.cookiesync.service.impl;
+
+import com.cookiesync.entity.CookieData;
+import com.cookiesync.entity.CookieEntry;
+import com.cookiesync.entity.EntryMergeResult;
+import com.cookiesync.entity.WrappedDataKey;
+import com.cookiesync.mapper.CookieDataMapper;
+import com.cookiesync.mapper.CookieEntryMapper;
+import com.cookiesync.service.CookieEntryService;
+import com.cookiesync.util.CompressionUtil;
+import com.cookiesync.util.EncryptionUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 按条目存储Cookie的服务实现类
+ * 合并时只读取已存储条目的键和摘要，与上传内容按集合比较：
+ * 摘要相同的条目不加密、不写入，变化和新增的条目以多行 INSERT ... ON DUPLICATE KEY UPDATE 写入，
+ * 消失的条目按键批量删除。少量Cookie变化只产生少量行写入。
+ * 
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "cookie-sync.entry-storage.enabled", havingValue = "true")
+public class CookieEntryServiceImpl implements CookieEntryService {
+
+    private static final int MAX_DOMAIN_LENGTH = 253;
+
+    private static final int MAX_PATH_LENGTH = 255;
+
+    private static final int MAX_NAME_LENGTH = 255;
+
+    @Autowired
+    private CookieEntryMapper cookieEntryMapper;
+
+    @Autowired
+    private CookieDataMapper cookieDataMapper;
+
+    @Autowired
+    private EncryptionUtil encryptionUtil;
+
+    @Value("${cookie-sync.entry-storage.batch-size:200}")
+    private int batchSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Override
+    public boolean accepts(JsonNode cookies) {
+        if (cookies == null || !cookies.isArray()) {
+            return false;
+        }
+        for (JsonNode cookie : cookies) {
+            String domain = cookie.path("domain").asText("");
+            String name = cookie.path("name").asText("");
+            if (domain.isEmpty() || domain.length() > MAX_DOMAIN_LENGTH
+                    || !StandardCharsets.US_ASCII.newEncoder().canEncode(domain)
+                    || name.length() > MAX_NAME_LENGTH
+                    || pathOf(cookie).length() > MAX_PATH_LENGTH) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public EntryMergeResult merge(String userId, JsonNode cookies) {
+        // 同一键出现多次时以最后一条为准
+        Map<String, CookieEntry> incoming = new LinkedHashMap<>();
+        Map<String, String> plainJson = new HashMap<>();
+        for (JsonNode cookie : cookies) {
+            CookieEntry entry = new CookieEntry();
+            entry.setUserId(userId);
+            entry.setDomain(cookie.path("domain").asText());
+            entry.setPath(pathOf(cookie));
+            entry.setName(cookie.path("name").asText(""));
+            entry.setExpireTime(expireTimeOf(cookie));
+
+            String json = toJson(cookie);
+            entry.setValueHash(encryptionUtil.keyedDigest(json));
+            incoming.put(entry.key(), entry);
+            plainJson.put(entry.key(), json);
+        }
+
+        Map<String, String> existing = new HashMap<>();
+        for (CookieEntry digest : cookieEntryMapper.findDigests(userId)) {
+            existing.put(digest.key(), digest.getValueHash());
+        }
+
+        // 集合比较：新增、变化、未变化
+        List<CookieEntry> changed = new ArrayList<>();
+        String dataKey = null;
+        int added = 0;
+        int updated = 0;
+        for (Map.Entry<String, CookieEntry> item : incoming.entrySet()) {
+            String storedHash = existing.remove(item.getKey());
+            CookieEntry entry = item.getValue();
+            if (entry.getValueHash().equals(storedHash)) {
+                continue;
+            }
+            if (storedHash == null) {
+                added++;
+            } else {
+                updated++;
+            }
+            if (dataKey == null) {
+                dataKey = encryptionUtil.generateDataKey();
+            }
+            entry.setDataKey(dataKey);
+            entry.setEncryptedValue(encryptionUtil.encryptBytes(dataKey, plainJson.get(item.getKey()).getBytes(StandardCharsets.UTF_8)));
+            changed.add(entry);
+        }
+
+        // 剩余的已存储条目本次未出现，需要删除
+        List<CookieEntry> removed = new ArrayList<>(existing.size());
+        for (String key : existing.keySet()) {
+            String[] parts = key.split("\n", 3);
+            CookieEntry entry = new CookieEntry();
+            entry.setDomain(parts[0]);
+            entry.setPath(parts[1]);
+            entry.setName(parts[2]);
+            removed.add(entry);
+        }
+
+        for (int from = 0; from < changed.size(); from += batchSize) {
+            cookieEntryMapper.upsertBatch(changed.subList(from, Math.min(from + batchSize, changed.size())));
+        }
+        for (int from = 0; from < removed.size(); from += batchSize) {
+            cookieEntryMapper.deleteByKeys(userId, removed.subList(from, Math.min(from + batchSize, removed.size())));
+        }
+
+        EntryMergeResult result = new EntryMergeResult(added, updated, removed.size(),
+                incoming.size() - added - updated);
+        log.debug("Cookie条目合并完成 - 用户ID: {}, 结果: {}", userId, result);
+        return result;
+    }
+
+    @Override
+    public String assemble(String userId) {
+        ArrayNode cookies = objectMapper.createArrayNode();
+        for (CookieEntry entry : cookieEntryMapper.findByUserId(userId)) {
+            cookies.add(decrypt(entry));
+        }
+        return cookies.toString();
+    }
+
+    @Override
+    public int scanAssembled(Consumer<CookieData> consumer) {
+        // 按主键分页读取，每页的条目查询不与流式游标共用连接
+        int count = 0;
+        long afterId = 0;
+        while (true) {
+            List<CookieData> page = cookieDataMapper.findEntryStored(ENTRY_MARKER, afterId, batchSize);
+            for (CookieData cookieData : page) {
+                byte[] compressedData = CompressionUtil.gzip(assemble(cookieData.getUserId()).getBytes(StandardCharsets.UTF_8));
+                cookieData.setEncryptedData(encryptionUtil.encryptBytes(cookieData.getDataKey(), compressedData));
+                consumer.accept(cookieData);
+                count++;
+            }
+            if (page.size() < batchSize) {
+                return count;
+            }
+            afterId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    @Override
+    public List<JsonNode> findEntries(String userId, String domain) {
+        List<CookieEntry> entries = StringUtils.hasText(domain)
+                ? cookieEntryMapper.findByDomains(userId, visibleDomains(domain))
+                : cookieEntryMapper.findByUserId(userId);
+
+        List<JsonNode> cookies = new ArrayList<>(entries.size());
+        for (CookieEntry entry : entries) {
+            cookies.add(decrypt(entry));
+        }
+        return cookies;
+    }
+
+    @Override
+    public int pruneExpired(String userId) {
+        return cookieEntryMapper.deleteExpired(userId);
+    }
+
+    @Override
+    public List<LocalDateTime> findExpireTimes(String userId) {
+        return cookieEntryMapper.findExpireTimes(userId);
+    }
+
+    @Override
+    public int deleteByUserId(String userId) {
+        return cookieEntryMapper.deleteByUserId(userId);
+    }
+
+    @Override
+    public List<WrappedDataKey> findStaleDataKeys(String masterKeyId, long afterId, int limit) {
+        return cookieEntryMapper.findStaleDataKeys(masterKeyId, afterId, limit);
+    }
+
+    @Override
+    public int updateDataKeys(List<WrappedDataKey> batch) {
+        return batch.isEmpty() ? 0 : cookieEntryMapper.updateDataKeys(batch);
+    }
+
+    /**
+     * 主机可见的Cookie域名：主机本身（仅主机Cookie）以及主机和各级上级域名的域Cookie
+     */
+    private static List<String> visibleDomains(String host) {
+        String normalized = host.trim().toLowerCase();
+        if (normalized.startsWith(".")) {
+            normalized = normalized.substring(1);
+        }
+        List<String> domains = new ArrayList<>();
+        domains.add(normalized);
+        String suffix = normalized;
+        while (true) {
+            domains.add("." + suffix);
+            int dot = suffix.indexOf('.');
+            if (dot < 0) {
+                break;
+            }
+            suffix = suffix.substring(dot + 1);
+        }
+        return domains;
+    }
+
+    private static String pathOf(JsonNode cookie) {
+        String path = cookie.path("path").asText("");
+        return path.isEmpty() ? "/" : path;
+    }
+
+    private static LocalDateTime expireTimeOf(JsonNode cookie) {
+        JsonNode expirationDate = cookie.get("expirationDate");
+        if (expirationDate == null || !expirationDate.isNumber()) {
+            return null;
+        }
+        long millis = (long) (expirationDate.asDouble() * 1000);
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    private JsonNode decrypt(CookieEntry entry) {
+        try {
+            byte[] json = encryptionUtil.decryptToBytes(entry.getDataKey(), entry.getEncryptedValue());
+            return objectMapper.readTree(new String(json, StandardCharsets.UTF_8));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cookie条目解析失败 - 用户ID: " + entry.getUserId() + ", 名称: " + entry.getName(), e);
+        }
+    }
+
+    private String toJson(JsonNode cookie) {
+        try {
+            return objectMapper.writeValueAsString(cookie);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cookie序列化失败", e);
+        }
+    }
+}
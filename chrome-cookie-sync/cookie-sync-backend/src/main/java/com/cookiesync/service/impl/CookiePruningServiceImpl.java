@@ -0,0 +1,266 @@
+package com.cookiesync.service.impl;
+
+import com.cookiesync.cache.CookieDataCache;
+import com.cookiesync.datasource.DataSourceContextHolder;
+import com.cookiesync.datasource.Workload;
+import com.cookiesync.entity.CookieData;
+import com.cookiesync.entity.PruneResult;
+import com.cookiesync.service.CookieEntryService;
+import com.cookiesync.service.CookiePruningService;
+import com.cookiesync.storage.CookieStorage;
+import com.cookiesync.util.CompressionUtil;
+import com.cookiesync.util.EncryptionUtil;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Cookie清理服务实现类
+ * <ul>
+ *     <li>上传时移除已过期的Cookie，可选移除会话Cookie和按域名/名称屏蔽的Cookie</li>
+ *     <li>上传时记录下次压缩时间（按配置比例的持久Cookie过期的时间点），无需解密即可找出需要压缩的数据</li>
+ *     <li>后台任务按下次压缩时间取出到期数据重写，版本号不变，期间有新上传时放弃写回</li>
+ * </ul>
+ * 
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Service
+public class CookiePruningServiceImpl implements CookiePruningService {
+
+    @Autowired
+    private CookieStorage cookieStorage;
+
+    @Autowired
+    private CookieDataCache cookieDataCache;
+
+    @Autowired
+    private EncryptionUtil encryptionUtil;
+
+    /**
+     * 未开启按条目存储时为空
+     */
+    @Autowired(required = false)
+    private CookieEntryService cookieEntryService;
+
+    @Value("${cookie-sync.pruning.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cookie-sync.pruning.drop-session-cookies:false}")
+    private boolean dropSessionCookies;
+
+    @Value("${cookie-sync.pruning.blocked-domains:}")
+    private String[] blockedDomains;
+
+    @Value("${cookie-sync.pruning.blocked-names:}")
+    private String[] blockedNames;
+
+    @Value("${cookie-sync.pruning.compaction-ratio:0.2}")
+    private double compactionRatio;
+
+    @Value("${cookie-sync.pruning.compaction-batch-size:100}")
+    private int compactionBatchSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private List<String> domainSuffixes;
+
+    private List<Pattern> namePatterns;
+
+    @PostConstruct
+    public void init() {
+        domainSuffixes = new ArrayList<>();
+        for (String domain : blockedDomains) {
+            String normalized = normalizeDomain(domain.trim().replaceFirst("^\\*", ""));
+            if (!normalized.isEmpty()) {
+                domainSuffixes.add(normalized);
+            }
+        }
+        namePatterns = new ArrayList<>();
+        for (String name : blockedNames) {
+            String glob = name.trim();
+            if (!glob.isEmpty()) {
+                namePatterns.add(Pattern.compile(Pattern.quote(glob).replace("*", "\\E.*\\Q")));
+            }
+        }
+    }
+
+    @Override
+    public PruneResult prune(JsonNode cookieData) {
+        if (!enabled || cookieData == null) {
+            return null;
+        }
+        JsonNode cookies = cookieData.isObject() ? cookieData.get("cookies") : cookieData;
+        if (cookies == null || !cookies.isArray()) {
+            return null;
+        }
+
+        double nowSeconds = System.currentTimeMillis() / 1000.0;
+        ArrayNode kept = objectMapper.createArrayNode();
+        List<LocalDateTime> expireTimes = new ArrayList<>();
+        int expired = 0;
+        int session = 0;
+        int blocked = 0;
+        for (JsonNode cookie : cookies) {
+            JsonNode expirationDate = cookie.get("expirationDate");
+            boolean isSession = cookie.path("session").asBoolean(false)
+                    || expirationDate == null || !expirationDate.isNumber();
+            if (!isSession && expirationDate.asDouble() <= nowSeconds) {
+                expired++;
+            } else if (isSession && dropSessionCookies) {
+                session++;
+            } else if (isBlocked(cookie)) {
+                blocked++;
+            } else {
+                kept.add(cookie);
+                if (!isSession) {
+                    expireTimes.add(toLocalDateTime(expirationDate.asDouble()));
+                }
+            }
+        }
+
+        JsonNode result = cookieData;
+        if (kept.size() < cookies.size()) {
+            if (cookieData.isObject()) {
+                ObjectNode copy = ((ObjectNode) cookieData).deepCopy();
+                copy.set("cookies", kept);
+                result = copy;
+            } else {
+                result = kept;
+            }
+        }
+
+        Collections.sort(expireTimes);
+        return new PruneResult(result, kept.size(), expired, session, blocked, nextPruneTime(expireTimes, kept.size()));
+    }
+
+    @Override
+    public LocalDateTime nextPruneTime(List<LocalDateTime> expireTimes, int cookieCount) {
+        if (cookieCount <= 0 || expireTimes.isEmpty()) {
+            return null;
+        }
+        int threshold = Math.max(1, (int) Math.ceil(cookieCount * compactionRatio));
+        return threshold > expireTimes.size() ? null : expireTimes.get(threshold - 1);
+    }
+
+    /**
+     * 定期压缩到期数据，使用管理连接池
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${cookie-sync.pruning.compaction-interval:60000}")
+    public int compact() {
+        if (!enabled) {
+            return 0;
+        }
+        return DataSourceContextHolder.onWorkload(Workload.ADMIN, () -> {
+            int compacted = 0;
+            for (CookieData cookieData : cookieStorage.findPruneCandidates(compactionBatchSize)) {
+                try {
+                    if (compact(cookieData)) {
+                        compacted++;
+                    }
+                } catch (Exception e) {
+                    log.warn("Cookie数据压缩失败 - 用户ID: {}, 错误: {}", cookieData.getUserId(), e.getMessage());
+                }
+            }
+            if (compacted > 0) {
+                log.info("Cookie数据压缩完成 - 重写用户数: {}", compacted);
+            }
+            return compacted;
+        });
+    }
+
+    /**
+     * 重写单个用户的数据，返回是否有Cookie被移除
+     */
+    private boolean compact(CookieData cookieData) throws Exception {
+        String userId = cookieData.getUserId();
+        int removed;
+        if (CookieEntryService.ENTRY_MARKER.equals(cookieData.getEncryptedData())) {
+            if (cookieEntryService == null) {
+                return false;
+            }
+            // 按条目存储只删除过期条目，不影响并发上传写入的条目
+            removed = cookieEntryService.pruneExpired(userId);
+            int cookieCount = Math.max(0, cookieData.getCookieCount() - removed);
+            cookieData.setCookieCount(cookieCount);
+            cookieData.setPruneTime(nextPruneTime(cookieEntryService.findExpireTimes(userId), cookieCount));
+            if (removed > 0) {
+                byte[] compressedData = CompressionUtil.gzip(cookieEntryService.assemble(userId).getBytes(StandardCharsets.UTF_8));
+                cookieData.setEventData(encryptionUtil.encryptBytes(cookieData.getDataKey(), compressedData));
+            }
+        } else {
+            byte[] plainData = encryptionUtil.decryptToBytes(cookieData.getDataKey(), cookieData.getEncryptedData());
+            if (CompressionUtil.isGzip(plainData)) {
+                plainData = CompressionUtil.gunzip(plainData);
+            }
+            PruneResult result = prune(objectMapper.readTree(plainData));
+            removed = result == null ? 0 : result.getRemoved();
+            if (removed > 0) {
+                byte[] compressedData = CompressionUtil.gzip(result.getCookies().toString().getBytes(StandardCharsets.UTF_8));
+                String encryptedData = encryptionUtil.encryptBytes(cookieData.getDataKey(), compressedData);
+                cookieData.setEncryptedData(encryptedData);
+                cookieData.setDataSize((long) encryptedData.length());
+                cookieData.setCookieCount(result.getKept());
+            }
+            cookieData.setPruneTime(result == null ? null : result.getPruneTime());
+        }
+
+        if (cookieStorage.updatePrunedData(cookieData) == 0) {
+            log.debug("压缩期间数据已更新，放弃写回 - 用户ID: {}", userId);
+            return false;
+        }
+        if (removed > 0) {
+            cookieDataCache.evict(userId);
+        }
+        log.debug("Cookie数据压缩 - 用户ID: {}, 移除: {}, 下次压缩时间: {}", userId, removed, cookieData.getPruneTime());
+        return removed > 0;
+    }
+
+    private boolean isBlocked(JsonNode cookie) {
+        if (!domainSuffixes.isEmpty()) {
+            String domain = normalizeDomain(cookie.path("domain").asText(""));
+            for (String suffix : domainSuffixes) {
+                if (domain.equals(suffix) || domain.endsWith("." + suffix)) {
+                    return true;
+                }
+            }
+        }
+        if (!namePatterns.isEmpty()) {
+            String name = cookie.path("name").asText("");
+            for (Pattern pattern : namePatterns) {
+                if (pattern.matcher(name).matches()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String normalizeDomain(String domain) {
+        String normalized = domain.toLowerCase(Locale.ROOT);
+        return normalized.startsWith(".") ? normalized.substring(1) : normalized;
+    }
+
+    private static LocalDateTime toLocalDateTime(double epochSeconds) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli((long) (epochSeconds * 1000)), ZoneId.systemDefault());
+    }
+}
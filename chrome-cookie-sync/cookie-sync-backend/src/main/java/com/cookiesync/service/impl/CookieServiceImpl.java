@@ -1,24 +1,49 @@
 package com.cookiesync.service.impl;
 
+import com.cookiesync.cache.CachedCookieData;
+import com.cookiesync.cache.CookieDataCache;
+import com.cookiesync.bulkhead.BoundedExecutor;
+import com.cookiesync.datasource.DataSourceContextHolder;
+import com.cookiesync.datasource.Workload;
 import com.cookiesync.entity.ApiResponse;
 import com.cookiesync.entity.CookieData;
-import com.cookiesync.mapper.CookieDataMapper;
+import com.cookiesync.entity.CookiePayload;
+import com.cookiesync.entity.CookieSnapshot;
+import com.cookiesync.entity.EntryMergeResult;
+import com.cookiesync.entity.PruneResult;
+import com.cookiesync.jfr.SyncFlightRecorder;
+import com.cookiesync.jfr.SyncStage;
+import com.cookiesync.jfr.SyncTrace;
 import com.cookiesync.mapper.SyncLogMapper;
+import com.cookiesync.service.CookieArchiveService;
+import com.cookiesync.service.CookieEntryService;
+import com.cookiesync.service.CookiePruningService;
 import com.cookiesync.service.CookieService;
+import com.cookiesync.service.CookieSnapshotService;
+import com.cookiesync.service.UploadQuotaService;
+import com.cookiesync.storage.CookieStorage;
+import com.cookiesync.util.CompressionUtil;
 import com.cookiesync.util.EncryptionUtil;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Cookie数据服务实现类
@@ -31,35 +56,109 @@ import java.util.concurrent.TimeUnit;
 public class CookieServiceImpl implements CookieService {
 
     @Autowired
-    private CookieDataMapper cookieDataMapper;
+    private CookieStorage cookieStorage;
     
     @Autowired
     private SyncLogMapper syncLogMapper;
     
     @Autowired
-    private RedisTemplate<String, Object> redisTemplate;
+    private CookieDataCache cookieDataCache;
     
     @Autowired
     private EncryptionUtil encryptionUtil;
     
+    @Autowired
+    private BoundedExecutor syncLogExecutor;
+    
+    @Autowired
+    private CookiePruningService cookiePruningService;
+    
+    @Autowired
+    private UploadQuotaService uploadQuotaService;
+    
+    @Autowired
+    private SyncFlightRecorder syncFlightRecorder;
+    
+    /**
+     * 未开启按条目存储时为空
+     */
+    @Autowired(required = false)
+    private CookieEntryService cookieEntryService;
+    
+    /**
+     * 未开启版本快照时为空
+     */
+    @Autowired(required = false)
+    private CookieSnapshotService cookieSnapshotService;
+    
+    /**
+     * 未开启冷热分层时为空
+     */
+    @Autowired(required = false)
+    private CookieArchiveService cookieArchiveService;
+    
     private final ObjectMapper objectMapper = new ObjectMapper();
     
-    private static final String REDIS_KEY_PREFIX = "cookie:";
-    private static final int CACHE_EXPIRE_HOURS = 24;
+    @Value("${cookie-sync.sync-log.enabled:true}")
+    private boolean syncLogEnabled;
 
     @Override
     @Transactional
     public ApiResponse<String> uploadCookieData(String userId, String cookieDataJson, String userAgent, String clientIp) {
+        if (!StringUtils.hasText(cookieDataJson)) {
+            return ApiResponse.error("参数不能为空");
+        }
+        return upload(userId, cookieDataJson, null, userAgent, clientIp);
+    }
+
+    @Override
+    @Transactional
+    public ApiResponse<String> uploadCookieNode(String userId, JsonNode cookieNode, String userAgent, String clientIp) {
+        if (cookieNode == null || cookieNode.isMissingNode() || cookieNode.isNull()) {
+            return ApiResponse.error("参数不能为空");
+        }
+        return upload(userId, null, cookieNode, userAgent, clientIp);
+    }
+
+    /**
+     * 上传公共流程，JSON文本和已解析的节点二选一传入
+     */
+    private ApiResponse<String> upload(String userId, String cookieDataJson, JsonNode parsedNode,
+                                       String userAgent, String clientIp) {
         long startTime = System.currentTimeMillis();
+        SyncTrace trace = syncFlightRecorder.begin("UPLOAD", userId);
+        // 追踪在 finally 中结束，参数校验、配额等提前返回同样记录为失败
+        boolean success = false;
+        long tracedBytes = 0L;
+        int tracedCookies = 0;
         
         try {
             // 参数验证
-            if (!StringUtils.hasText(userId) || !StringUtils.hasText(cookieDataJson)) {
+            if (!StringUtils.hasText(userId)) {
                 return ApiResponse.error("参数不能为空");
             }
             
+            // 检查最近24小时的上传配额，超出时不做解析和加密
+            if (uploadQuotaService.isExceeded(userId)) {
+                log.warn("上传配额已用完 - 用户ID: {}, 已使用: {} bytes", userId, uploadQuotaService.getUsage(userId));
+                return ApiResponse.error(429, "上传量超过每日配额，请稍后重试");
+            }
+            
             // 解析Cookie数据
-            JsonNode cookieNode = objectMapper.readTree(cookieDataJson);
+            SyncTrace.Span span = trace.stage(SyncStage.PARSE);
+            JsonNode cookieNode = parsedNode != null ? parsedNode : objectMapper.readTree(cookieDataJson);
+            if (cookieDataJson == null) {
+                cookieDataJson = cookieNode.toString();
+            }
+            
+            // 移除已过期及命中屏蔽规则的Cookie
+            PruneResult pruneResult = cookiePruningService.prune(cookieNode);
+            if (pruneResult != null && pruneResult.getRemoved() > 0) {
+                cookieNode = pruneResult.getCookies();
+                cookieDataJson = cookieNode.toString();
+                log.info("Cookie清理 - 用户ID: {}, 过期: {}, 会话: {}, 屏蔽: {}, 保留: {}", userId,
+                        pruneResult.getExpired(), pruneResult.getSession(), pruneResult.getBlocked(), pruneResult.getKept());
+            }
             int cookieCount = 0;
             if (cookieNode.isArray()) {
                 cookieCount = cookieNode.size();
@@ -70,42 +169,84 @@ public class CookieServiceImpl implements CookieService {
                 // 如果是测试数据或其他格式，设置默认值
                 cookieCount = 1;
             }
+            span.end(cookieDataJson.length());
+            
+            // 按条目存储时只写入新增、变化和删除的条目
+            boolean entryMode = cookieEntryService != null && cookieEntryService.accepts(cookieNode);
+            if (entryMode) {
+                span = trace.stage(SyncStage.DB);
+                EntryMergeResult mergeResult = cookieEntryService.merge(userId, cookieNode);
+                span.end(cookieDataJson.length());
+                cookieCount = mergeResult.getTotal();
+                log.info("Cookie条目合并 - 用户ID: {}, 新增: {}, 变化: {}, 删除: {}, 未变化: {}", userId,
+                        mergeResult.getAdded(), mergeResult.getUpdated(), mergeResult.getRemoved(), mergeResult.getUnchanged());
+            }
             
-            // 加密Cookie数据
-            String encryptedData = encryptionUtil.encrypt(cookieDataJson);
+            // 压缩后以新生成的数据密钥加密Cookie数据，下载时可直接以GZIP形式返回；按条目存储时只用于回填缓存和变更事件
+            span = trace.stage(SyncStage.CRYPTO);
+            byte[] compressedData = CompressionUtil.gzip(cookieDataJson.getBytes(StandardCharsets.UTF_8));
+            String dataKey = encryptionUtil.generateDataKey();
+            String encryptedData = encryptionUtil.encryptBytes(dataKey, compressedData);
+            span.end(encryptedData.length());
             
             // 创建或更新Cookie数据记录
-            CookieData existingData = cookieDataMapper.findByUserId(userId);
+            span = trace.stage(SyncStage.DB);
+            CookieData existingData = cookieStorage.findByUserId(userId);
             CookieData cookieData = new CookieData();
             cookieData.setUserId(userId);
-            cookieData.setEncryptedData(encryptedData);
+            cookieData.setEncryptedData(entryMode ? CookieEntryService.ENTRY_MARKER : encryptedData);
+            cookieData.setEventData(entryMode ? encryptedData : null);
+            cookieData.setDataKey(dataKey);
             cookieData.setDataSize((long) encryptedData.length());
             cookieData.setCookieCount(cookieCount);
             cookieData.setUserAgent(userAgent);
             cookieData.setClientIp(clientIp);
             cookieData.setExpireTime(LocalDateTime.now().plusDays(30));
+            cookieData.setPruneTime(pruneResult == null ? null : pruneResult.getPruneTime());
             
             if (existingData != null) {
                 cookieData.setId(existingData.getId());
                 cookieData.setVersion(existingData.getVersion() + 1);
                 cookieData.setUpdateTime(LocalDateTime.now());
-                cookieDataMapper.updateByUserId(cookieData);
+                int updated = cookieStorage.updateByUserId(cookieData);
+                // 占位记录已被覆盖后归档数据才不再需要；删除失败只留下多余归档，下次归档时覆盖
+                if (updated > 0 && cookieArchiveService != null
+                        && CookieArchiveService.ARCHIVE_MARKER.equals(existingData.getEncryptedData())) {
+                    discardArchive(userId);
+                }
             } else {
                 cookieData.setVersion(1);  // 设置初始版本号
                 cookieData.setCreateTime(LocalDateTime.now());
                 cookieData.setUpdateTime(LocalDateTime.now());
                 cookieData.setStatus(0);   // 设置状态为正常
-                cookieDataMapper.insert(cookieData);
+                cookieStorage.insert(cookieData);
+            }
+            span.end(cookieData.getDataSize());
+            
+            uploadQuotaService.record(userId, cookieData.getDataSize());
+            
+            // 提交后在独立事务中保存版本快照：快照失败不影响本次上传，也不在持有 cookie_data 行锁时分块加密
+            if (cookieSnapshotService != null) {
+                int version = cookieData.getVersion();
+                String snapshotJson = cookieDataJson;
+                int snapshotCount = cookieCount;
+                afterCommit(() -> saveSnapshot(userId, version, snapshotJson, snapshotCount));
             }
             
             // 更新Redis缓存
-            String redisKey = REDIS_KEY_PREFIX + userId;
-            redisTemplate.opsForValue().set(redisKey, cookieData, CACHE_EXPIRE_HOURS, TimeUnit.HOURS);
+            span = trace.stage(SyncStage.CACHE);
+            cookieData.setEncryptedData(encryptedData);
+            cookieDataCache.put(userId, cookieData);
+            span.end(cookieData.getDataSize());
             
             // 记录同步日志
             long duration = System.currentTimeMillis() - startTime;
-            syncLogMapper.insertLog(userId, "UPLOAD", cookieData.getDataSize(), Integer.valueOf(cookieCount), 
-                                  clientIp, userAgent, Boolean.TRUE, null, Integer.valueOf((int) duration), LocalDateTime.now());
+            recordSyncLog(userId, "UPLOAD", cookieData.getDataSize(), Integer.valueOf(cookieCount), 
+                        clientIp, userAgent, Boolean.TRUE, null, Integer.valueOf((int) duration), LocalDateTime.now(), trace);
+            trace.attribute("cookie.version", cookieData.getVersion());
+            success = true;
+            tracedBytes = cookieData.getDataSize();
+            tracedCookies = cookieCount;
             
             log.info("Cookie数据上传成功 - 用户ID: {}, Cookie数量: {}, 数据大小: {} bytes", 
                     userId, cookieCount, cookieData.getDataSize());
@@ -113,18 +254,26 @@ public class CookieServiceImpl implements CookieService {
             return ApiResponse.success("Cookie数据上传成功");
             
         } catch (Exception e) {
+            rollbackOnly();
             long duration = System.currentTimeMillis() - startTime;
-            syncLogMapper.insertLog(userId, "UPLOAD", 0L, Integer.valueOf(0), clientIp, userAgent, 
-                                  Boolean.FALSE, e.getMessage(), Integer.valueOf((int) duration), LocalDateTime.now());
+            recordSyncLog(userId, "UPLOAD", 0L, Integer.valueOf(0), clientIp, userAgent, 
+                        Boolean.FALSE, e.getMessage(), Integer.valueOf((int) duration), LocalDateTime.now(), trace);
             
             log.error("Cookie数据上传失败 - 用户ID: {}, 错误: {}", userId, e.getMessage(), e);
             return ApiResponse.error("Cookie数据上传失败: " + e.getMessage());
+        } finally {
+            trace.finish(success, tracedBytes, tracedCookies);
         }
     }
 
     @Override
-    public ApiResponse<CookieData> downloadCookieData(String userId, String clientIp, String userAgent) {
+    public ApiResponse<CookieData> downloadCookieData(String userId, Integer knownVersion, String clientIp, String userAgent) {
         long startTime = System.currentTimeMillis();
+        SyncTrace trace = syncFlightRecorder.begin("DOWNLOAD", userId);
+        // 追踪在 finally 中结束，未找到、已过期等提前返回同样记录为失败
+        boolean success = false;
+        long tracedBytes = 0L;
+        int tracedCookies = 0;
         
         try {
             // 参数验证
@@ -132,24 +281,11 @@ public class CookieServiceImpl implements CookieService {
                 return ApiResponse.error("用户ID不能为空");
             }
             
-            // 先从Redis缓存获取
-            String redisKey = REDIS_KEY_PREFIX + userId;
-            CookieData cachedData = (CookieData) redisTemplate.opsForValue().get(redisKey);
-            
-            CookieData cookieData;
-            if (cachedData != null) {
-                cookieData = cachedData;
-                log.debug("从Redis缓存获取Cookie数据 - 用户ID: {}", userId);
-            } else {
-                // 从数据库获取
-                cookieData = cookieDataMapper.findByUserId(userId);
-                if (cookieData == null) {
-                    return ApiResponse.error("未找到Cookie数据");
-                }
-                
-                // 更新Redis缓存
-                redisTemplate.opsForValue().set(redisKey, cookieData, CACHE_EXPIRE_HOURS, TimeUnit.HOURS);
-                log.debug("从数据库获取Cookie数据并缓存 - 用户ID: {}", userId);
+            SyncTrace.Span span = trace.stage(SyncStage.CACHE);
+            CookieData cookieData = loadCookieData(userId, knownVersion, trace);
+            span.end(cookieData == null ? 0L : cookieData.getDataSize());
+            if (cookieData == null) {
+                return ApiResponse.error("未找到Cookie数据");
             }
             
             // 检查数据是否过期
@@ -158,14 +294,24 @@ public class CookieServiceImpl implements CookieService {
             }
             
             // 解密Cookie数据
-            String decryptedData = encryptionUtil.decrypt(cookieData.getEncryptedData());
-            cookieData.setEncryptedData(decryptedData);
+            span = trace.stage(SyncStage.CRYPTO);
+            byte[] decryptedData = encryptionUtil.decryptToBytes(cookieData.getDataKey(), cookieData.getEncryptedData());
+            if (CompressionUtil.isGzip(decryptedData)) {
+                decryptedData = CompressionUtil.gunzip(decryptedData);
+            }
+            span.end(decryptedData.length);
+            cookieData.setEncryptedData(new String(decryptedData, StandardCharsets.UTF_8));
+            cookieData.setDataKey(null);
             
             // 记录同步日志
             long duration = System.currentTimeMillis() - startTime;
-            syncLogMapper.insertLog(userId, "DOWNLOAD", cookieData.getDataSize(), 
-                                  cookieData.getCookieCount(), clientIp, userAgent, 
-                                  Boolean.TRUE, null, Integer.valueOf((int) duration), LocalDateTime.now());
+            recordSyncLog(userId, "DOWNLOAD", cookieData.getDataSize(), 
+                        cookieData.getCookieCount(), clientIp, userAgent, 
+                        Boolean.TRUE, null, Integer.valueOf((int) duration), LocalDateTime.now(), trace);
+            trace.attribute("cookie.version", cookieData.getVersion());
+            success = true;
+            tracedBytes = cookieData.getDataSize();
+            tracedCookies = cookieData.getCookieCount() == null ? 0 : cookieData.getCookieCount();
             
             log.info("Cookie数据下载成功 - 用户ID: {}, Cookie数量: {}", userId, cookieData.getCookieCount());
             
@@ -173,11 +319,258 @@ public class CookieServiceImpl implements CookieService {
             
         } catch (Exception e) {
             long duration = System.currentTimeMillis() - startTime;
-            syncLogMapper.insertLog(userId, "DOWNLOAD", 0L, Integer.valueOf(0), clientIp, userAgent, 
-                                  Boolean.FALSE, e.getMessage(), Integer.valueOf((int) duration), LocalDateTime.now());
+            recordSyncLog(userId, "DOWNLOAD", 0L, Integer.valueOf(0), clientIp, userAgent, 
+                        Boolean.FALSE, e.getMessage(), Integer.valueOf((int) duration), LocalDateTime.now(), trace);
             
             log.error("Cookie数据下载失败 - 用户ID: {}, 错误: {}", userId, e.getMessage(), e);
             return ApiResponse.error("Cookie数据下载失败: " + e.getMessage());
+        } finally {
+            trace.finish(success, tracedBytes, tracedCookies);
+        }
+    }
+
+    @Override
+    public ApiResponse<CookiePayload> downloadCookiePayload(String userId, Integer knownVersion, String clientIp, String userAgent) {
+        long startTime = System.currentTimeMillis();
+        SyncTrace trace = syncFlightRecorder.begin("DOWNLOAD", userId);
+        // 负载交给控制器写出后由写出回调结束追踪，其余情况（含提前返回）在 finally 中记录为失败
+        boolean handedOff = false;
+        
+        try {
+            // 参数验证
+            if (!StringUtils.hasText(userId)) {
+                return ApiResponse.badRequest("用户ID不能为空");
+            }
+            
+            SyncTrace.Span span = trace.stage(SyncStage.CACHE);
+            CookieData cookieData = loadCookieData(userId, knownVersion, trace, true);
+            span.end(cookieData == null ? 0L : cookieData.getDataSize());
+            if (cookieData == null) {
+                return ApiResponse.notFound("未找到Cookie数据");
+            }
+            
+            // 检查数据是否过期
+            if (cookieData.getExpireTime().isBefore(LocalDateTime.now())) {
+                return ApiResponse.notFound("Cookie数据已过期");
+            }
+            
+            // 流式解密，保持压缩形态，由控制器直接写出；堆外缓存命中时直接解密读出的字节
+            span = trace.stage(SyncStage.CRYPTO);
+            InputStream content = new BufferedInputStream(cookieData.getEncryptedBytes() != null
+                    ? encryptionUtil.openDecryptStream(cookieData.getDataKey(), cookieData.getEncryptedBytes())
+                    : encryptionUtil.openDecryptStream(cookieData.getDataKey(), cookieData.getEncryptedData()));
+            cookieData.setEncryptedData(null);
+            cookieData.setEncryptedBytes(null);
+            cookieData.setDataKey(null);
+            
+            // 读取魔数判断负载是否压缩
+            content.mark(2);
+            boolean gzipped = CompressionUtil.isGzip(content.readNBytes(2));
+            content.reset();
+            span.end(cookieData.getDataSize());
+            
+            // 负载写出完成后才记录同步日志，客户端断开或写出失败记为失败
+            CookieData metadata = cookieData;
+            ApiResponse<CookiePayload> response = ApiResponse.success(new CookiePayload(cookieData, content, gzipped,
+                    error -> completePayloadDownload(metadata, startTime, clientIp, userAgent, trace, error)));
+            handedOff = true;
+            return response;
+            
+        } catch (Exception e) {
+            long duration = System.currentTimeMillis() - startTime;
+            recordSyncLog(userId, "DOWNLOAD", 0L, Integer.valueOf(0), clientIp, userAgent, 
+                        Boolean.FALSE, e.getMessage(), Integer.valueOf((int) duration), LocalDateTime.now(), trace);
+            
+            log.error("Cookie原始数据下载失败 - 用户ID: {}, 错误: {}", userId, e.getMessage(), e);
+            return ApiResponse.error("Cookie数据下载失败: " + e.getMessage());
+        } finally {
+            if (!handedOff) {
+                trace.finish(false, 0L, 0);
+            }
+        }
+    }
+
+    /**
+     * 加载Cookie数据，优先读取Redis缓存，未命中时查询数据库并回填缓存
+     * 缓存数据落后于客户端已知版本，或客户端已知版本但缓存为不存在时，绕过缓存重新加载
+     */
+    private CookieData loadCookieData(String userId, Integer knownVersion, SyncTrace trace) {
+        return loadCookieData(userId, knownVersion, trace, false);
+    }
+
+    /**
+     * @param asBytes 堆外缓存命中时加密数据以Base64字节返回，用于流式下载
+     */
+    private CookieData loadCookieData(String userId, Integer knownVersion, SyncTrace trace, boolean asBytes) {
+        Supplier<CookieData> loader = () -> findCookieData(userId, knownVersion, trace);
+        CookieData cookieData = asBytes ? cookieDataCache.getAsBytes(userId, loader) : cookieDataCache.get(userId, loader);
+        if ((cookieData == null && knownVersion != null) || (cookieData != null && isStale(cookieData, knownVersion))) {
+            cookieData = cookieDataCache.refresh(userId, loader);
+        }
+        return cookieData;
+    }
+
+    /**
+     * 查询只读副本，副本数据缺失或版本落后于客户端已知版本时（复制延迟），改为查询主库
+     * 读到已归档的占位记录时在主库恢复
+     */
+    private CookieData findCookieData(String userId, Integer knownVersion, SyncTrace trace) {
+        SyncTrace.Span span = trace.stage(SyncStage.DB);
+        CookieData cookieData = DataSourceContextHolder.onReplica(() -> readCookieData(userId));
+        if (cookieData == null || isStale(cookieData, knownVersion)) {
+            log.debug("只读副本数据缺失或落后，改为查询主库 - 用户ID: {}, 已知版本: {}", userId, knownVersion);
+            cookieData = readCookieData(userId);
+        }
+        if (cookieData != null && CookieArchiveService.ARCHIVE_MARKER.equals(cookieData.getEncryptedData())) {
+            if (cookieArchiveService == null) {
+                throw new IllegalStateException("数据已归档，需要开启 cookie-sync.archive.enabled");
+            }
+            cookieData = cookieArchiveService.restore(cookieData);
+        }
+        span.end(cookieData == null ? 0L : cookieData.getDataSize());
+        return cookieData;
+    }
+
+    /**
+     * 读取Cookie数据，按条目存储的数据由条目组装为与整体存储相同的加密压缩格式
+     */
+    private CookieData readCookieData(String userId) {
+        CookieData cookieData = cookieStorage.findByUserId(userId);
+        if (cookieData == null || !CookieEntryService.ENTRY_MARKER.equals(cookieData.getEncryptedData())) {
+            return cookieData;
+        }
+        if (cookieEntryService == null) {
+            throw new IllegalStateException("数据按条目存储，需要开启 cookie-sync.entry-storage.enabled");
+        }
+        String cookieDataJson = cookieEntryService.assemble(userId);
+        byte[] compressedData = CompressionUtil.gzip(cookieDataJson.getBytes(StandardCharsets.UTF_8));
+        cookieData.setEncryptedData(encryptionUtil.encryptBytes(cookieData.getDataKey(), compressedData));
+        return cookieData;
+    }
+
+    /**
+     * 原始负载写出结束后记录同步日志与追踪结果
+     */
+    private void completePayloadDownload(CookieData cookieData, long startTime, String clientIp, String userAgent,
+                                         SyncTrace trace, Exception error) {
+        String userId = cookieData.getUserId();
+        long duration = System.currentTimeMillis() - startTime;
+        if (error == null) {
+            recordSyncLog(userId, "DOWNLOAD", cookieData.getDataSize(), 
+                        cookieData.getCookieCount(), clientIp, userAgent, 
+                        Boolean.TRUE, null, Integer.valueOf((int) duration), LocalDateTime.now(), trace);
+            trace.attribute("cookie.version", cookieData.getVersion());
+            trace.finish(true, cookieData.getDataSize(), cookieData.getCookieCount() == null ? 0 : cookieData.getCookieCount());
+            log.info("Cookie原始数据下载成功 - 用户ID: {}, Cookie数量: {}", userId, cookieData.getCookieCount());
+        } else {
+            recordSyncLog(userId, "DOWNLOAD", 0L, Integer.valueOf(0), clientIp, userAgent, 
+                        Boolean.FALSE, "负载写出失败: " + error.getMessage(), Integer.valueOf((int) duration), LocalDateTime.now(), trace);
+            trace.finish(false, 0L, 0);
+            log.warn("Cookie原始数据写出失败 - 用户ID: {}, 错误: {}", userId, error.getMessage());
+        }
+    }
+
+    @Override
+    public ApiResponse<List<JsonNode>> getCookieEntries(String userId, String domain) {
+        try {
+            if (!StringUtils.hasText(userId)) {
+                return ApiResponse.badRequest("用户ID不能为空");
+            }
+            if (cookieEntryService == null) {
+                return ApiResponse.error(501, "未开启按条目存储");
+            }
+            
+            List<JsonNode> cookies = DataSourceContextHolder.onReplica(() -> cookieEntryService.findEntries(userId, domain));
+            return ApiResponse.success(cookies);
+            
+        } catch (Exception e) {
+            log.error("查询Cookie条目失败 - 用户ID: {}, 域名: {}, 错误: {}", userId, domain, e.getMessage(), e);
+            return ApiResponse.error("查询失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public ApiResponse<List<CookieSnapshot>> getCookieVersions(String userId) {
+        try {
+            if (!StringUtils.hasText(userId)) {
+                return ApiResponse.badRequest("用户ID不能为空");
+            }
+            if (cookieSnapshotService == null) {
+                return ApiResponse.error(501, "未开启版本快照");
+            }
+            
+            List<CookieSnapshot> versions = DataSourceContextHolder.onReplica(() -> cookieSnapshotService.listVersions(userId));
+            return ApiResponse.success(versions);
+            
+        } catch (Exception e) {
+            log.error("查询Cookie历史版本失败 - 用户ID: {}, 错误: {}", userId, e.getMessage(), e);
+            return ApiResponse.error("查询失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public ApiResponse<CookieData> getCookieVersion(String userId, Integer version) {
+        try {
+            if (!StringUtils.hasText(userId) || version == null) {
+                return ApiResponse.badRequest("用户ID和版本号不能为空");
+            }
+            if (cookieSnapshotService == null) {
+                return ApiResponse.error(501, "未开启版本快照");
+            }
+            
+            CookieData cookieData = DataSourceContextHolder.onReplica(() -> {
+                CookieSnapshot snapshot = cookieSnapshotService.findVersion(userId, version);
+                if (snapshot == null) {
+                    return null;
+                }
+                CookieData data = new CookieData();
+                data.setUserId(userId);
+                data.setVersion(snapshot.getVersion());
+                data.setDataSize(snapshot.getDataSize());
+                data.setCookieCount(snapshot.getCookieCount());
+                data.setCreateTime(snapshot.getCreateTime());
+                data.setEncryptedData(cookieSnapshotService.readContent(snapshot));
+                return data;
+            });
+            if (cookieData == null) {
+                return ApiResponse.notFound("未找到该版本的快照");
+            }
+            return ApiResponse.success(cookieData);
+            
+        } catch (Exception e) {
+            log.error("读取Cookie历史版本失败 - 用户ID: {}, 版本: {}, 错误: {}", userId, version, e.getMessage(), e);
+            return ApiResponse.error("读取失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    @Transactional
+    public ApiResponse<String> restoreCookieVersion(String userId, Integer version, String userAgent, String clientIp) {
+        try {
+            if (!StringUtils.hasText(userId) || version == null) {
+                return ApiResponse.badRequest("用户ID和版本号不能为空");
+            }
+            if (cookieSnapshotService == null) {
+                return ApiResponse.error(501, "未开启版本快照");
+            }
+            
+            // 从主库读取，刚上传的版本也能立即恢复
+            CookieSnapshot snapshot = cookieSnapshotService.findVersion(userId, version);
+            if (snapshot == null) {
+                return ApiResponse.notFound("未找到该版本的快照");
+            }
+            
+            // 按普通上传写入，经过同样的清理、配额和缓存流程，并生成新的快照
+            ApiResponse<String> result = upload(userId, cookieSnapshotService.readContent(snapshot), null, userAgent, clientIp);
+            if (result.getCode() != 200) {
+                return result;
+            }
+            log.info("Cookie数据已恢复 - 用户ID: {}, 恢复版本: {}", userId, version);
+            return ApiResponse.success("已恢复到版本 " + version);
+            
+        } catch (Exception e) {
+            log.error("Cookie数据恢复失败 - 用户ID: {}, 版本: {}, 错误: {}", userId, version, e.getMessage(), e);
+            return ApiResponse.error("恢复失败: " + e.getMessage());
         }
     }
 
@@ -188,14 +581,16 @@ public class CookieServiceImpl implements CookieService {
                 return ApiResponse.error("用户ID不能为空");
             }
             
-            // 先检查Redis缓存
-            String redisKey = REDIS_KEY_PREFIX + userId;
-            if (redisTemplate.hasKey(redisKey)) {
-                return ApiResponse.success(true);
+            // 缓存命中时直接判断（负缓存表示不存在），未命中时只查询元数据，不加载加密数据，也不恢复已归档的数据
+            CookieData cookieData;
+            CachedCookieData cached = cookieDataCache.getAll(List.of(userId)).get(userId);
+            if (cached != null) {
+                cookieData = cached.isNegative() ? null : cached.getData();
+            } else {
+                List<CookieData> metadata = DataSourceContextHolder.onReplica(
+                        () -> cookieStorage.findMetadataByUserIds(List.of(userId)));
+                cookieData = metadata.isEmpty() ? null : metadata.get(0);
             }
-            
-            // 检查数据库
-            CookieData cookieData = cookieDataMapper.findByUserId(userId);
             boolean exists = cookieData != null && cookieData.getExpireTime().isAfter(LocalDateTime.now());
             
             return ApiResponse.success(exists);
@@ -215,11 +610,19 @@ public class CookieServiceImpl implements CookieService {
             }
             
             // 删除数据库记录
-            int deleted = cookieDataMapper.deleteByUserId(userId);
+            int deleted = cookieStorage.deleteByUserId(userId);
+            if (cookieEntryService != null) {
+                cookieEntryService.deleteByUserId(userId);
+            }
+            if (cookieSnapshotService != null) {
+                cookieSnapshotService.deleteByUserId(userId);
+            }
+            if (cookieArchiveService != null) {
+                cookieArchiveService.discard(userId);
+            }
             
             // 删除Redis缓存
-            String redisKey = REDIS_KEY_PREFIX + userId;
-            redisTemplate.delete(redisKey);
+            cookieDataCache.evict(userId);
             
             if (deleted > 0) {
                 log.info("Cookie数据删除成功 - 用户ID: {}", userId);
@@ -229,6 +632,7 @@ public class CookieServiceImpl implements CookieService {
             }
             
         } catch (Exception e) {
+            rollbackOnly();
             log.error("Cookie数据删除失败 - 用户ID: {}, 错误: {}", userId, e.getMessage(), e);
             return ApiResponse.error("删除失败: " + e.getMessage());
         }
@@ -241,7 +645,7 @@ public class CookieServiceImpl implements CookieService {
                 return ApiResponse.error("用户ID不能为空");
             }
             
-            CookieData cookieData = cookieDataMapper.findByUserId(userId);
+            CookieData cookieData = DataSourceContextHolder.onReplica(() -> cookieStorage.findByUserId(userId));
             if (cookieData == null) {
                 return ApiResponse.error("未找到Cookie数据");
             }
@@ -261,4 +665,76 @@ public class CookieServiceImpl implements CookieService {
             return ApiResponse.error("获取统计信息失败: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 删除已被上传覆盖的归档数据，失败时不影响上传结果
+     */
+    /**
+     * 写入失败时回滚当前事务中已完成的部分，仍以错误响应返回，不会在提交时抛出异常
+     */
+    private static void rollbackOnly() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+        }
+    }
+
+    /**
+     * 在当前事务提交后执行，没有事务时立即执行；事务回滚时不执行
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void saveSnapshot(String userId, int version, String cookieDataJson, int cookieCount) {
+        try {
+            cookieSnapshotService.snapshot(userId, version, cookieDataJson, cookieCount);
+        } catch (Exception e) {
+            log.warn("保存版本快照失败 - 用户ID: {}, 版本: {}, 错误: {}", userId, version, e.getMessage());
+        }
+    }
+
+    private void discardArchive(String userId) {
+        try {
+            cookieArchiveService.discard(userId);
+        } catch (Exception e) {
+            log.warn("删除归档数据失败 - 用户ID: {}, 错误: {}", userId, e.getMessage());
+        }
+    }
+
+    /**
+     * 数据版本是否落后于客户端已知版本
+     */
+    private boolean isStale(CookieData cookieData, Integer knownVersion) {
+        return knownVersion != null && cookieData.getVersion() != null && cookieData.getVersion() < knownVersion;
+    }
+
+    /**
+     * 异步记录同步日志，使用独立的线程池和连接池，日志写入失败或积压不影响同步结果
+     */
+    private void recordSyncLog(String userId, String operationType, Long dataSize, Integer cookieCount,
+                               String clientIp, String userAgent, Boolean success, String errorMessage,
+                               Integer duration, LocalDateTime createTime, SyncTrace trace) {
+        if (!syncLogEnabled) {
+            return;
+        }
+        syncLogExecutor.execute(() -> {
+            try {
+                SyncTrace.Span span = trace.stage(SyncStage.LOG);
+                DataSourceContextHolder.onWorkload(Workload.LOG, () -> syncLogMapper.insertLog(userId, operationType,
+                        dataSize, cookieCount, clientIp, userAgent, success, errorMessage, duration, createTime));
+                span.end(dataSize);
+            } catch (Exception e) {
+                log.warn("同步日志写入失败 - 用户ID: {}, 操作: {}, 错误: {}", userId, operationType, e.getMessage());
+            }
+        });
+    }
+}
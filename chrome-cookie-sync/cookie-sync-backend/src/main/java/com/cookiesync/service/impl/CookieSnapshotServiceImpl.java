@@ -0,0 +1,249 @@
+package com.cookiesync.service.impl;
+
+import com.cookiesync.datasource.DataSourceContextHolder;
+import com.cookiesync.datasource.Workload;
+import com.cookiesync.entity.CookieChunk;
+import com.cookiesync.entity.CookieSnapshot;
+import com.cookiesync.entity.WrappedDataKey;
+import com.cookiesync.mapper.CookieSnapshotMapper;
+import com.cookiesync.service.CookieSnapshotService;
+import com.cookiesync.util.CompressionUtil;
+import com.cookiesync.util.ContentDefinedChunker;
+import com.cookiesync.util.EncryptionUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cookie数据版本快照服务实现类
+ * <ul>
+ *     <li>快照内容按FastCDC切分成块，块以带密钥的摘要寻址，压缩加密后只存储一次；
+ *     同一次快照新写入的块共用一个数据密钥，数据密钥随块保存，块被其他快照共享时仍可解密</li>
+ *     <li>写入快照时刷新已有块的引用时间，清理任务只回收无引用且超过宽限期的块，
+ *     避免删除正在被新快照引用的块</li>
+ *     <li>保留策略：始终保留每个用户最新的若干个版本，以及保留天数内的全部版本</li>
+ * </ul>
+ * 需要MySQL存储，默认关闭
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "cookie-sync.snapshot.enabled", havingValue = "true")
+public class CookieSnapshotServiceImpl implements CookieSnapshotService {
+
+    /**
+     * 单条SQL中的块数上限
+     */
+    private static final int SQL_BATCH_SIZE = 500;
+
+    /**
+     * 单条INSERT写入的新块数上限，块最大为数十KB，避免超出 max_allowed_packet
+     */
+    private static final int CHUNK_INSERT_BATCH_SIZE = 50;
+
+    @Autowired
+    private CookieSnapshotMapper cookieSnapshotMapper;
+
+    @Autowired
+    private EncryptionUtil encryptionUtil;
+
+    @Value("${cookie-sync.snapshot.min-chunk-size:2048}")
+    private int minChunkSize;
+
+    @Value("${cookie-sync.snapshot.avg-chunk-size:8192}")
+    private int avgChunkSize;
+
+    @Value("${cookie-sync.snapshot.max-chunk-size:65536}")
+    private int maxChunkSize;
+
+    @Value("${cookie-sync.snapshot.keep-versions:20}")
+    private int keepVersions;
+
+    @Value("${cookie-sync.snapshot.keep-days:30}")
+    private int keepDays;
+
+    @Value("${cookie-sync.snapshot.chunk-grace-minutes:60}")
+    private int chunkGraceMinutes;
+
+    @Value("${cookie-sync.snapshot.cleanup-batch-size:1000}")
+    private int cleanupBatchSize;
+
+    private ContentDefinedChunker chunker;
+
+    @PostConstruct
+    public void init() {
+        chunker = new ContentDefinedChunker(minChunkSize, avgChunkSize, maxChunkSize);
+        log.info("版本快照已启用 - 平均块大小: {}, 保留版本数: {}, 保留天数: {}", avgChunkSize, keepVersions, keepDays);
+    }
+
+    /**
+     * 在独立事务中写入，由上传事务提交后调用；块被多个用户共享，死锁等失败只回滚本次快照
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public CookieSnapshot snapshot(String userId, int version, String cookieDataJson, int cookieCount) {
+        byte[] data = cookieDataJson.getBytes(StandardCharsets.UTF_8);
+        int[] ends = chunker.split(data);
+
+        // 按顺序计算各块摘要，相同内容的块只保留第一次出现的位置
+        List<String> hashes = new ArrayList<>(ends.length);
+        Map<String, int[]> ranges = new LinkedHashMap<>();
+        int start = 0;
+        for (int end : ends) {
+            String hash = encryptionUtil.keyedDigest(data, start, end - start);
+            hashes.add(hash);
+            ranges.putIfAbsent(hash, new int[]{start, end});
+            start = end;
+        }
+
+        Set<String> existing = touchExisting(new ArrayList<>(ranges.keySet()));
+        List<CookieChunk> missing = new ArrayList<>();
+        String dataKey = null;
+        long storedSize = 0;
+        for (Map.Entry<String, int[]> entry : ranges.entrySet()) {
+            if (existing.contains(entry.getKey())) {
+                continue;
+            }
+            int[] range = entry.getValue();
+            int size = range[1] - range[0];
+            byte[] chunk = new byte[size];
+            System.arraycopy(data, range[0], chunk, 0, size);
+            if (dataKey == null) {
+                dataKey = encryptionUtil.generateDataKey();
+            }
+            missing.add(new CookieChunk(entry.getKey(), encryptionUtil.encryptBytes(dataKey, CompressionUtil.gzip(chunk)), dataKey, size));
+            storedSize += size;
+        }
+        for (int i = 0; i < missing.size(); i += CHUNK_INSERT_BATCH_SIZE) {
+            cookieSnapshotMapper.insertChunks(missing.subList(i, Math.min(missing.size(), i + CHUNK_INSERT_BATCH_SIZE)));
+        }
+
+        CookieSnapshot snapshot = new CookieSnapshot();
+        snapshot.setUserId(userId);
+        snapshot.setVersion(version);
+        snapshot.setDataSize((long) data.length);
+        snapshot.setStoredSize(storedSize);
+        snapshot.setChunkCount(hashes.size());
+        snapshot.setCookieCount(cookieCount);
+        if (cookieSnapshotMapper.insertSnapshot(snapshot) == 0) {
+            // 同一版本的快照已存在（如重试的上传），新写入的块由清理任务回收
+            log.debug("快照已存在 - 用户ID: {}, 版本: {}", userId, version);
+            return cookieSnapshotMapper.findByVersion(userId, version);
+        }
+        for (int i = 0; i < hashes.size(); i += SQL_BATCH_SIZE) {
+            cookieSnapshotMapper.insertChunkRefs(snapshot.getId(), i, hashes.subList(i, Math.min(hashes.size(), i + SQL_BATCH_SIZE)));
+        }
+
+        log.debug("快照已保存 - 用户ID: {}, 版本: {}, 块数: {}, 新块: {}, 新写入: {} / {} 字节",
+                userId, version, hashes.size(), missing.size(), storedSize, data.length);
+        return snapshot;
+    }
+
+    /**
+     * 查询已存在的块并刷新其引用时间，返回刷新后仍存在的块
+     * 刷新会锁住这些块直到事务结束，清理任务无法在此期间删除它们；
+     * 查询与刷新之间被删除的块会使更新行数偏少，此时重新查询一次
+     */
+    private Set<String> touchExisting(List<String> hashes) {
+        Set<String> existing = new HashSet<>();
+        for (int i = 0; i < hashes.size(); i += SQL_BATCH_SIZE) {
+            List<String> batch = hashes.subList(i, Math.min(hashes.size(), i + SQL_BATCH_SIZE));
+            List<String> found = cookieSnapshotMapper.findExistingChunks(batch);
+            if (found.isEmpty()) {
+                continue;
+            }
+            if (cookieSnapshotMapper.touchChunks(found) < found.size()) {
+                found = cookieSnapshotMapper.findExistingChunks(found);
+            }
+            existing.addAll(found);
+        }
+        return existing;
+    }
+
+    @Override
+    public List<CookieSnapshot> listVersions(String userId) {
+        return cookieSnapshotMapper.findByUserId(userId);
+    }
+
+    @Override
+    public CookieSnapshot findVersion(String userId, int version) {
+        return cookieSnapshotMapper.findByVersion(userId, version);
+    }
+
+    @Override
+    public String readContent(CookieSnapshot snapshot) {
+        List<CookieChunk> chunks = cookieSnapshotMapper.findChunks(snapshot.getId());
+        if (chunks.size() != snapshot.getChunkCount()) {
+            throw new IllegalStateException("快照数据不完整 - 版本: " + snapshot.getVersion());
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(snapshot.getDataSize().intValue());
+        for (CookieChunk chunk : chunks) {
+            byte[] plainData = encryptionUtil.decryptToBytes(chunk.getDataKey(), chunk.getEncryptedData());
+            out.writeBytes(CompressionUtil.isGzip(plainData) ? CompressionUtil.gunzip(plainData) : plainData);
+        }
+        if (out.size() != snapshot.getDataSize()) {
+            throw new IllegalStateException("快照数据不完整 - 版本: " + snapshot.getVersion());
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int deleteByUserId(String userId) {
+        return cookieSnapshotMapper.deleteByUserId(userId);
+    }
+
+    @Override
+    public List<WrappedDataKey> findStaleDataKeys(String masterKeyId, String afterHash, int limit) {
+        return cookieSnapshotMapper.findStaleDataKeys(masterKeyId, afterHash, limit);
+    }
+
+    @Override
+    public int updateDataKeys(List<WrappedDataKey> batch) {
+        return batch.isEmpty() ? 0 : cookieSnapshotMapper.updateDataKeys(batch);
+    }
+
+    /**
+     * 定期按保留策略清理，使用管理连接池
+     * 先删除过期快照及其块清单，再分批回收无引用的块
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${cookie-sync.snapshot.cleanup-interval:3600000}")
+    public int cleanup() {
+        return DataSourceContextHolder.onWorkload(Workload.ADMIN, () -> {
+            LocalDateTime now = LocalDateTime.now();
+            int snapshots = cookieSnapshotMapper.deleteExpiredSnapshots(keepVersions, now.minusDays(keepDays));
+            int refs = cookieSnapshotMapper.deleteOrphanChunkRefs();
+
+            LocalDateTime before = now.minusMinutes(chunkGraceMinutes);
+            int chunks = 0;
+            int deleted;
+            do {
+                deleted = cookieSnapshotMapper.deleteUnreferencedChunks(before, cleanupBatchSize);
+                chunks += deleted;
+            } while (deleted >= cleanupBatchSize);
+
+            if (snapshots > 0 || refs > 0 || chunks > 0) {
+                log.info("快照清理完成 - 删除快照: {}, 块清单: {}, 块: {}", snapshots, refs, chunks);
+            }
+            return snapshots;
+        });
+    }
+}
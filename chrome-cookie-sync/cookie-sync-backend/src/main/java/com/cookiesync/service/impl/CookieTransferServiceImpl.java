@@ -0,0 +1,246 @@
+package com.cookiesync.service.impl;
+
+import com.cookiesync.bulkhead.BoundedExecutor;
+import com.cookiesync.cache.CookieDataCache;
+import com.cookiesync.datasource.DataSourceContextHolder;
+import com.cookiesync.datasource.Workload;
+import com.cookiesync.entity.CookieData;
+import com.cookiesync.service.CookieArchiveService;
+import com.cookiesync.service.CookieEntryService;
+import com.cookiesync.service.CookieTransferService;
+import com.cookiesync.storage.CookieStorage;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Cookie数据批量导出/导入服务实现类
+ * <ul>
+ *     <li>导出通过存储层游标逐行读取并逐行写出，内存占用与用户数无关；已归档和按条目存储的用户跳过占位记录，
+ *     之后再以一次归档表的游标写出完整数据，并按主键分页组装条目，写出与整体存储格式相同的数据</li>
+ *     <li>导入按批次组装多行写入，由导入线程池并行执行，在途批次数受信号量限制，读取速度不会超过写入速度；
+ *     批次同时受记录数与数据量限制，内存中的数据量不超过 在途批次数 × 批次数据量上限，单条INSERT不会超出 max_allowed_packet</li>
+ * </ul>
+ * 两者都使用管理连接池，不占用同步请求的数据库连接
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Service
+public class CookieTransferServiceImpl implements CookieTransferService {
+
+    @Autowired
+    private CookieStorage cookieStorage;
+
+    @Autowired
+    private CookieDataCache cookieDataCache;
+
+    @Autowired
+    private BoundedExecutor importExecutor;
+
+    /**
+     * 未开启冷热分层时为空
+     */
+    @Autowired(required = false)
+    private CookieArchiveService cookieArchiveService;
+
+    @Autowired(required = false)
+    private CookieEntryService cookieEntryService;
+
+    @Value("${cookie-sync.transfer.batch-size:500}")
+    private int batchSize;
+
+    @Value("${cookie-sync.transfer.max-in-flight-batches:6}")
+    private int maxInFlightBatches;
+
+    @Value("${cookie-sync.transfer.max-batch-mb:8}")
+    private long maxBatchMb;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final AtomicBoolean importing = new AtomicBoolean();
+
+    @Override
+    public long exportAll(OutputStream out) throws IOException {
+        long startTime = System.currentTimeMillis();
+        ObjectWriter writer = objectMapper.writerFor(CookieData.class);
+        OutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+
+        AtomicLong exported = new AtomicLong();
+        Consumer<CookieData> consumer = cookieData -> {
+            try {
+                buffered.write(writer.writeValueAsBytes(cookieData));
+                buffered.write('\n');
+                exported.incrementAndGet();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+        try {
+            DataSourceContextHolder.onWorkload(Workload.ADMIN, () -> DataSourceContextHolder.onReplica(() -> {
+                // 占位记录在流式遍历结束后分别补充导出，遍历期间不在同一连接上发起其他查询
+                int count = cookieStorage.scanAll(cookieData -> {
+                    String encryptedData = cookieData.getEncryptedData();
+                    if (!CookieArchiveService.ARCHIVE_MARKER.equals(encryptedData)
+                            && !CookieEntryService.ENTRY_MARKER.equals(encryptedData)) {
+                        consumer.accept(cookieData);
+                    }
+                });
+                if (cookieArchiveService != null) {
+                    cookieArchiveService.scanArchived(consumer);
+                }
+                if (cookieEntryService != null) {
+                    cookieEntryService.scanAssembled(consumer);
+                }
+                return count;
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        buffered.flush();
+
+        log.info("Cookie数据导出完成 - 数量: {}, 耗时: {}ms", exported.get(), System.currentTimeMillis() - startTime);
+        return exported.get();
+    }
+
+    @Override
+    public Map<String, Object> importAll(InputStream in) throws IOException {
+        // 在途批次上限按单个导入任务计算，同一时间只允许一个导入
+        if (!importing.compareAndSet(false, true)) {
+            throw new IllegalStateException("已有导入任务正在执行");
+        }
+        try {
+            return doImport(in);
+        } finally {
+            importing.set(false);
+        }
+    }
+
+    private Map<String, Object> doImport(InputStream in) throws IOException {
+        long startTime = System.currentTimeMillis();
+        ObjectReader reader = objectMapper.readerFor(CookieData.class);
+        Semaphore inFlight = new Semaphore(maxInFlightBatches);
+        AtomicLong imported = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        long batches = 0;
+        long lineNumber = 0;
+        long maxBatchBytes = maxBatchMb * 1024 * 1024;
+        long batchBytes = 0;
+
+        BufferedReader lines = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<CookieData> batch = new ArrayList<>(batchSize);
+        String line;
+        try {
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                CookieData cookieData = parse(reader, line, lineNumber);
+                if (cookieData == null) {
+                    failed.incrementAndGet();
+                    continue;
+                }
+                // 加入后超过数据量上限时先提交已有的记录，超过上限的单条记录单独成批
+                long size = cookieData.getEncryptedData().length();
+                if (!batch.isEmpty() && batchBytes + size > maxBatchBytes) {
+                    submit(batch, inFlight, imported, failed);
+                    batches++;
+                    batch = new ArrayList<>(batchSize);
+                    batchBytes = 0;
+                }
+                batch.add(cookieData);
+                batchBytes += size;
+                if (batch.size() >= batchSize) {
+                    submit(batch, inFlight, imported, failed);
+                    batches++;
+                    batch = new ArrayList<>(batchSize);
+                    batchBytes = 0;
+                }
+            }
+            if (!batch.isEmpty()) {
+                submit(batch, inFlight, imported, failed);
+                batches++;
+            }
+            // 等待所有批次完成
+            inFlight.acquire(maxInFlightBatches);
+            inFlight.release(maxInFlightBatches);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("导入被中断", e);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("imported", imported.get());
+        result.put("failed", failed.get());
+        result.put("batches", batches);
+        result.put("durationMillis", System.currentTimeMillis() - startTime);
+        log.info("Cookie数据导入完成 - {}", result);
+        return result;
+    }
+
+    private CookieData parse(ObjectReader reader, String line, long lineNumber) {
+        try {
+            CookieData cookieData = reader.readValue(line);
+            if (cookieData.getUserId() == null || cookieData.getEncryptedData() == null) {
+                log.warn("导入数据缺少用户ID或加密数据 - 行号: {}", lineNumber);
+                return null;
+            }
+            return cookieData;
+        } catch (IOException e) {
+            log.warn("导入数据解析失败 - 行号: {}, 错误: {}", lineNumber, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 提交一个批次，在途批次数达到上限时阻塞读取线程
+     */
+    private void submit(List<CookieData> batch, Semaphore inFlight, AtomicLong imported, AtomicLong failed)
+            throws InterruptedException {
+        inFlight.acquire();
+        try {
+            importExecutor.execute(() -> {
+                try {
+                    int written = DataSourceContextHolder.onWorkload(Workload.ADMIN, () -> cookieStorage.upsertBatch(batch));
+                    imported.addAndGet(written);
+                    cookieDataCache.evictAll(batch.stream().map(CookieData::getUserId).toList());
+                } catch (Exception e) {
+                    failed.addAndGet(batch.size());
+                    log.error("导入批次写入失败 - 数量: {}", batch.size(), e);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+}
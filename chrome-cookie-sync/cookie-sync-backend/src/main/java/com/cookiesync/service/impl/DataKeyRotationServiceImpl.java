@@ -0,0 +1,256 @@
+package com.cookiesync.service.impl;
+
+import com.cookiesync.bulkhead.BoundedExecutor;
+import com.cookiesync.datasource.DataSourceContextHolder;
+import com.cookiesync.datasource.Workload;
+import com.cookiesync.entity.WrappedDataKey;
+import com.cookiesync.service.CookieEntryService;
+import com.cookiesync.service.CookieSnapshotService;
+import com.cookiesync.service.DataKeyRotationService;
+import com.cookiesync.storage.CookieStorage;
+import com.cookiesync.util.EncryptionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 数据密钥轮换服务实现类
+ * <ul>
+ *     <li>依次处理 cookie_data、cookie_entry（按条目存储开启时）、cookie_chunk（版本快照开启时）：
+ *     扫描线程按主键顺序分批读取不是由活动主密钥包装的数据密钥，每批交给轮换线程池并行解包、重新包装并写回</li>
+ *     <li>数据密钥为空的历史数据（静态密钥加密）写入以活动主密钥包装的静态密钥，密文不变，之后随主密钥轮换</li>
+ *     <li>在途批次数受信号量限制，扫描速度按每秒行数上限节流，读写都使用管理连接池，不影响同步请求</li>
+ *     <li>写回时比较数据密钥，期间被上传覆盖的记录已使用新数据密钥，直接跳过</li>
+ * </ul>
+ * 轮换不产生变更事件也不清除缓存，缓存与备用节点中的旧包装在过期或下次上传前仍需旧主密钥解包，
+ * 因此旧主密钥需在轮换完成且这些副本更新后才能从配置中移除
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Service
+public class DataKeyRotationServiceImpl implements DataKeyRotationService {
+
+    @Autowired
+    private CookieStorage cookieStorage;
+
+    @Autowired
+    private EncryptionUtil encryptionUtil;
+
+    @Autowired
+    private BoundedExecutor rotationExecutor;
+
+    @Autowired(required = false)
+    private CookieEntryService cookieEntryService;
+
+    @Autowired(required = false)
+    private CookieSnapshotService cookieSnapshotService;
+
+    @Value("${cookie-sync.encryption.rotation.batch-size:500}")
+    private int batchSize;
+
+    @Value("${cookie-sync.encryption.rotation.parallelism:2}")
+    private int parallelism;
+
+    @Value("${cookie-sync.encryption.rotation.max-rows-per-second:2000}")
+    private int maxRowsPerSecond;
+
+    private Rotation rotation;
+
+    @Override
+    public synchronized Map<String, Object> start() {
+        if (rotation != null && rotation.endTime == null) {
+            throw new IllegalStateException("已有密钥轮换在进行");
+        }
+        Rotation newRotation = new Rotation(encryptionUtil.getActiveMasterKeyId());
+        rotationExecutor.execute(() -> run(newRotation));
+        rotation = newRotation;
+        log.info("数据密钥轮换已开始 - 主密钥: {}, 批次大小: {}, 并行度: {}, 每秒行数上限: {}",
+                newRotation.masterKeyId, batchSize, parallelism, maxRowsPerSecond);
+        return status();
+    }
+
+    @Override
+    public synchronized Map<String, Object> status() {
+        if (rotation == null) {
+            return null;
+        }
+        Map<String, Object> status = new HashMap<>();
+        status.put("state", rotation.state);
+        status.put("masterKeyId", rotation.masterKeyId);
+        status.put("table", rotation.table);
+        status.put("startTime", rotation.startTime);
+        status.put("endTime", rotation.endTime);
+        status.put("scanned", rotation.scanned.get());
+        status.put("rotated", rotation.rotated.get());
+        status.put("failed", rotation.failed.get());
+        status.put("error", rotation.error);
+        return status;
+    }
+
+    private void run(Rotation current) {
+        Semaphore inFlight = new Semaphore(parallelism);
+        long startNanos = System.nanoTime();
+        try {
+            for (KeyTable table : keyTables()) {
+                current.table = table.name();
+                WrappedDataKey last = null;
+                while (true) {
+                    WrappedDataKey after = last;
+                    List<WrappedDataKey> batch = DataSourceContextHolder.onWorkload(Workload.ADMIN,
+                            () -> table.finder().find(current.masterKeyId, after, batchSize));
+                    if (batch.isEmpty()) {
+                        break;
+                    }
+                    last = batch.get(batch.size() - 1);
+                    current.scanned.addAndGet(batch.size());
+
+                    inFlight.acquire();
+                    try {
+                        rotationExecutor.execute(() -> {
+                            try {
+                                rewrap(table, batch, current);
+                            } finally {
+                                inFlight.release();
+                            }
+                        });
+                    } catch (RuntimeException e) {
+                        inFlight.release();
+                        throw e;
+                    }
+                    pace(startNanos, current.scanned.get());
+                }
+            }
+            // 等待在途批次完成
+            inFlight.acquire(parallelism);
+            finish(current, "COMPLETED", null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finish(current, "FAILED", "轮换被中断");
+        } catch (Exception e) {
+            log.error("数据密钥轮换失败 - 主密钥: {}", current.masterKeyId, e);
+            finish(current, "FAILED", e.getMessage());
+        }
+    }
+
+    /**
+     * 保存数据密钥的表，未开启的功能不参与轮换
+     */
+    private List<KeyTable> keyTables() {
+        List<KeyTable> tables = new ArrayList<>();
+        tables.add(new KeyTable("cookie_data",
+                (masterKeyId, last, limit) -> cookieStorage.findStaleDataKeys(masterKeyId, last == null ? 0 : last.getId(), limit),
+                cookieStorage::updateDataKeys));
+        if (cookieEntryService != null) {
+            tables.add(new KeyTable("cookie_entry",
+                    (masterKeyId, last, limit) -> cookieEntryService.findStaleDataKeys(masterKeyId, last == null ? 0 : last.getId(), limit),
+                    cookieEntryService::updateDataKeys));
+        }
+        if (cookieSnapshotService != null) {
+            tables.add(new KeyTable("cookie_chunk",
+                    (masterKeyId, last, limit) -> cookieSnapshotService.findStaleDataKeys(masterKeyId, last == null ? "" : last.getHash(), limit),
+                    cookieSnapshotService::updateDataKeys));
+        }
+        return tables;
+    }
+
+    /**
+     * 重新包装一批数据密钥并写回，单条解包失败（如旧主密钥已从配置中移除）只跳过该条
+     */
+    private void rewrap(KeyTable table, List<WrappedDataKey> batch, Rotation current) {
+        List<WrappedDataKey> rotatedKeys = new ArrayList<>(batch.size());
+        for (WrappedDataKey key : batch) {
+            try {
+                key.setRotatedKey(encryptionUtil.rewrapDataKey(key.getDataKey()));
+                rotatedKeys.add(key);
+            } catch (Exception e) {
+                current.failed.incrementAndGet();
+                log.warn("数据密钥重新包装失败 - 表: {}, 记录: {}, 错误: {}", table.name(),
+                        key.getHash() != null ? key.getHash() : key.getId(), e.getMessage());
+            }
+        }
+        try {
+            int updated = DataSourceContextHolder.onWorkload(Workload.ADMIN, () -> table.updater().apply(rotatedKeys));
+            current.rotated.addAndGet(updated);
+        } catch (Exception e) {
+            current.failed.addAndGet(rotatedKeys.size());
+            log.error("数据密钥批次写回失败 - 表: {}, 数量: {}", table.name(), rotatedKeys.size(), e);
+        }
+    }
+
+    /**
+     * 扫描超前于每秒行数上限时等待，上限为0表示不限速
+     */
+    private void pace(long startNanos, long scanned) throws InterruptedException {
+        if (maxRowsPerSecond <= 0) {
+            return;
+        }
+        long expectedNanos = scanned * TimeUnit.SECONDS.toNanos(1) / maxRowsPerSecond;
+        long aheadNanos = expectedNanos - (System.nanoTime() - startNanos);
+        if (aheadNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(aheadNanos);
+        }
+    }
+
+    private synchronized void finish(Rotation current, String state, String error) {
+        current.state = state;
+        current.error = error;
+        current.endTime = LocalDateTime.now();
+        log.info("数据密钥轮换结束 - 状态: {}, 主密钥: {}, 扫描: {}, 轮换: {}, 失败: {}", state,
+                current.masterKeyId, current.scanned.get(), current.rotated.get(), current.failed.get());
+    }
+
+    /**
+     * 一次轮换的进度
+     */
+    private static final class Rotation {
+
+        private final String masterKeyId;
+
+        private final LocalDateTime startTime = LocalDateTime.now();
+
+        private final AtomicLong scanned = new AtomicLong();
+
+        private final AtomicLong rotated = new AtomicLong();
+
+        private final AtomicLong failed = new AtomicLong();
+
+        private volatile String table;
+
+        private String state = "RUNNING";
+
+        private String error;
+
+        private LocalDateTime endTime;
+
+        private Rotation(String masterKeyId) {
+            this.masterKeyId = masterKeyId;
+        }
+    }
+
+    /**
+     * 按主键顺序分批查询待轮换的数据密钥，last 为上一批最后一条，从头开始时为空
+     */
+    @FunctionalInterface
+    private interface StaleKeyFinder {
+        List<WrappedDataKey> find(String masterKeyId, WrappedDataKey last, int limit);
+    }
+
+    /**
+     * 保存数据密钥的一张表
+     */
+    private record KeyTable(String name, StaleKeyFinder finder, Function<List<WrappedDataKey>, Integer> updater) {
+    }
+}
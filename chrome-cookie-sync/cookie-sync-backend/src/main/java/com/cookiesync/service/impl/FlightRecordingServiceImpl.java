@@ -0,0 +1,134 @@
+package com.cookiesync.service.impl;
+
+import com.cookiesync.jfr.SyncOperationEvent;
+import com.cookiesync.jfr.SyncStageEvent;
+import com.cookiesync.service.FlightRecordingService;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 按需JFR录制服务实现类
+ * 录制基于JDK内置配置（default 开销约1%），并开启同步操作事件；
+ * 操作事件按阈值过滤，只有耗时超过阈值的同步操作及其阶段分解会写入录制
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Service
+public class FlightRecordingServiceImpl implements FlightRecordingService {
+
+    @Value("${cookie-sync.jfr.settings:default}")
+    private String settings;
+
+    @Value("${cookie-sync.jfr.threshold-ms:0}")
+    private long thresholdMs;
+
+    @Value("${cookie-sync.jfr.max-duration-seconds:600}")
+    private int maxDurationSeconds;
+
+    @Value("${cookie-sync.jfr.max-size-mb:64}")
+    private int maxSizeMb;
+
+    private Recording recording;
+
+    private Path destination;
+
+    @Override
+    public synchronized Map<String, Object> start(Integer durationSeconds, Integer sizeMb) throws IOException {
+        if (recording != null) {
+            throw new IllegalStateException("已有录制在进行，请先停止");
+        }
+        int duration = clamp(durationSeconds, maxDurationSeconds);
+        int size = clamp(sizeMb, maxSizeMb);
+
+        Recording newRecording;
+        try {
+            newRecording = new Recording(Configuration.getConfiguration(settings));
+        } catch (ParseException e) {
+            throw new IOException("JFR配置无法解析: " + settings, e);
+        }
+        newRecording.setName("cookie-sync");
+        newRecording.enable(SyncOperationEvent.class).withThreshold(Duration.ofMillis(thresholdMs));
+        newRecording.enable(SyncStageEvent.class).withoutThreshold();
+        newRecording.setToDisk(true);
+        newRecording.setDuration(Duration.ofSeconds(duration));
+        newRecording.setMaxSize((long) size * 1024 * 1024);
+
+        Path file = Files.createTempFile("cookie-sync-", ".jfr");
+        try {
+            // 到时自动停止时写入该文件
+            newRecording.setDestination(file);
+            newRecording.start();
+        } catch (IOException | RuntimeException e) {
+            newRecording.close();
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        recording = newRecording;
+        destination = file;
+        log.info("JFR录制已开始 - 时长: {}s, 大小上限: {}MB, 阈值: {}ms", duration, size, thresholdMs);
+        return status();
+    }
+
+    @Override
+    public synchronized Map<String, Object> status() {
+        if (recording == null) {
+            return null;
+        }
+        Map<String, Object> status = new HashMap<>();
+        status.put("state", recording.getState().name());
+        status.put("startTime", recording.getStartTime());
+        status.put("durationSeconds", recording.getDuration().getSeconds());
+        status.put("maxSizeBytes", recording.getMaxSize());
+        status.put("recordedBytes", recording.getSize());
+        status.put("thresholdMs", thresholdMs);
+        return status;
+    }
+
+    @Override
+    public synchronized long stop(OutputStream out) throws IOException {
+        if (recording == null) {
+            throw new IllegalStateException("没有进行中的录制");
+        }
+        try {
+            if (recording.getState() == RecordingState.RUNNING) {
+                recording.stop();
+            }
+            long size = Files.copy(destination, out);
+            log.info("JFR录制已停止 - 大小: {} bytes", size);
+            return size;
+        } finally {
+            discard();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void discard() throws IOException {
+        if (recording == null) {
+            return;
+        }
+        recording.close();
+        Files.deleteIfExists(destination);
+        recording = null;
+        destination = null;
+    }
+
+    private static int clamp(Integer value, int max) {
+        return value == null || value <= 0 ? max : Math.min(value, max);
+    }
+}
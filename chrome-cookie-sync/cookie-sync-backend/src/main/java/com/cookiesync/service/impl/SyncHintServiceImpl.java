@@ -0,0 +1,177 @@
+package com.cookiesync.service.impl;
+
+import com.cookiesync.datasource.DataSourceContextHolder;
+import com.cookiesync.entity.CookieData;
+import com.cookiesync.entity.SyncHint;
+import com.cookiesync.mapper.SyncLogMapper;
+import com.cookiesync.service.SyncHintService;
+import com.cookiesync.storage.CookieStorage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 同步间隔建议服务实现类
+ * 变化频率取同步日志中的上传次数与版本号增长速度的较大值，每个用户的结果缓存一段时间，
+ * 负载系数按实时在途请求数计算，不需要额外查询
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Service
+public class SyncHintServiceImpl implements SyncHintService {
+
+    private static final double SECONDS_PER_DAY = 86400.0;
+
+    @Autowired
+    private SyncLogMapper syncLogMapper;
+
+    @Autowired
+    private CookieStorage cookieStorage;
+
+    @Value("${cookie-sync.sync-hint.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cookie-sync.sync-hint.min-interval:900}")
+    private long minInterval;
+
+    @Value("${cookie-sync.sync-hint.max-interval:86400}")
+    private long maxInterval;
+
+    @Value("${cookie-sync.sync-hint.jitter-ratio:0.2}")
+    private double jitterRatio;
+
+    @Value("${cookie-sync.sync-hint.history-days:7}")
+    private int historyDays;
+
+    @Value("${cookie-sync.sync-hint.rate-cache-seconds:300}")
+    private long rateCacheSeconds;
+
+    @Value("${cookie-sync.sync-hint.load-capacity:${spring.datasource.hikari.maximum-pool-size:20}}")
+    private int loadCapacity;
+
+    @Value("${cookie-sync.sync-log.enabled:true}")
+    private boolean syncLogEnabled;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final Map<String, ChangeRate> changeRates = new ConcurrentHashMap<>();
+
+    @Override
+    public void requestStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    @Override
+    public void requestFinished() {
+        inFlight.decrementAndGet();
+    }
+
+    @Override
+    public SyncHint getSyncHint(String userId) {
+        if (!enabled) {
+            return null;
+        }
+
+        double changesPerDay = getChangesPerDay(userId);
+        double loadFactor = getLoadFactor();
+
+        // 每个变化周期同步两次；没有变化记录的用户按最长间隔
+        double interval = changesPerDay > 0 ? SECONDS_PER_DAY / changesPerDay / 2 : maxInterval;
+        long intervalSeconds = Math.round(Math.min(maxInterval, Math.max(minInterval, interval) * loadFactor));
+        long jitterSeconds = Math.round(intervalSeconds * jitterRatio);
+
+        return new SyncHint(intervalSeconds, jitterSeconds, changesPerDay, loadFactor);
+    }
+
+    /**
+     * 定期清理过期的变化频率缓存
+     */
+    @Scheduled(fixedDelayString = "${cookie-sync.sync-hint.rate-cache-cleanup-interval:600000}")
+    public void evictExpiredRates() {
+        long now = System.currentTimeMillis();
+        changeRates.values().removeIf(rate -> rate.isExpired(now));
+    }
+
+    /**
+     * 负载系数：在途请求超过容量一半后线性增长，满载时为3
+     */
+    private double getLoadFactor() {
+        double utilization = (double) inFlight.get() / Math.max(1, loadCapacity);
+        return 1 + Math.max(0, utilization - 0.5) * 4;
+    }
+
+    private double getChangesPerDay(String userId) {
+        long now = System.currentTimeMillis();
+        ChangeRate cached = changeRates.get(userId);
+        if (cached != null && !cached.isExpired(now)) {
+            return cached.changesPerDay;
+        }
+
+        double changesPerDay = 0;
+        try {
+            changesPerDay = Math.max(getUploadRate(userId), getVersionRate(userId));
+        } catch (Exception e) {
+            log.warn("计算数据变化频率失败 - 用户ID: {}, 错误: {}", userId, e.getMessage());
+        }
+        changeRates.put(userId, new ChangeRate(changesPerDay, now + rateCacheSeconds * 1000));
+        return changesPerDay;
+    }
+
+    /**
+     * 按同步日志中最近的成功上传次数计算
+     */
+    private double getUploadRate(String userId) {
+        if (!syncLogEnabled) {
+            return 0;
+        }
+        LocalDateTime startTime = LocalDateTime.now().minusDays(historyDays);
+        int uploads = DataSourceContextHolder.onReplica(
+                () -> syncLogMapper.countUserOperations(userId, "UPLOAD", startTime));
+        return (double) uploads / historyDays;
+    }
+
+    /**
+     * 按版本号自创建以来的增长速度计算，同步日志关闭或已被清理时仍可用
+     * 只读取元数据，不读取加密数据列
+     */
+    private double getVersionRate(String userId) {
+        List<CookieData> metadata = DataSourceContextHolder.onReplica(
+                () -> cookieStorage.findMetadataByUserIds(List.of(userId)));
+        if (metadata.isEmpty()) {
+            return 0;
+        }
+        CookieData cookieData = metadata.get(0);
+        if (cookieData.getVersion() == null || cookieData.getCreateTime() == null) {
+            return 0;
+        }
+        double days = Math.max(1.0, Duration.between(cookieData.getCreateTime(), LocalDateTime.now()).toSeconds() / SECONDS_PER_DAY);
+        return (cookieData.getVersion() - 1) / days;
+    }
+
+    private static final class ChangeRate {
+
+        private final double changesPerDay;
+
+        private final long expireAt;
+
+        private ChangeRate(double changesPerDay, long expireAt) {
+            this.changesPerDay = changesPerDay;
+            this.expireAt = expireAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expireAt;
+        }
+    }
+}
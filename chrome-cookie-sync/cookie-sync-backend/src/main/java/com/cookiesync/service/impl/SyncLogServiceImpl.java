@@ -0,0 +1,124 @@
+package com.cookiesync.service.impl;
+
+import com.cookiesync.datasource.DataSourceContextHolder;
+import com.cookiesync.datasource.Workload;
+import com.cookiesync.entity.SyncLog;
+import com.cookiesync.entity.SyncLogPage;
+import com.cookiesync.mapper.SyncLogMapper;
+import com.cookiesync.service.SyncLogService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 同步日志查询服务实现类
+ * <ul>
+ *     <li>游标为 Base64URL 编码的“创建时间|主键”，多取一行判断是否还有下一页</li>
+ *     <li>查询路由到只读副本并使用管理连接池，不占用同步请求与日志写入的连接</li>
+ *     <li>导出在只读事务内通过流式游标逐行写出，内存占用与日志数量无关</li>
+ * </ul>
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Service
+public class SyncLogServiceImpl implements SyncLogService {
+
+    private static final char CURSOR_SEPARATOR = '|';
+
+    @Autowired
+    private SyncLogMapper syncLogMapper;
+
+    @Value("${cookie-sync.sync-log.max-page-size:200}")
+    private int maxPageSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Override
+    public SyncLogPage findLogs(String userId, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+        LocalDateTime beforeTime = null;
+        Long beforeId = null;
+        if (StringUtils.isNotBlank(cursor)) {
+            String decoded = decodeCursor(cursor);
+            int separator = decoded.indexOf(CURSOR_SEPARATOR);
+            try {
+                beforeTime = LocalDateTime.parse(decoded.substring(0, separator));
+                beforeId = Long.parseLong(decoded.substring(separator + 1));
+            } catch (DateTimeParseException | IndexOutOfBoundsException | NumberFormatException e) {
+                throw new IllegalArgumentException("无效的分页游标");
+            }
+        }
+
+        LocalDateTime time = beforeTime;
+        Long id = beforeId;
+        List<SyncLog> logs = DataSourceContextHolder.onWorkload(Workload.ADMIN, () -> DataSourceContextHolder.onReplica(
+                () -> StringUtils.isBlank(userId)
+                        ? syncLogMapper.findLogPage(time, id, pageSize + 1)
+                        : syncLogMapper.findUserLogPage(userId, time, id, pageSize + 1)));
+
+        String nextCursor = null;
+        if (logs.size() > pageSize) {
+            logs = logs.subList(0, pageSize);
+            SyncLog last = logs.get(pageSize - 1);
+            nextCursor = encodeCursor(last.getCreateTime(), last.getId());
+        }
+        return new SyncLogPage(logs, nextCursor);
+    }
+
+    /**
+     * 连接在首条语句执行时才获取，方法内设置的连接池与副本路由对整个事务生效；游标在事务提交前保持打开
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long exportLogs(String userId, LocalDateTime startTime, LocalDateTime endTime, OutputStream out) throws IOException {
+        long beginTime = System.currentTimeMillis();
+        ObjectWriter writer = objectMapper.writerFor(SyncLog.class);
+        OutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+        String user = StringUtils.isBlank(userId) ? null : userId;
+
+        long exported = 0;
+        try (Cursor<SyncLog> cursor = DataSourceContextHolder.onWorkload(Workload.ADMIN, () -> DataSourceContextHolder.onReplica(
+                () -> syncLogMapper.scanLogs(user, startTime, endTime)))) {
+            for (SyncLog syncLog : cursor) {
+                buffered.write(writer.writeValueAsBytes(syncLog));
+                buffered.write('\n');
+                exported++;
+            }
+        }
+        buffered.flush();
+
+        log.info("同步日志导出完成 - 用户ID: {}, 数量: {}, 耗时: {}ms", user, exported, System.currentTimeMillis() - beginTime);
+        return exported;
+    }
+
+    private static String encodeCursor(LocalDateTime createTime, Long id) {
+        String cursor = createTime.toString() + CURSOR_SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+    }
+}
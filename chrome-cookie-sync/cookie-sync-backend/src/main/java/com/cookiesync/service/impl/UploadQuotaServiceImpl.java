@@ -0,0 +1,112 @@
+package com.cookiesync.service.impl;
+
+import com.cookiesync.datasource.DataSourceContextHolder;
+import com.cookiesync.datasource.Workload;
+import com.cookiesync.mapper.SyncLogMapper;
+import com.cookiesync.service.UploadQuotaService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 上传配额服务实现类
+ * 已用量 = 同步日志中最近24小时的上传数据量（按用户缓存一段时间）+ 缓存之后本实例记录的上传量，
+ * 同步日志通过日志连接池读取，配额检查不占用同步请求的连接
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Service
+public class UploadQuotaServiceImpl implements UploadQuotaService {
+
+    @Autowired
+    private SyncLogMapper syncLogMapper;
+
+    @Value("${cookie-sync.business.daily-upload-quota:104857600}")
+    private long dailyUploadQuota;
+
+    @Value("${cookie-sync.business.quota-cache-seconds:60}")
+    private long quotaCacheSeconds;
+
+    @Value("${cookie-sync.sync-log.enabled:true}")
+    private boolean syncLogEnabled;
+
+    private final Map<String, Usage> usages = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean isExceeded(String userId) {
+        return dailyUploadQuota > 0 && getUsage(userId) >= dailyUploadQuota;
+    }
+
+    @Override
+    public void record(String userId, long bytes) {
+        if (dailyUploadQuota <= 0) {
+            return;
+        }
+        Usage usage = usages.get(userId);
+        if (usage != null) {
+            usage.recorded.addAndGet(bytes);
+        }
+    }
+
+    @Override
+    public long getUsage(String userId) {
+        long now = System.currentTimeMillis();
+        Usage usage = usages.get(userId);
+        if (usage == null || usage.isExpired(now)) {
+            usage = new Usage(loadUsage(userId), now + quotaCacheSeconds * 1000);
+            usages.put(userId, usage);
+        }
+        return usage.logged + usage.recorded.get();
+    }
+
+    /**
+     * 定期清理过期的用量缓存
+     */
+    @Scheduled(fixedDelayString = "${cookie-sync.business.quota-cache-cleanup-interval:600000}")
+    public void evictExpiredUsages() {
+        long now = System.currentTimeMillis();
+        usages.values().removeIf(usage -> usage.isExpired(now));
+    }
+
+    private long loadUsage(String userId) {
+        if (!syncLogEnabled) {
+            return 0;
+        }
+        try {
+            LocalDateTime startTime = LocalDateTime.now().minusDays(1);
+            return DataSourceContextHolder.onWorkload(Workload.LOG,
+                    () -> syncLogMapper.sumUserDataSize(userId, "UPLOAD", startTime));
+        } catch (Exception e) {
+            // 统计失败时不阻止上传
+            log.warn("查询上传用量失败 - 用户ID: {}, 错误: {}", userId, e.getMessage());
+            return 0;
+        }
+    }
+
+    private static final class Usage {
+
+        private final long logged;
+
+        private final AtomicLong recorded = new AtomicLong();
+
+        private final long expireAt;
+
+        private Usage(long logged, long expireAt) {
+            this.logged = logged;
+            this.expireAt = expireAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expireAt;
+        }
+    }
+}
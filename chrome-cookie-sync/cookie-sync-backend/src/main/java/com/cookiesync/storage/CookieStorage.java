@@ -0,0 +1,132 @@
+package com.cookiesync.storage;
+
+import com.cookiesync.entity.CookieData;
+import com.cookiesync.entity.WrappedDataKey;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Cookie数据存储接口
+ * 默认实现基于MySQL，单节点部署可切换为内嵌的段日志存储
+ * 
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public interface CookieStorage {
+    
+    /**
+     * 插入Cookie数据
+     * 
+     * @param cookieData Cookie数据
+     * @return 影响行数
+     */
+    int insert(CookieData cookieData);
+    
+    /**
+     * 根据用户ID查询有效的Cookie数据
+     * 
+     * @param userId 用户ID
+     * @return Cookie数据，不存在时返回null
+     */
+    CookieData findByUserId(String userId);
+    
+    /**
+     * 批量查询有效的Cookie数据
+     * 
+     * @param userIds 用户ID
+     * @return 存在的Cookie数据，顺序不保证
+     */
+    List<CookieData> findByUserIds(Collection<String> userIds);
+    
+    /**
+     * 批量查询有效的Cookie元数据，不包含加密数据与数据密钥
+     * 
+     * @param userIds 用户ID
+     * @return 存在的Cookie元数据，顺序不保证
+     */
+    List<CookieData> findMetadataByUserIds(Collection<String> userIds);
+    
+    /**
+     * 根据用户ID更新Cookie数据
+     * 
+     * @param cookieData Cookie数据
+     * @return 影响行数
+     */
+    int updateByUserId(CookieData cookieData);
+    
+    /**
+     * 根据用户ID删除Cookie数据
+     * 
+     * @param userId 用户ID
+     * @return 影响行数
+     */
+    int deleteByUserId(String userId);
+    
+    /**
+     * 删除全部过期数据
+     * 
+     * @return 删除数量
+     */
+    int deleteExpiredData();
+    
+    /**
+     * 获取存储统计信息
+     * 
+     * @return 统计信息
+     */
+    Map<String, Object> getSystemStats();
+    
+    /**
+     * 逐条遍历全部有效数据，实现需保证内存占用与数据量无关
+     * 
+     * @param consumer 数据处理逻辑
+     * @return 遍历数量
+     */
+    int scanAll(Consumer<CookieData> consumer);
+    
+    /**
+     * 批量写入Cookie数据，用户已存在时覆盖
+     * 
+     * @param batch Cookie数据
+     * @return 写入数量
+     */
+    int upsertBatch(List<CookieData> batch);
+    
+    /**
+     * 查询已到压缩时间的有效数据
+     * 
+     * @param limit 最大数量
+     * @return Cookie数据
+     */
+    List<CookieData> findPruneCandidates(int limit);
+    
+    /**
+     * 写回压缩后的数据，仅当版本号与读取时一致才更新；不修改更新时间，更新时间只表示最近一次上传
+     * 
+     * @param cookieData 压缩后的Cookie数据
+     * @return 影响行数，期间有新的上传时为0
+     */
+    int updatePrunedData(CookieData cookieData);
+    
+    /**
+     * 按主键顺序查询不是由指定主密钥包装的数据密钥，包括数据密钥为空（使用静态密钥）的历史数据
+     * 
+     * @param masterKeyId 当前主密钥ID
+     * @param afterId 上一批最后一条的主键ID，从头开始时为0
+     * @param limit 最大数量
+     * @return 待轮换的数据密钥
+     */
+    List<WrappedDataKey> findStaleDataKeys(String masterKeyId, long afterId, int limit);
+    
+    /**
+     * 写入重新包装的数据密钥，仅当数据密钥与读取时一致（同为空也视为一致）才更新；不产生变更事件，缓存和备用节点保留旧的包装，
+     * 旧主密钥在这些副本过期前需保持配置
+     * 
+     * @param batch 重新包装的数据密钥
+     * @return 影响行数
+     */
+    int updateDataKeys(List<WrappedDataKey> batch);
+}
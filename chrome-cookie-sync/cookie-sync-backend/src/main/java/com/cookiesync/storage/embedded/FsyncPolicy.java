@@ -0,0 +1,25 @@
+package com.cookiesync.storage.embedded;
+
+/**
+ * 段日志刷盘策略
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public enum FsyncPolicy {
+
+    /**
+     * 每次写入后立即刷盘，崩溃不丢数据
+     */
+    ALWAYS,
+
+    /**
+     * 后台按固定间隔刷盘，崩溃最多丢失一个间隔内的写入
+     */
+    INTERVAL,
+
+    /**
+     * 不主动刷盘，由操作系统决定回写时机
+     */
+    NEVER
+}
@@ -0,0 +1,504 @@
+package com.cookiesync.storage.embedded;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * 内存映射段日志存储引擎
+ *
+ * 数据以追加方式写入预分配并内存映射的段文件，内存中维护 key -> 记录位置 的索引。
+ * 记录格式：[crc32c 4字节][记录体长度 4字节][类型 1字节][序列号 8字节][key长度 2字节][key][value]
+ * 启动时按序列号重放全部段文件重建索引，校验失败的尾部记录视为崩溃时的残缺写入并丢弃。
+ * 序列号随记录头持久化，恢复后不小于任何存活记录写入时预留的序列号，可作为上层的单调递增ID。
+ * 已封存段中失效数据比例超过阈值时，将存活记录复制到活跃段后删除原段文件。
+ * 本类不依赖Spring，可以独立使用和测试。
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Slf4j
+public class SegmentLogStore implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int RECORD_HEADER_LENGTH = 8;
+    private static final int BODY_FIXED_LENGTH = 1 + 8 + 2;
+    private static final byte TYPE_PUT = 1;
+    private static final byte TYPE_DELETE = 2;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final FsyncPolicy fsyncPolicy;
+    private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<String, Location> index = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Location> tombstones = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Object writeLock = new Object();
+    private final ScheduledExecutorService flusher;
+    private volatile Segment active;
+
+    public SegmentLogStore(Path directory, int segmentSize, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsyncPolicy = fsyncPolicy;
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("段日志恢复失败: " + directory, e);
+        }
+        if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "segment-log-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::sync, fsyncIntervalMillis, fsyncIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    /**
+     * 读取value，不存在时返回null
+     */
+    public byte[] get(String key) {
+        while (true) {
+            Location location = index.get(key);
+            if (location == null) {
+                return null;
+            }
+            Segment segment = segments.get(location.segmentId);
+            if (segment != null) {
+                return segment.readValue(location);
+            }
+            // 段在读取期间被压缩删除，索引已指向新位置，重新读取
+        }
+    }
+
+    /**
+     * 读取value的前maxLength字节，不存在时返回null
+     * 记录已在写入或恢复时校验，前缀读取不再计算整条记录的CRC
+     */
+    public byte[] get(String key, int maxLength) {
+        while (true) {
+            Location location = index.get(key);
+            if (location == null) {
+                return null;
+            }
+            Segment segment = segments.get(location.segmentId);
+            if (segment != null) {
+                return segment.readValuePrefix(location, maxLength);
+            }
+        }
+    }
+
+    /**
+     * 预留一个序列号，重启后恢复的序列号不会小于仍存活的记录写入前预留的值
+     */
+    public long reserveSequence() {
+        return sequence.incrementAndGet();
+    }
+
+    /**
+     * 写入或覆盖value
+     */
+    public void put(String key, byte[] value) {
+        synchronized (writeLock) {
+            Location location = append(TYPE_PUT, sequence.incrementAndGet(), key, value);
+            release(index.put(key, location));
+            release(tombstones.remove(key));
+        }
+    }
+
+    /**
+     * 删除key，返回删除前是否存在
+     */
+    public boolean delete(String key) {
+        synchronized (writeLock) {
+            Location previous = index.remove(key);
+            if (previous == null) {
+                return false;
+            }
+            release(previous);
+            release(tombstones.put(key, append(TYPE_DELETE, sequence.incrementAndGet(), key, new byte[0])));
+            return true;
+        }
+    }
+
+    /**
+     * 当前所有key的快照
+     */
+    public Set<String> keys() {
+        return Set.copyOf(index.keySet());
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * 压缩失效数据比例不低于阈值的已封存段
+     *
+     * @param garbageRatio 失效数据比例阈值（0-1）
+     * @return 被压缩的段数量
+     */
+    public int compact(double garbageRatio) {
+        int compacted = 0;
+        for (Segment segment : List.copyOf(segments.values())) {
+            if (segment == active || segment.writePosition == 0) {
+                continue;
+            }
+            double garbage = 1.0 - (double) segment.liveBytes.get() / segment.writePosition;
+            if (garbage >= garbageRatio) {
+                compactSegment(segment);
+                compacted++;
+            }
+        }
+        return compacted;
+    }
+
+    /**
+     * 将活跃段刷盘
+     */
+    public void sync() {
+        Segment segment = active;
+        if (segment != null) {
+            segment.mapping.force();
+        }
+    }
+
+    /**
+     * 存储统计信息
+     */
+    public Map<String, Object> stats() {
+        long totalBytes = 0;
+        long liveBytes = 0;
+        for (Segment segment : segments.values()) {
+            totalBytes += segment.writePosition;
+            liveBytes += segment.liveBytes.get();
+        }
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("segments", segments.size());
+        stats.put("keys", index.size());
+        stats.put("tombstones", tombstones.size());
+        stats.put("totalBytes", totalBytes);
+        stats.put("liveBytes", liveBytes);
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        synchronized (writeLock) {
+            if (fsyncPolicy != FsyncPolicy.NEVER) {
+                sync();
+            }
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+        }
+    }
+
+    /**
+     * 将存活记录复制到活跃段后删除原段
+     * 最旧段中的删除标记可以直接丢弃：被它覆盖的旧记录只可能存在于同一段内
+     */
+    private void compactSegment(Segment segment) {
+        boolean oldest = segment.id == segments.firstKey();
+        int position = 0;
+        while (position < segment.writePosition) {
+            Record record = segment.readRecord(position);
+            synchronized (writeLock) {
+                Map<String, Location> owner = record.type == TYPE_PUT ? index : tombstones;
+                Location current = owner.get(record.key);
+                if (current != null && current.segmentId == segment.id && current.offset == position) {
+                    if (record.type == TYPE_DELETE && oldest) {
+                        tombstones.remove(record.key);
+                    } else {
+                        owner.put(record.key, append(record.type, record.sequence, record.key, record.value));
+                    }
+                }
+            }
+            position += record.length;
+        }
+
+        synchronized (writeLock) {
+            // 复制的记录落盘后才删除原段
+            if (fsyncPolicy != FsyncPolicy.NEVER) {
+                sync();
+            }
+            segments.remove(segment.id);
+        }
+        segment.close();
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            log.warn("删除已压缩段文件失败: {}", segment.path, e);
+        }
+        log.info("段压缩完成 - 段: {}, 剩余段数: {}", segment.path.getFileName(), segments.size());
+    }
+
+    /**
+     * 追加一条记录，调用方需持有写锁
+     */
+    private Location append(byte type, long recordSequence, String key, byte[] value) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int bodyLength = BODY_FIXED_LENGTH + keyBytes.length + value.length;
+        int recordLength = RECORD_HEADER_LENGTH + bodyLength;
+
+        Segment segment = active;
+        if (segment == null || segment.remaining() < recordLength) {
+            segment = roll(recordLength);
+        }
+
+        int offset = segment.writePosition;
+        ByteBuffer buffer = segment.mapping.duplicate();
+        buffer.position(offset + RECORD_HEADER_LENGTH);
+        buffer.put(type).putLong(recordSequence).putShort((short) keyBytes.length).put(keyBytes).put(value);
+        buffer.position(offset + RECORD_HEADER_LENGTH);
+        buffer.limit(offset + recordLength);
+        CRC32C crc = new CRC32C();
+        crc.update(buffer);
+        // 先写记录体再写头部，头部是记录有效的标志
+        segment.mapping.putInt(offset + 4, bodyLength);
+        segment.mapping.putInt(offset, (int) crc.getValue());
+        segment.writePosition = offset + recordLength;
+        segment.liveBytes.addAndGet(recordLength);
+
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            segment.mapping.force(offset, recordLength);
+        }
+        return new Location(segment.id, offset, recordLength);
+    }
+
+    /**
+     * 记录失效，扣减所在段的存活字节数
+     */
+    private void release(Location location) {
+        if (location != null) {
+            Segment segment = segments.get(location.segmentId);
+            if (segment != null) {
+                segment.liveBytes.addAndGet(-location.length);
+            }
+        }
+    }
+
+    /**
+     * 封存当前活跃段并创建新段，超大记录使用独立的大段
+     */
+    private Segment roll(int recordLength) {
+        Segment previous = active;
+        if (previous != null && fsyncPolicy != FsyncPolicy.NEVER) {
+            previous.mapping.force();
+        }
+        int id = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+        try {
+            Segment segment = Segment.open(segmentPath(id), id, Math.max(segmentSize, recordLength));
+            segments.put(id, segment);
+            active = segment;
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("创建段文件失败", e);
+        }
+    }
+
+    /**
+     * 崩溃恢复：按段顺序扫描全部记录，每个key取序列号最大的记录
+     */
+    private void recover() throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().toList();
+        }
+
+        Map<String, Long> latest = new HashMap<>();
+        List<Segment> opened = new ArrayList<>();
+        for (Path path : paths) {
+            String name = path.getFileName().toString();
+            int id = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            Segment segment = Segment.open(path, id, (int) Files.size(path));
+            segments.put(id, segment);
+            opened.add(segment);
+
+            int position = 0;
+            Record record;
+            while ((record = segment.tryReadRecord(position)) != null) {
+                sequence.accumulateAndGet(record.sequence, Math::max);
+                Long seen = latest.get(record.key);
+                if (seen == null || record.sequence > seen) {
+                    latest.put(record.key, record.sequence);
+                    Location location = new Location(id, position, record.length);
+                    if (record.type == TYPE_PUT) {
+                        index.put(record.key, location);
+                        tombstones.remove(record.key);
+                    } else {
+                        index.remove(record.key);
+                        tombstones.put(record.key, location);
+                    }
+                }
+                position += record.length;
+            }
+            segment.writePosition = position;
+        }
+
+        for (Location location : index.values()) {
+            segments.get(location.segmentId).liveBytes.addAndGet(location.length);
+        }
+        for (Location location : tombstones.values()) {
+            segments.get(location.segmentId).liveBytes.addAndGet(location.length);
+        }
+        if (!opened.isEmpty()) {
+            active = opened.get(opened.size() - 1);
+            // 清除活跃段残缺的尾部写入，避免后续追加后被误认为有效记录
+            active.zeroFrom(active.writePosition);
+        }
+        log.info("段日志恢复完成 - 目录: {}, 段数: {}, key数: {}", directory, segments.size(), index.size());
+    }
+
+    private Path segmentPath(int id) {
+        return directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * 记录位置
+     */
+    private record Location(int segmentId, int offset, int length) {
+    }
+
+    /**
+     * 解析后的记录
+     */
+    private record Record(byte type, long sequence, String key, byte[] value, int length) {
+    }
+
+    /**
+     * 内存映射的段文件
+     */
+    private static final class Segment {
+
+        final int id;
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer mapping;
+        final AtomicLong liveBytes = new AtomicLong();
+        volatile int writePosition;
+
+        private Segment(int id, Path path, FileChannel channel, MappedByteBuffer mapping) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.mapping = mapping;
+        }
+
+        static Segment open(Path path, int id, int size) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            return new Segment(id, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+
+        int capacity() {
+            return mapping.capacity();
+        }
+
+        int remaining() {
+            return capacity() - writePosition;
+        }
+
+        byte[] readValue(Location location) {
+            Record record = readRecord(location.offset);
+            return record.value;
+        }
+
+        byte[] readValuePrefix(Location location, int maxLength) {
+            ByteBuffer buffer = mapping.duplicate();
+            int valueOffset = location.offset + RECORD_HEADER_LENGTH + BODY_FIXED_LENGTH
+                    + (buffer.getShort(location.offset + RECORD_HEADER_LENGTH + 1 + 8) & 0xffff);
+            byte[] value = new byte[Math.min(maxLength, location.offset + location.length - valueOffset)];
+            buffer.get(valueOffset, value);
+            return value;
+        }
+
+        Record readRecord(int position) {
+            Record record = tryReadRecord(position);
+            if (record == null) {
+                throw new IllegalStateException("段 " + path.getFileName() + " 偏移 " + position + " 处记录损坏");
+            }
+            return record;
+        }
+
+        /**
+         * 读取并校验记录，到达段尾或校验失败时返回null
+         */
+        Record tryReadRecord(int position) {
+            if (position + RECORD_HEADER_LENGTH > capacity()) {
+                return null;
+            }
+            ByteBuffer buffer = mapping.duplicate();
+            int checksum = buffer.getInt(position);
+            int bodyLength = buffer.getInt(position + 4);
+            if (bodyLength < BODY_FIXED_LENGTH || position + RECORD_HEADER_LENGTH + bodyLength > capacity()) {
+                return null;
+            }
+            buffer.position(position + RECORD_HEADER_LENGTH).limit(position + RECORD_HEADER_LENGTH + bodyLength);
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                return null;
+            }
+            byte type = buffer.get();
+            long recordSequence = buffer.getLong();
+            byte[] keyBytes = new byte[buffer.getShort() & 0xffff];
+            buffer.get(keyBytes);
+            byte[] value = new byte[buffer.remaining()];
+            buffer.get(value);
+            return new Record(type, recordSequence, new String(keyBytes, StandardCharsets.UTF_8), value,
+                    RECORD_HEADER_LENGTH + bodyLength);
+        }
+
+        void zeroFrom(int position) {
+            ByteBuffer buffer = mapping.duplicate();
+            buffer.position(position);
+            byte[] zeros = new byte[8192];
+            while (buffer.hasRemaining()) {
+                buffer.put(zeros, 0, Math.min(zeros.length, buffer.remaining()));
+            }
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("关闭段文件失败: {}", path, e);
+            }
+        }
+    }
+}
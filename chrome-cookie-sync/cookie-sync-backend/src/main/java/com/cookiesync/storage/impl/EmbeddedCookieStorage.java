@@ -0,0 +1,439 @@
+package com.cookiesync.storage.impl;
+
+import com.cookiesync.entity.CookieChangeEvent;
+import com.cookiesync.entity.CookieData;
+import com.cookiesync.entity.WrappedDataKey;
+import com.cookiesync.outbox.ChangeCapture;
+import com.cookiesync.outbox.ChangeOutbox;
+import com.cookiesync.storage.CookieStorage;
+import com.cookiesync.storage.embedded.FsyncPolicy;
+import com.cookiesync.storage.embedded.SegmentLogStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 基于内嵌段日志的Cookie数据存储
+ * 适用于单节点部署，无需外部数据库，删除为物理删除；开启发件箱时写入后追加变更事件
+ * <ul>
+ *     <li>记录格式：[元数据长度 4字节][元数据JSON][加密数据]，读取元数据只需读取记录前缀</li>
+ *     <li>ID取自段日志的序列号，随记录头持久化，启动时无需解析记录</li>
+ *     <li>统计、过期清理、压缩候选与密钥轮换扫描使用内存中的元数据索引，索引在首次扫描时按记录前缀建立，之后随写入更新</li>
+ *     <li>读-改-写按用户加分段锁，同一用户的并发更新串行执行</li>
+ * </ul>
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cookie-sync.storage.type", havingValue = "embedded")
+public class EmbeddedCookieStorage implements CookieStorage {
+
+    @Value("${cookie-sync.storage.embedded.directory:./data/cookie-store}")
+    private String directory;
+
+    @Value("${cookie-sync.storage.embedded.segment-size:67108864}")
+    private int segmentSize;
+
+    @Value("${cookie-sync.storage.embedded.fsync-policy:INTERVAL}")
+    private FsyncPolicy fsyncPolicy;
+
+    @Value("${cookie-sync.storage.embedded.fsync-interval:1000}")
+    private long fsyncInterval;
+
+    @Value("${cookie-sync.storage.embedded.compaction-garbage-ratio:0.5}")
+    private double compactionGarbageRatio;
+
+    /**
+     * 未开启发件箱时为空
+     */
+    @Autowired(required = false)
+    private ChangeOutbox changeOutbox;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private final Object[] locks = new Object[64];
+
+    /**
+     * 用户ID -> 不含加密数据的元数据
+     */
+    private final Map<String, CookieData> metadataIndex = new ConcurrentHashMap<>();
+
+    private volatile boolean metadataLoaded;
+
+    private SegmentLogStore store;
+
+    @PostConstruct
+    public void init() {
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        store = new SegmentLogStore(Paths.get(directory), segmentSize, fsyncPolicy, fsyncInterval);
+        log.info("内嵌存储初始化完成 - 目录: {}, 刷盘策略: {}, 用户数: {}", directory, fsyncPolicy, store.size());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        store.close();
+    }
+
+    /**
+     * 定期压缩失效数据较多的段
+     */
+    @Scheduled(fixedDelayString = "${cookie-sync.storage.embedded.compaction-interval:60000}")
+    public void compact() {
+        int compacted = store.compact(compactionGarbageRatio);
+        if (compacted > 0) {
+            log.info("内嵌存储压缩完成 - 压缩段数: {}, 存储状态: {}", compacted, store.stats());
+        }
+    }
+
+    @Override
+    public int insert(CookieData cookieData) {
+        synchronized (lockFor(cookieData.getUserId())) {
+            if (store.get(cookieData.getUserId(), 0) != null) {
+                throw new DuplicateKeyException("用户数据已存在 - 用户ID: " + cookieData.getUserId());
+            }
+            cookieData.setId(store.reserveSequence());
+            if (cookieData.getStatus() == null) {
+                cookieData.setStatus(0);
+            }
+            write(cookieData);
+        }
+        capture(List.of(CookieChangeEvent.upsert(cookieData)));
+        return 1;
+    }
+
+    @Override
+    public CookieData findByUserId(String userId) {
+        return read(userId);
+    }
+
+    @Override
+    public List<CookieData> findByUserIds(Collection<String> userIds) {
+        List<CookieData> found = new ArrayList<>(userIds.size());
+        for (String userId : userIds) {
+            CookieData cookieData = read(userId);
+            if (cookieData != null) {
+                found.add(cookieData);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 只读取记录前缀中的元数据，不读取加密数据
+     */
+    @Override
+    public List<CookieData> findMetadataByUserIds(Collection<String> userIds) {
+        List<CookieData> found = new ArrayList<>(userIds.size());
+        for (String userId : userIds) {
+            CookieData cookieData = readMetadata(userId);
+            if (cookieData != null) {
+                cookieData.setDataKey(null);
+                found.add(cookieData);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public int updateByUserId(CookieData cookieData) {
+        synchronized (lockFor(cookieData.getUserId())) {
+            CookieData existing = readMetadata(cookieData.getUserId());
+            if (existing == null) {
+                return 0;
+            }
+            cookieData.setId(existing.getId());
+            cookieData.setCreateTime(existing.getCreateTime());
+            cookieData.setStatus(existing.getStatus());
+            cookieData.setRemark(existing.getRemark());
+            cookieData.setUpdateTime(LocalDateTime.now());
+            write(cookieData);
+        }
+        capture(List.of(CookieChangeEvent.upsert(cookieData)));
+        return 1;
+    }
+
+    @Override
+    public int deleteByUserId(String userId) {
+        if (!remove(userId, null)) {
+            return 0;
+        }
+        capture(List.of(CookieChangeEvent.delete(userId)));
+        return 1;
+    }
+
+    @Override
+    public int deleteExpiredData() {
+        LocalDateTime now = LocalDateTime.now();
+        int deleted = 0;
+        for (CookieData metadata : metadata()) {
+            if (metadata.getExpireTime() != null && metadata.getExpireTime().isBefore(now)
+                    && remove(metadata.getUserId(), now)) {
+                deleted++;
+            }
+        }
+        if (deleted > 0) {
+            capture(List.of(CookieChangeEvent.expire()));
+        }
+        return deleted;
+    }
+
+    @Override
+    public Map<String, Object> getSystemStats() {
+        long totalCookies = 0;
+        long totalDataSize = 0;
+        int totalUsers = 0;
+        for (CookieData metadata : metadata()) {
+            totalUsers++;
+            totalCookies += metadata.getCookieCount() == null ? 0 : metadata.getCookieCount();
+            totalDataSize += metadata.getDataSize() == null ? 0 : metadata.getDataSize();
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalUsers", totalUsers);
+        stats.put("totalCookies", totalCookies);
+        stats.put("totalDataSize", totalDataSize);
+        stats.put("avgCookiesPerUser", totalUsers == 0 ? 0 : (double) totalCookies / totalUsers);
+        stats.put("storage", store.stats());
+        return stats;
+    }
+
+    @Override
+    public int scanAll(Consumer<CookieData> consumer) {
+        int count = 0;
+        for (String userId : store.keys()) {
+            CookieData cookieData = read(userId);
+            if (cookieData != null) {
+                consumer.accept(cookieData);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int upsertBatch(List<CookieData> batch) {
+        LocalDateTime now = LocalDateTime.now();
+        List<CookieChangeEvent> events = new ArrayList<>(batch.size());
+        for (CookieData cookieData : batch) {
+            synchronized (lockFor(cookieData.getUserId())) {
+                CookieData existing = readMetadata(cookieData.getUserId());
+                cookieData.setId(existing != null ? existing.getId() : store.reserveSequence());
+                if (cookieData.getCreateTime() == null) {
+                    cookieData.setCreateTime(now);
+                }
+                if (cookieData.getUpdateTime() == null) {
+                    cookieData.setUpdateTime(now);
+                }
+                cookieData.setStatus(0);
+                write(cookieData);
+            }
+            events.add(CookieChangeEvent.upsert(cookieData));
+        }
+        capture(events);
+        return batch.size();
+    }
+
+    @Override
+    public List<CookieData> findPruneCandidates(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<CookieData> candidates = new ArrayList<>();
+        for (CookieData metadata : metadata()) {
+            if (metadata.getPruneTime() == null || metadata.getPruneTime().isAfter(now)) {
+                continue;
+            }
+            CookieData cookieData = read(metadata.getUserId());
+            if (cookieData != null) {
+                candidates.add(cookieData);
+                if (candidates.size() >= limit) {
+                    break;
+                }
+            }
+        }
+        return candidates;
+    }
+
+    @Override
+    public int updatePrunedData(CookieData cookieData) {
+        CookieData existing;
+        synchronized (lockFor(cookieData.getUserId())) {
+            existing = readMetadata(cookieData.getUserId());
+            if (existing == null || !Objects.equals(existing.getVersion(), cookieData.getVersion())) {
+                return 0;
+            }
+            existing.setEncryptedData(cookieData.getEncryptedData());
+            existing.setDataSize(cookieData.getDataSize());
+            existing.setCookieCount(cookieData.getCookieCount());
+            existing.setPruneTime(cookieData.getPruneTime());
+            write(existing);
+        }
+        capture(List.of(CookieChangeEvent.upsert(existing)));
+        return 1;
+    }
+
+    /**
+     * 段日志按用户索引，每批都需遍历元数据索引，适合单节点的数据规模
+     */
+    @Override
+    public List<WrappedDataKey> findStaleDataKeys(String masterKeyId, long afterId, int limit) {
+        String prefix = masterKeyId + ":";
+        List<WrappedDataKey> stale = new ArrayList<>();
+        for (CookieData metadata : metadata()) {
+            if (metadata.getId() != null && metadata.getId() > afterId
+                    && (metadata.getDataKey() == null || !metadata.getDataKey().startsWith(prefix))) {
+                stale.add(new WrappedDataKey(metadata.getId(), metadata.getUserId(), null, metadata.getDataKey(), null));
+            }
+        }
+        stale.sort(Comparator.comparing(WrappedDataKey::getId));
+        return stale.size() > limit ? new ArrayList<>(stale.subList(0, limit)) : stale;
+    }
+
+    /**
+     * 段日志只能整条追加，重新包装时重写整条记录
+     */
+    @Override
+    public int updateDataKeys(List<WrappedDataKey> batch) {
+        int updated = 0;
+        for (WrappedDataKey key : batch) {
+            synchronized (lockFor(key.getUserId())) {
+                CookieData existing = read(key.getUserId());
+                if (existing != null && Objects.equals(existing.getDataKey(), key.getDataKey())) {
+                    existing.setDataKey(key.getRotatedKey());
+                    write(existing);
+                    updated++;
+                }
+            }
+        }
+        return updated;
+    }
+
+    private void capture(List<CookieChangeEvent> events) {
+        if (changeOutbox != null && ChangeCapture.isActive() && !events.isEmpty()) {
+            changeOutbox.append(events);
+        }
+    }
+
+    private Object lockFor(String userId) {
+        return locks[Math.floorMod(userId.hashCode(), locks.length)];
+    }
+
+    /**
+     * 元数据索引，首次调用时按记录前缀建立
+     * 建立时逐个用户加锁读取，与并发的写入和删除互不覆盖
+     */
+    private Collection<CookieData> metadata() {
+        if (!metadataLoaded) {
+            synchronized (metadataIndex) {
+                if (!metadataLoaded) {
+                    for (String userId : store.keys()) {
+                        synchronized (lockFor(userId)) {
+                            CookieData metadata = readMetadata(userId);
+                            if (metadata != null) {
+                                metadataIndex.put(userId, metadata);
+                            }
+                        }
+                    }
+                    metadataLoaded = true;
+                    log.info("内嵌存储元数据索引建立完成 - 用户数: {}", metadataIndex.size());
+                }
+            }
+        }
+        return metadataIndex.values();
+    }
+
+    /**
+     * 删除用户数据，expiredBefore不为空时只删除加锁后仍在该时间前过期的数据
+     */
+    private boolean remove(String userId, LocalDateTime expiredBefore) {
+        synchronized (lockFor(userId)) {
+            if (expiredBefore != null) {
+                CookieData metadata = metadataIndex.get(userId);
+                if (metadata == null || metadata.getExpireTime() == null
+                        || !metadata.getExpireTime().isBefore(expiredBefore)) {
+                    return false;
+                }
+            }
+            metadataIndex.remove(userId);
+            return store.delete(userId);
+        }
+    }
+
+    private CookieData read(String userId) {
+        byte[] bytes = store.get(userId);
+        if (bytes == null) {
+            return null;
+        }
+        int metadataLength = ByteBuffer.wrap(bytes).getInt();
+        CookieData cookieData = parse(userId, bytes, 4, metadataLength);
+        cookieData.setEncryptedData(new String(bytes, 4 + metadataLength, bytes.length - 4 - metadataLength,
+                StandardCharsets.UTF_8));
+        return cookieData;
+    }
+
+    /**
+     * 读取不含加密数据的元数据，只读取记录前缀
+     */
+    private CookieData readMetadata(String userId) {
+        byte[] head = store.get(userId, 4);
+        if (head == null) {
+            return null;
+        }
+        int metadataLength = ByteBuffer.wrap(head).getInt();
+        byte[] prefix = store.get(userId, 4 + metadataLength);
+        return prefix == null ? null : parse(userId, prefix, 4, metadataLength);
+    }
+
+    private CookieData parse(String userId, byte[] bytes, int offset, int length) {
+        try {
+            return objectMapper.readValue(bytes, offset, length, CookieData.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("内嵌存储数据解析失败 - 用户ID: " + userId, e);
+        }
+    }
+
+    /**
+     * 写入记录并更新元数据索引，调用方需持有该用户的锁
+     */
+    private void write(CookieData cookieData) {
+        try {
+            ObjectNode metadata = objectMapper.valueToTree(cookieData);
+            metadata.remove("encryptedData");
+            byte[] metadataBytes = objectMapper.writeValueAsBytes(metadata);
+            byte[] payload = cookieData.getEncryptedData() == null
+                    ? new byte[0] : cookieData.getEncryptedData().getBytes(StandardCharsets.UTF_8);
+            store.put(cookieData.getUserId(), ByteBuffer.allocate(4 + metadataBytes.length + payload.length)
+                    .putInt(metadataBytes.length).put(metadataBytes).put(payload).array());
+            metadataIndex.put(cookieData.getUserId(), objectMapper.treeToValue(metadata, CookieData.class));
+        } catch (IOException e) {
+            throw new UncheckedIOException("内嵌存储数据序列化失败 - 用户ID: " + cookieData.getUserId(), e);
+        }
+    }
+}
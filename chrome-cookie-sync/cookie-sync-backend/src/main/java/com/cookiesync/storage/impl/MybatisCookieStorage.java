@@ -0,0 +1,169 @@
+package com.cookiesync.storage.impl;
+
+import com.cookiesync.entity.CookieChangeEvent;
+import com.cookiesync.entity.CookieData;
+import com.cookiesync.entity.WrappedDataKey;
+import com.cookiesync.mapper.CookieDataMapper;
+import com.cookiesync.outbox.ChangeCapture;
+import com.cookiesync.outbox.ChangeOutbox;
+import com.cookiesync.storage.CookieStorage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 基于MySQL的Cookie数据存储
+ * 开启发件箱时写入操作在同一事务中追加变更事件。调用方已开启事务时直接在其中执行，不再声明事务：
+ * 写入失败（如并发首次上传的唯一键冲突）只抛出异常，是否回滚由调用方决定，不会把调用方的事务标记为只能回滚
+ * 
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Component
+@ConditionalOnProperty(name = "cookie-sync.storage.type", havingValue = "mysql", matchIfMissing = true)
+public class MybatisCookieStorage implements CookieStorage {
+
+    @Autowired
+    private CookieDataMapper cookieDataMapper;
+
+    /**
+     * 未开启发件箱时为空
+     */
+    @Autowired(required = false)
+    private ChangeOutbox changeOutbox;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Override
+    public int insert(CookieData cookieData) {
+        return write(() -> cookieDataMapper.insert(cookieData), () -> List.of(CookieChangeEvent.upsert(cookieData)));
+    }
+
+    @Override
+    public CookieData findByUserId(String userId) {
+        return cookieDataMapper.findByUserId(userId);
+    }
+
+    @Override
+    public List<CookieData> findByUserIds(Collection<String> userIds) {
+        return userIds.isEmpty() ? new ArrayList<>() : cookieDataMapper.findByUserIds(userIds);
+    }
+
+    @Override
+    public List<CookieData> findMetadataByUserIds(Collection<String> userIds) {
+        return userIds.isEmpty() ? new ArrayList<>() : cookieDataMapper.findMetadataByUserIds(userIds);
+    }
+
+    @Override
+    public int updateByUserId(CookieData cookieData) {
+        return write(() -> cookieDataMapper.updateByUserId(cookieData), () -> List.of(CookieChangeEvent.upsert(cookieData)));
+    }
+
+    @Override
+    public int deleteByUserId(String userId) {
+        return write(() -> cookieDataMapper.deleteByUserId(userId), () -> List.of(CookieChangeEvent.delete(userId)));
+    }
+
+    @Override
+    public int deleteExpiredData() {
+        return write(cookieDataMapper::deleteExpiredData, () -> List.of(CookieChangeEvent.expire()));
+    }
+
+    @Override
+    public Map<String, Object> getSystemStats() {
+        return cookieDataMapper.getSystemStats();
+    }
+
+    /**
+     * 游标在事务提交前保持打开，调用方在consumer中完成写出
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public int scanAll(Consumer<CookieData> consumer) {
+        try (Cursor<CookieData> cursor = cookieDataMapper.scanAll()) {
+            int count = 0;
+            for (CookieData cookieData : cursor) {
+                consumer.accept(cookieData);
+                count++;
+            }
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException("关闭Cookie数据游标失败", e);
+        }
+    }
+
+    @Override
+    public int upsertBatch(List<CookieData> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        write(() -> {
+            cookieDataMapper.upsertBatch(batch);
+            return batch.size();
+        }, () -> {
+            List<CookieChangeEvent> events = new ArrayList<>(batch.size());
+            for (CookieData cookieData : batch) {
+                events.add(CookieChangeEvent.upsert(cookieData));
+            }
+            return events;
+        });
+        return batch.size();
+    }
+
+    @Override
+    public List<CookieData> findPruneCandidates(int limit) {
+        return cookieDataMapper.findPruneCandidates(limit);
+    }
+
+    @Override
+    public int updatePrunedData(CookieData cookieData) {
+        return write(() -> cookieDataMapper.updatePrunedData(cookieData), () -> List.of(CookieChangeEvent.upsert(cookieData)));
+    }
+
+    @Override
+    public List<WrappedDataKey> findStaleDataKeys(String masterKeyId, long afterId, int limit) {
+        return cookieDataMapper.findStaleDataKeys(masterKeyId, afterId, limit);
+    }
+
+    @Override
+    public int updateDataKeys(List<WrappedDataKey> batch) {
+        return batch.isEmpty() ? 0 : cookieDataMapper.updateDataKeys(batch);
+    }
+
+    /**
+     * 执行写入，有数据变化时追加变更事件
+     * 需要追加事件而调用方未开启事务时，开启一个事务使数据与事件一起提交
+     */
+    private int write(IntSupplier operation, Supplier<List<CookieChangeEvent>> events) {
+        if (changeOutbox == null || !ChangeCapture.isActive()) {
+            return operation.getAsInt();
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return writeAndCapture(operation, events);
+        }
+        return transactionTemplate.execute(status -> writeAndCapture(operation, events));
+    }
+
+    private int writeAndCapture(IntSupplier operation, Supplier<List<CookieChangeEvent>> events) {
+        int rows = operation.getAsInt();
+        if (rows > 0) {
+            changeOutbox.append(events.get());
+        }
+        return rows;
+    }
+}
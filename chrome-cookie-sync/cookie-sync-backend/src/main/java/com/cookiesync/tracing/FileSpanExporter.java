@@ -0,0 +1,99 @@
+package com.cookiesync.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+
+/**
+ * 文件Span导出器，每行一个Span（NDJSON），用于离线分析
+ * 文件超过大小上限时轮转为 .1 文件，最多占用两倍上限的磁盘空间
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Slf4j
+public class FileSpanExporter implements SpanExporter {
+
+    private final Path file;
+
+    private final long maxBytes;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private BufferedWriter writer;
+
+    private long written;
+
+    public FileSpanExporter(Path file, long maxBytes) throws IOException {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        open();
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> batch) {
+        try {
+            for (SpanData span : batch) {
+                String line = objectMapper.writeValueAsString(SpanMaps.toMap(span));
+                writer.write(line);
+                writer.newLine();
+                written += line.length() + 1;
+            }
+            writer.flush();
+            if (written >= maxBytes) {
+                rotate();
+            }
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            log.warn("Span写入文件失败 - 文件: {}, 错误: {}", file, e.getMessage());
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    @Override
+    public synchronized CompletableResultCode flush() {
+        try {
+            writer.flush();
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    @Override
+    public synchronized CompletableResultCode shutdown() {
+        try {
+            writer.close();
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    private void open() throws IOException {
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        written = Files.size(file);
+    }
+
+    private void rotate() throws IOException {
+        writer.close();
+        Files.move(file, file.resolveSibling(file.getFileName() + ".1"),
+                StandardCopyOption.REPLACE_EXISTING);
+        open();
+    }
+}
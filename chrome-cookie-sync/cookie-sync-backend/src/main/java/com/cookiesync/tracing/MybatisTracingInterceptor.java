@@ -0,0 +1,87 @@
+package com.cookiesync.tracing;
+
+import com.cookiesync.datasource.DataSourceContextHolder;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Mapper调用的Span
+ * 只在已有链路（接口请求）内创建，定时任务等后台操作不产生独立的链路
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Component
+@Intercepts({
+        @Signature(type = Executor.class, method = "update",
+                args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class}),
+        @Signature(type = Executor.class, method = "queryCursor",
+                args = {MappedStatement.class, Object.class, RowBounds.class})
+})
+public class MybatisTracingInterceptor implements Interceptor {
+
+    @Autowired
+    private Tracer tracer;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        if (!Span.current().getSpanContext().isValid()) {
+            return invocation.proceed();
+        }
+        MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+        Span span = tracer.spanBuilder(shortName(statement.getId()))
+                .setAttribute("db.system", "mysql")
+                .setAttribute("db.operation", statement.getSqlCommandType().name())
+                .setAttribute("db.statement.id", statement.getId())
+                .setAttribute("db.workload", DataSourceContextHolder.isReadOnly()
+                        ? "REPLICA" : DataSourceContextHolder.currentWorkload().name())
+                .startSpan();
+        try (Scope scope = span.makeCurrent()) {
+            Object result = invocation.proceed();
+            if (result instanceof List<?> rows) {
+                span.setAttribute("db.rows", rows.size());
+            } else if (result instanceof Integer affected) {
+                span.setAttribute("db.rows", affected);
+            } else if (result instanceof Cursor<?>) {
+                span.setAttribute("db.cursor", true);
+            }
+            return result;
+        } catch (Throwable e) {
+            span.recordException(e);
+            span.setStatus(StatusCode.ERROR);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * com.cookiesync.mapper.CookieDataMapper.findByUserId → CookieDataMapper.findByUserId
+     */
+    private static String shortName(String statementId) {
+        int method = statementId.lastIndexOf('.');
+        int type = method > 0 ? statementId.lastIndexOf('.', method - 1) : -1;
+        return statementId.substring(type + 1);
+    }
+}
@@ -0,0 +1,70 @@
+package com.cookiesync.tracing;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 内存Span导出器，保留最近的Span，供 /api/system/traces 按追踪ID查询
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public class RecentSpanExporter implements SpanExporter {
+
+    private final int maxSpans;
+
+    private final Deque<Map<String, Object>> spans = new ArrayDeque<>();
+
+    public RecentSpanExporter(int maxSpans) {
+        this.maxSpans = maxSpans;
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> batch) {
+        for (SpanData span : batch) {
+            if (spans.size() >= maxSpans) {
+                spans.removeFirst();
+            }
+            spans.addLast(SpanMaps.toMap(span));
+        }
+        return CompletableResultCode.ofSuccess();
+    }
+
+    /**
+     * 查询最近的Span
+     *
+     * @param traceId 追踪ID，为空时返回全部
+     * @param limit 最多返回的数量，从最新的开始
+     * @return Span列表，按结束时间排列
+     */
+    public synchronized List<Map<String, Object>> find(String traceId, int limit) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        var iterator = spans.descendingIterator();
+        while (iterator.hasNext() && result.size() < limit) {
+            Map<String, Object> span = iterator.next();
+            if (traceId == null || traceId.equals(span.get("traceId"))) {
+                result.add(0, span);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public synchronized CompletableResultCode shutdown() {
+        spans.clear();
+        return CompletableResultCode.ofSuccess();
+    }
+}
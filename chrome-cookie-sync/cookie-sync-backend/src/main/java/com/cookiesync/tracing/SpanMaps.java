@@ -0,0 +1,38 @@
+package com.cookiesync.tracing;
+
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 将Span转换为便于序列化和查询的Map
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+final class SpanMaps {
+
+    private SpanMaps() {
+    }
+
+    static Map<String, Object> toMap(SpanData span) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("traceId", span.getTraceId());
+        map.put("spanId", span.getSpanId());
+        map.put("parentSpanId", span.getParentSpanContext().isValid() ? span.getParentSpanId() : null);
+        map.put("name", span.getName());
+        map.put("kind", span.getKind().name());
+        map.put("startTime", Instant.ofEpochSecond(0, span.getStartEpochNanos()).toString());
+        map.put("durationMicros", (span.getEndEpochNanos() - span.getStartEpochNanos()) / 1000);
+        map.put("status", span.getStatus().getStatusCode().name());
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        span.getAttributes().forEach((key, value) -> attributes.put(key.getKey(), value));
+        map.put("attributes", attributes);
+        if (!span.getEvents().isEmpty()) {
+            map.put("events", span.getEvents().stream().map(event -> event.getName()).toList());
+        }
+        return map;
+    }
+}
@@ -0,0 +1,94 @@
+package com.cookiesync.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.github.luben.zstd.ZstdInputStream;
+
+/**
+ * GZIP压缩工具类
+ * Cookie数据在加密前先压缩，存储和传输的都是压缩后的字节
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public final class CompressionUtil {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private CompressionUtil() {
+    }
+
+    /**
+     * GZIP压缩
+     */
+    public static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, BUFFER_SIZE)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException("数据压缩失败", e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * GZIP解压
+     */
+    public static byte[] gunzip(byte[] data) {
+        try (InputStream in = openGunzip(data)) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("数据解压失败", e);
+        }
+    }
+
+    /**
+     * 以流的方式解压，避免一次性物化解压结果
+     */
+    public static InputStream openGunzip(byte[] data) throws IOException {
+        return new GZIPInputStream(new ByteArrayInputStream(data), BUFFER_SIZE);
+    }
+
+    /**
+     * 按HTTP Content-Encoding 包装解压流，支持 gzip、deflate（zlib格式）和 zstd
+     *
+     * @param contentEncoding Content-Encoding 值，为空或 identity 时原样返回
+     * @param in 原始输入流
+     * @return 解压后的输入流
+     * @throws IllegalArgumentException 不支持的编码
+     */
+    public static InputStream openDecoding(String contentEncoding, InputStream in) throws IOException {
+        String encoding = contentEncoding == null ? "" : contentEncoding.trim().toLowerCase(Locale.ROOT);
+        switch (encoding) {
+            case "":
+            case "identity":
+                return in;
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream(in, BUFFER_SIZE);
+            case "deflate":
+                return new InflaterInputStream(in);
+            case "zstd":
+                return new ZstdInputStream(in);
+            default:
+                throw new IllegalArgumentException("不支持的Content-Encoding: " + contentEncoding);
+        }
+    }
+
+    /**
+     * 判断数据是否为GZIP格式（魔数 0x1f 0x8b）
+     * 明文JSON不可能以该字节开头，据此兼容压缩前写入的历史数据
+     */
+    public static boolean isGzip(byte[] data) {
+        return data != null && data.length >= 2
+                && (data[0] & 0xff) == 0x1f && (data[1] & 0xff) == 0x8b;
+    }
+}
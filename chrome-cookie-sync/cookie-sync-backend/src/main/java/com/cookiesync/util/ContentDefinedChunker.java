@@ -0,0 +1,92 @@
+package com.cookiesync.util;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * 基于内容的分块（FastCDC）
+ * 用Gear滚动哈希在内容中寻找切分点，插入或删除数据只影响附近的块，相邻版本的绝大多数块保持不变；
+ * 块长度在[最小, 最大]之间，低于平均长度时使用更严格的掩码，使块长度集中在平均值附近
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public class ContentDefinedChunker {
+
+    /**
+     * Gear表由固定种子生成，切分点在各实例间及重启前后保持一致
+     */
+    private static final long[] GEAR = new SplittableRandom(0x436f6f6b696553L).longs(256).toArray();
+
+    private final int minSize;
+
+    private final int avgSize;
+
+    private final int maxSize;
+
+    private final long maskSmall;
+
+    private final long maskLarge;
+
+    /**
+     * @param minSize 最小块长度
+     * @param avgSize 平均块长度，按2的幂取整
+     * @param maxSize 最大块长度
+     */
+    public ContentDefinedChunker(int minSize, int avgSize, int maxSize) {
+        int bits = 31 - Integer.numberOfLeadingZeros(Math.max(avgSize, 64));
+        this.minSize = minSize;
+        this.avgSize = 1 << bits;
+        this.maxSize = Math.max(maxSize, minSize + 1);
+        // 使用哈希的高位，切分点取决于最近64个字节
+        this.maskSmall = -1L << (64 - (bits + 2));
+        this.maskLarge = -1L << (64 - (bits - 2));
+    }
+
+    /**
+     * 切分数据
+     *
+     * @param data 数据
+     * @return 各块的结束位置（不含），最后一个等于数据长度；数据为空时返回空数组
+     */
+    public int[] split(byte[] data) {
+        int[] ends = new int[Math.max(4, data.length / avgSize * 2)];
+        int count = 0;
+        int start = 0;
+        while (start < data.length) {
+            int end = start + cut(data, start, data.length - start);
+            if (count == ends.length) {
+                ends = Arrays.copyOf(ends, count * 2);
+            }
+            ends[count++] = end;
+            start = end;
+        }
+        return Arrays.copyOf(ends, count);
+    }
+
+    /**
+     * 从起点开始寻找下一个切分点，返回块长度
+     */
+    private int cut(byte[] data, int start, int remaining) {
+        if (remaining <= minSize) {
+            return remaining;
+        }
+        int limit = Math.min(remaining, maxSize);
+        int normal = Math.min(limit, avgSize);
+        long hash = 0;
+        int i = minSize;
+        for (; i < normal; i++) {
+            hash = (hash << 1) + GEAR[data[start + i] & 0xff];
+            if ((hash & maskSmall) == 0) {
+                return i + 1;
+            }
+        }
+        for (; i < limit; i++) {
+            hash = (hash << 1) + GEAR[data[start + i] & 0xff];
+            if ((hash & maskLarge) == 0) {
+                return i + 1;
+            }
+        }
+        return limit;
+    }
+}
@@ -1,22 +1,46 @@
 package com.cookiesync.util;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.crypto.AEADBadTagException;
 import javax.crypto.Cipher;
 import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 /**
  * AES加密解密工具类
  * 使用AES-256-GCM模式，提供更高的安全性
  * 
+ * 数据按固定大小分段加密：[魔数 4字节][分段大小 4字节][nonce前缀 7字节][分段1密文+tag]...[分段N密文+tag]
+ * 每段nonce为 前缀 + 段序号 + 末段标记，段序号和末段标记同时计入AAD，分段无法被重排或截断。
+ * 各段可在ForkJoin线程池上并行加解密，也可逐段流式解密；不带魔数的历史数据按整体GCM格式解密。
+ * 
+ * 信封加密：每份数据使用随机生成的数据密钥加密，数据密钥由主密钥包装后与数据一同保存，格式为 主密钥ID:Base64(IV + 密文 + tag)。
+ * 轮换主密钥只需重新包装数据密钥，不必重新加密数据；解包后的数据密钥保存在LRU缓存中。
+ * 数据密钥为空表示历史数据，使用配置的静态密钥；轮换时把静态密钥包装为这些数据的数据密钥，密文不变。
+ * 带密钥摘要使用配置的静态密钥。
+ * 
  * @author Cookie Sync Team
  * @version 1.0.0
  */
@@ -29,9 +53,103 @@ public class EncryptionUtil {
     private static final int GCM_IV_LENGTH = 12;
     private static final int GCM_TAG_LENGTH = 16;
 
+    private static final byte[] CHUNKED_MAGIC = {'C', 'S', 'A', '1'};
+    private static final int NONCE_PREFIX_LENGTH = 7;
+    private static final int CHUNKED_HEADER_LENGTH = CHUNKED_MAGIC.length + 4 + NONCE_PREFIX_LENGTH;
+    private static final int MIN_CHUNK_SIZE = 1024;
+    private static final int MAX_CHUNK_SIZE = 16 * 1024 * 1024;
+
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    private static final int DATA_KEY_LENGTH = 32;
+    private static final char KEY_ID_SEPARATOR = ':';
+
+    /**
+     * 未配置主密钥时以静态密钥作为该ID的主密钥
+     */
+    public static final String DEFAULT_MASTER_KEY_ID = "default";
+
     @Value("${cookie-sync.security.encryption.key:CookieSyncSecretKey2024!@#$%^&*}")
     private String secretKey;
 
+    @Value("${cookie-sync.encryption.chunk-size:65536}")
+    private int chunkSize;
+
+    @Value("${cookie-sync.encryption.parallelism:0}")
+    private int parallelism;
+
+    /**
+     * 主密钥，格式为 ID:Base64密钥（32字节），逗号分隔
+     */
+    @Value("${cookie-sync.encryption.master-keys:}")
+    private String masterKeysConfig;
+
+    @Value("${cookie-sync.encryption.active-master-key:" + DEFAULT_MASTER_KEY_ID + "}")
+    private String activeMasterKeyId;
+
+    @Value("${cookie-sync.encryption.data-key-cache-size:10000}")
+    private int dataKeyCacheSize;
+
+    /**
+     * 分段加解密线程池
+     */
+    private ForkJoinPool cryptoPool;
+
+    private final Map<String, SecretKeySpec> masterKeys = new LinkedHashMap<>();
+
+    /**
+     * 以当前主密钥包装的静态密钥，历史数据迁移后共用，数据密钥缓存中只占一项
+     */
+    private volatile String wrappedStaticKey;
+
+    /**
+     * 已解包的数据密钥，按包装后的字符串索引，访问顺序淘汰
+     */
+    private Map<String, SecretKeySpec> dataKeyCache;
+
+    @PostConstruct
+    public void init() {
+        chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, chunkSize));
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        cryptoPool = new ForkJoinPool(threads);
+        log.info("分段加密初始化完成 - 分段大小: {} bytes, 并行度: {}", chunkSize, threads);
+
+        masterKeys.put(DEFAULT_MASTER_KEY_ID, new SecretKeySpec(getKeyBytes(), ALGORITHM));
+        if (masterKeysConfig != null) {
+            for (String item : masterKeysConfig.split(",")) {
+                if (item.isBlank()) {
+                    continue;
+                }
+                int separator = item.indexOf(KEY_ID_SEPARATOR);
+                if (separator <= 0) {
+                    throw new IllegalStateException("主密钥配置格式错误，应为 ID:Base64密钥");
+                }
+                byte[] key = Base64.getDecoder().decode(item.substring(separator + 1).trim());
+                if (key.length != DATA_KEY_LENGTH) {
+                    throw new IllegalStateException("主密钥长度必须为32字节 - ID: " + item.substring(0, separator).trim());
+                }
+                masterKeys.put(item.substring(0, separator).trim(), new SecretKeySpec(key, ALGORITHM));
+            }
+        }
+        if (!masterKeys.containsKey(activeMasterKeyId)) {
+            throw new IllegalStateException("未配置当前主密钥: " + activeMasterKeyId);
+        }
+
+        int capacity = Math.max(1, dataKeyCacheSize);
+        dataKeyCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SecretKeySpec> eldest) {
+                return size() > capacity;
+            }
+        };
+        log.info("信封加密初始化完成 - 主密钥: {}, 当前主密钥: {}, 数据密钥缓存: {}", masterKeys.keySet(), activeMasterKeyId, capacity);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        cryptoPool.shutdown();
+    }
+
     /**
      * 生成AES密钥
      */
@@ -53,35 +171,91 @@ public class EncryptionUtil {
      * @return 加密后的Base64字符串
      */
     public String encrypt(String plainText) {
+        return encryptBytes(plainText.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 加密字节数据
+     * 
+     * @param plainBytes 明文字节
+     * @return 加密后的Base64字符串
+     */
+    public String encryptBytes(byte[] plainBytes) {
+        return encryptBytes(null, plainBytes);
+    }
+
+    /**
+     * 使用数据密钥加密字节数据
+     * 
+     * @param dataKey 由 {@link #generateDataKey()} 生成的包装后的数据密钥，为空时使用静态密钥
+     * @param plainBytes 明文字节
+     * @return 加密后的Base64字符串
+     */
+    public String encryptBytes(String dataKey, byte[] plainBytes) {
         try {
-            // 生成密钥
-            SecretKeySpec keySpec = new SecretKeySpec(getKeyBytes(), ALGORITHM);
-            
-            // 生成随机IV
-            byte[] iv = new byte[GCM_IV_LENGTH];
-            new SecureRandom().nextBytes(iv);
+            SecretKeySpec keySpec = resolveKey(dataKey);
             
-            // 初始化加密器
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-            GCMParameterSpec gcmParameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv);
-            cipher.init(Cipher.ENCRYPT_MODE, keySpec, gcmParameterSpec);
-            
-            // 加密数据
-            byte[] encryptedData = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
+            int chunks = Math.max(1, (plainBytes.length + chunkSize - 1) / chunkSize);
+            int stride = chunkSize + GCM_TAG_LENGTH;
+            byte[] output = new byte[CHUNKED_HEADER_LENGTH + plainBytes.length + chunks * GCM_TAG_LENGTH];
             
-            // 将IV和加密数据合并
-            byte[] encryptedWithIv = new byte[GCM_IV_LENGTH + encryptedData.length];
-            System.arraycopy(iv, 0, encryptedWithIv, 0, GCM_IV_LENGTH);
-            System.arraycopy(encryptedData, 0, encryptedWithIv, GCM_IV_LENGTH, encryptedData.length);
+            // 写入头部：魔数、分段大小、随机nonce前缀
+            byte[] noncePrefix = new byte[NONCE_PREFIX_LENGTH];
+            SECURE_RANDOM.nextBytes(noncePrefix);
+            System.arraycopy(CHUNKED_MAGIC, 0, output, 0, CHUNKED_MAGIC.length);
+            writeInt(output, CHUNKED_MAGIC.length, chunkSize);
+            System.arraycopy(noncePrefix, 0, output, CHUNKED_MAGIC.length + 4, NONCE_PREFIX_LENGTH);
+            byte[] header = Arrays.copyOf(output, CHUNKED_HEADER_LENGTH);
             
-            return Base64.getEncoder().encodeToString(encryptedWithIv);
+            // 各段互不依赖，并行加密到输出数组的不同区间
+            runChunks(0, chunks, index -> {
+                boolean last = index == chunks - 1;
+                int plainOffset = index * chunkSize;
+                int plainLength = last ? plainBytes.length - plainOffset : chunkSize;
+                Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+                cipher.init(Cipher.ENCRYPT_MODE, keySpec, chunkParameterSpec(noncePrefix, index, last));
+                cipher.updateAAD(chunkAad(header, index, last));
+                cipher.doFinal(plainBytes, plainOffset, plainLength, output, CHUNKED_HEADER_LENGTH + index * stride);
+            });
             
+            return Base64.getEncoder().encodeToString(output);
+        
         } catch (Exception e) {
             log.error("数据加密失败", e);
             throw new RuntimeException("数据加密失败", e);
         }
     }
 
+    /**
+     * 计算带密钥的摘要（HMAC-SHA256），用于不解密即可判断数据是否变化
+     * 
+     * @param text 明文
+     * @return 十六进制摘要
+     */
+    public String keyedDigest(String text) {
+        byte[] data = text.getBytes(StandardCharsets.UTF_8);
+        return keyedDigest(data, 0, data.length);
+    }
+
+    /**
+     * 计算数据片段的带密钥摘要（HMAC-SHA256），用作内容寻址的键，不泄露内容本身
+     * 
+     * @param data 数据
+     * @param offset 起始位置
+     * @param length 长度
+     * @return 十六进制摘要
+     */
+    public String keyedDigest(byte[] data, int offset, int length) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(getKeyBytes(), "HmacSHA256"));
+            mac.update(data, offset, length);
+            return HexFormat.of().formatHex(mac.doFinal());
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("摘要计算失败", e);
+        }
+    }
+
     /**
      * 解密数据
      * 
@@ -89,37 +263,321 @@ public class EncryptionUtil {
      * @return 解密后的明文
      */
     public String decrypt(String encryptedText) {
+        return new String(decryptToBytes(encryptedText), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 解密数据为字节，不做字符串转换
+     * 
+     * @param encryptedText 加密的Base64字符串
+     * @return 解密后的明文字节
+     */
+    public byte[] decryptToBytes(String encryptedText) {
+        return decryptToBytes(null, encryptedText);
+    }
+
+    /**
+     * 使用数据密钥解密数据为字节
+     * 
+     * @param dataKey 加密时使用的包装后的数据密钥，为空时使用静态密钥
+     * @param encryptedText 加密的Base64字符串
+     * @return 解密后的明文字节
+     */
+    public byte[] decryptToBytes(String dataKey, String encryptedText) {
         try {
             // 解码Base64
-            byte[] encryptedWithIv = Base64.getDecoder().decode(encryptedText);
-            
-            // 提取IV
-            byte[] iv = new byte[GCM_IV_LENGTH];
-            System.arraycopy(encryptedWithIv, 0, iv, 0, GCM_IV_LENGTH);
+            byte[] encrypted = Base64.getDecoder().decode(encryptedText);
+            SecretKeySpec keySpec = resolveKey(dataKey);
             
-            // 提取加密数据
-            byte[] encryptedData = new byte[encryptedWithIv.length - GCM_IV_LENGTH];
-            System.arraycopy(encryptedWithIv, GCM_IV_LENGTH, encryptedData, 0, encryptedData.length);
-            
-            // 生成密钥
-            SecretKeySpec keySpec = new SecretKeySpec(getKeyBytes(), ALGORITHM);
-            
-            // 初始化解密器
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-            GCMParameterSpec gcmParameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv);
-            cipher.init(Cipher.DECRYPT_MODE, keySpec, gcmParameterSpec);
-            
-            // 解密数据
-            byte[] decryptedData = cipher.doFinal(encryptedData);
-            
-            return new String(decryptedData, StandardCharsets.UTF_8);
+            if (isChunkedFormat(encrypted)) {
+                try {
+                    ChunkLayout layout = ChunkLayout.of(encrypted);
+                    byte[] output = new byte[layout.plainLength];
+                    runChunks(0, layout.chunks, index -> decryptChunk(encrypted, keySpec, layout, index,
+                            output, index * layout.chunkSize));
+                    return output;
+                } catch (AEADBadTagException e) {
+                    // 历史数据的随机IV恰好以魔数开头，按整体格式重试
+                    log.debug("分段格式认证失败，尝试按历史格式解密");
+                }
+            }
+            return decryptLegacy(encrypted, keySpec);
+        
+        } catch (Exception e) {
+            log.error("数据解密失败", e);
+            throw new RuntimeException("数据解密失败", e);
+        }
+    }
+
+    /**
+     * 以流的方式解密数据
+     * 分段格式按窗口并行解密，内存中只保留一个窗口的明文；历史格式整体解密后返回
+     * 
+     * @param encryptedText 加密的Base64字符串
+     * @return 明文输入流
+     */
+    public InputStream openDecryptStream(String encryptedText) {
+        return openDecryptStream(null, encryptedText);
+    }
+
+    /**
+     * 使用数据密钥以流的方式解密数据
+     * 
+     * @param dataKey 加密时使用的包装后的数据密钥，为空时使用静态密钥
+     * @param encryptedText 加密的Base64字符串
+     * @return 明文输入流
+     */
+    public InputStream openDecryptStream(String dataKey, String encryptedText) {
+        return openDecryptStream(dataKey, encryptedText.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * 使用数据密钥以流的方式解密数据，密文以Base64字节给出（如堆外缓存直接读出的数据），省去构造字符串
+     * 
+     * @param dataKey 加密时使用的包装后的数据密钥，为空时使用静态密钥
+     * @param encryptedBytes 加密数据的Base64字节
+     * @return 明文输入流
+     */
+    public InputStream openDecryptStream(String dataKey, byte[] encryptedBytes) {
+        try {
+            byte[] encrypted = Base64.getDecoder().decode(encryptedBytes);
+            SecretKeySpec keySpec = resolveKey(dataKey);
             
+            if (isChunkedFormat(encrypted)) {
+                try {
+                    ChunkedDecryptInputStream stream = new ChunkedDecryptInputStream(encrypted, keySpec);
+                    // 预先解密首个窗口，格式异常在打开时即可发现
+                    stream.fill();
+                    return stream;
+                } catch (AEADBadTagException e) {
+                    log.debug("分段格式认证失败，尝试按历史格式解密");
+                }
+            }
+            return new ByteArrayInputStream(decryptLegacy(encrypted, keySpec));
+        
         } catch (Exception e) {
             log.error("数据解密失败", e);
             throw new RuntimeException("数据解密失败", e);
         }
     }
 
+    /**
+     * 生成新的数据密钥，以当前主密钥包装
+     * 
+     * @return 包装后的数据密钥，与密文一同保存
+     */
+    public String generateDataKey() {
+        byte[] key = new byte[DATA_KEY_LENGTH];
+        SECURE_RANDOM.nextBytes(key);
+        String dataKey = wrap(activeMasterKeyId, key);
+        synchronized (dataKeyCache) {
+            dataKeyCache.put(dataKey, new SecretKeySpec(key, ALGORITHM));
+        }
+        return dataKey;
+    }
+
+    /**
+     * 以当前主密钥重新包装数据密钥，密钥本身不变，已有密文无需重新加密
+     * 
+     * @param dataKey 包装后的数据密钥，为空表示历史数据，此时包装静态密钥
+     * @return 以当前主密钥包装的数据密钥，已是当前主密钥时原样返回
+     */
+    public String rewrapDataKey(String dataKey) {
+        if (isWrappedWithActiveKey(dataKey)) {
+            return dataKey;
+        }
+        if (dataKey == null) {
+            String wrapped = wrappedStaticKey;
+            if (wrapped == null) {
+                wrapped = wrap(activeMasterKeyId, getKeyBytes());
+                wrappedStaticKey = wrapped;
+            }
+            return wrapped;
+        }
+        return wrap(activeMasterKeyId, resolveKey(dataKey).getEncoded());
+    }
+
+    /**
+     * 数据密钥是否由当前主密钥包装
+     */
+    public boolean isWrappedWithActiveKey(String dataKey) {
+        return dataKey != null && dataKey.startsWith(activeMasterKeyId + KEY_ID_SEPARATOR);
+    }
+
+    public String getActiveMasterKeyId() {
+        return activeMasterKeyId;
+    }
+
+    /**
+     * 数据密钥缓存的当前数量
+     */
+    public int getDataKeyCacheSize() {
+        synchronized (dataKeyCache) {
+            return dataKeyCache.size();
+        }
+    }
+
+    /**
+     * 获取加解密使用的密钥：数据密钥为空时为静态密钥，否则为解包后的数据密钥
+     */
+    private SecretKeySpec resolveKey(String dataKey) {
+        if (dataKey == null) {
+            return new SecretKeySpec(getKeyBytes(), ALGORITHM);
+        }
+        synchronized (dataKeyCache) {
+            SecretKeySpec cached = dataKeyCache.get(dataKey);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        SecretKeySpec keySpec = new SecretKeySpec(unwrap(dataKey), ALGORITHM);
+        synchronized (dataKeyCache) {
+            dataKeyCache.put(dataKey, keySpec);
+        }
+        return keySpec;
+    }
+
+    /**
+     * 以主密钥包装数据密钥，主密钥ID计入AAD，包装结果不能被标记为其他主密钥
+     */
+    private String wrap(String masterKeyId, byte[] key) {
+        try {
+            byte[] iv = new byte[GCM_IV_LENGTH];
+            SECURE_RANDOM.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, masterKeys.get(masterKeyId), new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv));
+            cipher.updateAAD(masterKeyId.getBytes(StandardCharsets.UTF_8));
+            byte[] wrapped = Arrays.copyOf(iv, GCM_IV_LENGTH + key.length + GCM_TAG_LENGTH);
+            cipher.doFinal(key, 0, key.length, wrapped, GCM_IV_LENGTH);
+            return masterKeyId + KEY_ID_SEPARATOR + Base64.getEncoder().encodeToString(wrapped);
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("数据密钥包装失败", e);
+        }
+    }
+
+    private byte[] unwrap(String dataKey) {
+        int separator = dataKey.indexOf(KEY_ID_SEPARATOR);
+        if (separator <= 0) {
+            throw new IllegalArgumentException("数据密钥格式错误");
+        }
+        String masterKeyId = dataKey.substring(0, separator);
+        SecretKeySpec masterKey = masterKeys.get(masterKeyId);
+        if (masterKey == null) {
+            throw new IllegalStateException("未配置主密钥: " + masterKeyId);
+        }
+        try {
+            byte[] wrapped = Base64.getDecoder().decode(dataKey.substring(separator + 1));
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, masterKey, new GCMParameterSpec(GCM_TAG_LENGTH * 8, wrapped, 0, GCM_IV_LENGTH));
+            cipher.updateAAD(masterKeyId.getBytes(StandardCharsets.UTF_8));
+            return cipher.doFinal(wrapped, GCM_IV_LENGTH, wrapped.length - GCM_IV_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("数据密钥解包失败 - 主密钥: " + masterKeyId, e);
+        }
+    }
+
+    /**
+     * 解密单个分段到目标数组
+     */
+    private static void decryptChunk(byte[] encrypted, SecretKeySpec keySpec, ChunkLayout layout,
+                                     int index, byte[] output, int outputOffset) throws GeneralSecurityException {
+        boolean last = index == layout.chunks - 1;
+        int offset = CHUNKED_HEADER_LENGTH + index * layout.stride;
+        int length = last ? encrypted.length - offset : layout.stride;
+        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+        cipher.init(Cipher.DECRYPT_MODE, keySpec, chunkParameterSpec(layout.noncePrefix, index, last));
+        cipher.updateAAD(chunkAad(layout.header, index, last));
+        cipher.doFinal(encrypted, offset, length, output, outputOffset);
+    }
+
+    /**
+     * 解密历史整体GCM格式数据：[IV 12字节][密文+tag]
+     */
+    private static byte[] decryptLegacy(byte[] encryptedWithIv, SecretKeySpec keySpec) throws GeneralSecurityException {
+        // 初始化解密器（直接引用IV所在区间，避免拷贝）
+        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+        GCMParameterSpec gcmParameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH * 8, encryptedWithIv, 0, GCM_IV_LENGTH);
+        cipher.init(Cipher.DECRYPT_MODE, keySpec, gcmParameterSpec);
+        
+        // 解密IV之后的数据
+        return cipher.doFinal(encryptedWithIv, GCM_IV_LENGTH, encryptedWithIv.length - GCM_IV_LENGTH);
+    }
+
+    /**
+     * 执行[from, to)区间的分段任务，单段时在当前线程执行，多段时提交到加解密线程池并行执行
+     */
+    private void runChunks(int from, int to, ChunkTask task) throws GeneralSecurityException {
+        if (to - from == 1) {
+            task.run(from);
+            return;
+        }
+        try {
+            cryptoPool.submit(() -> IntStream.range(from, to).parallel().forEach(index -> {
+                try {
+                    task.run(index);
+                } catch (GeneralSecurityException e) {
+                    throw new ChunkCryptoException(e);
+                }
+            })).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ChunkCryptoException) {
+                throw (GeneralSecurityException) e.getCause().getCause();
+            }
+            throw new IllegalStateException("分段加解密执行失败", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("分段加解密被中断", e);
+        }
+    }
+
+    /**
+     * 判断是否为分段格式
+     */
+    private static boolean isChunkedFormat(byte[] encrypted) {
+        if (encrypted.length < CHUNKED_HEADER_LENGTH + GCM_TAG_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < CHUNKED_MAGIC.length; i++) {
+            if (encrypted[i] != CHUNKED_MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 派生分段nonce：前缀(7) + 段序号(4) + 末段标记(1)
+     */
+    private static GCMParameterSpec chunkParameterSpec(byte[] noncePrefix, int index, boolean last) {
+        byte[] nonce = new byte[GCM_IV_LENGTH];
+        System.arraycopy(noncePrefix, 0, nonce, 0, NONCE_PREFIX_LENGTH);
+        writeInt(nonce, NONCE_PREFIX_LENGTH, index);
+        nonce[GCM_IV_LENGTH - 1] = (byte) (last ? 1 : 0);
+        return new GCMParameterSpec(GCM_TAG_LENGTH * 8, nonce);
+    }
+
+    /**
+     * 分段AAD：头部 + 段序号 + 末段标记
+     */
+    private static byte[] chunkAad(byte[] header, int index, boolean last) {
+        byte[] aad = Arrays.copyOf(header, CHUNKED_HEADER_LENGTH + 5);
+        writeInt(aad, CHUNKED_HEADER_LENGTH, index);
+        aad[CHUNKED_HEADER_LENGTH + 4] = (byte) (last ? 1 : 0);
+        return aad;
+    }
+
+    private static void writeInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) (value >>> 24);
+        target[offset + 1] = (byte) (value >>> 16);
+        target[offset + 2] = (byte) (value >>> 8);
+        target[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] source, int offset) {
+        return ((source[offset] & 0xff) << 24) | ((source[offset + 1] & 0xff) << 16)
+                | ((source[offset + 2] & 0xff) << 8) | (source[offset + 3] & 0xff);
+    }
+
     /**
      * 获取密钥字节数组
      */
@@ -134,7 +592,7 @@ public class EncryptionUtil {
             }
             
             return key.getBytes(StandardCharsets.UTF_8);
-            
+        
         } catch (Exception e) {
             throw new RuntimeException("密钥处理失败", e);
         }
@@ -149,14 +607,155 @@ public class EncryptionUtil {
             String encrypted = encrypt(testData);
             String decrypted = decrypt(encrypted);
             
-            boolean isValid = testData.equals(decrypted);
+            // 信封加密：生成数据密钥、加密、重新包装后解密
+            String dataKey = generateDataKey();
+            byte[] testBytes = testData.getBytes(StandardCharsets.UTF_8);
+            String envelope = encryptBytes(dataKey, testBytes);
+            byte[] opened = decryptToBytes(rewrapDataKey(dataKey), envelope);
+            
+            boolean isValid = testData.equals(decrypted) && Arrays.equals(testBytes, opened);
             log.info("加密解密验证结果: {}", isValid ? "通过" : "失败");
             
             return isValid;
-            
+        
         } catch (Exception e) {
             log.error("加密解密验证失败", e);
             return false;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 分段任务
+     */
+    @FunctionalInterface
+    private interface ChunkTask {
+        void run(int index) throws GeneralSecurityException;
+    }
+
+    /**
+     * 在并行流中传递加解密异常
+     */
+    private static class ChunkCryptoException extends RuntimeException {
+        ChunkCryptoException(GeneralSecurityException cause) {
+            super(cause);
+        }
+    }
+
+    /**
+     * 分段格式布局
+     */
+    private static final class ChunkLayout {
+        final byte[] header;
+        final byte[] noncePrefix;
+        final int chunkSize;
+        final int stride;
+        final int chunks;
+        final int plainLength;
+        
+        private ChunkLayout(byte[] header, byte[] noncePrefix, int chunkSize, int chunks, int plainLength) {
+            this.header = header;
+            this.noncePrefix = noncePrefix;
+            this.chunkSize = chunkSize;
+            this.stride = chunkSize + GCM_TAG_LENGTH;
+            this.chunks = chunks;
+            this.plainLength = plainLength;
+        }
+        
+        static ChunkLayout of(byte[] encrypted) throws GeneralSecurityException {
+            // 分段大小来自密文头部，超出写入端可能产生的范围时拒绝，避免超大分配与整数溢出
+            int chunkSize = readInt(encrypted, CHUNKED_MAGIC.length);
+            if (chunkSize < MIN_CHUNK_SIZE || chunkSize > MAX_CHUNK_SIZE) {
+                throw new AEADBadTagException("分段大小非法: " + chunkSize);
+            }
+            int stride = chunkSize + GCM_TAG_LENGTH;
+            int body = encrypted.length - CHUNKED_HEADER_LENGTH;
+            int chunks = Math.max(1, (body + stride - 1) / stride);
+            if (body - (chunks - 1) * stride < GCM_TAG_LENGTH) {
+                throw new AEADBadTagException("分段数据被截断");
+            }
+            byte[] header = Arrays.copyOf(encrypted, CHUNKED_HEADER_LENGTH);
+            byte[] noncePrefix = Arrays.copyOfRange(encrypted, CHUNKED_MAGIC.length + 4, CHUNKED_HEADER_LENGTH);
+            return new ChunkLayout(header, noncePrefix, chunkSize, chunks, body - chunks * GCM_TAG_LENGTH);
+        }
+    }
+
+    /**
+     * 分段流式解密输入流
+     * 每次并行解密一个窗口（并行度两倍的分段数），读完后再解密下一个窗口
+     */
+    private final class ChunkedDecryptInputStream extends InputStream {
+        
+        private final byte[] encrypted;
+        private final SecretKeySpec keySpec;
+        private final ChunkLayout layout;
+        private final int window;
+        private int nextChunk;
+        private byte[] buffer = new byte[0];
+        private int position;
+        private int limit;
+        
+        ChunkedDecryptInputStream(byte[] encrypted, SecretKeySpec keySpec) throws GeneralSecurityException {
+            this.encrypted = encrypted;
+            this.keySpec = keySpec;
+            this.layout = ChunkLayout.of(encrypted);
+            this.window = cryptoPool.getParallelism() * 2;
+        }
+        
+        /**
+         * 解密下一个窗口
+         */
+        void fill() throws GeneralSecurityException {
+            int from = nextChunk;
+            int to = Math.min(layout.chunks, from + window);
+            int windowStart = from * layout.chunkSize;
+            int windowLength = (int) Math.min(layout.plainLength, (long) to * layout.chunkSize) - windowStart;
+            if (buffer.length < windowLength) {
+                buffer = new byte[windowLength];
+            }
+            byte[] target = buffer;
+            runChunks(from, to, index -> decryptChunk(encrypted, keySpec, layout, index,
+                    target, index * layout.chunkSize - windowStart));
+            nextChunk = to;
+            position = 0;
+            limit = windowLength;
+        }
+        
+        private boolean ensureAvailable() throws IOException {
+            while (position >= limit) {
+                if (nextChunk >= layout.chunks) {
+                    return false;
+                }
+                try {
+                    fill();
+                } catch (GeneralSecurityException e) {
+                    throw new IOException("分段数据解密失败", e);
+                }
+            }
+            return true;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            return ensureAvailable() ? buffer[position++] & 0xff : -1;
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!ensureAvailable()) {
+                return -1;
+            }
+            int count = Math.min(len, limit - position);
+            System.arraycopy(buffer, position, b, off, count);
+            position += count;
+            return count;
+        }
+        
+        @Override
+        public int available() {
+            return limit - position;
+        }
+    }
+}
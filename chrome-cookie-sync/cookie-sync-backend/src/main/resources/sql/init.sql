@@ -13,6 +13,7 @@ CREATE TABLE `cookie_data` (
   `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID',
   `user_id` varchar(64) NOT NULL COMMENT '用户标识',
   `encrypted_data` longtext NOT NULL COMMENT '加密后的Cookie数据',
+  `data_key` varchar(255) DEFAULT NULL COMMENT '由主密钥包装的数据密钥（主密钥ID:密文），为空表示使用静态密钥',
   `data_size` bigint NOT NULL DEFAULT '0' COMMENT '数据大小（字节）',
   `cookie_count` int NOT NULL DEFAULT '0' COMMENT 'Cookie数量',
   `user_agent` varchar(512) DEFAULT NULL COMMENT '用户代理信息',
@@ -21,15 +22,127 @@ CREATE TABLE `cookie_data` (
   `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   `expire_time` datetime NOT NULL COMMENT '过期时间',
+  `prune_time` datetime DEFAULT NULL COMMENT '下次压缩时间，到期时已有足够比例的Cookie过期',
   `status` tinyint NOT NULL DEFAULT '0' COMMENT '数据状态：0-正常，1-已删除',
   `remark` varchar(255) DEFAULT NULL COMMENT '备注信息',
   PRIMARY KEY (`id`),
   UNIQUE KEY `uk_user_id` (`user_id`),
   KEY `idx_create_time` (`create_time`),
   KEY `idx_expire_time` (`expire_time`),
+  KEY `idx_prune_time` (`prune_time`),
   KEY `idx_status` (`status`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Cookie数据表';
 
+-- 已有部署升级（在线DDL，历史数据的压缩时间为空，下次上传后开始参与压缩）：
+-- ALTER TABLE `cookie_data` ADD COLUMN `prune_time` datetime DEFAULT NULL COMMENT '下次压缩时间，到期时已有足够比例的Cookie过期' AFTER `expire_time`, ADD KEY `idx_prune_time` (`prune_time`), ALGORITHM=INPLACE, LOCK=NONE;
+
+-- 已有部署升级（在线DDL，历史数据的数据密钥为空，下次上传时改用信封加密）：
+-- ALTER TABLE `cookie_data` ADD COLUMN `data_key` varchar(255) DEFAULT NULL AFTER `encrypted_data`, ALGORITHM=INSTANT;
+-- ALTER TABLE `cookie_outbox` ADD COLUMN `data_key` varchar(255) DEFAULT NULL AFTER `encrypted_data`, ALGORITHM=INSTANT;
+
+-- 创建Cookie条目表（开启 cookie-sync.entry-storage.enabled 时使用）
+DROP TABLE IF EXISTS `cookie_entry`;
+CREATE TABLE `cookie_entry` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `user_id` varchar(64) NOT NULL COMMENT '用户标识',
+  `domain` varchar(253) CHARACTER SET ascii COLLATE ascii_bin NOT NULL COMMENT 'Cookie域名',
+  `path` varchar(255) COLLATE utf8mb4_bin NOT NULL DEFAULT '/' COMMENT 'Cookie路径',
+  `name` varchar(255) COLLATE utf8mb4_bin NOT NULL COMMENT 'Cookie名称',
+  `encrypted_value` text NOT NULL COMMENT '加密后的Cookie JSON',
+  `data_key` varchar(255) DEFAULT NULL COMMENT '由主密钥包装的数据密钥，为空表示使用静态密钥',
+  `value_hash` char(64) NOT NULL COMMENT 'Cookie JSON的HMAC摘要',
+  `expire_time` datetime DEFAULT NULL COMMENT 'Cookie过期时间，会话Cookie为空',
+  `version` int NOT NULL DEFAULT '1' COMMENT '条目版本号',
+  `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_user_cookie` (`user_id`, `domain`, `path`, `name`),
+  KEY `idx_user_expire_time` (`user_id`, `expire_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Cookie条目表';
+
+-- 已有部署升级（在线DDL，历史条目的数据密钥为空，密钥轮换时改为包装后的静态密钥）：
+-- ALTER TABLE `cookie_entry` ADD COLUMN `data_key` varchar(255) DEFAULT NULL AFTER `encrypted_value`, ALGORITHM=INSTANT;
+
+-- 创建冷数据归档表（开启 cookie-sync.archive.enabled 时使用）
+-- 只在恢复时按主键读取一次，使用压缩行格式减少Base64密文占用的空间
+DROP TABLE IF EXISTS `cookie_archive`;
+CREATE TABLE `cookie_archive` (
+  `user_id` varchar(64) NOT NULL COMMENT '用户标识',
+  `encrypted_data` longtext NOT NULL COMMENT '压缩并加密后的Cookie数据，数据密钥保留在cookie_data',
+  `version` int NOT NULL COMMENT '归档时的数据版本号',
+  `archive_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '归档时间',
+  PRIMARY KEY (`user_id`)
+) ENGINE=InnoDB ROW_FORMAT=COMPRESSED KEY_BLOCK_SIZE=8 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='冷数据归档表';
+
+-- 创建版本快照表
+DROP TABLE IF EXISTS `cookie_snapshot`;
+CREATE TABLE `cookie_snapshot` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `user_id` varchar(64) NOT NULL COMMENT '用户标识',
+  `version` int NOT NULL COMMENT '对应的cookie_data版本号',
+  `data_size` bigint NOT NULL DEFAULT '0' COMMENT '快照内容大小（明文字节）',
+  `stored_size` bigint NOT NULL DEFAULT '0' COMMENT '本快照新写入的块大小（明文字节）',
+  `chunk_count` int NOT NULL DEFAULT '0' COMMENT '块数量',
+  `cookie_count` int NOT NULL DEFAULT '0' COMMENT 'Cookie数量',
+  `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_user_version` (`user_id`, `version`),
+  KEY `idx_create_time` (`create_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Cookie版本快照表';
+
+-- 创建快照块清单表
+DROP TABLE IF EXISTS `cookie_snapshot_chunk`;
+CREATE TABLE `cookie_snapshot_chunk` (
+  `snapshot_id` bigint NOT NULL COMMENT '快照ID',
+  `seq` int NOT NULL COMMENT '块在快照中的顺序',
+  `chunk_hash` char(64) CHARACTER SET ascii COLLATE ascii_bin NOT NULL COMMENT '块的HMAC摘要',
+  PRIMARY KEY (`snapshot_id`, `seq`),
+  KEY `idx_chunk_hash` (`chunk_hash`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='快照块清单表';
+
+-- 创建快照数据块表（按内容寻址，相同内容只存储一次）
+DROP TABLE IF EXISTS `cookie_chunk`;
+CREATE TABLE `cookie_chunk` (
+  `hash` char(64) CHARACTER SET ascii COLLATE ascii_bin NOT NULL COMMENT '明文的HMAC摘要',
+  `encrypted_data` mediumtext NOT NULL COMMENT '压缩并加密后的块内容',
+  `data_key` varchar(255) DEFAULT NULL COMMENT '由主密钥包装的数据密钥，为空表示使用静态密钥',
+  `size` int NOT NULL COMMENT '明文大小（字节）',
+  `ref_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '最近被快照引用的时间',
+  `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`hash`),
+  KEY `idx_ref_time` (`ref_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='快照数据块表';
+
+-- 已有部署升级（在线DDL，历史块的数据密钥为空，密钥轮换时改为包装后的静态密钥）：
+-- ALTER TABLE `cookie_chunk` ADD COLUMN `data_key` varchar(255) DEFAULT NULL AFTER `encrypted_data`, ALGORITHM=INSTANT;
+
+-- 创建变更事件发件箱表（开启 cookie-sync.outbox.enabled 时使用，与 cookie_data 在同一事务中写入）
+DROP TABLE IF EXISTS `cookie_outbox`;
+CREATE TABLE `cookie_outbox` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '事件序号',
+  `event_type` varchar(16) NOT NULL COMMENT '事件类型：UPSERT、DELETE、EXPIRE',
+  `user_id` varchar(64) DEFAULT NULL COMMENT '用户标识，EXPIRE 事件为空',
+  `version` int DEFAULT NULL COMMENT '写入后的数据版本号',
+  `encrypted_data` longtext DEFAULT NULL COMMENT '加密后的Cookie数据',
+  `data_key` varchar(255) DEFAULT NULL COMMENT '由主密钥包装的数据密钥',
+  `data_size` bigint DEFAULT NULL COMMENT '数据大小（字节）',
+  `cookie_count` int DEFAULT NULL COMMENT 'Cookie数量',
+  `expire_time` datetime DEFAULT NULL COMMENT '过期时间',
+  `origin_node` varchar(128) NOT NULL COMMENT '产生事件的节点',
+  `create_time` datetime(3) NOT NULL COMMENT '创建时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_create_time` (`create_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='变更事件发件箱表';
+
+-- 创建发件箱检查点表
+DROP TABLE IF EXISTS `cookie_outbox_checkpoint`;
+CREATE TABLE `cookie_outbox_checkpoint` (
+  `name` varchar(64) NOT NULL COMMENT '检查点名称',
+  `last_id` bigint NOT NULL DEFAULT '0' COMMENT '已中继的最大事件序号',
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='发件箱检查点表';
+
 -- 创建同步日志表
 DROP TABLE IF EXISTS `sync_log`;
 CREATE TABLE `sync_log` (
@@ -45,12 +158,17 @@ CREATE TABLE `sync_log` (
   `duration` int DEFAULT '0' COMMENT '操作耗时（毫秒）',
   `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   PRIMARY KEY (`id`),
-  KEY `idx_user_id` (`user_id`),
+  -- 覆盖按用户的日志分页、配额与同步统计查询：按 (user_id, create_time, id) 定位并与键集分页的排序一致，其余列在索引内读取，无需回表
+  KEY `idx_user_time` (`user_id`, `create_time`, `id`, `operation_type`, `success`, `data_size`, `cookie_count`, `duration`),
   KEY `idx_operation_type` (`operation_type`),
   KEY `idx_create_time` (`create_time`),
   KEY `idx_success` (`success`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='同步操作日志表';
 
+-- 已有部署升级（在线DDL，不阻塞日志写入）：
+-- ALTER TABLE `sync_log` ADD KEY `idx_user_time` (`user_id`, `create_time`, `id`, `operation_type`, `success`, `data_size`, `cookie_count`, `duration`), ALGORITHM=INPLACE, LOCK=NONE;
+-- ALTER TABLE `sync_log` DROP KEY `idx_user_id`, ALGORITHM=INPLACE, LOCK=NONE;
+
 -- 插入测试数据
 INSERT INTO `cookie_data` (`user_id`, `encrypted_data`, `data_size`, `cookie_count`, `user_agent`, `client_ip`, `expire_time`, `remark`) 
 VALUES 
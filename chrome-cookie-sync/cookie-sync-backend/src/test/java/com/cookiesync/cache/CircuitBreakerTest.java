@@ -0,0 +1,106 @@
+package com.cookiesync.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 熔断器状态转换与自适应超时测试
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+class CircuitBreakerTest {
+
+    private final AtomicInteger recovered = new AtomicInteger();
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        CircuitBreaker breaker = breaker(3, 60000);
+
+        breaker.recordFailure(new RuntimeException("1"));
+        breaker.recordFailure(new RuntimeException("2"));
+        breaker.recordSuccess(1);
+        breaker.recordFailure(new RuntimeException("3"));
+        breaker.recordFailure(new RuntimeException("4"));
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        breaker.recordFailure(new RuntimeException("5"));
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.allowRequest()).isFalse();
+        assertThat(recovered).hasValue(0);
+    }
+
+    @Test
+    void halfOpenAllowsSingleProbeAndRecoversOnSuccess() throws InterruptedException {
+        CircuitBreaker breaker = breaker(1, 50);
+        breaker.recordFailure(new RuntimeException("down"));
+        Thread.sleep(80);
+
+        assertThat(breaker.allowRequest()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.allowRequest()).isFalse();
+
+        breaker.recordSuccess(1);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.allowRequest()).isTrue();
+        assertThat(recovered).hasValue(1);
+    }
+
+    @Test
+    void failedProbeReopens() throws InterruptedException {
+        CircuitBreaker breaker = breaker(5, 50);
+        for (int i = 0; i < 5; i++) {
+            breaker.recordFailure(new RuntimeException("down"));
+        }
+        Thread.sleep(80);
+        assertThat(breaker.allowRequest()).isTrue();
+
+        // 半开状态下一次失败即重新熔断，不需要再次累计到阈值
+        breaker.recordFailure(new RuntimeException("still down"));
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.allowRequest()).isFalse();
+        assertThat(recovered).hasValue(0);
+    }
+
+    @Test
+    void timeoutFollowsLatencyWithinBounds() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 3, 1000, 50, 500, 4.0, 100, () -> { });
+        assertThat(breaker.currentTimeoutMillis()).isEqualTo(50);
+
+        for (int i = 0; i < 50; i++) {
+            breaker.recordSuccess(40);
+        }
+        assertThat(breaker.currentTimeoutMillis()).isBetween(155L, 160L);
+
+        for (int i = 0; i < 50; i++) {
+            breaker.recordSuccess(1000);
+        }
+        assertThat(breaker.currentTimeoutMillis()).isEqualTo(500);
+
+        for (int i = 0; i < 50; i++) {
+            breaker.recordSuccess(0);
+        }
+        assertThat(breaker.currentTimeoutMillis()).isEqualTo(50);
+    }
+
+    @Test
+    void largePayloadsGetLongerTimeoutAndSkipAverage() {
+        CircuitBreaker breaker = breaker(3, 1000);
+        long fourMb = 4 * 1024 * 1024;
+
+        assertThat(breaker.currentTimeoutMillis(CircuitBreaker.LARGE_PAYLOAD_BYTES)).isEqualTo(50);
+        assertThat(breaker.currentTimeoutMillis(fourMb)).isEqualTo(450);
+
+        for (int i = 0; i < 50; i++) {
+            breaker.recordSuccess(400, fourMb);
+        }
+        assertThat(breaker.currentTimeoutMillis()).isEqualTo(50);
+    }
+
+    private CircuitBreaker breaker(int failureThreshold, long openMillis) {
+        return new CircuitBreaker("test", failureThreshold, openMillis, 50, 500, 4.0, 100, recovered::incrementAndGet);
+    }
+}
@@ -0,0 +1,244 @@
+package com.cookiesync.cache;
+
+import com.cookiesync.entity.CookieData;
+import io.opentelemetry.api.OpenTelemetry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cookie数据缓存测试：单飞加载、XFetch提前刷新、Redis故障降级与熔断器探测
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+class CookieDataCacheTest {
+
+    private RedisTemplate<String, Object> redisTemplate;
+
+    private ValueOperations<String, Object> valueOperations;
+
+    private CookieDataCache cache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        cache = new CookieDataCache();
+        ReflectionTestUtils.setField(cache, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(cache, "tracer", OpenTelemetry.noop().getTracer("test"));
+        ReflectionTestUtils.setField(cache, "ttlHours", 24L);
+        ReflectionTestUtils.setField(cache, "ttlJitterRatio", 0.1);
+        ReflectionTestUtils.setField(cache, "negativeTtlSeconds", 60L);
+        ReflectionTestUtils.setField(cache, "earlyRefreshBeta", 1.0);
+        ReflectionTestUtils.setField(cache, "loadTimeout", 5000L);
+        ReflectionTestUtils.setField(cache, "failureThreshold", 3);
+        ReflectionTestUtils.setField(cache, "openDuration", 60000L);
+        ReflectionTestUtils.setField(cache, "minTimeout", 1000L);
+        ReflectionTestUtils.setField(cache, "maxTimeout", 1000L);
+        ReflectionTestUtils.setField(cache, "timeoutMultiplier", 4.0);
+        ReflectionTestUtils.setField(cache, "timeoutPerMb", 100L);
+        ReflectionTestUtils.setField(cache, "redisThreads", 4);
+        ReflectionTestUtils.setField(cache, "localMaxEntries", 100);
+        ReflectionTestUtils.setField(cache, "localTtlSeconds", 30L);
+        ReflectionTestUtils.setField(cache, "invalidationQueueSize", 100);
+        cache.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.destroy();
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 8;
+        CountDownLatch started = new CountDownLatch(callers);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<CookieData>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> {
+                    started.countDown();
+                    return cache.get("user-1", () -> {
+                        loads.incrementAndGet();
+                        await(release);
+                        return cookieData("user-1", 3);
+                    });
+                }));
+            }
+            started.await(5, TimeUnit.SECONDS);
+            // 等待其余请求进入等待状态后再放行唯一的加载
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<CookieData> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS).getVersion()).isEqualTo(3);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(loads).hasValue(1);
+        verify(valueOperations).set(eq(CookieDataCache.KEY_PREFIX + "user-1"), any(CachedCookieData.class),
+                anyLong(), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void waitersReceiveIndependentCopies() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<CookieData> loader = executor.submit(() -> cache.get("user-1", () -> {
+                await(release);
+                return cookieData("user-1", 1);
+            }));
+            Thread.sleep(100);
+            Future<CookieData> waiter = executor.submit(() -> cache.get("user-1", () -> cookieData("user-1", 1)));
+            Thread.sleep(100);
+            release.countDown();
+
+            CookieData first = loader.get(5, TimeUnit.SECONDS);
+            CookieData second = waiter.get(5, TimeUnit.SECONDS);
+            first.setEncryptedData("decrypted");
+            assertThat(second).isNotSameAs(first);
+            assertThat(second.getEncryptedData()).isEqualTo("encrypted");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void slowLoadNearExpiryIsRefreshedEarly() {
+        CachedCookieData entry = new CachedCookieData(cookieData("user-1", 1), 1_000_000_000L,
+                System.currentTimeMillis() + 1000);
+        when(valueOperations.get(CookieDataCache.KEY_PREFIX + "user-1")).thenReturn(entry);
+
+        CookieData loaded = cache.get("user-1", () -> cookieData("user-1", 2));
+
+        assertThat(loaded.getVersion()).isEqualTo(2);
+    }
+
+    @Test
+    void freshOrWrittenEntriesAreServedFromCache() {
+        long expireAt = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1);
+        when(valueOperations.get(CookieDataCache.KEY_PREFIX + "loaded")).thenReturn(
+                new CachedCookieData(cookieData("loaded", 1), 5, expireAt));
+        // 直写条目没有加载耗时，即使即将过期也不提前刷新
+        when(valueOperations.get(CookieDataCache.KEY_PREFIX + "written")).thenReturn(
+                new CachedCookieData(cookieData("written", 1), 0, System.currentTimeMillis() + 10));
+
+        AtomicInteger loads = new AtomicInteger();
+        for (int i = 0; i < 100; i++) {
+            cache.get("loaded", () -> {
+                loads.incrementAndGet();
+                return cookieData("loaded", 2);
+            });
+            cache.get("written", () -> {
+                loads.incrementAndGet();
+                return cookieData("written", 2);
+            });
+        }
+
+        assertThat(loads).hasValue(0);
+    }
+
+    @Test
+    void missingUserIsNegativelyCached() {
+        assertThat(cache.get("anonymous", () -> null)).isNull();
+
+        verify(valueOperations).set(eq(CookieDataCache.KEY_PREFIX + "anonymous"),
+                any(CachedCookieData.class), anyLong(), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void redisFailuresOpenBreakerAndFallBackToLocalCache() {
+        when(valueOperations.get(any())).thenThrow(new IllegalStateException("connection refused"));
+        doThrow(new IllegalStateException("connection refused")).when(valueOperations)
+                .set(any(), any(), anyLong(), any(TimeUnit.class));
+
+        AtomicInteger loads = new AtomicInteger();
+        for (int i = 0; i < 5; i++) {
+            CookieData cookieData = cache.get("user-1", () -> {
+                loads.incrementAndGet();
+                return cookieData("user-1", 1);
+            });
+            assertThat(cookieData.getVersion()).isEqualTo(1);
+        }
+
+        // 首次加载写入本地缓存，之后的请求由本地缓存命中；连续失败达到阈值后不再访问Redis
+        assertThat(loads).hasValue(1);
+        assertThat(cache.getStatus()).containsEntry("state", "OPEN").containsEntry("pendingInvalidations", 1);
+        verify(valueOperations, times(2)).get(any());
+        verify(valueOperations, times(1)).set(any(), any(), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    void interruptedProbeReleasesHalfOpenBreaker() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("redis", 1, 50, 1000, 1000, 4.0, 100, () -> { });
+        ReflectionTestUtils.setField(cache, "circuitBreaker", breaker);
+        breaker.recordFailure(new IllegalStateException("connection refused"));
+        Thread.sleep(80);
+        when(valueOperations.get(any())).thenAnswer(invocation -> {
+            Thread.sleep(500);
+            return null;
+        });
+
+        Thread.currentThread().interrupt();
+        try {
+            cache.get("user-1", () -> cookieData("user-1", 1));
+        } finally {
+            Thread.interrupted();
+        }
+
+        // 被中断的探测按失败处理，重新熔断后仍会在熔断时间结束时放行下一个探测
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        Thread.sleep(80);
+        assertThat(breaker.allowRequest()).isTrue();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static CookieData cookieData(String userId, int version) {
+        CookieData cookieData = new CookieData();
+        cookieData.setUserId(userId);
+        cookieData.setEncryptedData("encrypted");
+        cookieData.setVersion(version);
+        cookieData.setExpireTime(LocalDateTime.now().plusDays(30));
+        return cookieData;
+    }
+}
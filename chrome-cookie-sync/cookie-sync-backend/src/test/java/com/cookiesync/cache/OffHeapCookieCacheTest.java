@@ -0,0 +1,145 @@
+package com.cookiesync.cache;
+
+import com.cookiesync.entity.CookieData;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 堆外Cookie数据缓存测试：读写副本、按字节读取、按级别LRU淘汰与跨级别淘汰
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+class OffHeapCookieCacheTest {
+
+    private static final long HOUR = 3600_000L;
+
+    @Test
+    void returnsIndependentCopies() {
+        OffHeapCookieCache cache = new OffHeapCookieCache(1024, 4096, 64, 2.0, 100, HOUR);
+        cache.put("user-1", entry("user-1", 100));
+
+        CachedCookieData first = cache.get("user-1");
+        first.getData().setEncryptedData("decrypted");
+        CachedCookieData second = cache.get("user-1");
+
+        assertThat(second.getData().getEncryptedData()).isEqualTo(payload(100));
+        assertThat(second.getData().getVersion()).isEqualTo(1);
+        assertThat(second.getLoadMillis()).isEqualTo(5);
+    }
+
+    @Test
+    void readsPayloadAsBytesWithoutBuildingString() {
+        OffHeapCookieCache cache = new OffHeapCookieCache(1024, 4096, 64, 2.0, 100, HOUR);
+        cache.put("user-1", entry("user-1", 100));
+
+        CookieData data = cache.get("user-1", true).getData();
+
+        assertThat(data.getEncryptedData()).isNull();
+        assertThat(data.getEncryptedBytes()).isEqualTo(payload(100).getBytes(StandardCharsets.ISO_8859_1));
+        assertThat(data.getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsMultiByteTextAndReleasesChunk() {
+        OffHeapCookieCache cache = new OffHeapCookieCache(1024, 1024, 64, 2.0, 100, HOUR);
+        CachedCookieData invalid = entry("user-1", 10);
+        invalid.getData().setEncryptedData("数据");
+
+        assertThatThrownBy(() -> cache.put("user-1", invalid)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(cache.get("user-1")).isNull();
+        assertThat(cache.getStatus()).containsEntry("usedBytes", 0L).containsEntry("freeSlabs", 1);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedWithinSizeClass() {
+        // 2个slab，每个slab可放4个256字节的块
+        OffHeapCookieCache cache = new OffHeapCookieCache(1024, 2048, 256, 2.0, 100, HOUR);
+        for (int i = 0; i < 8; i++) {
+            cache.put("user-" + i, entry("user-" + i, 200));
+            sleepTick();
+        }
+        cache.get("user-0");
+
+        cache.put("user-8", entry("user-8", 200));
+
+        assertThat(cache.get("user-0")).isNotNull();
+        assertThat(cache.get("user-1")).isNull();
+        assertThat(cache.get("user-8")).isNotNull();
+        assertThat(cache.getStatus()).containsEntry("evictions", 1L).containsEntry("entries", 8);
+    }
+
+    @Test
+    void evictsAcrossSizeClassesUntilSlabIsFreed() {
+        OffHeapCookieCache cache = new OffHeapCookieCache(1024, 2048, 256, 2.0, 100, HOUR);
+        for (int i = 0; i < 8; i++) {
+            cache.put("user-" + i, entry("user-" + i, 200));
+            sleepTick();
+        }
+
+        // 需要整块slab，同级别没有条目可淘汰，按访问时间淘汰小级别条目直到第一个slab空出
+        cache.put("large", entry("large", 1000));
+
+        assertThat(cache.get("large").getData().getEncryptedData()).isEqualTo(payload(1000));
+        for (int i = 0; i < 4; i++) {
+            assertThat(cache.get("user-" + i)).isNull();
+        }
+        for (int i = 4; i < 8; i++) {
+            assertThat(cache.get("user-" + i)).isNotNull();
+        }
+        assertThat(cache.getStatus()).containsEntry("evictions", 4L).containsEntry("freeSlabs", 0);
+    }
+
+    @Test
+    void boundsEntriesAndSkipsOversizedPayloads() {
+        OffHeapCookieCache cache = new OffHeapCookieCache(1024, 8192, 64, 2.0, 3, HOUR);
+        for (int i = 0; i < 5; i++) {
+            cache.put("user-" + i, entry("user-" + i, 10));
+            sleepTick();
+        }
+        cache.put("negative", new CachedCookieData(null, 1, System.currentTimeMillis() + HOUR));
+        cache.put("huge", entry("huge", 2000));
+
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.get("negative").isNegative()).isTrue();
+        assertThat(cache.get("huge")).isNull();
+        assertThat(cache.getStatus()).containsEntry("oversized", 1L);
+    }
+
+    @Test
+    void expiresByLocalTtlAndReleasesMemory() throws InterruptedException {
+        OffHeapCookieCache cache = new OffHeapCookieCache(1024, 1024, 64, 2.0, 100, 20);
+        cache.put("user-1", entry("user-1", 500));
+        Thread.sleep(40);
+
+        assertThat(cache.get("user-1")).isNull();
+        assertThat(cache.getStatus()).containsEntry("usedBytes", 0L).containsEntry("freeSlabs", 1);
+    }
+
+    /**
+     * 保证相邻写入的访问时间不同，使跨级别淘汰的顺序确定
+     */
+    private static void sleepTick() {
+        try {
+            Thread.sleep(2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static CachedCookieData entry(String userId, int payloadLength) {
+        CookieData cookieData = new CookieData();
+        cookieData.setUserId(userId);
+        cookieData.setEncryptedData(payload(payloadLength));
+        cookieData.setVersion(1);
+        return new CachedCookieData(cookieData, 5, System.currentTimeMillis() + HOUR);
+    }
+
+    private static String payload(int length) {
+        return "x".repeat(length);
+    }
+}
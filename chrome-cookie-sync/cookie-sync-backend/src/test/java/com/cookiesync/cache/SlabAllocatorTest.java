@@ -0,0 +1,81 @@
+package com.cookiesync.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 堆外分级分配器测试：级别划分、容量上限与slab复用
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+class SlabAllocatorTest {
+
+    @Test
+    void sizeClassesGrowByFactorUpToSlabSize() {
+        SlabAllocator allocator = new SlabAllocator(1024, 4096, 64, 2.0);
+
+        assertThat(allocator.sizeClassCount()).isEqualTo(5);
+        assertThat(allocator.chunkSize(0)).isEqualTo(64);
+        assertThat(allocator.chunkSize(4)).isEqualTo(1024);
+        assertThat(allocator.sizeClassFor(1)).isZero();
+        assertThat(allocator.sizeClassFor(64)).isZero();
+        assertThat(allocator.sizeClassFor(65)).isEqualTo(1);
+        assertThat(allocator.sizeClassFor(1024)).isEqualTo(4);
+        assertThat(allocator.sizeClassFor(1025)).isEqualTo(-1);
+    }
+
+    @Test
+    void allocationStopsAtMaxSlabs() {
+        SlabAllocator allocator = new SlabAllocator(1024, 2048, 256, 2.0);
+
+        List<SlabAllocator.Chunk> chunks = new ArrayList<>();
+        SlabAllocator.Chunk chunk;
+        while ((chunk = allocator.allocate(0)) != null) {
+            chunks.add(chunk);
+        }
+
+        assertThat(chunks).hasSize(8);
+        assertThat(allocator.getAllocatedSlabs()).isEqualTo(2);
+        assertThat(allocator.allocate(2)).isNull();
+    }
+
+    @Test
+    void emptySlabIsReusedByAnotherSizeClass() {
+        SlabAllocator allocator = new SlabAllocator(1024, 1024, 256, 2.0);
+        List<SlabAllocator.Chunk> chunks = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            chunks.add(allocator.allocate(0));
+        }
+        assertThat(allocator.allocate(2)).isNull();
+
+        chunks.forEach(allocator::free);
+        assertThat(allocator.getFreeSlabs()).isEqualTo(1);
+
+        SlabAllocator.Chunk whole = allocator.allocate(2);
+        assertThat(whole).isNotNull();
+        assertThat(allocator.getAllocatedSlabs()).isEqualTo(1);
+        // 原级别的空闲块已随slab回收，不会再分配到同一块内存
+        assertThat(allocator.allocate(0)).isNull();
+    }
+
+    @Test
+    void writtenDataReadsBack() {
+        SlabAllocator allocator = new SlabAllocator(1024, 1024, 64, 2.0);
+        SlabAllocator.Chunk first = allocator.allocate(1);
+        SlabAllocator.Chunk second = allocator.allocate(1);
+        byte[] one = "first-payload".getBytes(StandardCharsets.ISO_8859_1);
+        byte[] two = "second-payload".getBytes(StandardCharsets.ISO_8859_1);
+
+        allocator.write(first, one);
+        allocator.write(second, two);
+
+        assertThat(allocator.read(first, one.length)).isEqualTo(one);
+        assertThat(allocator.read(second, two.length)).isEqualTo(two);
+    }
+}
@@ -0,0 +1,190 @@
+package com.cookiesync.outbox;
+
+import com.cookiesync.entity.CookieChangeEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongUnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 发件箱中继测试：连续发布、序号空洞等待与跳过、发布失败不推进检查点
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+class OutboxRelayTest {
+
+    private static final long GAP_TIMEOUT = 10000;
+
+    private FakeOutbox outbox;
+
+    private InMemoryChangeBroker broker;
+
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        outbox = new FakeOutbox();
+        broker = new InMemoryChangeBroker();
+        ReflectionTestUtils.setField(broker, "maxEvents", 10000);
+        relay = relay(broker, 3);
+    }
+
+    @Test
+    void publishesContiguousEventsAcrossBatches() {
+        for (long id = 1; id <= 7; id++) {
+            outbox.add(id, LocalDateTime.now());
+        }
+
+        assertThat(relay.relay()).isEqualTo(7);
+
+        assertThat(publishedIds()).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L);
+        assertThat(outbox.checkpoint).isEqualTo(7);
+        assertThat(relay.relay()).isZero();
+    }
+
+    @Test
+    void waitsForRecentGapUntilItIsFilled() {
+        outbox.add(1, LocalDateTime.now());
+        outbox.add(2, LocalDateTime.now());
+        outbox.add(4, LocalDateTime.now());
+
+        // 序号3所在的事务尚未提交，停在空洞之前
+        assertThat(relay.relay()).isEqualTo(2);
+        assertThat(outbox.checkpoint).isEqualTo(2);
+
+        outbox.add(3, LocalDateTime.now());
+        assertThat(relay.relay()).isEqualTo(2);
+
+        assertThat(publishedIds()).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(outbox.checkpoint).isEqualTo(4);
+    }
+
+    @Test
+    void skipsGapOnceLaterEventsAreOlderThanTimeout() {
+        LocalDateTime stale = LocalDateTime.now().minusSeconds(GAP_TIMEOUT / 1000 + 5);
+        outbox.add(1, stale);
+        outbox.add(3, stale);
+        outbox.add(5, LocalDateTime.now());
+
+        // 序号2的事务已回滚，跳过；序号4的空洞之后的事件仍在等待时间内
+        assertThat(relay.relay()).isEqualTo(2);
+
+        assertThat(publishedIds()).containsExactly(1L, 3L);
+        assertThat(outbox.checkpoint).isEqualTo(3);
+    }
+
+    @Test
+    void failedPublishKeepsCheckpoint() {
+        outbox.add(1, LocalDateTime.now());
+        outbox.add(2, LocalDateTime.now());
+        FailingBroker failing = new FailingBroker();
+        OutboxRelay failingRelay = relay(failing, 10);
+
+        assertThat(failingRelay.relay()).isZero();
+        assertThat(outbox.checkpoint).isZero();
+        assertThat(ReflectionTestUtils.getField(failingRelay, "lastError")).isEqualTo("broker unavailable");
+
+        failing.failing = false;
+        assertThat(failingRelay.relay()).isEqualTo(2);
+        assertThat(outbox.checkpoint).isEqualTo(2);
+        assertThat(ReflectionTestUtils.getField(failingRelay, "lastError")).isNull();
+    }
+
+    private OutboxRelay relay(ChangeBroker changeBroker, int batchSize) {
+        OutboxRelay created = new OutboxRelay();
+        ReflectionTestUtils.setField(created, "changeOutbox", outbox);
+        ReflectionTestUtils.setField(created, "changeBroker", changeBroker);
+        ReflectionTestUtils.setField(created, "relayEnabled", true);
+        ReflectionTestUtils.setField(created, "batchSize", batchSize);
+        ReflectionTestUtils.setField(created, "gapTimeout", GAP_TIMEOUT);
+        return created;
+    }
+
+    private List<Long> publishedIds() {
+        List<Long> ids = new ArrayList<>();
+        for (CookieChangeEvent event : broker.poll("test", 100)) {
+            ids.add(event.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * 内存发件箱，只保存事件和单个检查点
+     */
+    private static class FakeOutbox implements ChangeOutbox {
+
+        private final List<CookieChangeEvent> events = new ArrayList<>();
+
+        private long checkpoint;
+
+        void add(long id, LocalDateTime createTime) {
+            CookieChangeEvent event = CookieChangeEvent.delete("user-" + id);
+            event.setId(id);
+            event.setCreateTime(createTime);
+            events.add(event);
+            events.sort(Comparator.comparing(CookieChangeEvent::getId));
+        }
+
+        @Override
+        public void append(List<CookieChangeEvent> appended) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<CookieChangeEvent> readAfter(long afterId, int limit) {
+            return events.stream().filter(event -> event.getId() > afterId).limit(limit).toList();
+        }
+
+        @Override
+        public long advance(String name, LongUnaryOperator step) {
+            checkpoint = step.applyAsLong(checkpoint);
+            return checkpoint;
+        }
+
+        @Override
+        public int purge(long upToId, LocalDateTime before) {
+            return 0;
+        }
+
+        @Override
+        public Map<String, Object> getStatus() {
+            return new HashMap<>();
+        }
+    }
+
+    private static class FailingBroker implements ChangeBroker {
+
+        private boolean failing = true;
+
+        @Override
+        public void publish(List<CookieChangeEvent> events) {
+            if (failing) {
+                throw new IllegalStateException("broker unavailable");
+            }
+        }
+
+        @Override
+        public List<CookieChangeEvent> poll(String group, int limit) {
+            return List.of();
+        }
+
+        @Override
+        public void commit(String group, long offset) {
+        }
+
+        @Override
+        public Map<String, Object> getStatus() {
+            return new HashMap<>();
+        }
+    }
+}
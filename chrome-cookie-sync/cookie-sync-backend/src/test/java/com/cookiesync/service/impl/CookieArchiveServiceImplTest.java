@@ -0,0 +1,208 @@
+package com.cookiesync.service.impl;
+
+import com.cookiesync.entity.CookieData;
+import com.cookiesync.mapper.CookieArchiveMapper;
+import com.cookiesync.mapper.CookieDataMapper;
+import com.cookiesync.util.CompressionUtil;
+import com.cookiesync.util.EncryptionUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.cookiesync.service.CookieArchiveService.ARCHIVE_MARKER;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 冷热分层服务测试：按数据量分批归档、批次失败不中断、并发上传时放弃归档、恢复顺序与恢复竞争
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+class CookieArchiveServiceImplTest {
+
+    private CookieDataMapper cookieDataMapper;
+
+    private CookieArchiveMapper cookieArchiveMapper;
+
+    private EncryptionUtil encryptionUtil;
+
+    private CookieArchiveServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        cookieDataMapper = mock(CookieDataMapper.class);
+        cookieArchiveMapper = mock(CookieArchiveMapper.class);
+        encryptionUtil = mock(EncryptionUtil.class);
+
+        service = new CookieArchiveServiceImpl();
+        ReflectionTestUtils.setField(service, "cookieDataMapper", cookieDataMapper);
+        ReflectionTestUtils.setField(service, "cookieArchiveMapper", cookieArchiveMapper);
+        ReflectionTestUtils.setField(service, "encryptionUtil", encryptionUtil);
+        ReflectionTestUtils.setField(service, "inactiveDays", 7);
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+        ReflectionTestUtils.setField(service, "maxBatchMb", 16L);
+    }
+
+    @Test
+    void archivesInBatchesAndDropsArchivesOfUsersChangedMeanwhile() {
+        CookieData first = cookieData(1L, "user-1", "gzip-1");
+        CookieData second = cookieData(2L, "user-2", "gzip-2");
+        CookieData third = cookieData(3L, "user-3", "gzip-3");
+        when(cookieDataMapper.findArchiveCandidates(any(), eq(ARCHIVE_MARKER), eq(0L), eq(2)))
+                .thenReturn(List.of(candidate(first), candidate(second)));
+        when(cookieDataMapper.findArchiveCandidates(any(), eq(ARCHIVE_MARKER), eq(2L), eq(2)))
+                .thenReturn(List.of(candidate(third)));
+        when(cookieDataMapper.findArchiveCandidates(any(), eq(ARCHIVE_MARKER), eq(3L), eq(2)))
+                .thenReturn(List.of());
+        when(cookieDataMapper.findArchivableByIds(List.of(1L, 2L), ARCHIVE_MARKER)).thenReturn(List.of(first, second));
+        when(cookieDataMapper.findArchivableByIds(List.of(3L), ARCHIVE_MARKER)).thenReturn(List.of(third));
+        when(encryptionUtil.decryptToBytes(any(), any())).thenReturn(CompressionUtil.gzip(bytes("[]")));
+        when(cookieDataMapper.markArchived(any(), eq(ARCHIVE_MARKER))).thenReturn(1);
+        // user-2 在写入归档后、替换占位值前重新上传
+        when(cookieDataMapper.markArchived(argThat(c -> c != null && "user-2".equals(c.getUserId())), eq(ARCHIVE_MARKER)))
+                .thenReturn(0);
+
+        assertThat(service.archiveInactive()).isEqualTo(2);
+
+        InOrder order = inOrder(cookieArchiveMapper, cookieDataMapper);
+        order.verify(cookieArchiveMapper).upsertBatch(List.of(first, second));
+        order.verify(cookieDataMapper).markArchived(first, ARCHIVE_MARKER);
+        order.verify(cookieDataMapper).markArchived(second, ARCHIVE_MARKER);
+        order.verify(cookieArchiveMapper).deleteOrphans(List.of("user-2"), ARCHIVE_MARKER);
+        order.verify(cookieArchiveMapper).upsertBatch(List.of(third));
+        assertThat(service.getStatus().get("lastRun")).asString().contains("archived=2", "scanned=3", "failed=0");
+    }
+
+    @Test
+    void recompressesLegacyPayloadsAndSkipsUndecryptableOnes() {
+        CookieData legacy = cookieData(1L, "legacy", "plain");
+        CookieData broken = cookieData(2L, "broken", "corrupt");
+        when(cookieDataMapper.findArchiveCandidates(any(), eq(ARCHIVE_MARKER), anyLong(), anyInt()))
+                .thenReturn(List.of(candidate(legacy), candidate(broken)), List.of());
+        when(cookieDataMapper.findArchivableByIds(List.of(1L, 2L), ARCHIVE_MARKER)).thenReturn(List.of(legacy, broken));
+        when(encryptionUtil.decryptToBytes("key-legacy", "plain")).thenReturn(bytes("[{\"name\":\"a\"}]"));
+        when(encryptionUtil.decryptToBytes("key-broken", "corrupt")).thenThrow(new IllegalStateException("bad tag"));
+        when(encryptionUtil.encryptBytes(eq("key-legacy"), any())).thenReturn("recompressed");
+        when(cookieDataMapper.markArchived(any(), eq(ARCHIVE_MARKER))).thenReturn(1);
+
+        assertThat(service.archiveInactive()).isEqualTo(1);
+
+        verify(encryptionUtil).encryptBytes(eq("key-legacy"), argThat(CompressionUtil::isGzip));
+        verify(cookieArchiveMapper).upsertBatch(List.of(legacy));
+        assertThat(legacy.getEncryptedData()).isEqualTo("recompressed");
+        assertThat(legacy.getDataSize()).isEqualTo("recompressed".length());
+        verify(cookieDataMapper, never()).markArchived(broken, ARCHIVE_MARKER);
+    }
+
+    @Test
+    void groupsLargePayloadsByBytesAndContinuesAfterFailedGroup() {
+        ReflectionTestUtils.setField(service, "batchSize", 3);
+        ReflectionTestUtils.setField(service, "maxBatchMb", 1L);
+        long largeSize = 700 * 1024;
+        CookieData first = cookieData(1L, "user-1", "gzip-1");
+        CookieData third = cookieData(3L, "user-3", "gzip-3");
+        when(cookieDataMapper.findArchiveCandidates(any(), eq(ARCHIVE_MARKER), anyLong(), anyInt()))
+                .thenReturn(List.of(candidate(1L, largeSize), candidate(2L, largeSize), candidate(3L, 100L)), List.of());
+        when(cookieDataMapper.findArchivableByIds(List.of(1L), ARCHIVE_MARKER)).thenReturn(List.of(first));
+        when(cookieDataMapper.findArchivableByIds(List.of(2L, 3L), ARCHIVE_MARKER)).thenReturn(List.of(third));
+        when(encryptionUtil.decryptToBytes(any(), any())).thenReturn(CompressionUtil.gzip(bytes("[]")));
+        when(cookieArchiveMapper.upsertBatch(List.of(first))).thenThrow(new IllegalStateException("packet too large"));
+        when(cookieDataMapper.markArchived(any(), eq(ARCHIVE_MARKER))).thenReturn(1);
+
+        assertThat(service.archiveInactive()).isEqualTo(1);
+
+        verify(cookieDataMapper).markArchived(third, ARCHIVE_MARKER);
+        verify(cookieDataMapper, never()).markArchived(first, ARCHIVE_MARKER);
+        assertThat(service.getStatus().get("lastRun")).asString().contains("archived=1", "scanned=3", "failed=1");
+    }
+
+    @Test
+    void restoreWritesBackBeforeDroppingArchive() {
+        CookieData stub = cookieData(1L, "user-1", ARCHIVE_MARKER);
+        when(cookieArchiveMapper.findEncryptedData("user-1")).thenReturn("payload");
+        when(cookieDataMapper.restoreArchived("user-1", "payload", ARCHIVE_MARKER)).thenReturn(1);
+
+        CookieData restored = service.restore(stub);
+
+        assertThat(restored.getEncryptedData()).isEqualTo("payload");
+        InOrder order = inOrder(cookieDataMapper, cookieArchiveMapper);
+        order.verify(cookieDataMapper).restoreArchived("user-1", "payload", ARCHIVE_MARKER);
+        order.verify(cookieArchiveMapper).deleteByUserId("user-1");
+        assertThat(service.getStatus()).containsEntry("restored", 1L);
+    }
+
+    @Test
+    void restoreRaceReturnsCurrentRow() {
+        CookieData stub = cookieData(1L, "user-1", ARCHIVE_MARKER);
+        CookieData current = cookieData(1L, "user-1", "uploaded-meanwhile");
+        when(cookieArchiveMapper.findEncryptedData("user-1")).thenReturn(null);
+        when(cookieDataMapper.findByUserId("user-1")).thenReturn(current);
+
+        assertThat(service.restore(stub)).isSameAs(current);
+        verify(cookieArchiveMapper, never()).deleteByUserId(any());
+    }
+
+    @Test
+    void restoreFailsWhenStubHasNoArchive() {
+        CookieData stub = cookieData(1L, "user-1", ARCHIVE_MARKER);
+        when(cookieArchiveMapper.findEncryptedData("user-1")).thenReturn(null);
+        when(cookieDataMapper.findByUserId("user-1")).thenReturn(cookieData(1L, "user-1", ARCHIVE_MARKER));
+
+        assertThatThrownBy(() -> service.restore(stub))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("归档数据缺失");
+    }
+
+    @Test
+    void emptyRunTouchesNoArchiveRows() {
+        when(cookieDataMapper.findArchiveCandidates(any(), eq(ARCHIVE_MARKER), anyLong(), anyInt())).thenReturn(List.of());
+
+        assertThat(service.archiveInactive()).isZero();
+
+        verify(cookieArchiveMapper, never()).upsertBatch(anyList());
+        verify(cookieArchiveMapper, never()).deleteOrphans(anyList(), any());
+    }
+
+    private static CookieData candidate(CookieData cookieData) {
+        return candidate(cookieData.getId(), (long) cookieData.getEncryptedData().length());
+    }
+
+    private static CookieData candidate(Long id, Long dataSize) {
+        CookieData candidate = new CookieData();
+        candidate.setId(id);
+        candidate.setDataSize(dataSize);
+        return candidate;
+    }
+
+    private static CookieData cookieData(Long id, String userId, String encryptedData) {
+        CookieData cookieData = new CookieData();
+        cookieData.setId(id);
+        cookieData.setUserId(userId);
+        cookieData.setEncryptedData(encryptedData);
+        cookieData.setDataKey("key-" + userId);
+        cookieData.setVersion(1);
+        cookieData.setUpdateTime(LocalDateTime.now().minusDays(30));
+        return cookieData;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,246 @@
+package com.cookiesync.service.impl;
+
+import com.cookiesync.cache.CookieDataCache;
+import com.cookiesync.entity.ApiResponse;
+import com.cookiesync.entity.CookieChangeEvent;
+import com.cookiesync.entity.CookieData;
+import com.cookiesync.entity.EntryMergeResult;
+import com.cookiesync.jfr.SyncFlightRecorder;
+import com.cookiesync.jfr.SyncTrace;
+import com.cookiesync.service.CookieArchiveService;
+import com.cookiesync.service.CookieEntryService;
+import com.cookiesync.service.CookiePruningService;
+import com.cookiesync.service.CookieService;
+import com.cookiesync.service.CookieSnapshotService;
+import com.cookiesync.service.UploadQuotaService;
+import com.cookiesync.storage.CookieStorage;
+import com.cookiesync.util.EncryptionUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.cookiesync.service.CookieArchiveService.ARCHIVE_MARKER;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cookie服务上传与存在性检查测试：上传覆盖占位记录后才删除归档，版本快照在事务提交后保存，
+ * 写入失败时回滚并返回错误响应，存在性检查不恢复归档
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+class CookieServiceImplTest {
+
+    private CookieStorage cookieStorage;
+
+    private CookieDataCache cookieDataCache;
+
+    private CookieArchiveService cookieArchiveService;
+
+    private SyncFlightRecorder syncFlightRecorder;
+
+    private CookieServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        cookieStorage = mock(CookieStorage.class);
+        cookieDataCache = mock(CookieDataCache.class);
+        cookieArchiveService = mock(CookieArchiveService.class);
+        EncryptionUtil encryptionUtil = mock(EncryptionUtil.class);
+        when(encryptionUtil.generateDataKey()).thenReturn("data-key");
+        when(encryptionUtil.encryptBytes(anyString(), any())).thenReturn("encrypted");
+        syncFlightRecorder = mock(SyncFlightRecorder.class);
+        when(syncFlightRecorder.begin(anyString(), anyString())).thenReturn(SyncTrace.NONE);
+
+        service = new CookieServiceImpl();
+        ReflectionTestUtils.setField(service, "cookieStorage", cookieStorage);
+        ReflectionTestUtils.setField(service, "cookieDataCache", cookieDataCache);
+        ReflectionTestUtils.setField(service, "cookieArchiveService", cookieArchiveService);
+        ReflectionTestUtils.setField(service, "encryptionUtil", encryptionUtil);
+        ReflectionTestUtils.setField(service, "syncFlightRecorder", syncFlightRecorder);
+        ReflectionTestUtils.setField(service, "cookiePruningService", mock(CookiePruningService.class));
+        ReflectionTestUtils.setField(service, "uploadQuotaService", mock(UploadQuotaService.class));
+        ReflectionTestUtils.setField(service, "syncLogEnabled", false);
+    }
+
+    @Test
+    void uploadOverArchivedStubDiscardsArchiveAfterUpdate() {
+        when(cookieStorage.findByUserId("user-1")).thenReturn(stub());
+        when(cookieStorage.updateByUserId(any())).thenReturn(1);
+
+        ApiResponse<String> response = service.uploadCookieData("user-1", "[]", "agent", "127.0.0.1");
+
+        assertThat(response.getCode()).isEqualTo(200);
+        InOrder order = inOrder(cookieStorage, cookieArchiveService);
+        order.verify(cookieStorage).updateByUserId(any());
+        order.verify(cookieArchiveService).discard("user-1");
+    }
+
+    @Test
+    void failedUpdateKeepsArchive() {
+        when(cookieStorage.findByUserId("user-1")).thenReturn(stub());
+        when(cookieStorage.updateByUserId(any())).thenThrow(new IllegalStateException("lock wait timeout"));
+
+        ApiResponse<String> response = service.uploadCookieData("user-1", "[]", "agent", "127.0.0.1");
+
+        assertThat(response.getCode()).isNotEqualTo(200);
+        verify(cookieArchiveService, never()).discard(any());
+    }
+
+    @Test
+    void failedDiscardDoesNotFailUpload() {
+        when(cookieStorage.findByUserId("user-1")).thenReturn(stub());
+        when(cookieStorage.updateByUserId(any())).thenReturn(1);
+        doThrow(new IllegalStateException("deadlock")).when(cookieArchiveService).discard("user-1");
+
+        assertThat(service.uploadCookieData("user-1", "[]", "agent", "127.0.0.1").getCode()).isEqualTo(200);
+    }
+
+    @Test
+    void entryModeUploadPublishesFullDataInChangeEvent() {
+        CookieEntryService cookieEntryService = mock(CookieEntryService.class);
+        ReflectionTestUtils.setField(service, "cookieEntryService", cookieEntryService);
+        when(cookieEntryService.accepts(any())).thenReturn(true);
+        when(cookieEntryService.merge(anyString(), any())).thenReturn(new EntryMergeResult(0, 0, 0, 0));
+        when(cookieStorage.findByUserId("user-1")).thenReturn(stub());
+        List<CookieChangeEvent> events = new ArrayList<>();
+        when(cookieStorage.updateByUserId(any())).thenAnswer(invocation -> {
+            CookieData written = invocation.getArgument(0);
+            assertThat(written.getEncryptedData()).isEqualTo(CookieEntryService.ENTRY_MARKER);
+            events.add(CookieChangeEvent.upsert(written));
+            return 1;
+        });
+
+        assertThat(service.uploadCookieData("user-1", "[]", "agent", "127.0.0.1").getCode()).isEqualTo(200);
+        assertThat(events).singleElement().extracting(CookieChangeEvent::getEncryptedData).isEqualTo("encrypted");
+    }
+
+    @Test
+    void snapshotIsSavedOnlyAfterCommit() {
+        CookieSnapshotService cookieSnapshotService = mock(CookieSnapshotService.class);
+        ReflectionTestUtils.setField(service, "cookieSnapshotService", cookieSnapshotService);
+        when(cookieStorage.findByUserId("user-1")).thenReturn(stub());
+        when(cookieStorage.updateByUserId(any())).thenReturn(1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertThat(service.uploadCookieData("user-1", "[]", "agent", "127.0.0.1").getCode()).isEqualTo(200);
+            verify(cookieSnapshotService, never()).snapshot(anyString(), anyInt(), anyString(), anyInt());
+
+            doThrow(new IllegalStateException("deadlock")).when(cookieSnapshotService)
+                    .snapshot(anyString(), anyInt(), anyString(), anyInt());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(cookieSnapshotService).snapshot(eq("user-1"), eq(4), eq("[]"), anyInt());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void concurrentFirstUploadReturnsErrorAndRollsBack() {
+        RecordingTransactionManager transactionManager = new RecordingTransactionManager();
+        ProxyFactory factory = new ProxyFactory(service);
+        factory.addAdvice(new TransactionInterceptor(transactionManager, new AnnotationTransactionAttributeSource()));
+        CookieService proxy = (CookieService) factory.getProxy();
+        when(cookieStorage.insert(any())).thenThrow(new DuplicateKeyException("uk_user_id"));
+
+        ApiResponse<String> response = proxy.uploadCookieData("user-1", "[]", "agent", "127.0.0.1");
+
+        assertThat(response.getCode()).isEqualTo(500);
+        assertThat(transactionManager.rollbacks).isEqualTo(1);
+        assertThat(transactionManager.commits).isZero();
+    }
+
+    @Test
+    void earlyReturnsFinishTheTrace() {
+        SyncTrace trace = spy(SyncTrace.NONE);
+        when(syncFlightRecorder.begin(anyString(), anyString())).thenReturn(trace);
+        UploadQuotaService uploadQuotaService = mock(UploadQuotaService.class);
+        when(uploadQuotaService.isExceeded("user-1")).thenReturn(true);
+        ReflectionTestUtils.setField(service, "uploadQuotaService", uploadQuotaService);
+
+        assertThat(service.uploadCookieData("user-1", "[]", "agent", "127.0.0.1").getCode()).isEqualTo(429);
+        assertThat(service.downloadCookieData("user-1", null, "127.0.0.1", "agent").getCode()).isNotEqualTo(200);
+        assertThat(service.downloadCookiePayload("user-1", null, "127.0.0.1", "agent").getCode()).isEqualTo(404);
+
+        verify(trace, times(3)).finish(false, 0L, 0);
+    }
+
+    @Test
+    void existsCheckReadsMetadataWithoutRestoring() {
+        when(cookieDataCache.getAll(List.of("user-1"))).thenReturn(Map.of());
+        when(cookieStorage.findMetadataByUserIds(List.of("user-1"))).thenReturn(List.of(stub()));
+
+        assertThat(service.checkCookieDataExists("user-1").getData()).isTrue();
+
+        verify(cookieDataCache, never()).get(anyString(), any());
+        verify(cookieArchiveService, never()).restore(any());
+        verify(cookieStorage, never()).findByUserId(anyString());
+    }
+
+    private static CookieData stub() {
+        CookieData cookieData = new CookieData();
+        cookieData.setId(1L);
+        cookieData.setUserId("user-1");
+        cookieData.setEncryptedData(ARCHIVE_MARKER);
+        cookieData.setVersion(3);
+        cookieData.setExpireTime(LocalDateTime.now().plusDays(1));
+        return cookieData;
+    }
+
+    /**
+     * 只记录提交与回滚次数的事务管理器
+     */
+    private static class RecordingTransactionManager extends AbstractPlatformTransactionManager {
+
+        private int commits;
+
+        private int rollbacks;
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            commits++;
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            rollbacks++;
+        }
+    }
+}
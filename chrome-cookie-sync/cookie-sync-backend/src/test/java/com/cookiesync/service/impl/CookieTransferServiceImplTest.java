@@ -0,0 +1,144 @@
+package com.cookiesync.service.impl;
+
+import com.cookiesync.bulkhead.BoundedExecutor;
+import com.cookiesync.cache.CookieDataCache;
+import com.cookiesync.entity.CookieData;
+import com.cookiesync.service.CookieArchiveService;
+import com.cookiesync.service.CookieEntryService;
+import com.cookiesync.storage.CookieStorage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 批量导出/导入服务测试
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+class CookieTransferServiceImplTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private CookieStorage cookieStorage;
+
+    private BoundedExecutor importExecutor;
+
+    private CookieTransferServiceImpl service;
+
+    private final List<List<String>> batches = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        cookieStorage = mock(CookieStorage.class);
+        when(cookieStorage.upsertBatch(anyList())).thenAnswer(invocation -> {
+            List<CookieData> batch = invocation.getArgument(0);
+            synchronized (batches) {
+                batches.add(batch.stream().map(CookieData::getUserId).toList());
+            }
+            return batch.size();
+        });
+        importExecutor = new BoundedExecutor("import-test", 1, 10, false);
+
+        service = new CookieTransferServiceImpl();
+        ReflectionTestUtils.setField(service, "cookieStorage", cookieStorage);
+        ReflectionTestUtils.setField(service, "cookieDataCache", mock(CookieDataCache.class));
+        ReflectionTestUtils.setField(service, "importExecutor", importExecutor);
+        ReflectionTestUtils.setField(service, "batchSize", 3);
+        ReflectionTestUtils.setField(service, "maxInFlightBatches", 2);
+        ReflectionTestUtils.setField(service, "maxBatchMb", 1L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        importExecutor.shutdownNow();
+    }
+
+    @Test
+    void importBatchesAreBoundedByRowsAndBytes() throws Exception {
+        int large = 700 * 1024;
+        StringBuilder input = new StringBuilder();
+        input.append(line("small-1", 10)).append(line("small-2", 10)).append(line("small-3", 10))
+                .append(line("small-4", 10)).append(line("large-1", large)).append(line("large-2", large))
+                .append(line("huge", 2 * 1024 * 1024)).append(line("small-5", 10));
+
+        Map<String, Object> result = service.importAll(
+                new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result).containsEntry("imported", 8L).containsEntry("failed", 0L);
+        assertThat(batches).containsExactly(
+                List.of("small-1", "small-2", "small-3"),
+                List.of("small-4", "large-1"),
+                List.of("large-2"),
+                List.of("huge"),
+                List.of("small-5"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void exportWritesAssembledEntriesInsteadOfPlaceholders() throws Exception {
+        CookieArchiveService cookieArchiveService = mock(CookieArchiveService.class);
+        CookieEntryService cookieEntryService = mock(CookieEntryService.class);
+        ReflectionTestUtils.setField(service, "cookieArchiveService", cookieArchiveService);
+        ReflectionTestUtils.setField(service, "cookieEntryService", cookieEntryService);
+        when(cookieStorage.scanAll(any())).thenAnswer(invocation -> {
+            Consumer<CookieData> consumer = invocation.getArgument(0);
+            consumer.accept(row("whole", "jar"));
+            consumer.accept(row("archived", CookieArchiveService.ARCHIVE_MARKER));
+            consumer.accept(row("entries", CookieEntryService.ENTRY_MARKER));
+            return 3;
+        });
+        when(cookieArchiveService.scanArchived(any())).thenAnswer(invocation -> {
+            ((Consumer<CookieData>) invocation.getArgument(0)).accept(row("archived", "archived-jar"));
+            return 1;
+        });
+        when(cookieEntryService.scanAssembled(any())).thenAnswer(invocation -> {
+            ((Consumer<CookieData>) invocation.getArgument(0)).accept(row("entries", "assembled-jar"));
+            return 1;
+        });
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long exported = service.exportAll(out);
+
+        List<CookieData> rows = new ArrayList<>();
+        for (String json : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            rows.add(objectMapper.readValue(json, CookieData.class));
+        }
+        assertThat(exported).isEqualTo(3);
+        assertThat(rows).extracting(CookieData::getUserId, CookieData::getEncryptedData).containsExactly(
+                tuple("whole", "jar"), tuple("archived", "archived-jar"), tuple("entries", "assembled-jar"));
+    }
+
+    private static CookieData row(String userId, String encryptedData) {
+        CookieData cookieData = new CookieData();
+        cookieData.setUserId(userId);
+        cookieData.setEncryptedData(encryptedData);
+        return cookieData;
+    }
+
+    private String line(String userId, int size) throws Exception {
+        CookieData cookieData = new CookieData();
+        cookieData.setUserId(userId);
+        cookieData.setEncryptedData("x".repeat(size));
+        cookieData.setVersion(1);
+        return objectMapper.writeValueAsString(cookieData) + "\n";
+    }
+}
@@ -0,0 +1,136 @@
+package com.cookiesync.service.impl;
+
+import com.cookiesync.bulkhead.BoundedExecutor;
+import com.cookiesync.entity.WrappedDataKey;
+import com.cookiesync.service.CookieEntryService;
+import com.cookiesync.service.CookieSnapshotService;
+import com.cookiesync.storage.CookieStorage;
+import com.cookiesync.util.EncryptionUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 数据密钥轮换测试：三张表的数据密钥都重新包装，历史数据迁移为包装后的静态密钥
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+class DataKeyRotationServiceImplTest {
+
+    private EncryptionUtil before;
+
+    private EncryptionUtil after;
+
+    private BoundedExecutor rotationExecutor;
+
+    private final List<WrappedDataKey> written = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        before = encryptionUtil(EncryptionUtil.DEFAULT_MASTER_KEY_ID);
+        after = encryptionUtil("k1");
+        rotationExecutor = new BoundedExecutor("rotation-test", 2, 1, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        rotationExecutor.shutdownNow();
+        before.destroy();
+        after.destroy();
+    }
+
+    @Test
+    void rotatesDataEntryAndChunkKeysIncludingLegacyRows() throws Exception {
+        String dataKey = before.generateDataKey();
+        String entryKey = before.generateDataKey();
+        String chunkKey = before.generateDataKey();
+
+        CookieStorage cookieStorage = mock(CookieStorage.class);
+        when(cookieStorage.findStaleDataKeys(eq("k1"), anyLong(), anyInt())).thenAnswer(invocation ->
+                invocation.getArgument(1, Long.class) == 0
+                        ? List.of(new WrappedDataKey(1L, "user-1", null, dataKey, null),
+                                  new WrappedDataKey(2L, "user-2", null, null, null))
+                        : List.of());
+        when(cookieStorage.updateDataKeys(anyList())).thenAnswer(invocation -> record(invocation.getArgument(0)));
+
+        CookieEntryService cookieEntryService = mock(CookieEntryService.class);
+        when(cookieEntryService.findStaleDataKeys(eq("k1"), anyLong(), anyInt())).thenAnswer(invocation ->
+                invocation.getArgument(1, Long.class) == 0
+                        ? List.of(new WrappedDataKey(7L, "user-1", null, entryKey, null))
+                        : List.of());
+        when(cookieEntryService.updateDataKeys(anyList())).thenAnswer(invocation -> record(invocation.getArgument(0)));
+
+        CookieSnapshotService cookieSnapshotService = mock(CookieSnapshotService.class);
+        when(cookieSnapshotService.findStaleDataKeys(eq("k1"), anyString(), anyInt())).thenAnswer(invocation ->
+                invocation.getArgument(1, String.class).isEmpty()
+                        ? List.of(new WrappedDataKey(null, null, "chunk-a", chunkKey, null),
+                                  new WrappedDataKey(null, null, "chunk-b", null, null))
+                        : List.of());
+        when(cookieSnapshotService.updateDataKeys(anyList())).thenAnswer(invocation -> record(invocation.getArgument(0)));
+
+        DataKeyRotationServiceImpl service = new DataKeyRotationServiceImpl();
+        ReflectionTestUtils.setField(service, "cookieStorage", cookieStorage);
+        ReflectionTestUtils.setField(service, "cookieEntryService", cookieEntryService);
+        ReflectionTestUtils.setField(service, "cookieSnapshotService", cookieSnapshotService);
+        ReflectionTestUtils.setField(service, "encryptionUtil", after);
+        ReflectionTestUtils.setField(service, "rotationExecutor", rotationExecutor);
+        ReflectionTestUtils.setField(service, "batchSize", 10);
+        ReflectionTestUtils.setField(service, "parallelism", 1);
+        ReflectionTestUtils.setField(service, "maxRowsPerSecond", 0);
+
+        service.start();
+        Map<String, Object> status = awaitFinished(service);
+
+        assertThat(status).containsEntry("state", "COMPLETED").containsEntry("scanned", 5L)
+                .containsEntry("rotated", 5L).containsEntry("failed", 0L);
+        assertThat(written).allSatisfy(key -> assertThat(key.getRotatedKey()).startsWith("k1:"));
+        String wrappedStaticKey = after.rewrapDataKey(null);
+        assertThat(written).filteredOn(key -> key.getDataKey() == null)
+                .extracting(WrappedDataKey::getRotatedKey).containsOnly(wrappedStaticKey).hasSize(2);
+    }
+
+    private int record(List<WrappedDataKey> batch) {
+        synchronized (written) {
+            written.addAll(batch);
+        }
+        return batch.size();
+    }
+
+    private static Map<String, Object> awaitFinished(DataKeyRotationServiceImpl service) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            Map<String, Object> status = service.status();
+            if (status.get("endTime") != null) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("轮换未在超时前结束");
+    }
+
+    private static EncryptionUtil encryptionUtil(String activeMasterKeyId) {
+        EncryptionUtil util = new EncryptionUtil();
+        ReflectionTestUtils.setField(util, "secretKey", "CookieSyncSecretKey2024!@#$%^&*");
+        ReflectionTestUtils.setField(util, "chunkSize", 1024);
+        ReflectionTestUtils.setField(util, "parallelism", 1);
+        ReflectionTestUtils.setField(util, "masterKeysConfig", "k1:MTExMTExMTExMTExMTExMTExMTExMTExMTExMTExMTE=");
+        ReflectionTestUtils.setField(util, "activeMasterKeyId", activeMasterKeyId);
+        ReflectionTestUtils.setField(util, "dataKeyCacheSize", 100);
+        util.init();
+        return util;
+    }
+}
@@ -0,0 +1,120 @@
+package com.cookiesync.service.impl;
+
+import com.cookiesync.entity.SyncLog;
+import com.cookiesync.entity.SyncLogPage;
+import com.cookiesync.mapper.SyncLogMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 同步日志键集分页测试：游标往返、同一时间的多条日志与无效游标
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+class SyncLogServiceImplTest {
+
+    private final List<SyncLog> logs = new ArrayList<>();
+
+    private SyncLogServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        SyncLogMapper mapper = mock(SyncLogMapper.class);
+        when(mapper.findUserLogPage(eq("user-1"), any(), any(), anyInt())).thenAnswer(invocation -> page(
+                invocation.getArgument(1), invocation.getArgument(2), invocation.getArgument(3)));
+        when(mapper.findLogPage(any(), any(), anyInt())).thenAnswer(invocation -> page(
+                invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2)));
+
+        service = new SyncLogServiceImpl();
+        ReflectionTestUtils.setField(service, "syncLogMapper", mapper);
+        ReflectionTestUtils.setField(service, "maxPageSize", 4);
+
+        // 每3条日志共用同一创建时间，翻页边界落在同一时间内时依靠主键区分
+        LocalDateTime base = LocalDateTime.of(2026, 1, 1, 12, 0, 0, 123_456_789);
+        for (long id = 1; id <= 10; id++) {
+            SyncLog syncLog = new SyncLog();
+            syncLog.setId(id);
+            syncLog.setUserId("user-1");
+            syncLog.setCreateTime(base.plusSeconds((id - 1) / 3));
+            logs.add(syncLog);
+        }
+    }
+
+    @Test
+    void cursorWalksEveryLogOnceNewestFirst() {
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            SyncLogPage page = service.findLogs("user-1", cursor, 3);
+            page.getLogs().forEach(syncLog -> seen.add(syncLog.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(seen).containsExactly(10L, 9L, 8L, 7L, 6L, 5L, 4L, 3L, 2L, 1L);
+        assertThat(pages).isEqualTo(4);
+    }
+
+    @Test
+    void pageSizeIsCappedAndLastPageHasNoCursor() {
+        SyncLogPage first = service.findLogs(null, null, 100);
+        assertThat(first.getLogs()).hasSize(4);
+        assertThat(first.getNextCursor()).isNotNull();
+
+        SyncLogPage second = service.findLogs(null, first.getNextCursor(), 100);
+        SyncLogPage third = service.findLogs(null, second.getNextCursor(), 100);
+        assertThat(third.getLogs()).extracting(SyncLog::getId).containsExactly(2L, 1L);
+        assertThat(third.getNextCursor()).isNull();
+    }
+
+    @Test
+    void cursorKeepsSubSecondPrecision() {
+        String cursor = service.findLogs("user-1", null, 1).getNextCursor();
+
+        String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        assertThat(decoded).isEqualTo(logs.get(9).getCreateTime() + "|10");
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        String notBase64 = "***";
+        String missingId = Base64.getUrlEncoder().encodeToString("2026-01-01T12:00".getBytes(StandardCharsets.UTF_8));
+        String badTime = Base64.getUrlEncoder().encodeToString("yesterday|5".getBytes(StandardCharsets.UTF_8));
+
+        for (String cursor : List.of(notBase64, missingId, badTime)) {
+            assertThatThrownBy(() -> service.findLogs("user-1", cursor, 3))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("无效的分页游标");
+        }
+    }
+
+    /**
+     * 与 KEYSET_CONDITION 和 ORDER BY create_time DESC, id DESC 一致的内存实现
+     */
+    private List<SyncLog> page(LocalDateTime beforeTime, Long beforeId, int limit) {
+        return logs.stream()
+                .filter(syncLog -> beforeTime == null || syncLog.getCreateTime().isBefore(beforeTime)
+                        || (syncLog.getCreateTime().isEqual(beforeTime) && syncLog.getId() < beforeId))
+                .sorted(Comparator.comparing(SyncLog::getCreateTime).thenComparing(SyncLog::getId).reversed())
+                .limit(limit)
+                .toList();
+    }
+}
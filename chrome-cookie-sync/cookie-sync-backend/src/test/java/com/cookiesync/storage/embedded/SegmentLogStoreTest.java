@@ -0,0 +1,151 @@
+package com.cookiesync.storage.embedded;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 段日志存储测试：重启恢复、残缺写入丢弃与段压缩
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+class SegmentLogStoreTest {
+
+    /**
+     * 记录头与记录体固定部分长度：crc 4 + 长度 4 + 类型 1 + 序列号 8 + key长度 2
+     */
+    private static final int RECORD_OVERHEAD = 19;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoversLatestValuesAndDeletesAfterReopen() {
+        try (SegmentLogStore store = open(4096)) {
+            store.put("user-1", bytes("v1"));
+            store.put("user-2", bytes("v2"));
+            store.put("user-1", bytes("v1-updated"));
+            store.delete("user-2");
+        }
+
+        try (SegmentLogStore store = open(4096)) {
+            assertThat(store.get("user-1")).isEqualTo(bytes("v1-updated"));
+            assertThat(store.get("user-2")).isNull();
+            assertThat(store.keys()).containsExactly("user-1");
+        }
+    }
+
+    @Test
+    void discardsTornTailWriteAndKeepsAppending() throws IOException {
+        try (SegmentLogStore store = open(4096)) {
+            store.put("a", bytes("first"));
+            store.put("b", bytes("second"));
+        }
+        // 模拟崩溃时第二条记录只写入了一部分
+        int secondOffset = RECORD_OVERHEAD + 1 + "first".length();
+        corrupt(segmentFiles().get(0), secondOffset + RECORD_OVERHEAD + 1);
+
+        try (SegmentLogStore store = open(4096)) {
+            assertThat(store.get("a")).isEqualTo(bytes("first"));
+            assertThat(store.get("b")).isNull();
+            store.put("c", bytes("third"));
+        }
+
+        // 残缺记录已被清除，之后追加的记录在再次重启后仍然有效
+        try (SegmentLogStore store = open(4096)) {
+            assertThat(store.get("a")).isEqualTo(bytes("first"));
+            assertThat(store.get("b")).isNull();
+            assertThat(store.get("c")).isEqualTo(bytes("third"));
+        }
+    }
+
+    @Test
+    void compactionMovesLiveRecordsAndRemovesSegments() throws IOException {
+        try (SegmentLogStore store = open(128)) {
+            for (int round = 0; round < 5; round++) {
+                for (int i = 0; i < 4; i++) {
+                    store.put("key-" + i, bytes("round-" + round + "-" + i));
+                }
+            }
+            store.delete("key-3");
+            int segmentsBefore = segmentFiles().size();
+
+            assertThat(store.compact(0.5)).isPositive();
+
+            assertThat(segmentFiles().size()).isLessThan(segmentsBefore);
+            for (int i = 0; i < 3; i++) {
+                assertThat(store.get("key-" + i)).isEqualTo(bytes("round-4-" + i));
+            }
+            assertThat(store.get("key-3")).isNull();
+        }
+
+        // 压缩后重启，被覆盖的旧值与已删除的key不会复活
+        try (SegmentLogStore store = open(128)) {
+            for (int i = 0; i < 3; i++) {
+                assertThat(store.get("key-" + i)).isEqualTo(bytes("round-4-" + i));
+            }
+            assertThat(store.get("key-3")).isNull();
+            assertThat(store.size()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    void prefixReadReturnsLeadingBytes() {
+        try (SegmentLogStore store = open(4096)) {
+            store.put("user", bytes("metadata|payload"));
+
+            assertThat(store.get("user", 8)).isEqualTo(bytes("metadata"));
+            assertThat(store.get("user", 1024)).isEqualTo(bytes("metadata|payload"));
+            assertThat(store.get("user", 0)).isEmpty();
+            assertThat(store.get("missing", 8)).isNull();
+        }
+    }
+
+    @Test
+    void reservedSequenceStaysAheadAfterReopen() {
+        long reserved;
+        try (SegmentLogStore store = open(4096)) {
+            reserved = store.reserveSequence();
+            store.put("user", bytes("value"));
+        }
+
+        try (SegmentLogStore store = open(4096)) {
+            assertThat(store.reserveSequence()).isGreaterThan(reserved);
+        }
+    }
+
+    private SegmentLogStore open(int segmentSize) {
+        return new SegmentLogStore(directory, segmentSize, FsyncPolicy.NEVER, 0);
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static void corrupt(Path segment, int position) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1);
+            channel.read(buffer, position);
+            buffer.put(0, (byte) (buffer.get(0) ^ 0xff)).rewind();
+            channel.write(buffer, position);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
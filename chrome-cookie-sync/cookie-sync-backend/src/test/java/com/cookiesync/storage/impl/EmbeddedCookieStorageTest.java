@@ -0,0 +1,130 @@
+package com.cookiesync.storage.impl;
+
+import com.cookiesync.entity.CookieData;
+import com.cookiesync.entity.WrappedDataKey;
+import com.cookiesync.storage.embedded.FsyncPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 内嵌存储测试：ID恢复、元数据读取与并发写入
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+class EmbeddedCookieStorageTest {
+
+    @TempDir
+    Path directory;
+
+    private EmbeddedCookieStorage storage;
+
+    @AfterEach
+    void tearDown() {
+        if (storage != null) {
+            storage.destroy();
+        }
+    }
+
+    @Test
+    void idsStayUniqueAcrossRestart() {
+        storage = open();
+        storage.insert(cookieData("user-1", "payload-1"));
+        storage.insert(cookieData("user-2", "payload-2"));
+        storage.deleteByUserId("user-2");
+        long lastId = storage.findByUserId("user-1").getId();
+        storage.destroy();
+
+        storage = open();
+        CookieData inserted = cookieData("user-3", "payload-3");
+        storage.insert(inserted);
+
+        assertThat(inserted.getId()).isGreaterThan(lastId);
+        assertThat(storage.findByUserId("user-1").getEncryptedData()).isEqualTo("payload-1");
+        assertThatThrownBy(() -> storage.insert(cookieData("user-1", "again")))
+                .isInstanceOf(DuplicateKeyException.class);
+    }
+
+    @Test
+    void metadataScansReflectWritesAndDeletes() {
+        storage = open();
+        storage.insert(cookieData("user-1", "payload-1"));
+        CookieData expired = cookieData("user-2", "payload-2");
+        expired.setExpireTime(LocalDateTime.now().minusDays(1));
+        storage.insert(expired);
+
+        List<CookieData> metadata = storage.findMetadataByUserIds(List.of("user-1", "missing"));
+        assertThat(metadata).hasSize(1);
+        assertThat(metadata.get(0).getEncryptedData()).isNull();
+        assertThat(metadata.get(0).getCookieCount()).isEqualTo(3);
+
+        assertThat(storage.getSystemStats()).containsEntry("totalUsers", 2).containsEntry("totalCookies", 6L);
+        assertThat(storage.deleteExpiredData()).isEqualTo(1);
+
+        // 索引建立后的写入同样反映在统计中
+        storage.insert(cookieData("user-3", "payload-3"));
+        Map<String, Object> stats = storage.getSystemStats();
+        assertThat(stats).containsEntry("totalUsers", 2).containsEntry("totalCookies", 6L);
+
+        List<WrappedDataKey> stale = storage.findStaleDataKeys("k2", 0, 10);
+        assertThat(stale).extracting(WrappedDataKey::getUserId).containsExactly("user-1", "user-3");
+    }
+
+    @Test
+    void concurrentUpsertsOfNewUserShareOneId() throws InterruptedException {
+        storage = open();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < 32; i++) {
+            String payload = "payload-" + i;
+            executor.execute(() -> {
+                CookieData cookieData = cookieData("user-1", payload);
+                storage.upsertBatch(List.of(cookieData));
+                ids.add(cookieData.getId());
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(ids).containsExactly(storage.findByUserId("user-1").getId());
+    }
+
+    private EmbeddedCookieStorage open() {
+        EmbeddedCookieStorage opened = new EmbeddedCookieStorage();
+        ReflectionTestUtils.setField(opened, "directory", directory.toString());
+        ReflectionTestUtils.setField(opened, "segmentSize", 4096);
+        ReflectionTestUtils.setField(opened, "fsyncPolicy", FsyncPolicy.NEVER);
+        ReflectionTestUtils.setField(opened, "fsyncInterval", 0L);
+        opened.init();
+        return opened;
+    }
+
+    private static CookieData cookieData(String userId, String encryptedData) {
+        CookieData cookieData = new CookieData();
+        cookieData.setUserId(userId);
+        cookieData.setEncryptedData(encryptedData);
+        cookieData.setDataKey("k1:" + userId);
+        cookieData.setDataSize((long) encryptedData.length());
+        cookieData.setCookieCount(3);
+        cookieData.setVersion(1);
+        cookieData.setCreateTime(LocalDateTime.now());
+        cookieData.setUpdateTime(LocalDateTime.now());
+        return cookieData;
+    }
+}
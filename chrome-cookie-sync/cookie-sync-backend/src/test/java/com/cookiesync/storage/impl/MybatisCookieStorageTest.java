@@ -0,0 +1,131 @@
+package com.cookiesync.storage.impl;
+
+import com.cookiesync.entity.CookieData;
+import com.cookiesync.mapper.CookieDataMapper;
+import com.cookiesync.outbox.ChangeOutbox;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * MySQL存储事务测试：调用方已开启事务时写入失败不把事务标记为只能回滚，未开启时与变更事件一起提交
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+class MybatisCookieStorageTest {
+
+    private CookieDataMapper cookieDataMapper;
+
+    private ChangeOutbox changeOutbox;
+
+    private RecordingTransactionManager transactionManager;
+
+    private MybatisCookieStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        cookieDataMapper = mock(CookieDataMapper.class);
+        changeOutbox = mock(ChangeOutbox.class);
+        transactionManager = new RecordingTransactionManager();
+        storage = new MybatisCookieStorage();
+        ReflectionTestUtils.setField(storage, "cookieDataMapper", cookieDataMapper);
+        ReflectionTestUtils.setField(storage, "changeOutbox", changeOutbox);
+        ReflectionTestUtils.setField(storage, "transactionTemplate", new TransactionTemplate(transactionManager));
+    }
+
+    @Test
+    void failedWriteLeavesCallerTransactionCommittable() {
+        when(cookieDataMapper.insert(any())).thenThrow(new DuplicateKeyException("uk_user_id"));
+        TransactionTemplate caller = new TransactionTemplate(transactionManager);
+
+        boolean rollbackOnly = caller.execute(status -> {
+            assertThatThrownBy(() -> storage.insert(cookieData())).isInstanceOf(DuplicateKeyException.class);
+            return status.isRollbackOnly();
+        });
+
+        assertThat(rollbackOnly).isFalse();
+        assertThat(transactionManager.begun).isEqualTo(1);
+        assertThat(transactionManager.commits).isEqualTo(1);
+        verify(changeOutbox, never()).append(anyList());
+    }
+
+    @Test
+    void writeWithoutCallerTransactionCommitsWithEvent() {
+        when(cookieDataMapper.updateByUserId(any())).thenReturn(1);
+
+        assertThat(storage.updateByUserId(cookieData())).isEqualTo(1);
+
+        assertThat(transactionManager.begun).isEqualTo(1);
+        assertThat(transactionManager.commits).isEqualTo(1);
+        verify(changeOutbox).append(anyList());
+    }
+
+    @Test
+    void failedWriteWithoutCallerTransactionRollsBack() {
+        when(cookieDataMapper.deleteByUserId("user-1")).thenThrow(new IllegalStateException("deadlock"));
+
+        assertThatThrownBy(() -> storage.deleteByUserId("user-1")).isInstanceOf(IllegalStateException.class);
+
+        assertThat(transactionManager.rollbacks).isEqualTo(1);
+        assertThat(transactionManager.commits).isZero();
+    }
+
+    private static CookieData cookieData() {
+        CookieData cookieData = new CookieData();
+        cookieData.setUserId("user-1");
+        cookieData.setEncryptedData("payload");
+        cookieData.setVersion(1);
+        return cookieData;
+    }
+
+    /**
+     * 只记录开始、提交与回滚次数的事务管理器
+     */
+    private static class RecordingTransactionManager extends AbstractPlatformTransactionManager {
+
+        private int begun;
+
+        private int commits;
+
+        private int rollbacks;
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            begun++;
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            commits++;
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            rollbacks++;
+        }
+
+        @Override
+        protected void doSetRollbackOnly(DefaultTransactionStatus status) {
+        }
+    }
+}
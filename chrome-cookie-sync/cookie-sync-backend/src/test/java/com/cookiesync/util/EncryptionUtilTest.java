@@ -0,0 +1,297 @@
+package com.cookiesync.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 加密工具测试：分段格式的往返与篡改检测、历史格式回退，数据密钥的包装、解包与重新包装
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+class EncryptionUtilTest {
+
+    private static final String MASTER_KEYS = "k1:" + "MTExMTExMTExMTExMTExMTExMTExMTExMTExMTExMTE=";
+
+    private static final String SECRET_KEY = "CookieSyncSecretKey2024!@#$%^&*";
+
+    private static final int CHUNK_SIZE = 1024;
+
+    /**
+     * 分段格式头部：魔数4字节、分段大小4字节、nonce前缀7字节
+     */
+    private static final int HEADER_LENGTH = 15;
+
+    private static final int TAG_LENGTH = 16;
+
+    private static final int STRIDE = CHUNK_SIZE + TAG_LENGTH;
+
+    private final List<EncryptionUtil> created = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        created.forEach(EncryptionUtil::destroy);
+    }
+
+    @Test
+    void roundTripsAtAndAroundChunkBoundaries() {
+        EncryptionUtil util = create(EncryptionUtil.DEFAULT_MASTER_KEY_ID, "");
+        int[] lengths = {0, 1, CHUNK_SIZE - 1, CHUNK_SIZE, CHUNK_SIZE + 1, 2 * CHUNK_SIZE, 10 * CHUNK_SIZE + 7};
+
+        for (int length : lengths) {
+            byte[] plain = random(length);
+            String encrypted = util.encryptBytes(plain);
+
+            int chunks = Math.max(1, (length + CHUNK_SIZE - 1) / CHUNK_SIZE);
+            assertThat(decode(encrypted)).as("长度 %d", length).hasSize(HEADER_LENGTH + length + chunks * TAG_LENGTH);
+            assertThat(util.decryptToBytes(encrypted)).as("长度 %d", length).isEqualTo(plain);
+        }
+    }
+
+    @Test
+    void decryptStreamMatchesDecryptToBytes() throws IOException {
+        EncryptionUtil util = create(EncryptionUtil.DEFAULT_MASTER_KEY_ID, "");
+        // 超过一个解密窗口（并行度的两倍个分段），流需要多次填充
+        int[] lengths = {0, CHUNK_SIZE, 10 * CHUNK_SIZE + 7};
+
+        for (int length : lengths) {
+            String encrypted = util.encryptBytes(random(length));
+
+            try (InputStream stream = util.openDecryptStream(encrypted)) {
+                assertThat(stream.readAllBytes()).as("长度 %d", length).isEqualTo(util.decryptToBytes(encrypted));
+            }
+        }
+        String legacy = encryptLegacy(random(100), null);
+        try (InputStream stream = util.openDecryptStream(legacy)) {
+            assertThat(stream.readAllBytes()).isEqualTo(util.decryptToBytes(legacy));
+        }
+    }
+
+    @Test
+    void rejectsTruncatedChunks() {
+        EncryptionUtil util = create(EncryptionUtil.DEFAULT_MASTER_KEY_ID, "");
+        byte[] encrypted = decode(util.encryptBytes(random(3 * CHUNK_SIZE)));
+
+        assertRejected(util, Arrays.copyOf(encrypted, encrypted.length - 1));
+        assertRejected(util, Arrays.copyOf(encrypted, HEADER_LENGTH + STRIDE + 10));
+        assertRejected(util, Arrays.copyOf(encrypted, HEADER_LENGTH + TAG_LENGTH - 1));
+    }
+
+    @Test
+    void rejectsReorderedAndDroppedChunks() {
+        EncryptionUtil util = create(EncryptionUtil.DEFAULT_MASTER_KEY_ID, "");
+        byte[] encrypted = decode(util.encryptBytes(random(3 * CHUNK_SIZE)));
+
+        byte[] reordered = encrypted.clone();
+        System.arraycopy(encrypted, HEADER_LENGTH, reordered, HEADER_LENGTH + STRIDE, STRIDE);
+        System.arraycopy(encrypted, HEADER_LENGTH + STRIDE, reordered, HEADER_LENGTH, STRIDE);
+        assertRejected(util, reordered);
+
+        // 删除中间分段，后续分段的序号与nonce不再对应
+        byte[] dropped = new byte[encrypted.length - STRIDE];
+        System.arraycopy(encrypted, 0, dropped, 0, HEADER_LENGTH + STRIDE);
+        System.arraycopy(encrypted, HEADER_LENGTH + 2 * STRIDE, dropped, HEADER_LENGTH + STRIDE,
+                encrypted.length - HEADER_LENGTH - 2 * STRIDE);
+        assertRejected(util, dropped);
+    }
+
+    @Test
+    void rejectsSwappedFinalFlag() {
+        EncryptionUtil util = create(EncryptionUtil.DEFAULT_MASTER_KEY_ID, "");
+        byte[] encrypted = decode(util.encryptBytes(random(3 * CHUNK_SIZE)));
+
+        // 在分段边界截断：原本的中间分段成为最后一段，但加密时未标记为最后一段
+        assertRejected(util, Arrays.copyOf(encrypted, HEADER_LENGTH + 2 * STRIDE));
+
+        // 在最后一段之后追加分段：原本的最后一段变为中间分段
+        byte[] extended = Arrays.copyOf(encrypted, encrypted.length + STRIDE);
+        System.arraycopy(encrypted, HEADER_LENGTH + STRIDE, extended, encrypted.length, STRIDE);
+        assertRejected(util, extended);
+    }
+
+    @Test
+    void rejectsOutOfRangeChunkSizeHeader() {
+        EncryptionUtil util = create(EncryptionUtil.DEFAULT_MASTER_KEY_ID, "");
+        byte[] encrypted = decode(util.encryptBytes(random(CHUNK_SIZE)));
+
+        for (int chunkSize : new int[]{0, 1023, 16 * 1024 * 1024 + 1, Integer.MAX_VALUE, -1}) {
+            byte[] tampered = encrypted.clone();
+            writeInt(tampered, 4, chunkSize);
+            assertRejected(util, tampered);
+        }
+    }
+
+    @Test
+    void fallsBackToLegacyFormat() {
+        EncryptionUtil util = create(EncryptionUtil.DEFAULT_MASTER_KEY_ID, "");
+        byte[] plain = random(2 * CHUNK_SIZE);
+
+        assertThat(util.decryptToBytes(encryptLegacy(plain, null))).isEqualTo(plain);
+
+        // 随机IV恰好以魔数和合法的分段大小开头时，分段格式认证失败后按历史格式解密
+        byte[] ivWithMagic = {'C', 'S', 'A', '1', 0, 0, 4, 0, 9, 9, 9, 9};
+        assertThat(util.decryptToBytes(encryptLegacy(plain, ivWithMagic))).isEqualTo(plain);
+    }
+
+    @Test
+    void dataKeyIsWrappedWithActiveMasterKeyAndRoundTrips() {
+        EncryptionUtil util = create("k1", MASTER_KEYS);
+        String dataKey = util.generateDataKey();
+
+        String encrypted = util.encryptBytes(dataKey, bytes("cookies"));
+
+        assertThat(dataKey).startsWith("k1:");
+        assertThat(util.isWrappedWithActiveKey(dataKey)).isTrue();
+        assertThat(text(util.decryptToBytes(dataKey, encrypted))).isEqualTo("cookies");
+        assertThatThrownBy(() -> util.decryptToBytes(encrypted)).isInstanceOf(RuntimeException.class);
+    }
+
+    @Test
+    void dataKeyIsUnwrappedByAnotherInstanceWithTheSameMasterKeys() {
+        EncryptionUtil writer = create("k1", MASTER_KEYS);
+        String dataKey = writer.generateDataKey();
+        String encrypted = writer.encryptBytes(dataKey, bytes("cookies"));
+
+        // 新实例的数据密钥缓存为空，必须以主密钥解包
+        EncryptionUtil reader = create(EncryptionUtil.DEFAULT_MASTER_KEY_ID, MASTER_KEYS);
+
+        assertThat(text(reader.decryptToBytes(dataKey, encrypted))).isEqualTo("cookies");
+        assertThatThrownBy(() -> create(EncryptionUtil.DEFAULT_MASTER_KEY_ID, "").decryptToBytes(dataKey, encrypted))
+                .rootCause().hasMessageContaining("未配置主密钥: k1");
+    }
+
+    @Test
+    void wrappedKeyCannotBeRelabelledWithAnotherMasterKey() {
+        EncryptionUtil util = create("k1", MASTER_KEYS);
+        String dataKey = util.generateDataKey();
+        String encrypted = util.encryptBytes(dataKey, bytes("cookies"));
+        String relabelled = EncryptionUtil.DEFAULT_MASTER_KEY_ID + dataKey.substring(dataKey.indexOf(':'));
+
+        EncryptionUtil reader = create("k1", MASTER_KEYS);
+
+        assertThatThrownBy(() -> reader.decryptToBytes(relabelled, encrypted)).isInstanceOf(RuntimeException.class);
+    }
+
+    @Test
+    void rewrapKeepsKeyAndMovesToActiveMasterKey() {
+        EncryptionUtil before = create(EncryptionUtil.DEFAULT_MASTER_KEY_ID, MASTER_KEYS);
+        String dataKey = before.generateDataKey();
+        String encrypted = before.encryptBytes(dataKey, bytes("cookies"));
+
+        EncryptionUtil after = create("k1", MASTER_KEYS);
+        String rotated = after.rewrapDataKey(dataKey);
+
+        assertThat(rotated).startsWith("k1:").isNotEqualTo(dataKey);
+        assertThat(after.rewrapDataKey(rotated)).isSameAs(rotated);
+        assertThat(text(create("k1", MASTER_KEYS).decryptToBytes(rotated, encrypted))).isEqualTo("cookies");
+    }
+
+    @Test
+    void rewrapOfLegacyDataWrapsTheStaticKeyOnce() {
+        EncryptionUtil util = create("k1", MASTER_KEYS);
+        String legacy = util.encryptBytes(null, bytes("legacy"));
+
+        String migrated = util.rewrapDataKey(null);
+
+        assertThat(migrated).startsWith("k1:");
+        assertThat(util.rewrapDataKey(null)).isSameAs(migrated);
+        assertThat(text(create("k1", MASTER_KEYS).decryptToBytes(migrated, legacy))).isEqualTo("legacy");
+    }
+
+    @Test
+    void unwrappedKeysAreCachedUpToTheConfiguredSize() {
+        EncryptionUtil util = create("k1", MASTER_KEYS, 2);
+
+        for (int i = 0; i < 5; i++) {
+            util.generateDataKey();
+        }
+
+        assertThat(util.getDataKeyCacheSize()).isEqualTo(2);
+    }
+
+    private EncryptionUtil create(String activeMasterKeyId, String masterKeys) {
+        return create(activeMasterKeyId, masterKeys, 100);
+    }
+
+    private EncryptionUtil create(String activeMasterKeyId, String masterKeys, int dataKeyCacheSize) {
+        EncryptionUtil util = new EncryptionUtil();
+        ReflectionTestUtils.setField(util, "secretKey", SECRET_KEY);
+        ReflectionTestUtils.setField(util, "chunkSize", CHUNK_SIZE);
+        ReflectionTestUtils.setField(util, "parallelism", 2);
+        ReflectionTestUtils.setField(util, "masterKeysConfig", masterKeys);
+        ReflectionTestUtils.setField(util, "activeMasterKeyId", activeMasterKeyId);
+        ReflectionTestUtils.setField(util, "dataKeyCacheSize", dataKeyCacheSize);
+        util.init();
+        created.add(util);
+        return util;
+    }
+
+    private static void assertRejected(EncryptionUtil util, byte[] encrypted) {
+        String text = Base64.getEncoder().encodeToString(encrypted);
+        assertThatThrownBy(() -> util.decryptToBytes(text)).isInstanceOf(RuntimeException.class);
+        assertThatThrownBy(() -> {
+            try (InputStream stream = util.openDecryptStream(text)) {
+                stream.readAllBytes();
+            }
+        }).isInstanceOf(Exception.class);
+    }
+
+    /**
+     * 按历史整体GCM格式加密：[IV 12字节][密文+tag]，静态密钥为密钥配置补齐到32字节
+     */
+    private static String encryptLegacy(byte[] plain, byte[] iv) {
+        try {
+            byte[] nonce = iv != null ? iv : random(12);
+            byte[] key = String.format("%-32s", SECRET_KEY).replace(' ', '0').getBytes(StandardCharsets.UTF_8);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"), new GCMParameterSpec(128, nonce));
+            byte[] ciphertext = cipher.doFinal(plain);
+            byte[] output = Arrays.copyOf(nonce, nonce.length + ciphertext.length);
+            System.arraycopy(ciphertext, 0, output, nonce.length, ciphertext.length);
+            return Base64.getEncoder().encodeToString(output);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) (value >>> 24);
+        target[offset + 1] = (byte) (value >>> 16);
+        target[offset + 2] = (byte) (value >>> 8);
+        target[offset + 3] = (byte) value;
+    }
+
+    private static byte[] random(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    private static byte[] decode(String encrypted) {
+        return Base64.getDecoder().decode(encrypted);
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,187 @@
+package com.cookiesync.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 模拟用户的Cookie集合，同一用户的多台设备共享
+ * 数量与值长度按对数正态分布生成，域名按Zipf分布集中在少数站点，与真实浏览器的Cookie分布接近；
+ * 序列化格式与扩展通过 chrome.cookies.getAll 取得并上传的数组一致
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public class CookieJar {
+
+    private static final String[] SUFFIXES = {".com", ".net", ".org", ".cn", ".io", ".co.uk"};
+
+    private static final String[] SAME_SITE = {"unspecified", "lax", "no_restriction", "strict"};
+
+    private static final String[] NAME_PREFIXES = {"_ga", "_gid", "sid", "session", "token", "uid", "pref",
+            "csrf", "lang", "consent", "_fbp", "tracking", "ab_test", "remember", "auth"};
+
+    private static final char[] VALUE_CHARS =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_.%".toCharArray();
+
+    private final Random random;
+
+    private final List<Cookie> cookies;
+
+    private final int maxCookies;
+
+    /**
+     * 站点数随Cookie数量增长，平均每个站点约5个Cookie
+     */
+    private final int siteCount;
+
+    private int version;
+
+    public CookieJar(Random random, int size, int maxCookies) {
+        this.random = random;
+        this.maxCookies = maxCookies;
+        this.siteCount = Math.max(1, size / 5);
+        this.cookies = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            cookies.add(newCookie(i));
+        }
+    }
+
+    public synchronized int size() {
+        return cookies.size();
+    }
+
+    /**
+     * 本地修改次数，用于区分设备上次上传后是否又发生了变化
+     */
+    public synchronized int getVersion() {
+        return version;
+    }
+
+    /**
+     * 模拟一次浏览产生的变化：刷新若干会话/追踪Cookie的值，偶尔新增或删除Cookie
+     */
+    public synchronized void mutate() {
+        int changes = 1 + (int) Math.round(Math.abs(random.nextGaussian()) * 3);
+        for (int i = 0; i < changes && !cookies.isEmpty(); i++) {
+            Cookie cookie = cookies.get(random.nextInt(cookies.size()));
+            cookie.value = randomValue(cookie.value.length());
+            if (cookie.expirationDate > 0) {
+                cookie.expirationDate += 3600 + random.nextInt(86400);
+            }
+        }
+        double action = random.nextDouble();
+        if (action < 0.3 && cookies.size() < maxCookies) {
+            cookies.add(newCookie(cookies.size()));
+        } else if (action < 0.45 && cookies.size() > 1) {
+            cookies.remove(random.nextInt(cookies.size()));
+        }
+        version++;
+    }
+
+    /**
+     * 序列化为扩展上传的JSON数组
+     */
+    public synchronized String toJson() {
+        StringBuilder json = new StringBuilder(cookies.size() * 220);
+        json.append('[');
+        for (int i = 0; i < cookies.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            cookies.get(i).appendJson(json);
+        }
+        return json.append(']').toString();
+    }
+
+    private Cookie newCookie(int index) {
+        Cookie cookie = new Cookie();
+        int site = zipf(siteCount);
+        boolean hostOnly = random.nextDouble() < 0.35;
+        String host = "site" + site + SUFFIXES[site % SUFFIXES.length];
+        cookie.domain = hostOnly ? "www." + host : "." + host;
+        cookie.hostOnly = hostOnly;
+        cookie.name = NAME_PREFIXES[random.nextInt(NAME_PREFIXES.length)] + "_" + index;
+        cookie.path = random.nextDouble() < 0.9 ? "/" : "/app" + random.nextInt(5);
+        cookie.secure = random.nextDouble() < 0.7;
+        cookie.httpOnly = random.nextDouble() < 0.4;
+        cookie.sameSite = SAME_SITE[random.nextInt(SAME_SITE.length)];
+        if (random.nextDouble() < 0.2) {
+            cookie.expirationDate = 0;
+        } else {
+            cookie.expirationDate = System.currentTimeMillis() / 1000.0 + 86400.0 * (1 + random.nextInt(365));
+        }
+        // 值长度中位数约32字节，少数JWT、序列化状态等长值接近4KB上限
+        int length = (int) Math.min(4000, Math.max(1, Math.round(Math.exp(Math.log(32) + random.nextGaussian()))));
+        cookie.value = randomValue(length);
+        return cookie;
+    }
+
+    private String randomValue(int length) {
+        char[] value = new char[length];
+        for (int i = 0; i < length; i++) {
+            value[i] = VALUE_CHARS[random.nextInt(VALUE_CHARS.length)];
+        }
+        return new String(value);
+    }
+
+    /**
+     * Zipf(s=1)分布的站点编号，少数热门站点拥有大部分Cookie
+     */
+    private int zipf(int n) {
+        double harmonic = Math.log(n) + 0.5772;
+        double target = random.nextDouble() * harmonic;
+        double sum = 0;
+        for (int k = 1; k <= n; k++) {
+            sum += 1.0 / k;
+            if (sum >= target) {
+                return k;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * 与 chrome.cookies.Cookie 字段一致
+     */
+    private static final class Cookie {
+
+        private String domain;
+
+        private String name;
+
+        private String value;
+
+        private String path;
+
+        private boolean hostOnly;
+
+        private boolean secure;
+
+        private boolean httpOnly;
+
+        private String sameSite;
+
+        /**
+         * 过期时间（秒），0表示会话Cookie
+         */
+        private double expirationDate;
+
+        private void appendJson(StringBuilder json) {
+            // 会话Cookie没有 expirationDate 字段
+            json.append("{\"domain\":\"").append(domain).append('"');
+            if (expirationDate > 0) {
+                json.append(",\"expirationDate\":").append(expirationDate);
+            }
+            json.append(",\"hostOnly\":").append(hostOnly)
+                    .append(",\"httpOnly\":").append(httpOnly)
+                    .append(",\"name\":\"").append(name)
+                    .append("\",\"path\":\"").append(path)
+                    .append("\",\"sameSite\":\"").append(sameSite)
+                    .append("\",\"secure\":").append(secure)
+                    .append(",\"session\":").append(expirationDate <= 0)
+                    .append(",\"storeId\":\"0\",\"value\":\"").append(value)
+                    .append("\"}");
+        }
+    }
+}
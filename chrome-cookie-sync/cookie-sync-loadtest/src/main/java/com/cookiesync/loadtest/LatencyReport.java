@@ -0,0 +1,298 @@
+package com.cookiesync.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 延迟与吞吐统计
+ * 每种操作记录两组HDR直方图（微秒）：
+ * <ul>
+ *     <li>响应时间：从计划发出时间算起，包含在途请求达到上限后的排队时间，避免协同遗漏（coordinated omission）</li>
+ *     <li>服务时间：从请求实际发出算起</li>
+ * </ul>
+ * 预热期间的数据在开始测量时丢弃
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public class LatencyReport {
+
+    public static final String UPLOAD = "upload";
+
+    public static final String DOWNLOAD = "download";
+
+    private final Map<String, OperationStats> operations = new LinkedHashMap<>();
+
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    private final AtomicLong measureStartNanos = new AtomicLong();
+
+    private final AtomicLong measureEndNanos = new AtomicLong();
+
+    private volatile boolean measuring;
+
+    private long lastTickNanos = System.nanoTime();
+
+    public LatencyReport() {
+        operations.put(UPLOAD, new OperationStats());
+        operations.put(DOWNLOAD, new OperationStats());
+    }
+
+    /**
+     * 预热结束，丢弃之前的数据
+     */
+    public synchronized void startMeasuring() {
+        for (OperationStats stats : operations.values()) {
+            stats.responseRecorder.reset();
+            stats.serviceRecorder.reset();
+        }
+        errors.clear();
+        measureStartNanos.set(System.nanoTime());
+        lastTickNanos = System.nanoTime();
+        measuring = true;
+    }
+
+    /**
+     * 测量时间结束，之后完成的在途请求仍计入延迟统计，但不计入吞吐的时长
+     */
+    public void stopMeasuring() {
+        measureEndNanos.set(System.nanoTime());
+    }
+
+    public boolean isMeasuring() {
+        return measuring;
+    }
+
+    public void recordSuccess(String operation, long intendedNanos, long sendNanos, long endNanos,
+                              long bytesSent, long bytesReceived) {
+        OperationStats stats = operations.get(operation);
+        stats.responseRecorder.recordValue(toMicros(endNanos - intendedNanos));
+        stats.serviceRecorder.recordValue(toMicros(endNanos - sendNanos));
+        if (measuring) {
+            stats.bytesSent.add(bytesSent);
+            stats.bytesReceived.add(bytesReceived);
+        }
+    }
+
+    /**
+     * 失败的请求只计数，不计入延迟直方图
+     */
+    public void recordError(String operation, String reason) {
+        if (measuring) {
+            errors.computeIfAbsent(operation + " " + reason, key -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * 输出本周期的统计，测量阶段同时累计到总直方图
+     */
+    public synchronized void tick(long elapsedSeconds, int inFlight, int queued) {
+        long now = System.nanoTime();
+        double seconds = Math.max(1e-3, (now - lastTickNanos) / 1e9);
+        lastTickNanos = now;
+        StringBuilder line = new StringBuilder();
+        line.append(String.format("[%4ds]%s 在途 %4d 排队 %5d", elapsedSeconds, measuring ? "" : " 预热", inFlight, queued));
+        for (Map.Entry<String, OperationStats> entry : operations.entrySet()) {
+            OperationStats stats = entry.getValue();
+            Histogram response = stats.responseRecorder.getIntervalHistogram(stats.responseInterval);
+            Histogram service = stats.serviceRecorder.getIntervalHistogram(stats.serviceInterval);
+            stats.responseInterval = response;
+            stats.serviceInterval = service;
+            line.append(String.format(" | %s %7.1f/s p50 %6.1fms p99 %7.1fms max %7.1fms",
+                    entry.getKey(), response.getTotalCount() / seconds,
+                    response.getValueAtPercentile(50) / 1000.0, response.getValueAtPercentile(99) / 1000.0,
+                    response.getMaxValue() / 1000.0));
+            if (measuring) {
+                stats.responseTotal.add(response);
+                stats.serviceTotal.add(service);
+            }
+        }
+        long errorCount = totalErrors();
+        if (errorCount > 0) {
+            line.append(" | 错误 ").append(errorCount);
+        }
+        System.out.println(line);
+    }
+
+    /**
+     * 写出报告文件并返回错误率是否在允许范围内
+     */
+    public synchronized boolean write(Path directory, LoadTestOptions options, Map<String, Object> environment)
+            throws IOException {
+        Files.createDirectories(directory);
+        long endNanos = measureEndNanos.get() > 0 ? measureEndNanos.get() : System.nanoTime();
+        double seconds = Math.max(1e-3, (endNanos - measureStartNanos.get()) / 1e9);
+
+        long totalRequests = 0;
+        Map<String, Object> operationSummary = new LinkedHashMap<>();
+        for (Map.Entry<String, OperationStats> entry : operations.entrySet()) {
+            OperationStats stats = entry.getValue();
+            totalRequests += stats.responseTotal.getTotalCount();
+            writeHistogram(directory.resolve(entry.getKey() + "-response.hgrm"), stats.responseTotal);
+            writeHistogram(directory.resolve(entry.getKey() + "-service.hgrm"), stats.serviceTotal);
+
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("requests", stats.responseTotal.getTotalCount());
+            summary.put("throughput", round(stats.responseTotal.getTotalCount() / seconds));
+            summary.put("bytesSent", stats.bytesSent.sum());
+            summary.put("bytesReceived", stats.bytesReceived.sum());
+            summary.put("responseMs", percentiles(stats.responseTotal));
+            summary.put("serviceMs", percentiles(stats.serviceTotal));
+            operationSummary.put(entry.getKey(), summary);
+        }
+        long errorCount = totalErrors();
+        double errorRate = errorCount == 0 ? 0 : (double) errorCount / (totalRequests + errorCount);
+        boolean passed = errorRate <= options.getMaxErrorRate();
+
+        Map<String, Object> errorSummary = new LinkedHashMap<>();
+        errors.forEach((key, value) -> errorSummary.put(key, value.sum()));
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("time", LocalDateTime.now().toString());
+        summary.put("environment", environment);
+        summary.put("options", optionSummary(options));
+        summary.put("durationSeconds", round(seconds));
+        summary.put("requests", totalRequests);
+        summary.put("throughput", round(totalRequests / seconds));
+        summary.put("errors", errorCount);
+        summary.put("errorRate", errorRate);
+        summary.put("passed", passed);
+        summary.put("operations", operationSummary);
+        summary.put("errorDetails", errorSummary);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(directory.resolve("summary.json").toFile(), summary);
+
+        String text = formatText(summary, operationSummary, errorSummary);
+        Files.writeString(directory.resolve("report.txt"), text, StandardCharsets.UTF_8);
+        System.out.println(text);
+        return passed;
+    }
+
+    private String formatText(Map<String, Object> summary, Map<String, Object> operationSummary,
+                              Map<String, Object> errorSummary) {
+        StringWriter buffer = new StringWriter();
+        PrintWriter out = new PrintWriter(buffer);
+        out.println("==================== 压测报告 ====================");
+        out.printf("时间: %s%n", summary.get("time"));
+        out.printf("环境: %s%n", summary.get("environment"));
+        out.printf("参数: %s%n", summary.get("options"));
+        out.printf("测量时长: %ss, 请求数: %s, 吞吐: %s/s, 错误: %s (%.4f%%)%n", summary.get("durationSeconds"),
+                summary.get("requests"), summary.get("throughput"), summary.get("errors"),
+                (double) summary.get("errorRate") * 100);
+        out.println("响应时间从计划发出时间算起（含排队），服务时间从实际发出算起，单位毫秒");
+        out.printf("%-10s %-8s %10s %10s %9s %9s %9s %9s %9s %9s%n",
+                "操作", "指标", "请求数", "吞吐/s", "p50", "p90", "p99", "p99.9", "p99.99", "max");
+        for (Map.Entry<String, Object> entry : operationSummary.entrySet()) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> operation = (Map<String, Object>) entry.getValue();
+            for (String metric : new String[]{"responseMs", "serviceMs"}) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> values = (Map<String, Object>) operation.get(metric);
+                out.printf("%-10s %-8s %10s %10s %9s %9s %9s %9s %9s %9s%n", entry.getKey(),
+                        "responseMs".equals(metric) ? "响应" : "服务", operation.get("requests"),
+                        operation.get("throughput"), values.get("p50"), values.get("p90"), values.get("p99"),
+                        values.get("p99.9"), values.get("p99.99"), values.get("max"));
+            }
+        }
+        if (!errorSummary.isEmpty()) {
+            out.println("错误明细: " + errorSummary);
+        }
+        out.printf("结果: %s%n", Boolean.TRUE.equals(summary.get("passed")) ? "通过" : "错误率超出允许范围");
+        out.flush();
+        return buffer.toString();
+    }
+
+    private long totalErrors() {
+        return errors.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    private static Map<String, Object> percentiles(Histogram histogram) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("p50", millis(histogram.getValueAtPercentile(50)));
+        values.put("p90", millis(histogram.getValueAtPercentile(90)));
+        values.put("p99", millis(histogram.getValueAtPercentile(99)));
+        values.put("p99.9", millis(histogram.getValueAtPercentile(99.9)));
+        values.put("p99.99", millis(histogram.getValueAtPercentile(99.99)));
+        values.put("max", millis(histogram.getMaxValue()));
+        values.put("mean", round(histogram.getMean() / 1000.0));
+        return values;
+    }
+
+    private static Map<String, Object> optionSummary(LoadTestOptions options) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("target", options.getTarget() == null ? "local" : options.getTarget());
+        values.put("users", options.getUsers());
+        values.put("duration", options.getDuration().toString());
+        values.put("warmup", options.getWarmup().toString());
+        values.put("timeScale", options.getTimeScale());
+        values.put("maxInFlight", options.getMaxInFlight());
+        values.put("medianCookies", options.getMedianCookies());
+        values.put("changeRate", options.getChangeRate());
+        values.put("hourlyRatio", options.getHourlyRatio());
+        values.put("honorSyncHint", options.isHonorSyncHint());
+        values.put("gzip", options.isGzip());
+        values.put("seed", options.getSeed());
+        values.put("backendArgs", options.getBackendArgs());
+        return values;
+    }
+
+    /**
+     * 以毫秒输出百分位分布，可用 HdrHistogram 的绘图工具查看
+     */
+    private static void writeHistogram(Path file, Histogram histogram) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, StandardCharsets.UTF_8)) {
+            histogram.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    private static long toMicros(long nanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    private static double millis(long micros) {
+        return round(micros / 1000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    /**
+     * 单个操作的统计，Recorder 支持多线程无锁记录
+     */
+    private static final class OperationStats {
+
+        private final Recorder responseRecorder = new Recorder(3);
+
+        private final Recorder serviceRecorder = new Recorder(3);
+
+        private final Histogram responseTotal = new Histogram(3);
+
+        private final Histogram serviceTotal = new Histogram(3);
+
+        private final LongAdder bytesSent = new LongAdder();
+
+        private final LongAdder bytesReceived = new LongAdder();
+
+        private Histogram responseInterval;
+
+        private Histogram serviceInterval;
+    }
+}
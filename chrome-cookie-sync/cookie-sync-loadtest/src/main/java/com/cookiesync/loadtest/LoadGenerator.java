@@ -0,0 +1,361 @@
+package com.cookiesync.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 开放模型的负载生成器
+ * 每台设备按自己的定时任务节奏发起同步，不因后端变慢而减少请求：
+ * 到期的同步进入队列，在途请求达到上限时在队列中等待，等待时间计入响应时间
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Slf4j
+public class LoadGenerator {
+
+    private static final String[] USER_AGENTS = {
+            "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36",
+            "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36",
+            "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/119.0.0.0 Safari/537.36"
+    };
+
+    private static final long HOURLY_SECONDS = 3600;
+
+    private static final long DAILY_SECONDS = 86400;
+
+    /**
+     * 扩展定时任务的最短间隔（秒）
+     */
+    private static final long MIN_ALARM_SECONDS = 60;
+
+    private final LoadTestOptions options;
+
+    private final String baseUrl;
+
+    private final LatencyReport report;
+
+    private final List<SimulatedDevice> devices = new ArrayList<>();
+
+    private final HttpClient client;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final ExecutorService workers;
+
+    private final Semaphore permits;
+
+    private final LinkedBlockingQueue<PendingSync> queue = new LinkedBlockingQueue<>();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile boolean running;
+
+    public LoadGenerator(LoadTestOptions options, String baseUrl, LatencyReport report) {
+        this.options = options;
+        this.baseUrl = baseUrl;
+        this.report = report;
+        this.permits = new Semaphore(options.getMaxInFlight());
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(daemon("loadtest-alarm"));
+        this.workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), daemon("loadtest-worker"));
+        createDevices();
+    }
+
+    /**
+     * 按参数生成用户与设备，相同的随机种子生成相同的数据
+     * 每个用户1~3台设备（55% / 30% / 15%），Cookie数量服从对数正态分布
+     */
+    private void createDevices() {
+        Random random = new Random(options.getSeed());
+        long cookies = 0;
+        for (int i = 0; i < options.getUsers(); i++) {
+            String userId = String.format("loadtest-%d-%06d", options.getSeed(), i);
+            double logSize = Math.log(options.getMedianCookies()) + random.nextGaussian() * options.getCookieSigma();
+            int size = (int) Math.max(1, Math.min(options.getMaxCookies(), Math.round(Math.exp(logSize))));
+            CookieJar jar = new CookieJar(new Random(random.nextLong()), size, options.getMaxCookies());
+            cookies += size;
+
+            double roll = random.nextDouble();
+            int deviceCount = roll < 0.55 ? 1 : roll < 0.85 ? 2 : 3;
+            for (int d = 0; d < deviceCount; d++) {
+                long period = random.nextDouble() < options.getHourlyRatio() ? HOURLY_SECONDS : DAILY_SECONDS;
+                SimulatedDevice device = new SimulatedDevice(userId, d, jar, period,
+                        USER_AGENTS[random.nextInt(USER_AGENTS.length)]);
+                // 第一台设备持有尚未上传的Cookie，其他设备从服务端下载
+                device.setDirty(d == 0);
+                devices.add(device);
+            }
+        }
+        log.info("已生成模拟数据 - 用户: {}, 设备: {}, 平均Cookie数: {}", options.getUsers(), devices.size(),
+                cookies / options.getUsers());
+    }
+
+    public int getDeviceCount() {
+        return devices.size();
+    }
+
+    /**
+     * 运行到预热与测量时间结束，期间按报告间隔输出统计
+     */
+    public void run() throws InterruptedException {
+        running = true;
+        Thread dispatcher = new Thread(this::dispatchLoop, "loadtest-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+
+        // 首次同步在一个周期内随机分布，模拟扩展在不同时间安装/启动
+        long start = System.nanoTime();
+        Random random = new Random(options.getSeed() + 1);
+        for (SimulatedDevice device : devices) {
+            long delay = (long) (random.nextDouble() * scaledNanos(device.getPeriodSeconds()));
+            device.setLastSyncNanos(start);
+            schedule(device, start + delay);
+        }
+
+        long warmupEnd = start + options.getWarmup().toNanos();
+        long end = warmupEnd + options.getDuration().toNanos();
+        long interval = options.getReportInterval().toNanos();
+        long nextTick = start + interval;
+        long lastTick = start;
+        while (System.nanoTime() < end) {
+            long now = System.nanoTime();
+            if (!report.isMeasuring() && now >= warmupEnd) {
+                // 预热结束时输出不足一个周期的剩余部分，与周期输出重合时跳过
+                if (now - lastTick >= TimeUnit.MILLISECONDS.toNanos(100)) {
+                    report.tick(elapsedSeconds(start), inFlight.get(), queue.size());
+                }
+                report.startMeasuring();
+                lastTick = now;
+                nextTick = now + interval;
+            }
+            long wake = Math.min(nextTick, report.isMeasuring() ? end : warmupEnd);
+            TimeUnit.NANOSECONDS.sleep(Math.max(0, wake - System.nanoTime()));
+            if (System.nanoTime() >= nextTick) {
+                report.tick(elapsedSeconds(start), inFlight.get(), queue.size());
+                lastTick = System.nanoTime();
+                nextTick += interval;
+            }
+        }
+
+        // 停止发起新的同步，等待在途请求完成后输出最后一个周期
+        running = false;
+        report.stopMeasuring();
+        scheduler.shutdownNow();
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        report.tick(elapsedSeconds(start), inFlight.get(), queue.size());
+        dispatcher.interrupt();
+        workers.shutdownNow();
+    }
+
+    private void dispatchLoop() {
+        try {
+            while (running) {
+                PendingSync sync = queue.take();
+                permits.acquire();
+                inFlight.incrementAndGet();
+                workers.execute(() -> execute(sync));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void schedule(SimulatedDevice device, long intendedNanos) {
+        if (!running) {
+            return;
+        }
+        long delay = intendedNanos - System.nanoTime();
+        PendingSync sync = new PendingSync(device, intendedNanos);
+        if (delay <= 0) {
+            queue.add(sync);
+            return;
+        }
+        try {
+            scheduler.schedule(() -> queue.add(sync), delay, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // 压测已结束
+        }
+    }
+
+    /**
+     * 执行一次同步：按距离上次同步的（模拟）时长决定本地Cookie是否发生变化，有变化则上传，否则下载
+     */
+    private void execute(PendingSync sync) {
+        SimulatedDevice device = sync.device;
+        String operation = null;
+        try {
+            double hours = (sync.intendedNanos - device.getLastSyncNanos()) / 1e9 * options.getTimeScale() / 3600;
+            device.setLastSyncNanos(sync.intendedNanos);
+            if (ThreadLocalRandom.current().nextDouble() < 1 - Math.exp(-options.getChangeRate() * hours)) {
+                device.getJar().mutate();
+                device.setDirty(true);
+            }
+
+            HttpRequest request;
+            long bytesSent = 0;
+            if (device.isDirty()) {
+                operation = LatencyReport.UPLOAD;
+                byte[] body = device.getJar().toJson().getBytes(StandardCharsets.UTF_8);
+                HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + "/api/cookies/upload?userId="
+                                + URLEncoder.encode(device.getUserId(), StandardCharsets.UTF_8)))
+                        .header("Content-Type", "application/json")
+                        .header("User-Agent", device.getUserAgent());
+                if (options.isGzip()) {
+                    body = gzip(body);
+                    builder.header("Content-Encoding", "gzip");
+                }
+                bytesSent = body.length;
+                request = builder.timeout(Duration.ofSeconds(60))
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                        .build();
+            } else {
+                operation = LatencyReport.DOWNLOAD;
+                String url = baseUrl + "/api/cookies/download/raw?userId="
+                        + URLEncoder.encode(device.getUserId(), StandardCharsets.UTF_8);
+                if (device.getKnownVersion() != null) {
+                    url += "&version=" + device.getKnownVersion();
+                }
+                request = HttpRequest.newBuilder(URI.create(url))
+                        .header("Accept-Encoding", "gzip")
+                        .header("User-Agent", device.getUserAgent())
+                        .timeout(Duration.ofSeconds(60))
+                        .GET()
+                        .build();
+            }
+
+            String op = operation;
+            long sent = bytesSent;
+            long sendNanos = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                    .whenComplete((response, error) -> complete(sync, op, sendNanos, sent, response, error));
+        } catch (RuntimeException e) {
+            report.recordError(operation == null ? LatencyReport.DOWNLOAD : operation, e.getClass().getSimpleName());
+            finish(sync);
+        }
+    }
+
+    private void complete(PendingSync sync, String operation, long sendNanos, long bytesSent,
+                          HttpResponse<byte[]> response, Throwable error) {
+        long endNanos = System.nanoTime();
+        SimulatedDevice device = sync.device;
+        try {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                report.recordError(operation, cause.getClass().getSimpleName());
+                return;
+            }
+            int status = response.statusCode();
+            byte[] body = response.body();
+            if (LatencyReport.UPLOAD.equals(operation)) {
+                // 上传结果以响应体中的业务状态码为准
+                String text = new String(body, 0, Math.min(body.length, 16), StandardCharsets.UTF_8);
+                if (status != 200 || !text.startsWith("{\"code\":200")) {
+                    report.recordError(operation, "HTTP " + status + " " + text);
+                    return;
+                }
+                device.setDirty(false);
+            } else if (status == 200) {
+                response.headers().firstValue("X-Cookie-Version")
+                        .ifPresent(version -> device.setKnownVersion(Integer.valueOf(version)));
+            } else if (status != 404) {
+                // 404 表示该用户的第一台设备尚未上传，扩展同样会收到
+                report.recordError(operation, "HTTP " + status);
+                return;
+            }
+            report.recordSuccess(operation, sync.intendedNanos, sendNanos, endNanos, bytesSent, body.length);
+            device.setHintInterval(response.headers().firstValueAsLong("X-Sync-Interval").orElse(0L));
+            device.setHintJitter(response.headers().firstValueAsLong("X-Sync-Jitter").orElse(0L));
+        } finally {
+            finish(sync);
+        }
+    }
+
+    /**
+     * 释放在途名额并安排下一次同步；计划时间已过时立即进入队列，不跳过
+     */
+    private void finish(PendingSync sync) {
+        inFlight.decrementAndGet();
+        permits.release();
+        SimulatedDevice device = sync.device;
+        long delaySeconds = device.getPeriodSeconds();
+        if (options.isHonorSyncHint() && device.getHintInterval() > 0) {
+            double offset = (ThreadLocalRandom.current().nextDouble() * 2 - 1) * device.getHintJitter();
+            delaySeconds = Math.max(MIN_ALARM_SECONDS, Math.round(device.getHintInterval() + offset));
+        }
+        schedule(device, sync.intendedNanos + scaledNanos(delaySeconds));
+    }
+
+    private long scaledNanos(long seconds) {
+        return (long) (TimeUnit.SECONDS.toNanos(seconds) / options.getTimeScale());
+    }
+
+    private static long elapsedSeconds(long start) {
+        return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 到期的一次同步，intendedNanos 为定时任务的计划触发时间
+     */
+    private static final class PendingSync {
+
+        private final SimulatedDevice device;
+
+        private final long intendedNanos;
+
+        private PendingSync(SimulatedDevice device, long intendedNanos) {
+            this.device = device;
+            this.intendedNanos = intendedNanos;
+        }
+    }
+}
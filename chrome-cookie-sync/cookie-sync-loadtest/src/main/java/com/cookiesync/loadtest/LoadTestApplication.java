@@ -0,0 +1,72 @@
+package com.cookiesync.loadtest;
+
+import com.cookiesync.CookieSyncApplication;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cookie同步压测工具启动类
+ * 未指定 --target 时在进程内启动后端（H2 + 内存Redis），模拟大量扩展按定时任务节奏同步，
+ * 结束后在输出目录写出 report.txt、summary.json 与各操作的 .hgrm 直方图；错误率超出允许范围时以状态码1退出
+ * <p>
+ * 示例：java -jar cookie-sync-loadtest-1.0.0.jar --users=5000 --duration=120s --time-scale=360
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public class LoadTestApplication {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+
+        LocalBackend backend = null;
+        String baseUrl = options.getTarget();
+        if (baseUrl == null) {
+            backend = new LocalBackend(options.getBackendArgs());
+            baseUrl = backend.getBaseUrl();
+        }
+
+        boolean passed;
+        try {
+            LatencyReport report = new LatencyReport();
+            LoadGenerator generator = new LoadGenerator(options, baseUrl, report);
+            System.out.println("=================================");
+            System.out.printf("Cookie同步压测开始 - 目标: %s, 用户: %d, 设备: %d, 预热: %ss, 时长: %ss%n",
+                    baseUrl, options.getUsers(), generator.getDeviceCount(),
+                    options.getWarmup().toSeconds(), options.getDuration().toSeconds());
+            System.out.println("=================================");
+            generator.run();
+
+            Map<String, Object> environment = new LinkedHashMap<>();
+            environment.put("target", backend == null ? baseUrl : "local (H2 MySQL模式 + 内存Redis)");
+            environment.put("backendVersion", backendVersion());
+            environment.put("java", System.getProperty("java.version"));
+            environment.put("os", System.getProperty("os.name") + " " + System.getProperty("os.arch"));
+            environment.put("cpus", Runtime.getRuntime().availableProcessors());
+            environment.put("maxHeapMb", Runtime.getRuntime().maxMemory() / 1024 / 1024);
+            if (backend != null) {
+                environment.put("redisKeys", backend.getRedisKeys());
+            }
+            Path output = Paths.get(options.getOutput());
+            passed = report.write(output, options, environment);
+            System.out.println("报告已写入: " + output.toAbsolutePath());
+        } finally {
+            if (backend != null) {
+                backend.close();
+            }
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * 被测后端的构建版本，本地启动时取自后端jar的清单
+     */
+    private static String backendVersion() {
+        Package backendPackage = CookieSyncApplication.class.getPackage();
+        String version = backendPackage == null ? null : backendPackage.getImplementationVersion();
+        return version == null ? "1.0.0" : version;
+    }
+}
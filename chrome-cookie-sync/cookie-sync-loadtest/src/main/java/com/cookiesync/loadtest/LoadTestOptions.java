@@ -0,0 +1,216 @@
+package com.cookiesync.loadtest;
+
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 压测参数，命令行以 --名称=值 的形式传入
+ * 以 --backend. 开头的参数原样传给本地启动的后端，如 --backend.cookie-sync.offheap.enabled=true
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Data
+public class LoadTestOptions {
+
+    private static final String BACKEND_PREFIX = "backend.";
+
+    /**
+     * 被测后端地址，为空时在进程内启动后端（H2 + 内存Redis）
+     */
+    private String target;
+
+    /**
+     * 模拟的用户数，每个用户有1~3台设备
+     */
+    private int users = 1000;
+
+    /**
+     * 压测时长，不含预热
+     */
+    private Duration duration = Duration.ofSeconds(60);
+
+    /**
+     * 预热时长，预热期间的请求不计入报告
+     */
+    private Duration warmup = Duration.ofSeconds(10);
+
+    /**
+     * 时间压缩倍数：扩展的同步周期按该倍数缩短，360表示每小时的同步压缩到10秒内
+     */
+    private double timeScale = 360;
+
+    /**
+     * 在途请求上限，达到后新请求排队等待，排队时间计入响应时间
+     */
+    private int maxInFlight = 512;
+
+    /**
+     * 每个用户Cookie数量的中位数（对数正态分布）
+     */
+    private int medianCookies = 150;
+
+    /**
+     * Cookie数量对数正态分布的σ
+     */
+    private double cookieSigma = 0.9;
+
+    /**
+     * 单个用户的Cookie数量上限
+     */
+    private int maxCookies = 3000;
+
+    /**
+     * 每台设备每（模拟）小时的Cookie变化概率参数，按泊松过程换算成每次同步前发生变化的概率
+     */
+    private double changeRate = 0.05;
+
+    /**
+     * 选择每小时同步的设备比例，其余为每天同步
+     */
+    private double hourlyRatio = 0.8;
+
+    /**
+     * 是否遵循服务端返回的 X-Sync-Interval / X-Sync-Jitter
+     */
+    private boolean honorSyncHint = true;
+
+    /**
+     * 上传时是否gzip压缩请求体（与扩展一致）
+     */
+    private boolean gzip = true;
+
+    /**
+     * 报告输出目录
+     */
+    private String output = "target/loadtest";
+
+    /**
+     * 控制台输出间隔
+     */
+    private Duration reportInterval = Duration.ofSeconds(5);
+
+    /**
+     * 允许的错误率，超过时以非零状态退出
+     */
+    private double maxErrorRate = 0.01;
+
+    /**
+     * 随机种子，相同种子生成相同的用户与Cookie
+     */
+    private long seed = 42;
+
+    /**
+     * 传给本地后端的参数
+     */
+    private List<String> backendArgs = new ArrayList<>();
+
+    public static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("无法识别的参数: " + arg);
+            }
+            int index = arg.indexOf('=');
+            String name = index < 0 ? arg.substring(2) : arg.substring(2, index);
+            String value = index < 0 ? "true" : arg.substring(index + 1);
+            if (name.startsWith(BACKEND_PREFIX)) {
+                options.backendArgs.add("--" + name.substring(BACKEND_PREFIX.length()) + "=" + value);
+            } else {
+                values.put(name, value);
+            }
+        }
+
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            String value = entry.getValue();
+            switch (entry.getKey()) {
+                case "target":
+                    options.target = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+                    break;
+                case "users":
+                    options.users = Integer.parseInt(value);
+                    break;
+                case "duration":
+                    options.duration = parseDuration(value);
+                    break;
+                case "warmup":
+                    options.warmup = parseDuration(value);
+                    break;
+                case "time-scale":
+                    options.timeScale = Double.parseDouble(value);
+                    break;
+                case "max-in-flight":
+                    options.maxInFlight = Integer.parseInt(value);
+                    break;
+                case "median-cookies":
+                    options.medianCookies = Integer.parseInt(value);
+                    break;
+                case "cookie-sigma":
+                    options.cookieSigma = Double.parseDouble(value);
+                    break;
+                case "max-cookies":
+                    options.maxCookies = Integer.parseInt(value);
+                    break;
+                case "change-rate":
+                    options.changeRate = Double.parseDouble(value);
+                    break;
+                case "hourly-ratio":
+                    options.hourlyRatio = Double.parseDouble(value);
+                    break;
+                case "honor-sync-hint":
+                    options.honorSyncHint = Boolean.parseBoolean(value);
+                    break;
+                case "gzip":
+                    options.gzip = Boolean.parseBoolean(value);
+                    break;
+                case "output":
+                    options.output = value;
+                    break;
+                case "report-interval":
+                    options.reportInterval = parseDuration(value);
+                    break;
+                case "max-error-rate":
+                    options.maxErrorRate = Double.parseDouble(value);
+                    break;
+                case "seed":
+                    options.seed = Long.parseLong(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知参数: --" + entry.getKey());
+            }
+        }
+
+        if (options.users <= 0 || options.maxInFlight <= 0 || options.timeScale <= 0) {
+            throw new IllegalArgumentException("users、max-in-flight、time-scale 必须大于0");
+        }
+        return options;
+    }
+
+    /**
+     * 支持 500ms、30s、5m、1h，不带单位时按秒计算
+     */
+    static Duration parseDuration(String value) {
+        String text = value.trim().toLowerCase();
+        if (text.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(text.substring(0, text.length() - 2)));
+        }
+        char unit = text.charAt(text.length() - 1);
+        String number = Character.isDigit(unit) ? text : text.substring(0, text.length() - 1);
+        long amount = Long.parseLong(number);
+        switch (unit) {
+            case 'm':
+                return Duration.ofMinutes(amount);
+            case 'h':
+                return Duration.ofHours(amount);
+            case 's':
+            default:
+                return Duration.ofSeconds(amount);
+        }
+    }
+}
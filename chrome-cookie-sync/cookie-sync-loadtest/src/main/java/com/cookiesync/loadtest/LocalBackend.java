@@ -0,0 +1,94 @@
+package com.cookiesync.loadtest;
+
+import com.cookiesync.CookieSyncApplication;
+import com.cookiesync.cache.CachedCookieData;
+import com.cookiesync.cache.CookieDataCache;
+import com.cookiesync.entity.CookieData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在压测进程内启动被测后端
+ * 数据库使用H2内存库（MySQL兼容模式），Redis使用 {@link MiniRedisServer}，端口随机分配；
+ * 压测结果反映的是后端自身（Servlet、加密、缓存、MyBatis）的开销，不代表生产MySQL/Redis的性能
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Slf4j
+public class LocalBackend implements Closeable {
+
+    private final MiniRedisServer redisServer;
+
+    private final ConfigurableApplicationContext context;
+
+    private final int port;
+
+    public LocalBackend(List<String> overrides) throws IOException {
+        redisServer = new MiniRedisServer();
+
+        List<String> args = new ArrayList<>();
+        args.add("--server.port=0");
+        args.add("--spring.datasource.driver-class-name=org.h2.Driver");
+        args.add("--spring.datasource.url=jdbc:h2:mem:cookie_sync;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+                + "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1");
+        args.add("--spring.datasource.username=sa");
+        args.add("--spring.datasource.password=");
+        args.add("--spring.datasource.hikari.connection-test-query=SELECT 1");
+        args.add("--spring.sql.init.mode=always");
+        args.add("--spring.sql.init.schema-locations=classpath:loadtest/schema-h2.sql");
+        args.add("--spring.data.redis.host=127.0.0.1");
+        args.add("--spring.data.redis.port=" + redisServer.getPort());
+        // 后端默认的DEBUG日志会成为瓶颈
+        args.add("--logging.level.com.cookiesync=WARN");
+        args.add("--logging.level.org.springframework.security=WARN");
+        args.add("--logging.level.org.mybatis=WARN");
+        // 压测用户的上传量远超每日配额
+        args.add("--cookie-sync.business.daily-upload-quota=0");
+        args.addAll(overrides);
+
+        log.info("正在启动本地后端 - 参数: {}", overrides);
+        context = new SpringApplicationBuilder(CookieSyncApplication.class).run(args.toArray(new String[0]));
+        port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+        warmUpRedis();
+    }
+
+    /**
+     * 预先走一遍缓存读写：首次调用需要加载Lettuce与序列化相关的类，在缓存熔断器的超时内完成不了时线程会被中断，
+     * 可执行jar中被中断的类加载会失败，之后该进程内的Redis调用将一直失败
+     */
+    @SuppressWarnings("unchecked")
+    private void warmUpRedis() {
+        RedisTemplate<String, Object> redisTemplate = context.getBean("redisTemplate", RedisTemplate.class);
+        String key = CookieDataCache.KEY_PREFIX + "loadtest-warmup";
+        CachedCookieData entry = new CachedCookieData();
+        entry.setData(new CookieData());
+        redisTemplate.opsForValue().set(key, entry, 1, TimeUnit.MINUTES);
+        redisTemplate.opsForValue().get(key);
+        redisTemplate.delete(List.of(key));
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + port;
+    }
+
+    public int getRedisKeys() {
+        return redisServer.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        redisServer.close();
+    }
+}
@@ -0,0 +1,388 @@
+package com.cookiesync.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 压测用的最小Redis兼容服务（RESP2，单库，数据只在内存中）
+ * 只实现后端缓存用到的命令：GET、MGET、SET、SETEX/PSETEX、DEL、EXISTS、SCAN，以及Lettuce建立连接时发送的握手命令；
+ * HELLO 返回错误，客户端随之退回RESP2协议
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Slf4j
+public class MiniRedisServer implements Closeable {
+
+    private static final byte[] OK = "+OK\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] NULL_BULK = "$-1\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * 键按ISO-8859-1解码，保证与原始字节一一对应
+     */
+    private final Map<String, Entry> data = new ConcurrentHashMap<>();
+
+    private final ServerSocket serverSocket;
+
+    private volatile boolean running = true;
+
+    public MiniRedisServer() throws IOException {
+        serverSocket = new ServerSocket(0, 128, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "mini-redis-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("内存Redis已启动 - 端口: {}", getPort());
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Thread handler = new Thread(() -> serve(socket), "mini-redis-" + socket.getPort());
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("内存Redis接受连接失败", e);
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             InputStream in = new BufferedInputStream(socket.getInputStream());
+             OutputStream out = new BufferedOutputStream(socket.getOutputStream())) {
+            while (running) {
+                List<byte[]> command = readCommand(in);
+                if (command == null) {
+                    return;
+                }
+                boolean quit = execute(command, out);
+                // 管道中还有命令时合并写出
+                if (in.available() == 0) {
+                    out.flush();
+                }
+                if (quit) {
+                    out.flush();
+                    return;
+                }
+            }
+        } catch (EOFException | SocketException e) {
+            // 客户端断开连接
+        } catch (IOException e) {
+            log.warn("内存Redis连接异常", e);
+        }
+    }
+
+    private boolean execute(List<byte[]> command, OutputStream out) throws IOException {
+        if (command.isEmpty()) {
+            return false;
+        }
+        String name = new String(command.get(0), StandardCharsets.US_ASCII).toUpperCase();
+        switch (name) {
+            case "GET":
+                writeBulk(out, get(key(command, 1)));
+                break;
+            case "MGET":
+                out.write(("*" + (command.size() - 1) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                for (int i = 1; i < command.size(); i++) {
+                    writeBulk(out, get(key(command, i)));
+                }
+                break;
+            case "SET":
+                set(command, out);
+                break;
+            case "SETEX":
+            case "PSETEX":
+                long expire = Long.parseLong(string(command, 2));
+                long expireMillis = "SETEX".equals(name) ? expire * 1000 : expire;
+                data.put(key(command, 1), new Entry(command.get(3), System.currentTimeMillis() + expireMillis));
+                out.write(OK);
+                break;
+            case "DEL":
+            case "UNLINK":
+                int deleted = 0;
+                for (int i = 1; i < command.size(); i++) {
+                    if (data.remove(key(command, i)) != null) {
+                        deleted++;
+                    }
+                }
+                writeInteger(out, deleted);
+                break;
+            case "EXISTS":
+                int exists = 0;
+                for (int i = 1; i < command.size(); i++) {
+                    if (get(key(command, i)) != null) {
+                        exists++;
+                    }
+                }
+                writeInteger(out, exists);
+                break;
+            case "PEXPIRE":
+            case "EXPIRE":
+                long ttl = Long.parseLong(string(command, 2));
+                Entry entry = data.get(key(command, 1));
+                if (entry == null || entry.isExpired()) {
+                    writeInteger(out, 0);
+                } else {
+                    long millis = "EXPIRE".equals(name) ? ttl * 1000 : ttl;
+                    data.put(key(command, 1), new Entry(entry.value, System.currentTimeMillis() + millis));
+                    writeInteger(out, 1);
+                }
+                break;
+            case "SCAN":
+                scan(command, out);
+                break;
+            case "DBSIZE":
+                writeInteger(out, data.size());
+                break;
+            case "FLUSHALL":
+            case "FLUSHDB":
+                data.clear();
+                out.write(OK);
+                break;
+            case "PING":
+                out.write("+PONG\r\n".getBytes(StandardCharsets.US_ASCII));
+                break;
+            case "INFO":
+                writeBulk(out, ("# Server\r\nredis_version:7.0.0\r\nredis_mode:standalone\r\n")
+                        .getBytes(StandardCharsets.US_ASCII));
+                break;
+            case "HELLO":
+                writeError(out, "ERR unknown command 'HELLO'");
+                break;
+            case "SELECT":
+            case "CLIENT":
+            case "AUTH":
+                out.write(OK);
+                break;
+            case "QUIT":
+                out.write(OK);
+                return true;
+            default:
+                writeError(out, "ERR unknown command '" + name + "'");
+                break;
+        }
+        return false;
+    }
+
+    private void set(List<byte[]> command, OutputStream out) throws IOException {
+        String key = key(command, 1);
+        byte[] value = command.get(2);
+        long expireAt = 0;
+        boolean onlyIfAbsent = false;
+        boolean onlyIfPresent = false;
+        for (int i = 3; i < command.size(); i++) {
+            String option = string(command, i).toUpperCase();
+            switch (option) {
+                case "PX":
+                    expireAt = System.currentTimeMillis() + Long.parseLong(string(command, ++i));
+                    break;
+                case "EX":
+                    expireAt = System.currentTimeMillis() + Long.parseLong(string(command, ++i)) * 1000;
+                    break;
+                case "NX":
+                    onlyIfAbsent = true;
+                    break;
+                case "XX":
+                    onlyIfPresent = true;
+                    break;
+                default:
+                    writeError(out, "ERR syntax error");
+                    return;
+            }
+        }
+        boolean present = get(key) != null;
+        if ((onlyIfAbsent && present) || (onlyIfPresent && !present)) {
+            out.write(NULL_BULK);
+            return;
+        }
+        data.put(key, new Entry(value, expireAt));
+        out.write(OK);
+    }
+
+    /**
+     * 一次返回全部匹配的键，游标始终为0
+     */
+    private void scan(List<byte[]> command, OutputStream out) throws IOException {
+        Pattern pattern = null;
+        for (int i = 2; i < command.size(); i++) {
+            if ("MATCH".equalsIgnoreCase(string(command, i))) {
+                pattern = globToRegex(key(command, ++i));
+            } else {
+                i++;
+            }
+        }
+        List<byte[]> keys = new ArrayList<>();
+        for (Map.Entry<String, Entry> entry : data.entrySet()) {
+            if (!entry.getValue().isExpired() && (pattern == null || pattern.matcher(entry.getKey()).matches())) {
+                keys.add(entry.getKey().getBytes(StandardCharsets.ISO_8859_1));
+            }
+        }
+        out.write("*2\r\n".getBytes(StandardCharsets.US_ASCII));
+        writeBulk(out, "0".getBytes(StandardCharsets.US_ASCII));
+        out.write(("*" + keys.size() + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        for (byte[] key : keys) {
+            writeBulk(out, key);
+        }
+    }
+
+    private byte[] get(String key) {
+        Entry entry = data.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired()) {
+            data.remove(key, entry);
+            return null;
+        }
+        return entry.value;
+    }
+
+    private static Pattern globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (char c : glob.toCharArray()) {
+            switch (c) {
+                case '*':
+                    regex.append(".*");
+                    break;
+                case '?':
+                    regex.append('.');
+                    break;
+                default:
+                    regex.append(Pattern.quote(String.valueOf(c)));
+                    break;
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    /**
+     * 读取一条命令，支持RESP数组与内联命令，连接关闭时返回null
+     */
+    private static List<byte[]> readCommand(InputStream in) throws IOException {
+        int first = in.read();
+        if (first < 0) {
+            return null;
+        }
+        if (first != '*') {
+            String line = (char) first + readLine(in);
+            List<byte[]> inline = new ArrayList<>();
+            for (String part : line.trim().split("\\s+")) {
+                if (!part.isEmpty()) {
+                    inline.add(part.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            return inline;
+        }
+        int count = Integer.parseInt(readLine(in));
+        List<byte[]> command = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (in.read() != '$') {
+                throw new IOException("协议错误：期望批量字符串");
+            }
+            int length = Integer.parseInt(readLine(in));
+            byte[] bytes = in.readNBytes(length);
+            if (bytes.length < length) {
+                throw new EOFException();
+            }
+            in.read();
+            in.read();
+            command.add(bytes);
+        }
+        return command;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != '\r') {
+            if (b < 0) {
+                throw new EOFException();
+            }
+            line.append((char) b);
+        }
+        in.read();
+        return line.toString();
+    }
+
+    private static String key(List<byte[]> command, int index) {
+        return new String(command.get(index), StandardCharsets.ISO_8859_1);
+    }
+
+    private static String string(List<byte[]> command, int index) {
+        return new String(command.get(index), StandardCharsets.US_ASCII);
+    }
+
+    private static void writeBulk(OutputStream out, byte[] value) throws IOException {
+        if (value == null) {
+            out.write(NULL_BULK);
+            return;
+        }
+        out.write(("$" + value.length + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(value);
+        out.write('\r');
+        out.write('\n');
+    }
+
+    private static void writeInteger(OutputStream out, long value) throws IOException {
+        out.write((":" + value + "\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void writeError(OutputStream out, String message) throws IOException {
+        out.write(("-" + message + "\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * 值与过期时间，expireAt为0表示不过期
+     */
+    private static final class Entry {
+
+        private final byte[] value;
+
+        private final long expireAt;
+
+        private Entry(byte[] value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+
+        private boolean isExpired() {
+            return expireAt > 0 && expireAt <= System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.cookiesync.loadtest;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 模拟的一台装有扩展的浏览器
+ * 与扩展的行为一致：定时任务触发时，本地Cookie有变化则上传，否则携带已知版本号下载；
+ * 下一次触发时间优先使用服务端返回的同步间隔建议，未收到建议时使用用户选择的同步频率
+ * 同一设备的同步串行执行，字段只由当前同步请求所在的线程访问
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Getter
+@Setter
+public class SimulatedDevice {
+
+    private final String userId;
+
+    private final int deviceIndex;
+
+    private final CookieJar jar;
+
+    /**
+     * 用户选择的同步周期（秒，未压缩）：每小时或每天
+     */
+    private final long periodSeconds;
+
+    private final String userAgent;
+
+    /**
+     * 上次同步后本地Cookie是否有变化
+     */
+    private boolean dirty;
+
+    /**
+     * 最近一次上传或下载得到的服务端版本号
+     */
+    private Integer knownVersion;
+
+    /**
+     * 服务端建议的同步间隔与抖动（秒），0表示未收到建议
+     */
+    private long hintInterval;
+
+    private long hintJitter;
+
+    /**
+     * 上次同步的计划时间（System.nanoTime）
+     */
+    private long lastSyncNanos;
+
+    public SimulatedDevice(String userId, int deviceIndex, CookieJar jar, long periodSeconds, String userAgent) {
+        this.userId = userId;
+        this.deviceIndex = deviceIndex;
+        this.jar = jar;
+        this.periodSeconds = periodSeconds;
+        this.userAgent = userAgent;
+    }
+}
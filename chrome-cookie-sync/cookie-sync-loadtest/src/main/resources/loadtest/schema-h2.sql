@@ -0,0 +1,91 @@
+-- 压测用H2（MySQL兼容模式）表结构，与 cookie-sync-backend/src/main/resources/sql/init.sql 保持一致
+-- 只包含同步链路涉及的表，H2不支持的MySQL语法（字符集、存储过程等）已去掉；主键使用H2原生的IDENTITY列，
+-- 压测时并发写入 sync_log 使用 AUTO_INCREMENT 曾出现重复主键
+
+CREATE TABLE IF NOT EXISTS `cookie_data` (
+  `id` bigint GENERATED BY DEFAULT AS IDENTITY,
+  `user_id` varchar(64) NOT NULL,
+  `encrypted_data` longtext NOT NULL,
+  `data_key` varchar(255) DEFAULT NULL,
+  `data_size` bigint NOT NULL DEFAULT 0,
+  `cookie_count` int NOT NULL DEFAULT 0,
+  `user_agent` varchar(512) DEFAULT NULL,
+  `client_ip` varchar(45) DEFAULT NULL,
+  `version` int NOT NULL DEFAULT 1,
+  `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  `expire_time` datetime NOT NULL,
+  `prune_time` datetime DEFAULT NULL,
+  `status` tinyint NOT NULL DEFAULT 0,
+  `remark` varchar(255) DEFAULT NULL,
+  PRIMARY KEY (`id`),
+  CONSTRAINT `uk_user_id` UNIQUE (`user_id`)
+);
+CREATE INDEX IF NOT EXISTS `idx_cookie_data_expire_time` ON `cookie_data` (`expire_time`);
+CREATE INDEX IF NOT EXISTS `idx_cookie_data_prune_time` ON `cookie_data` (`prune_time`);
+CREATE INDEX IF NOT EXISTS `idx_cookie_data_update_time` ON `cookie_data` (`update_time`);
+
+CREATE TABLE IF NOT EXISTS `cookie_entry` (
+  `id` bigint GENERATED BY DEFAULT AS IDENTITY,
+  `user_id` varchar(64) NOT NULL,
+  `domain` varchar(253) NOT NULL,
+  `path` varchar(255) NOT NULL DEFAULT '/',
+  `name` varchar(255) NOT NULL,
+  `encrypted_value` text NOT NULL,
+  `data_key` varchar(255) DEFAULT NULL,
+  `value_hash` char(64) NOT NULL,
+  `expire_time` datetime DEFAULT NULL,
+  `version` int NOT NULL DEFAULT 1,
+  `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`),
+  CONSTRAINT `uk_user_cookie` UNIQUE (`user_id`, `domain`, `path`, `name`)
+);
+CREATE INDEX IF NOT EXISTS `idx_user_expire_time` ON `cookie_entry` (`user_id`, `expire_time`);
+
+CREATE TABLE IF NOT EXISTS `cookie_archive` (
+  `user_id` varchar(64) NOT NULL,
+  `encrypted_data` longtext NOT NULL,
+  `version` int NOT NULL,
+  `archive_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`user_id`)
+);
+
+CREATE TABLE IF NOT EXISTS `sync_log` (
+  `id` bigint GENERATED BY DEFAULT AS IDENTITY,
+  `user_id` varchar(64) NOT NULL,
+  `operation_type` varchar(20) NOT NULL,
+  `data_size` bigint DEFAULT 0,
+  `cookie_count` int DEFAULT 0,
+  `client_ip` varchar(45) DEFAULT NULL,
+  `user_agent` varchar(512) DEFAULT NULL,
+  `success` tinyint NOT NULL DEFAULT 1,
+  `error_message` varchar(500) DEFAULT NULL,
+  `duration` int DEFAULT 0,
+  `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`)
+);
+CREATE INDEX IF NOT EXISTS `idx_sync_log_user_time` ON `sync_log` (`user_id`, `create_time`);
+CREATE INDEX IF NOT EXISTS `idx_sync_log_create_time` ON `sync_log` (`create_time`);
+
+CREATE TABLE IF NOT EXISTS `cookie_outbox` (
+  `id` bigint GENERATED BY DEFAULT AS IDENTITY,
+  `event_type` varchar(16) NOT NULL,
+  `user_id` varchar(64) DEFAULT NULL,
+  `version` int DEFAULT NULL,
+  `encrypted_data` longtext DEFAULT NULL,
+  `data_key` varchar(255) DEFAULT NULL,
+  `data_size` bigint DEFAULT NULL,
+  `cookie_count` int DEFAULT NULL,
+  `expire_time` datetime DEFAULT NULL,
+  `origin_node` varchar(128) NOT NULL,
+  `create_time` datetime(3) NOT NULL,
+  PRIMARY KEY (`id`)
+);
+
+CREATE TABLE IF NOT EXISTS `cookie_outbox_checkpoint` (
+  `name` varchar(64) NOT NULL,
+  `last_id` bigint NOT NULL DEFAULT 0,
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`name`)
+);
@@ -0,0 +1,26 @@
+package com.cookiesync.reactive;
+
+import com.cookiesync.util.EncryptionUtil;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Cookie同步响应式服务启动类
+ * 与阻塞版后端暴露相同的 /api/cookies/* 接口，复用其实体与加密代码，可并行部署对比
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@SpringBootApplication
+@Import(EncryptionUtil.class)
+public class CookieSyncReactiveApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(CookieSyncReactiveApplication.class, args);
+        System.out.println("=================================");
+        System.out.println("Cookie同步响应式服务启动成功！");
+        System.out.println("访问地址: http://localhost:8081");
+        System.out.println("=================================");
+    }
+}
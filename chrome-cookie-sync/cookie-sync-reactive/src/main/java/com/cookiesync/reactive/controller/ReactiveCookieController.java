@@ -0,0 +1,209 @@
+package com.cookiesync.reactive.controller;
+
+import com.cookiesync.entity.ApiResponse;
+import com.cookiesync.entity.CookieData;
+import com.cookiesync.entity.CookiePayload;
+import com.cookiesync.reactive.service.ReactiveCookieService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Cookie数据响应式控制器
+ * 接口路径、参数与响应结构与阻塞版 CookieController 保持一致
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/cookies")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class ReactiveCookieController {
+
+    private static final int STREAM_BUFFER_SIZE = 8192;
+
+    @Autowired
+    private ReactiveCookieService cookieService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 上传Cookie数据
+     */
+    @PostMapping("/upload")
+    public Mono<ApiResponse<String>> uploadCookieData(
+            @RequestParam(value = "userId", required = false, defaultValue = "anonymous") String userId,
+            @RequestBody String cookieDataJson,
+            ServerHttpRequest request) {
+
+        String userAgent = request.getHeaders().getFirst(HttpHeaders.USER_AGENT);
+        String clientIp = getClientIpAddress(request);
+
+        log.info("接收到Cookie上传请求 - 用户ID: {}, IP: {}", userId, clientIp);
+
+        return cookieService.uploadCookieData(userId, cookieDataJson, userAgent, clientIp);
+    }
+
+    /**
+     * 下载Cookie数据
+     */
+    @GetMapping("/download")
+    public Mono<ApiResponse<CookieData>> downloadCookieData(
+            @RequestParam(value = "userId", required = false, defaultValue = "anonymous") String userId,
+            @RequestParam(value = "version", required = false) Integer knownVersion,
+            ServerHttpRequest request) {
+
+        String userAgent = request.getHeaders().getFirst(HttpHeaders.USER_AGENT);
+        String clientIp = getClientIpAddress(request);
+
+        log.info("接收到Cookie下载请求 - 用户ID: {}, IP: {}", userId, clientIp);
+
+        return cookieService.downloadCookieData(userId, knownVersion, clientIp, userAgent);
+    }
+
+    /**
+     * 下载Cookie原始数据
+     * 负载按背压分块写出，慢速客户端不会占用线程；客户端支持GZIP时原样返回压缩字节，元数据通过响应头返回
+     */
+    @GetMapping("/download/raw")
+    public Mono<Void> downloadCookieDataRaw(
+            @RequestParam(value = "userId", required = false, defaultValue = "anonymous") String userId,
+            @RequestParam(value = "version", required = false) Integer knownVersion,
+            ServerHttpRequest request,
+            ServerHttpResponse response) {
+
+        String userAgent = request.getHeaders().getFirst(HttpHeaders.USER_AGENT);
+        String clientIp = getClientIpAddress(request);
+
+        log.info("接收到Cookie原始数据下载请求 - 用户ID: {}, IP: {}", userId, clientIp);
+
+        return cookieService.downloadCookiePayload(userId, knownVersion, clientIp, userAgent)
+                .flatMap(result -> {
+                    HttpHeaders headers = response.getHeaders();
+                    headers.setContentType(MediaType.APPLICATION_JSON);
+                    if (result.getCode() != 200) {
+                        response.setStatusCode(HttpStatus.valueOf(result.getCode()));
+                        return Mono.fromCallable(() -> response.bufferFactory().wrap(objectMapper.writeValueAsBytes(result)))
+                                .flatMap(buffer -> response.writeWith(Mono.just(buffer)));
+                    }
+
+                    CookiePayload payload = result.getData();
+                    CookieData metadata = payload.getMetadata();
+                    headers.set("X-Cookie-User-Id", metadata.getUserId());
+                    headers.set("X-Cookie-Version", String.valueOf(metadata.getVersion()));
+                    headers.set("X-Cookie-Count", String.valueOf(metadata.getCookieCount()));
+                    headers.set("X-Cookie-Data-Size", String.valueOf(metadata.getDataSize()));
+                    headers.set("X-Cookie-Update-Time", String.valueOf(metadata.getUpdateTime()));
+                    headers.set("X-Cookie-Expire-Time", String.valueOf(metadata.getExpireTime()));
+                    headers.set("X-Trace-Id", result.getTraceId());
+                    headers.set(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+                    boolean passThroughGzip = payload.isGzipped() && acceptsGzip(request);
+                    if (passThroughGzip) {
+                        // 设置Content-Encoding后Netty不会再次压缩
+                        headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+                    }
+
+                    // 读取负载流为阻塞操作，在弹性调度器上按需拉取
+                    return response.writeWith(DataBufferUtils
+                            .readInputStream(() -> openBody(payload, passThroughGzip), response.bufferFactory(), STREAM_BUFFER_SIZE)
+                            .subscribeOn(Schedulers.boundedElastic()));
+                });
+    }
+
+    /**
+     * 检查Cookie数据是否存在
+     */
+    @GetMapping("/exists")
+    public Mono<ApiResponse<Boolean>> checkCookieDataExists(@RequestParam("userId") String userId) {
+        log.info("检查Cookie数据存在性 - 用户ID: {}", userId);
+        return cookieService.checkCookieDataExists(userId);
+    }
+
+    /**
+     * 删除Cookie数据
+     */
+    @DeleteMapping("/delete")
+    public Mono<ApiResponse<String>> deleteCookieData(@RequestParam("userId") String userId) {
+        log.info("删除Cookie数据 - 用户ID: {}", userId);
+        return cookieService.deleteCookieData(userId);
+    }
+
+    /**
+     * 获取Cookie数据统计信息
+     */
+    @GetMapping("/stats")
+    public Mono<ApiResponse<Object>> getCookieDataStats(@RequestParam("userId") String userId) {
+        log.info("获取Cookie数据统计 - 用户ID: {}", userId);
+        return cookieService.getCookieDataStats(userId);
+    }
+
+    /**
+     * 健康检查接口
+     */
+    @GetMapping("/health")
+    public Mono<ApiResponse<String>> healthCheck() {
+        return Mono.just(ApiResponse.success("Cookie同步响应式服务运行正常"));
+    }
+
+    /**
+     * 打开响应体流，客户端不接受GZIP时在服务端解压
+     */
+    private InputStream openBody(CookiePayload payload, boolean passThroughGzip) throws IOException {
+        InputStream content = payload.getContent();
+        return payload.isGzipped() && !passThroughGzip ? new GZIPInputStream(content, STREAM_BUFFER_SIZE) : content;
+    }
+
+    /**
+     * 判断客户端是否接受GZIP编码
+     */
+    private boolean acceptsGzip(ServerHttpRequest request) {
+        String acceptEncoding = request.getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
+    /**
+     * 获取客户端真实IP地址
+     */
+    private String getClientIpAddress(ServerHttpRequest request) {
+        HttpHeaders headers = request.getHeaders();
+        String xForwardedFor = headers.getFirst("X-Forwarded-For");
+        if (xForwardedFor != null && !xForwardedFor.isEmpty() && !"unknown".equalsIgnoreCase(xForwardedFor)) {
+            return xForwardedFor.split(",")[0].trim();
+        }
+
+        String xRealIp = headers.getFirst("X-Real-IP");
+        if (xRealIp != null && !xRealIp.isEmpty() && !"unknown".equalsIgnoreCase(xRealIp)) {
+            return xRealIp;
+        }
+
+        String proxyClientIp = headers.getFirst("Proxy-Client-IP");
+        if (proxyClientIp != null && !proxyClientIp.isEmpty() && !"unknown".equalsIgnoreCase(proxyClientIp)) {
+            return proxyClientIp;
+        }
+
+        String wlProxyClientIp = headers.getFirst("WL-Proxy-Client-IP");
+        if (wlProxyClientIp != null && !wlProxyClientIp.isEmpty() && !"unknown".equalsIgnoreCase(wlProxyClientIp)) {
+            return wlProxyClientIp;
+        }
+
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        return remoteAddress != null ? remoteAddress.getAddress().getHostAddress() : null;
+    }
+}
@@ -0,0 +1,171 @@
+package com.cookiesync.reactive.repository;
+
+import com.cookiesync.entity.CookieData;
+import com.cookiesync.entity.CookieEntry;
+import com.cookiesync.service.CookieArchiveService;
+import io.r2dbc.spi.Readable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cookie数据响应式数据访问
+ * SQL与阻塞版 CookieDataMapper 保持一致
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Repository
+public class CookieDataRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public CookieDataRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * 插入Cookie数据，回填主键
+     */
+    public Mono<Integer> insert(CookieData cookieData) {
+        GenericExecuteSpec spec = databaseClient.sql(
+                "INSERT INTO cookie_data (user_id, encrypted_data, data_key, data_size, cookie_count, user_agent, client_ip, version, expire_time, remark) " +
+                "VALUES (:userId, :encryptedData, :dataKey, :dataSize, :cookieCount, :userAgent, :clientIp, :version, :expireTime, :remark)");
+        spec = bind(spec, "userId", cookieData.getUserId(), String.class);
+        spec = bind(spec, "encryptedData", cookieData.getEncryptedData(), String.class);
+        spec = bind(spec, "dataKey", cookieData.getDataKey(), String.class);
+        spec = bind(spec, "dataSize", cookieData.getDataSize(), Long.class);
+        spec = bind(spec, "cookieCount", cookieData.getCookieCount(), Integer.class);
+        spec = bind(spec, "userAgent", cookieData.getUserAgent(), String.class);
+        spec = bind(spec, "clientIp", cookieData.getClientIp(), String.class);
+        spec = bind(spec, "version", cookieData.getVersion(), Integer.class);
+        spec = bind(spec, "expireTime", cookieData.getExpireTime(), LocalDateTime.class);
+        spec = bind(spec, "remark", cookieData.getRemark(), String.class);
+        return spec.filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .doOnNext(cookieData::setId)
+                .thenReturn(1);
+    }
+
+    /**
+     * 根据用户ID查询Cookie数据，已归档的用户从 cookie_archive 读取加密数据
+     */
+    public Mono<CookieData> findByUserId(String userId) {
+        return selectByUserId(userId).flatMap(cookieData -> readArchived(cookieData)
+                // 归档已被并发的下载恢复，重新读取一次
+                .switchIfEmpty(Mono.defer(() -> selectByUserId(userId))));
+    }
+
+    private Mono<CookieData> selectByUserId(String userId) {
+        return databaseClient.sql("SELECT * FROM cookie_data WHERE user_id = :userId AND status = 0")
+                .bind("userId", userId)
+                .map(CookieDataRepository::mapRow)
+                .one();
+    }
+
+    /**
+     * 只读取归档数据，不写回 cookie_data，恢复由阻塞版后端在下载时完成
+     */
+    private Mono<CookieData> readArchived(CookieData cookieData) {
+        if (!CookieArchiveService.ARCHIVE_MARKER.equals(cookieData.getEncryptedData())) {
+            return Mono.just(cookieData);
+        }
+        return databaseClient.sql("SELECT encrypted_data FROM cookie_archive WHERE user_id = :userId")
+                .bind("userId", cookieData.getUserId())
+                .map(row -> row.get("encrypted_data", String.class))
+                .one()
+                .map(encryptedData -> {
+                    cookieData.setEncryptedData(encryptedData);
+                    return cookieData;
+                });
+    }
+
+    /**
+     * 按条目存储的用户：按 (域名, 路径, 名称) 顺序读取全部条目的加密值与数据密钥，与阻塞版 CookieEntryMapper.findByUserId 一致
+     */
+    public Flux<CookieEntry> findEntries(String userId) {
+        return databaseClient.sql("SELECT encrypted_value, data_key FROM cookie_entry WHERE user_id = :userId ORDER BY domain, path, name")
+                .bind("userId", userId)
+                .map(row -> {
+                    CookieEntry entry = new CookieEntry();
+                    entry.setEncryptedValue(row.get("encrypted_value", String.class));
+                    entry.setDataKey(row.get("data_key", String.class));
+                    return entry;
+                })
+                .all();
+    }
+
+    /**
+     * 更新Cookie数据
+     */
+    public Mono<Integer> updateByUserId(CookieData cookieData) {
+        GenericExecuteSpec spec = databaseClient.sql(
+                "UPDATE cookie_data SET encrypted_data = :encryptedData, data_key = :dataKey, data_size = :dataSize, " +
+                "cookie_count = :cookieCount, user_agent = :userAgent, client_ip = :clientIp, " +
+                "version = :version, expire_time = :expireTime, update_time = NOW() " +
+                "WHERE user_id = :userId AND status = 0");
+        spec = bind(spec, "encryptedData", cookieData.getEncryptedData(), String.class);
+        spec = bind(spec, "dataKey", cookieData.getDataKey(), String.class);
+        spec = bind(spec, "dataSize", cookieData.getDataSize(), Long.class);
+        spec = bind(spec, "cookieCount", cookieData.getCookieCount(), Integer.class);
+        spec = bind(spec, "userAgent", cookieData.getUserAgent(), String.class);
+        spec = bind(spec, "clientIp", cookieData.getClientIp(), String.class);
+        spec = bind(spec, "version", cookieData.getVersion(), Integer.class);
+        spec = bind(spec, "expireTime", cookieData.getExpireTime(), LocalDateTime.class);
+        spec = bind(spec, "userId", cookieData.getUserId(), String.class);
+        return spec.fetch().rowsUpdated().map(Long::intValue);
+    }
+
+    /**
+     * 根据用户ID删除Cookie数据（逻辑删除）
+     */
+    public Mono<Integer> deleteByUserId(String userId) {
+        return databaseClient.sql("UPDATE cookie_data SET status = 1, update_time = NOW() WHERE user_id = :userId")
+                .bind("userId", userId)
+                .fetch()
+                .rowsUpdated()
+                .map(Long::intValue);
+    }
+
+    /**
+     * 删除已不再是占位记录的用户的归档数据（上传覆盖或删除后），与阻塞版 CookieArchiveMapper.deleteOrphans 一致
+     */
+    public Mono<Integer> discardArchive(String userId) {
+        return databaseClient.sql("DELETE FROM cookie_archive WHERE user_id = :userId " +
+                        "AND NOT EXISTS (SELECT 1 FROM cookie_data d WHERE d.user_id = cookie_archive.user_id " +
+                        "AND d.encrypted_data = :marker AND d.status = 0)")
+                .bind("userId", userId)
+                .bind("marker", CookieArchiveService.ARCHIVE_MARKER)
+                .fetch()
+                .rowsUpdated()
+                .map(Long::intValue);
+    }
+
+    private static GenericExecuteSpec bind(GenericExecuteSpec spec, String name, Object value, Class<?> type) {
+        return value == null ? spec.bindNull(name, type) : spec.bind(name, value);
+    }
+
+    private static CookieData mapRow(Readable row) {
+        CookieData cookieData = new CookieData();
+        cookieData.setId(row.get("id", Long.class));
+        cookieData.setUserId(row.get("user_id", String.class));
+        cookieData.setEncryptedData(row.get("encrypted_data", String.class));
+        cookieData.setDataKey(row.get("data_key", String.class));
+        cookieData.setDataSize(row.get("data_size", Long.class));
+        cookieData.setCookieCount(row.get("cookie_count", Integer.class));
+        cookieData.setUserAgent(row.get("user_agent", String.class));
+        cookieData.setClientIp(row.get("client_ip", String.class));
+        cookieData.setVersion(row.get("version", Integer.class));
+        cookieData.setCreateTime(row.get("create_time", LocalDateTime.class));
+        cookieData.setUpdateTime(row.get("update_time", LocalDateTime.class));
+        cookieData.setExpireTime(row.get("expire_time", LocalDateTime.class));
+        cookieData.setStatus(row.get("status", Integer.class));
+        cookieData.setRemark(row.get("remark", String.class));
+        return cookieData;
+    }
+}
@@ -0,0 +1,51 @@
+package com.cookiesync.reactive.repository;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * 同步日志响应式数据访问
+ * SQL与阻塞版 SyncLogMapper 保持一致
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Repository
+public class SyncLogRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public SyncLogRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * 插入同步日志
+     */
+    public Mono<Integer> insertLog(String userId, String operationType, Long dataSize, Integer cookieCount,
+                                   String clientIp, String userAgent, Boolean success, String errorMessage,
+                                   Integer duration, LocalDateTime createTime) {
+        GenericExecuteSpec spec = databaseClient.sql(
+                "INSERT INTO sync_log (user_id, operation_type, data_size, cookie_count, client_ip, user_agent, success, error_message, duration, create_time) " +
+                "VALUES (:userId, :operationType, :dataSize, :cookieCount, :clientIp, :userAgent, :success, :errorMessage, :duration, :createTime)");
+        spec = bind(spec, "userId", userId, String.class);
+        spec = bind(spec, "operationType", operationType, String.class);
+        spec = bind(spec, "dataSize", dataSize, Long.class);
+        spec = bind(spec, "cookieCount", cookieCount, Integer.class);
+        spec = bind(spec, "clientIp", clientIp, String.class);
+        spec = bind(spec, "userAgent", userAgent, String.class);
+        spec = bind(spec, "success", success, Boolean.class);
+        spec = bind(spec, "errorMessage", errorMessage, String.class);
+        spec = bind(spec, "duration", duration, Integer.class);
+        spec = bind(spec, "createTime", createTime, LocalDateTime.class);
+        return spec.fetch().rowsUpdated().map(Long::intValue);
+    }
+
+    private static GenericExecuteSpec bind(GenericExecuteSpec spec, String name, Object value, Class<?> type) {
+        return value == null ? spec.bindNull(name, type) : spec.bind(name, value);
+    }
+}
@@ -0,0 +1,73 @@
+package com.cookiesync.reactive.service;
+
+import com.cookiesync.entity.ApiResponse;
+import com.cookiesync.entity.CookieData;
+import com.cookiesync.entity.CookiePayload;
+import reactor.core.publisher.Mono;
+
+/**
+ * Cookie数据响应式服务接口
+ * 语义与阻塞版 CookieService 一致
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+public interface ReactiveCookieService {
+
+    /**
+     * 上传Cookie数据
+     *
+     * @param userId 用户ID
+     * @param cookieDataJson Cookie数据JSON字符串
+     * @param userAgent 用户代理
+     * @param clientIp 客户端IP
+     * @return 上传结果
+     */
+    Mono<ApiResponse<String>> uploadCookieData(String userId, String cookieDataJson, String userAgent, String clientIp);
+
+    /**
+     * 下载Cookie数据
+     *
+     * @param userId 用户ID
+     * @param knownVersion 客户端已知的数据版本，缓存落后于该版本时读取数据库，可为空
+     * @param clientIp 客户端IP
+     * @param userAgent 用户代理
+     * @return Cookie数据
+     */
+    Mono<ApiResponse<CookieData>> downloadCookieData(String userId, Integer knownVersion, String clientIp, String userAgent);
+
+    /**
+     * 下载Cookie原始负载，负载保持存储时的压缩形态，由调用方直接写出
+     *
+     * @param userId 用户ID
+     * @param knownVersion 客户端已知的数据版本，缓存落后于该版本时读取数据库，可为空
+     * @param clientIp 客户端IP
+     * @param userAgent 用户代理
+     * @return Cookie原始负载
+     */
+    Mono<ApiResponse<CookiePayload>> downloadCookiePayload(String userId, Integer knownVersion, String clientIp, String userAgent);
+
+    /**
+     * 检查Cookie数据是否存在
+     *
+     * @param userId 用户ID
+     * @return 是否存在
+     */
+    Mono<ApiResponse<Boolean>> checkCookieDataExists(String userId);
+
+    /**
+     * 删除Cookie数据
+     *
+     * @param userId 用户ID
+     * @return 删除结果
+     */
+    Mono<ApiResponse<String>> deleteCookieData(String userId);
+
+    /**
+     * 获取Cookie数据统计信息
+     *
+     * @param userId 用户ID
+     * @return 统计信息
+     */
+    Mono<ApiResponse<Object>> getCookieDataStats(String userId);
+}
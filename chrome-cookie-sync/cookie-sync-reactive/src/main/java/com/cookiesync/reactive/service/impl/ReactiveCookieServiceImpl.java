@@ -0,0 +1,423 @@
+package com.cookiesync.reactive.service.impl;
+
+import com.cookiesync.cache.CachedCookieData;
+import com.cookiesync.cache.CookieDataCache;
+import com.cookiesync.entity.ApiResponse;
+import com.cookiesync.entity.CookieData;
+import com.cookiesync.entity.CookieEntry;
+import com.cookiesync.entity.CookiePayload;
+import com.cookiesync.reactive.repository.CookieDataRepository;
+import com.cookiesync.reactive.repository.SyncLogRepository;
+import com.cookiesync.reactive.service.ReactiveCookieService;
+import com.cookiesync.service.CookieEntryService;
+import com.cookiesync.util.CompressionUtil;
+import com.cookiesync.util.EncryptionUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Cookie数据响应式服务实现类
+ * 数据库与缓存访问全程非阻塞；压缩与加解密属于CPU密集且会等待加密线程池，切换到弹性调度器执行
+ *
+ * @author Cookie Sync Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Service
+public class ReactiveCookieServiceImpl implements ReactiveCookieService {
+
+    @Autowired
+    private CookieDataRepository cookieDataRepository;
+
+    @Autowired
+    private SyncLogRepository syncLogRepository;
+
+    @Autowired
+    private ReactiveRedisTemplate<String, Object> reactiveRedisTemplate;
+
+    @Autowired
+    private EncryptionUtil encryptionUtil;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final String REDIS_KEY_PREFIX = CookieDataCache.KEY_PREFIX;
+    private static final Duration CACHE_EXPIRE = Duration.ofHours(24);
+    private static final Duration NEGATIVE_CACHE_EXPIRE = Duration.ofSeconds(60);
+
+    @Value("${cookie-sync.sync-log.enabled:true}")
+    private boolean syncLogEnabled;
+
+    @Value("${cookie-sync.archive.enabled:false}")
+    private boolean archiveEnabled;
+
+    @Override
+    @Transactional
+    public Mono<ApiResponse<String>> uploadCookieData(String userId, String cookieDataJson, String userAgent, String clientIp) {
+        // 参数验证
+        if (!StringUtils.hasText(userId) || !StringUtils.hasText(cookieDataJson)) {
+            return Mono.just(ApiResponse.error("参数不能为空"));
+        }
+
+        return Mono.defer(() -> {
+            long startTime = System.currentTimeMillis();
+
+            return Mono.fromCallable(() -> {
+                        // 解析Cookie数据
+                        JsonNode cookieNode = objectMapper.readTree(cookieDataJson);
+                        int cookieCount;
+                        if (cookieNode.isArray()) {
+                            cookieCount = cookieNode.size();
+                        } else if (cookieNode.isObject() && cookieNode.has("cookies")) {
+                            JsonNode cookiesArray = cookieNode.get("cookies");
+                            cookieCount = cookiesArray.isArray() ? cookiesArray.size() : 0;
+                        } else {
+                            // 如果是测试数据或其他格式，设置默认值
+                            cookieCount = 1;
+                        }
+
+                        // 压缩后以新生成的数据密钥加密Cookie数据，下载时可直接以GZIP形式返回
+                        byte[] compressedData = CompressionUtil.gzip(cookieDataJson.getBytes(StandardCharsets.UTF_8));
+                        String dataKey = encryptionUtil.generateDataKey();
+                        String encryptedData = encryptionUtil.encryptBytes(dataKey, compressedData);
+
+                        CookieData cookieData = new CookieData();
+                        cookieData.setUserId(userId);
+                        cookieData.setEncryptedData(encryptedData);
+                        cookieData.setDataKey(dataKey);
+                        cookieData.setDataSize((long) encryptedData.length());
+                        cookieData.setCookieCount(cookieCount);
+                        cookieData.setUserAgent(userAgent);
+                        cookieData.setClientIp(clientIp);
+                        cookieData.setExpireTime(LocalDateTime.now().plusDays(30));
+                        return cookieData;
+                    })
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMap(cookieData -> cookieDataRepository.findByUserId(userId)
+                            .flatMap(existingData -> {
+                                cookieData.setId(existingData.getId());
+                                cookieData.setVersion(existingData.getVersion() + 1);
+                                cookieData.setUpdateTime(LocalDateTime.now());
+                                return cookieDataRepository.updateByUserId(cookieData)
+                                        .flatMap(updated -> discardArchive(userId, updated));
+                            })
+                            .switchIfEmpty(Mono.defer(() -> {
+                                cookieData.setVersion(1);  // 设置初始版本号
+                                cookieData.setCreateTime(LocalDateTime.now());
+                                cookieData.setUpdateTime(LocalDateTime.now());
+                                cookieData.setStatus(0);   // 设置状态为正常
+                                return cookieDataRepository.insert(cookieData);
+                            }))
+                            // 更新Redis缓存
+                            .then(writeCache(userId, cookieData, 0))
+                            .thenReturn(cookieData))
+                    .flatMap(cookieData -> {
+                        // 记录同步日志
+                        long duration = System.currentTimeMillis() - startTime;
+                        log.info("Cookie数据上传成功 - 用户ID: {}, Cookie数量: {}, 数据大小: {} bytes",
+                                userId, cookieData.getCookieCount(), cookieData.getDataSize());
+                        return recordSyncLog(userId, "UPLOAD", cookieData.getDataSize(), cookieData.getCookieCount(),
+                                clientIp, userAgent, Boolean.TRUE, null, (int) duration)
+                                .thenReturn(ApiResponse.success("Cookie数据上传成功"));
+                    })
+                    .onErrorResume(e -> {
+                        long duration = System.currentTimeMillis() - startTime;
+                        log.error("Cookie数据上传失败 - 用户ID: {}, 错误: {}", userId, e.getMessage(), e);
+                        return recordSyncLog(userId, "UPLOAD", 0L, 0, clientIp, userAgent,
+                                Boolean.FALSE, e.getMessage(), (int) duration)
+                                .thenReturn(ApiResponse.error("Cookie数据上传失败: " + e.getMessage()));
+                    });
+        });
+    }
+
+    @Override
+    public Mono<ApiResponse<CookieData>> downloadCookieData(String userId, Integer knownVersion, String clientIp, String userAgent) {
+        // 参数验证
+        if (!StringUtils.hasText(userId)) {
+            return Mono.just(ApiResponse.error("用户ID不能为空"));
+        }
+
+        return Mono.defer(() -> {
+            long startTime = System.currentTimeMillis();
+
+            return loadCookieData(userId, knownVersion)
+                    .flatMap(cookieData -> {
+                        // 检查数据是否过期
+                        if (cookieData.getExpireTime().isBefore(LocalDateTime.now())) {
+                            return Mono.just(ApiResponse.<CookieData>error("Cookie数据已过期"));
+                        }
+
+                        // 解密Cookie数据
+                        return Mono.fromCallable(() -> {
+                                    byte[] decryptedData = encryptionUtil.decryptToBytes(cookieData.getDataKey(), cookieData.getEncryptedData());
+                                    if (CompressionUtil.isGzip(decryptedData)) {
+                                        decryptedData = CompressionUtil.gunzip(decryptedData);
+                                    }
+                                    cookieData.setEncryptedData(new String(decryptedData, StandardCharsets.UTF_8));
+                                    cookieData.setDataKey(null);
+                                    return cookieData;
+                                })
+                                .subscribeOn(Schedulers.boundedElastic())
+                                .flatMap(decrypted -> {
+                                    // 记录同步日志
+                                    long duration = System.currentTimeMillis() - startTime;
+                                    log.info("Cookie数据下载成功 - 用户ID: {}, Cookie数量: {}", userId, decrypted.getCookieCount());
+                                    return recordSyncLog(userId, "DOWNLOAD", decrypted.getDataSize(),
+                                            decrypted.getCookieCount(), clientIp, userAgent,
+                                            Boolean.TRUE, null, (int) duration)
+                                            .thenReturn(ApiResponse.success(decrypted));
+                                });
+                    })
+                    .switchIfEmpty(Mono.fromSupplier(() -> ApiResponse.error("未找到Cookie数据")))
+                    .onErrorResume(e -> {
+                        long duration = System.currentTimeMillis() - startTime;
+                        log.error("Cookie数据下载失败 - 用户ID: {}, 错误: {}", userId, e.getMessage(), e);
+                        return recordSyncLog(userId, "DOWNLOAD", 0L, 0, clientIp, userAgent,
+                                Boolean.FALSE, e.getMessage(), (int) duration)
+                                .thenReturn(ApiResponse.error("Cookie数据下载失败: " + e.getMessage()));
+                    });
+        });
+    }
+
+    @Override
+    public Mono<ApiResponse<CookiePayload>> downloadCookiePayload(String userId, Integer knownVersion, String clientIp, String userAgent) {
+        // 参数验证
+        if (!StringUtils.hasText(userId)) {
+            return Mono.just(ApiResponse.badRequest("用户ID不能为空"));
+        }
+
+        return Mono.defer(() -> {
+            long startTime = System.currentTimeMillis();
+
+            return loadCookieData(userId, knownVersion)
+                    .flatMap(cookieData -> {
+                        // 检查数据是否过期
+                        if (cookieData.getExpireTime().isBefore(LocalDateTime.now())) {
+                            return Mono.just(ApiResponse.<CookiePayload>notFound("Cookie数据已过期"));
+                        }
+
+                        // 流式解密，保持压缩形态，由控制器直接写出
+                        return Mono.fromCallable(() -> {
+                                    InputStream content = new BufferedInputStream(
+                                            encryptionUtil.openDecryptStream(cookieData.getDataKey(), cookieData.getEncryptedData()));
+                                    cookieData.setEncryptedData(null);
+                                    cookieData.setDataKey(null);
+
+                                    // 读取魔数判断负载是否压缩
+                                    content.mark(2);
+                                    boolean gzipped = CompressionUtil.isGzip(content.readNBytes(2));
+                                    content.reset();
+                                    return new CookiePayload(cookieData, content, gzipped);
+                                })
+                                .subscribeOn(Schedulers.boundedElastic())
+                                .flatMap(payload -> {
+                                    // 记录同步日志
+                                    long duration = System.currentTimeMillis() - startTime;
+                                    log.info("Cookie原始数据下载成功 - 用户ID: {}, Cookie数量: {}", userId, cookieData.getCookieCount());
+                                    return recordSyncLog(userId, "DOWNLOAD", cookieData.getDataSize(),
+                                            cookieData.getCookieCount(), clientIp, userAgent,
+                                            Boolean.TRUE, null, (int) duration)
+                                            .thenReturn(ApiResponse.success(payload));
+                                });
+                    })
+                    .switchIfEmpty(Mono.fromSupplier(() -> ApiResponse.notFound("未找到Cookie数据")))
+                    .onErrorResume(e -> {
+                        long duration = System.currentTimeMillis() - startTime;
+                        log.error("Cookie原始数据下载失败 - 用户ID: {}, 错误: {}", userId, e.getMessage(), e);
+                        return recordSyncLog(userId, "DOWNLOAD", 0L, 0, clientIp, userAgent,
+                                Boolean.FALSE, e.getMessage(), (int) duration)
+                                .thenReturn(ApiResponse.error("Cookie数据下载失败: " + e.getMessage()));
+                    });
+        });
+    }
+
+    /**
+     * 加载Cookie数据，优先读取Redis缓存，未命中或缓存版本落后于客户端已知版本时查询数据库并回填缓存
+     * 缓存条目格式与阻塞版 CookieDataCache 一致，不存在的用户同样写入负缓存
+     */
+    private Mono<CookieData> loadCookieData(String userId, Integer knownVersion) {
+        Mono<Optional<CookieData>> fromDatabase = Mono.defer(() -> {
+            long startTime = System.currentTimeMillis();
+            return cookieDataRepository.findByUserId(userId)
+                    .flatMap(this::assembleEntries)
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .flatMap(cookieData -> writeCache(userId, cookieData.orElse(null), System.currentTimeMillis() - startTime)
+                            .doOnNext(cached -> log.debug("从数据库获取Cookie数据并缓存 - 用户ID: {}", userId))
+                            .thenReturn(cookieData));
+        });
+
+        return reactiveRedisTemplate.opsForValue().get(REDIS_KEY_PREFIX + userId)
+                .ofType(CachedCookieData.class)
+                .filter(entry -> entry.isNegative() ? knownVersion == null : !isStale(entry.getData(), knownVersion))
+                .doOnNext(entry -> log.debug("从Redis缓存获取Cookie数据 - 用户ID: {}, 负缓存: {}", userId, entry.isNegative()))
+                .map(entry -> Optional.ofNullable(entry.getData()))
+                .switchIfEmpty(fromDatabase)
+                .flatMap(Mono::justOrEmpty);
+    }
+
+    /**
+     * 按条目存储的用户组装全部条目，按整体存储的格式（gzip后用数据密钥加密）写回加密数据，
+     * 与阻塞版 CookieServiceImpl.readCookieData 一致，缓存与下载路径无需区分存储方式
+     */
+    private Mono<CookieData> assembleEntries(CookieData cookieData) {
+        if (!CookieEntryService.ENTRY_MARKER.equals(cookieData.getEncryptedData())) {
+            return Mono.just(cookieData);
+        }
+        return cookieDataRepository.findEntries(cookieData.getUserId())
+                .collectList()
+                .publishOn(Schedulers.boundedElastic())
+                .map(entries -> {
+                    ArrayNode cookies = objectMapper.createArrayNode();
+                    for (CookieEntry entry : entries) {
+                        try {
+                            byte[] json = encryptionUtil.decryptToBytes(entry.getDataKey(), entry.getEncryptedValue());
+                            cookies.add(objectMapper.readTree(new String(json, StandardCharsets.UTF_8)));
+                        } catch (JsonProcessingException e) {
+                            throw new IllegalStateException("Cookie条目解析失败 - 用户ID: " + cookieData.getUserId(), e);
+                        }
+                    }
+                    byte[] compressedData = CompressionUtil.gzip(cookies.toString().getBytes(StandardCharsets.UTF_8));
+                    cookieData.setEncryptedData(encryptionUtil.encryptBytes(cookieData.getDataKey(), compressedData));
+                    return cookieData;
+                });
+    }
+
+    /**
+     * 写入缓存，TTL不超过数据过期时间，不存在的用户使用短TTL
+     */
+    private Mono<Boolean> writeCache(String userId, CookieData cookieData, long loadMillis) {
+        Duration ttl = cookieData == null ? NEGATIVE_CACHE_EXPIRE : CACHE_EXPIRE;
+        if (cookieData != null && cookieData.getExpireTime() != null) {
+            Duration remaining = Duration.between(LocalDateTime.now(), cookieData.getExpireTime());
+            ttl = remaining.compareTo(Duration.ofSeconds(1)) < 0 ? NEGATIVE_CACHE_EXPIRE
+                    : remaining.compareTo(ttl) < 0 ? remaining : ttl;
+        }
+        CachedCookieData entry = new CachedCookieData(cookieData, loadMillis, System.currentTimeMillis() + ttl.toMillis());
+        return reactiveRedisTemplate.opsForValue().set(REDIS_KEY_PREFIX + userId, entry, ttl);
+    }
+
+    @Override
+    public Mono<ApiResponse<Boolean>> checkCookieDataExists(String userId) {
+        if (!StringUtils.hasText(userId)) {
+            return Mono.just(ApiResponse.error("用户ID不能为空"));
+        }
+
+        // 通过缓存检查，负缓存的键同样存在，不能只判断键是否存在
+        return loadCookieData(userId, null)
+                .map(cookieData -> cookieData.getExpireTime().isAfter(LocalDateTime.now()))
+                .defaultIfEmpty(false)
+                .map(ApiResponse::success)
+                .onErrorResume(e -> {
+                    log.error("检查Cookie数据存在性失败 - 用户ID: {}, 错误: {}", userId, e.getMessage(), e);
+                    return Mono.just(ApiResponse.error("检查失败: " + e.getMessage()));
+                });
+    }
+
+    @Override
+    @Transactional
+    public Mono<ApiResponse<String>> deleteCookieData(String userId) {
+        if (!StringUtils.hasText(userId)) {
+            return Mono.just(ApiResponse.error("用户ID不能为空"));
+        }
+
+        // 删除数据库记录后删除Redis缓存
+        return cookieDataRepository.deleteByUserId(userId)
+                .flatMap(deleted -> discardArchive(userId, deleted))
+                .flatMap(deleted -> reactiveRedisTemplate.delete(REDIS_KEY_PREFIX + userId).thenReturn(deleted))
+                .map(deleted -> {
+                    if (deleted > 0) {
+                        log.info("Cookie数据删除成功 - 用户ID: {}", userId);
+                        return ApiResponse.success("Cookie数据删除成功");
+                    }
+                    return ApiResponse.<String>error("未找到要删除的数据");
+                })
+                .onErrorResume(e -> {
+                    log.error("Cookie数据删除失败 - 用户ID: {}, 错误: {}", userId, e.getMessage(), e);
+                    return Mono.just(ApiResponse.error("删除失败: " + e.getMessage()));
+                });
+    }
+
+    @Override
+    public Mono<ApiResponse<Object>> getCookieDataStats(String userId) {
+        if (!StringUtils.hasText(userId)) {
+            return Mono.just(ApiResponse.error("用户ID不能为空"));
+        }
+
+        return cookieDataRepository.findByUserId(userId)
+                .map(cookieData -> {
+                    Map<String, Object> stats = new HashMap<>();
+                    stats.put("cookieCount", cookieData.getCookieCount());
+                    stats.put("dataSize", cookieData.getDataSize());
+                    stats.put("version", cookieData.getVersion());
+                    stats.put("createTime", cookieData.getCreateTime());
+                    stats.put("updateTime", cookieData.getUpdateTime());
+                    stats.put("expireTime", cookieData.getExpireTime());
+                    return ApiResponse.<Object>success(stats);
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> ApiResponse.error("未找到Cookie数据")))
+                .onErrorResume(e -> {
+                    log.error("获取Cookie数据统计失败 - 用户ID: {}, 错误: {}", userId, e.getMessage(), e);
+                    return Mono.just(ApiResponse.error("获取统计信息失败: " + e.getMessage()));
+                });
+    }
+
+    /**
+     * 数据版本是否落后于客户端已知版本
+     */
+    private boolean isStale(CookieData cookieData, Integer knownVersion) {
+        return knownVersion != null && cookieData.getVersion() != null && cookieData.getVersion() < knownVersion;
+    }
+
+    /**
+     * 占位记录被覆盖或删除后删除归档数据，仍是占位记录时不删除；删除失败只留下多余归档，下次归档时覆盖
+     */
+    private Mono<Integer> discardArchive(String userId, int affected) {
+        if (!archiveEnabled || affected == 0) {
+            return Mono.just(affected);
+        }
+        return cookieDataRepository.discardArchive(userId)
+                .onErrorResume(e -> {
+                    log.warn("删除归档数据失败 - 用户ID: {}, 错误: {}", userId, e.getMessage());
+                    return Mono.just(0);
+                })
+                .thenReturn(affected);
+    }
+
+    /**
+     * 记录同步日志，日志写入失败不影响同步结果
+     */
+    private Mono<Void> recordSyncLog(String userId, String operationType, Long dataSize, Integer cookieCount,
+                                     String clientIp, String userAgent, Boolean success, String errorMessage,
+                                     Integer duration) {
+        if (!syncLogEnabled) {
+            return Mono.empty();
+        }
+        return syncLogRepository.insertLog(userId, operationType, dataSize, cookieCount, clientIp, userAgent,
+                        success, errorMessage, duration, LocalDateTime.now())
+                .onErrorResume(e -> {
+                    log.warn("同步日志写入失败 - 用户ID: {}, 操作: {}, 错误: {}", userId, operationType, e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+}